@@ -0,0 +1,63 @@
+package Benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Services.GestorDeTarefas;
+import Services.Tarefa;
+
+/**
+ * Inserção em massa: tempo para adicionar {@code tamanho} tarefas a um
+ * gestor vazio (inclui a deteção de duplicados e a indexação).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AdicionarTarefasBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int tamanho;
+
+    private Tarefa[] tarefas;
+
+    /**
+     * Uma tarefa adicionada fica associada ao gestor e é rejeitada por outro
+     * (ver {@code Tarefa#isAssociada()}), pelo que são recriadas a cada iteração.
+     */
+    @Setup(Level.Iteration)
+    public void preparar() {
+        tarefas = DadosDeTeste.tarefas(tamanho);
+    }
+
+    @Benchmark
+    public GestorDeTarefas adicionarTarefas() {
+        var gestor = new GestorDeTarefas();
+        for (var tarefa : tarefas) {
+            gestor.adicionarTarefa(tarefa);
+        }
+        return gestor;
+    }
+
+    @Benchmark
+    public GestorDeTarefas adicionarEmLote() {
+        var gestor = new GestorDeTarefas();
+        gestor.adicionarTarefas(Arrays.asList(tarefas));
+        return gestor;
+    }
+}
@@ -0,0 +1,190 @@
+package Benchmarks;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import Entities.Estado;
+import Services.GestorDeTarefasConcorrente;
+import Services.HistogramaDeLatencia;
+import Services.ServidorHTTP;
+
+/**
+ * Cliente de carga para o {@link ServidorHTTP}, para verificação local.
+ *
+ * <p>Abre várias ligações persistentes em simultâneo (uma thread virtual
+ * por ligação) e, durante o tempo indicado, envia pedidos com a mistura
+ * 80% {@code GET /tarefas/{titulo}}, 15% {@code PUT /tarefas/{titulo}/estado}
+ * e 5% {@code GET /contagem}, sobre as tarefas {@code Tarefa-0} a
+ * {@code Tarefa-(n-1)}. No fim apresenta o débito e os percentis de latência.</p>
+ *
+ * <p>Os pedidos são escritos e as respostas lidas diretamente sobre o
+ * socket, em HTTP/1.1, para que o custo do próprio cliente não limite as
+ * medições (o {@code java.net.http.HttpClient} fica muito aquém do
+ * servidor).</p>
+ *
+ * <pre>
+ * mvn -P jmh package
+ * java -cp target/benchmarks.jar Benchmarks.ClienteDeCarga [url] [ligações] [segundos] [tarefas]
+ * </pre>
+ *
+ * <p>Sem URL (ou com {@code -}), arranca um servidor embutido numa porta
+ * livre, já preenchido; com URL, cria primeiro as tarefas no servidor
+ * indicado.</p>
+ */
+public final class ClienteDeCarga {
+
+    private ClienteDeCarga() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var url = args.length > 0 && !args[0].equals("-") ? URI.create(args[0]) : null;
+        var ligacoes = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        var segundos = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        var tarefas = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+
+        ServidorHTTP embutido = null;
+        InetSocketAddress endereco;
+        if (url == null) {
+            var gestor = new GestorDeTarefasConcorrente();
+            for (var tarefa : DadosDeTeste.tarefas(tarefas)) {
+                gestor.adicionarTarefa(tarefa);
+            }
+            embutido = ServidorHTTP.iniciar(gestor, new InetSocketAddress("localhost", 0));
+            endereco = embutido.getEndereco();
+        } else {
+            endereco = new InetSocketAddress(url.getHost(), url.getPort() != -1 ? url.getPort() : 80);
+        }
+
+        try {
+            if (embutido == null) {
+                criarTarefas(endereco, tarefas);
+            }
+            executar(endereco, ligacoes, segundos, tarefas);
+        } finally {
+            if (embutido != null) {
+                embutido.close();
+            }
+        }
+    }
+
+    private static void criarTarefas(InetSocketAddress endereco, int tarefas) throws IOException {
+        try (var ligacao = new Ligacao(endereco)) {
+            for (var i = 0; i < tarefas; i++) {
+                ligacao.pedir("POST", "/tarefas",
+                        "titulo=" + DadosDeTeste.titulo(i) + "&descricao=Carga&prioridade=MEDIA");
+            }
+        }
+    }
+
+    private static void executar(InetSocketAddress endereco, int ligacoes, int segundos, int tarefas)
+            throws InterruptedException {
+
+        var latencias = new HistogramaDeLatencia();
+        var erros = new LongAdder();
+        var estados = Estado.values();
+        var fim = System.nanoTime() + Duration.ofSeconds(segundos).toNanos();
+
+        var trabalhadores = new Thread[ligacoes];
+        for (var l = 0; l < ligacoes; l++) {
+            trabalhadores[l] = Thread.ofVirtual().start(() -> {
+                var aleatorio = ThreadLocalRandom.current();
+                try (var ligacao = new Ligacao(endereco)) {
+                    while (System.nanoTime() < fim) {
+                        var tarefa = "/tarefas/" + DadosDeTeste.titulo(aleatorio.nextInt(tarefas));
+                        var sorteio = aleatorio.nextInt(100);
+
+                        var inicio = System.nanoTime();
+                        var codigo = sorteio < 80 ? ligacao.pedir("GET", tarefa, null)
+                                : sorteio < 95 ? ligacao.pedir("PUT", tarefa + "/estado",
+                                        "estado=" + estados[aleatorio.nextInt(estados.length)])
+                                : ligacao.pedir("GET", "/contagem", null);
+                        latencias.registar(System.nanoTime() - inicio);
+
+                        if (codigo >= 400) {
+                            erros.increment();
+                        }
+                    }
+                } catch (IOException e) {
+                    erros.increment();
+                }
+            });
+        }
+        for (var trabalhador : trabalhadores) {
+            trabalhador.join();
+        }
+
+        var pedidos = latencias.getContagem();
+        System.out.printf(Locale.ROOT, "%d pedidos em %d s com %d ligações: %.0f pedidos/s, %d erros%n",
+                pedidos, segundos, ligacoes, (double) pedidos / segundos, erros.sum());
+        System.out.printf(Locale.ROOT, "latência (µs): média %.1f, p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, máximo %.1f%n",
+                latencias.getMedia() / 1_000, latencias.percentil(50) / 1_000.0, latencias.percentil(90) / 1_000.0,
+                latencias.percentil(99) / 1_000.0, latencias.percentil(99.9) / 1_000.0, latencias.getMaximo() / 1_000.0);
+    }
+
+    /** Ligação HTTP/1.1 persistente, com pedidos e respostas de tamanho conhecido. */
+    private static final class Ligacao implements AutoCloseable {
+
+        private final Socket socket;
+        private final OutputStream saida;
+        private final InputStream entrada;
+        private final StringBuilder linha = new StringBuilder(128);
+
+        Ligacao(InetSocketAddress endereco) throws IOException {
+            socket = new Socket(endereco.getAddress(), endereco.getPort());
+            socket.setTcpNoDelay(true);
+            saida = socket.getOutputStream();
+            entrada = new BufferedInputStream(socket.getInputStream(), 1 << 16);
+        }
+
+        /** Envia um pedido e lê a resposta completa, devolvendo o código de estado. */
+        int pedir(String metodo, String caminho, String formulario) throws IOException {
+            var corpo = formulario != null ? formulario.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            var cabecalhos = metodo + " " + caminho + " HTTP/1.1\r\nHost: localhost\r\n"
+                    + (formulario != null ? "Content-Type: application/x-www-form-urlencoded\r\n" : "")
+                    + "Content-Length: " + corpo.length + "\r\n\r\n";
+            saida.write(cabecalhos.getBytes(StandardCharsets.US_ASCII));
+            saida.write(corpo);
+            saida.flush();
+
+            var estado = lerLinha();
+            var codigo = Integer.parseInt(estado.substring(9, 12));
+            var comprimento = 0;
+            for (var cabecalho = lerLinha(); !cabecalho.isEmpty(); cabecalho = lerLinha()) {
+                if (cabecalho.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    comprimento = Integer.parseInt(cabecalho.substring(15).trim());
+                }
+            }
+            entrada.skipNBytes(comprimento);
+            return codigo;
+        }
+
+        private String lerLinha() throws IOException {
+            linha.setLength(0);
+            int c;
+            while ((c = entrada.read()) != '\n') {
+                if (c < 0) {
+                    throw new IOException("Ligação fechada pelo servidor.");
+                }
+                if (c != '\r') {
+                    linha.append((char) c);
+                }
+            }
+            return linha.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
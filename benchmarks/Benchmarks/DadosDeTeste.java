@@ -0,0 +1,67 @@
+package Benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+
+import Entities.Estado;
+import Entities.Prioridade;
+import Services.GestorDeTarefas;
+import Services.Tarefa;
+
+/**
+ * Geração determinística de tarefas para os benchmarks.
+ * 
+ * <p>As tarefas têm títulos únicos ({@code Tarefa-0}, {@code Tarefa-1}, ...),
+ * descrições de dimensão realista e prioridades e estados distribuídos de
+ * forma uniforme, sempre com a mesma semente, para que os resultados de
+ * execuções diferentes sejam comparáveis.</p>
+ */
+final class DadosDeTeste {
+
+    private static final long SEMENTE = 42L;
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private DadosDeTeste() {
+    }
+
+    /** Título da i-ésima tarefa gerada. */
+    static String titulo(int i) {
+        return "Tarefa-" + i;
+    }
+
+    /** Títulos das primeiras {@code quantidade} tarefas. */
+    static String[] titulos(int quantidade) {
+        var titulos = new String[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            titulos[i] = titulo(i);
+        }
+        return titulos;
+    }
+
+    /** Cria {@code quantidade} tarefas novas (ainda não associadas a nenhum gestor). */
+    static Tarefa[] tarefas(int quantidade) {
+        var aleatorio = new SplittableRandom(SEMENTE);
+        var prioridades = Prioridade.values();
+        var estados = Estado.values();
+        var tarefas = new Tarefa[quantidade];
+
+        for (int i = 0; i < quantidade; i++) {
+            tarefas[i] = new Tarefa(
+                    titulo(i),
+                    "Descrição da tarefa " + i + " gerada para efeitos de medição de desempenho",
+                    INICIO.plusSeconds(i),
+                    prioridades[aleatorio.nextInt(prioridades.length)],
+                    estados[aleatorio.nextInt(estados.length)]);
+        }
+        return tarefas;
+    }
+
+    /** Cria um gestor já preenchido com {@code quantidade} tarefas. */
+    static GestorDeTarefas gestor(int quantidade) {
+        var gestor = new GestorDeTarefas();
+        for (var tarefa : tarefas(quantidade)) {
+            gestor.adicionarTarefa(tarefa);
+        }
+        return gestor;
+    }
+}
@@ -0,0 +1,62 @@
+package Benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Entities.Estado;
+import Entities.TarefaNaoEncontradaException;
+import Services.GestorDeTarefasConcorrente;
+import Services.Tarefa;
+
+/**
+ * Escalabilidade do {@link GestorDeTarefasConcorrente}: pesquisas e
+ * mudanças de estado executadas em simultâneo por várias threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Threads(Threads.MAX)
+public class GestorConcorrenteBenchmark {
+
+    @Param({"100000"})
+    public int tamanho;
+
+    private GestorDeTarefasConcorrente gestor;
+    private String[] titulos;
+
+    @Setup
+    public void preparar() {
+        gestor = new GestorDeTarefasConcorrente();
+        for (var tarefa : DadosDeTeste.tarefas(tamanho)) {
+            gestor.adicionarTarefa(tarefa);
+        }
+        titulos = DadosDeTeste.titulos(tamanho);
+    }
+
+    @Benchmark
+    public Tarefa buscarPorTitulo() throws TarefaNaoEncontradaException {
+        return gestor.buscarPorTitulo(titulos[ThreadLocalRandom.current().nextInt(titulos.length)]);
+    }
+
+    @Benchmark
+    public void alterarEstado() throws TarefaNaoEncontradaException {
+        var aleatorio = ThreadLocalRandom.current();
+        gestor.alterarEstado(titulos[aleatorio.nextInt(titulos.length)], Estado.values()[aleatorio.nextInt(3)]);
+    }
+}
@@ -0,0 +1,86 @@
+package Benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Entities.Estado;
+import Entities.TarefaNaoEncontradaException;
+import Services.GestorDeTarefas;
+import Services.Tarefa;
+
+/**
+ * Operações de consulta e de alteração sobre um gestor já preenchido.
+ * 
+ * <p>Cada operação é medida em débito (operações por segundo) e em
+ * amostragem de latência, que inclui os percentis p50/p90/p99/p99.9.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class GestorDeTarefasBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int tamanho;
+
+    private GestorDeTarefas gestor;
+    private String[] titulos;
+    private int proximo;
+
+    @Setup
+    public void preparar() {
+        gestor = DadosDeTeste.gestor(tamanho);
+        titulos = DadosDeTeste.titulos(tamanho);
+    }
+
+    /** Título existente, escolhido de forma circular para evitar padrões de cache triviais. */
+    private String proximoTitulo() {
+        proximo = (proximo + 7919) % titulos.length;
+        return titulos[proximo];
+    }
+
+    @Benchmark
+    public Tarefa buscarPorTituloExistente() throws TarefaNaoEncontradaException {
+        return gestor.buscarPorTitulo(proximoTitulo().toUpperCase());
+    }
+
+    @Benchmark
+    public Object buscarPorTituloInexistente() {
+        try {
+            return gestor.buscarPorTitulo("Inexistente-" + proximoTitulo());
+        } catch (TarefaNaoEncontradaException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public List<Tarefa> listarPorEstado() {
+        return gestor.listarPorEstado(Estado.PENDENTE);
+    }
+
+    @Benchmark
+    public int contarPorEstado() {
+        return gestor.contarTarefas(Estado.EM_PROGRESSO);
+    }
+
+    @Benchmark
+    public void alterarEstado() throws TarefaNaoEncontradaException {
+        var indice = proximo;
+        var titulo = proximoTitulo();
+        gestor.alterarEstado(titulo, Estado.values()[indice % 3]);
+    }
+}
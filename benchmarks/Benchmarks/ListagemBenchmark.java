@@ -0,0 +1,70 @@
+package Benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Entities.Prioridade;
+import Services.GestorDeTarefas;
+import Services.PaginaDeTarefas;
+import Services.Tarefa;
+
+/**
+ * Listagens: cópia completa, página por deslocamento, página por cursor a
+ * meio da listagem e travessia paralela sem cópia.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ListagemBenchmark {
+
+    private static final int TAMANHO_PAGINA = 50;
+
+    @Param({"1000", "100000", "1000000"})
+    public int tamanho;
+
+    private GestorDeTarefas gestor;
+    private String cursorMeio;
+
+    @Setup
+    public void preparar() {
+        gestor = DadosDeTeste.gestor(tamanho);
+        cursorMeio = gestor.listarPagina(null, tamanho / 2).getProximoCursor();
+    }
+
+    @Benchmark
+    public List<Tarefa> listarTarefas() {
+        return gestor.listarTarefas();
+    }
+
+    @Benchmark
+    public List<Tarefa> listarPrimeiraPagina() {
+        return gestor.listarTarefas(0, TAMANHO_PAGINA);
+    }
+
+    @Benchmark
+    public PaginaDeTarefas listarPaginaPorCursor() {
+        return gestor.listarPagina(cursorMeio, TAMANHO_PAGINA);
+    }
+
+    @Benchmark
+    public long contarAltaPrioridadeEmParalelo() {
+        return gestor.percorrerTarefas().parallel()
+                .filter(t -> t.getPrioridade() == Prioridade.ALTA)
+                .count();
+    }
+}
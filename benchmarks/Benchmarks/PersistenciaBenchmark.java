@@ -0,0 +1,123 @@
+package Benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Services.GestorDeTarefas;
+
+/**
+ * Persistência e relatórios: escrita e leitura do ficheiro XML, do
+ * snapshot binário e do armazém mapeado em memória e geração do relatório
+ * HTML (com e sem os fragmentos já produzidos em memória), num diretório
+ * temporário.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PersistenciaBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int tamanho;
+
+    private GestorDeTarefas gestor;
+    private Path diretorio;
+    private String xml;
+    private String binario;
+    private String mapeado;
+    private String html;
+
+    @Setup
+    public void preparar() throws Exception {
+        gestor = DadosDeTeste.gestor(tamanho);
+        diretorio = Files.createTempDirectory("gestor-benchmark");
+        xml = diretorio.resolve("tarefas.xml").toString();
+        binario = diretorio.resolve("tarefas.bin").toString();
+        mapeado = diretorio.resolve("tarefas.map").toString();
+        html = diretorio.resolve("relatorio.html").toString();
+
+        gestor.guardarEmXML(xml);
+        gestor.guardarEmBinario(binario);
+        gestor.guardarEmArmazemMapeado(mapeado);
+    }
+
+    /** Apaga o diretório temporário com tudo o que lá foi escrito (incluindo os históricos). */
+    @TearDown
+    public void limpar() throws IOException {
+        try (var ficheiros = Files.walk(diretorio)) {
+            for (var ficheiro : ficheiros.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(ficheiro);
+            }
+        }
+    }
+
+    @Benchmark
+    public void guardarEmXML() throws Exception {
+        gestor.guardarEmXML(xml);
+    }
+
+    @Benchmark
+    public GestorDeTarefas carregarDeXML() throws Exception {
+        var carregado = new GestorDeTarefas();
+        carregado.carregarDeXML(xml);
+        return carregado;
+    }
+
+    @Benchmark
+    public void guardarEmBinario() throws Exception {
+        gestor.guardarEmBinario(binario);
+    }
+
+    @Benchmark
+    public GestorDeTarefas carregarDeBinario() throws Exception {
+        var carregado = new GestorDeTarefas();
+        carregado.carregarDeBinario(binario);
+        return carregado;
+    }
+
+    @Benchmark
+    public void guardarEmArmazemMapeado() throws Exception {
+        gestor.guardarEmArmazemMapeado(mapeado);
+    }
+
+    @Benchmark
+    public GestorDeTarefas carregarDeArmazemMapeado() throws Exception {
+        var carregado = new GestorDeTarefas();
+        carregado.carregarDeArmazemMapeado(mapeado);
+        return carregado;
+    }
+
+    /** Geração repetida sem alterações: o relatório é composto a partir dos fragmentos em memória. */
+    @Benchmark
+    public void gerarRelatorioHTML() throws Exception {
+        gestor.gerarRelatorioHTML(html);
+    }
+
+    /**
+     * Geração sem os fragmentos em memória: o relatório é descartado (em
+     * tempo constante) e produzido de raiz em cada invocação.
+     */
+    @Benchmark
+    public void gerarRelatorioHTMLSemCache() throws Exception {
+        gestor.descartarRelatorioIncremental();
+        gestor.gerarRelatorioHTML(html);
+    }
+}
@@ -0,0 +1,60 @@
+package Entities;
+
+import java.util.List;
+
+/**
+ * Resultado de uma operação em lote sobre o gestor de tarefas.
+ *
+ * <p>As operações em lote são aplicadas de forma atómica: ou todos os
+ * elementos são aplicados, ou nenhum é. Quando a validação falha, o
+ * resultado indica cada um dos elementos rejeitados, pela sua posição
+ * no lote, em vez de ser lançada uma exceção por elemento.</p>
+ */
+public final class ResultadoLote {
+
+    /**
+     * Elemento rejeitado de um lote.
+     *
+     * @param indice posição do elemento no lote (a partir de 0)
+     * @param titulo título da tarefa em causa
+     * @param motivo descrição do motivo da rejeição
+     */
+    public record Falha(int indice, String titulo, String motivo) {
+    }
+
+    private final int processados;
+    private final List<Falha> falhas;
+
+    /**
+     * Cria um novo resultado.
+     *
+     * @param processados número de elementos do lote
+     * @param falhas elementos rejeitados (vazio se o lote foi aplicado)
+     */
+    public ResultadoLote(int processados, List<Falha> falhas) {
+        this.processados = processados;
+        this.falhas = List.copyOf(falhas);
+    }
+
+    /** Indica se o lote foi aplicado, isto é, se nenhum elemento foi rejeitado. */
+    public boolean isAplicado() {
+        return falhas.isEmpty();
+    }
+
+    /** Número de elementos do lote. */
+    public int getProcessados() {
+        return processados;
+    }
+
+    /** Elementos rejeitados, pela ordem em que surgem no lote. */
+    public List<Falha> getFalhas() {
+        return falhas;
+    }
+
+    @Override
+    public String toString() {
+        return isAplicado()
+            ? "Lote aplicado (" + processados + " elementos)"
+            : "Lote rejeitado (" + falhas.size() + " de " + processados + " elementos inválidos)";
+    }
+}
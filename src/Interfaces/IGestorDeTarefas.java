@@ -1,9 +1,14 @@
 package Interfaces;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import Entities.Estado;
+import Entities.Prioridade;
+import Entities.ResultadoLote;
 import Entities.TarefaNaoEncontradaException;
+import Services.PaginaDeTarefas;
 import Services.Tarefa;
 
 /**
@@ -30,7 +35,60 @@ public interface IGestorDeTarefas {
     
     Tarefa buscarPorTitulo(String titulo) throws TarefaNaoEncontradaException;   
     
+    /**
+     * Lista as tarefas num dado estado, agrupadas por prioridade (ALTA,
+     * MEDIA e BAIXA, por esta ordem), e não pela ordem de inserção. Dentro
+     * de cada prioridade, a ordem é a indicada por cada implementação.
+     */
     List<Tarefa> listarPorEstado(Estado estado);   
     
     int contarTarefas();
+    
+    int contarTarefas(Estado estado);
+    
+    int contarTarefas(Estado estado, Prioridade prioridade);
+    
+    /**
+     * Adiciona um lote de tarefas. Os títulos são validados numa única
+     * passagem, entre si e contra as tarefas existentes; se algum elemento
+     * for inválido, nenhuma tarefa é adicionada.
+     */
+    ResultadoLote adicionarTarefas(Collection<Tarefa> tarefas);
+    
+    /**
+     * Remove um lote de tarefas pelo título. Se algum título não existir
+     * (ou estiver repetido no lote), nenhuma tarefa é removida.
+     */
+    ResultadoLote removerTarefas(Collection<String> titulos);
+    
+    /**
+     * Altera o estado de um lote de tarefas. Se algum título não existir,
+     * nenhum estado é alterado.
+     */
+    ResultadoLote alterarEstados(Collection<String> titulos, Estado novoEstado);
+    
+    /**
+     * Percorre as tarefas sem as copiar. O {@link Stream} pode ser paralelo
+     * e a sua consistência face a alterações concorrentes é a indicada por
+     * cada implementação.
+     */
+    Stream<Tarefa> percorrerTarefas();
+    
+    /** Percorre, sem as copiar, as tarefas num dado estado, ordenadas por prioridade. */
+    Stream<Tarefa> percorrerPorEstado(Estado estado);
+    
+    /**
+     * Devolve uma página da listagem de tarefas, pela ordem de
+     * {@link #percorrerTarefas()}, sem copiar as restantes. O custo é
+     * proporcional a {@code inicio + quantidade}; para percorrer listagens
+     * longas, {@link #listarPagina(String, int)} é preferível.
+     */
+    List<Tarefa> listarTarefas(int inicio, int quantidade);
+    
+    /**
+     * Devolve a página seguinte ao cursor indicado ({@code null} para a
+     * primeira), pela ordem da data de criação e do título. As tarefas sem
+     * data de criação não são incluídas.
+     */
+    PaginaDeTarefas listarPagina(String cursor, int quantidade);
 }
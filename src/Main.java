@@ -1,3 +1,13 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Scanner;
 
@@ -5,6 +15,9 @@ import Entities.Estado;
 import Entities.Prioridade;
 import Entities.TarefaNaoEncontradaException;
 import Services.GestorDeTarefas;
+import Services.GestorDeTarefasConcorrente;
+import Services.ProcessadorDeLote;
+import Services.ServidorHTTP;
 import Services.Tarefa;
 
 /**
@@ -23,6 +36,15 @@ import Services.Tarefa;
  * </ul>
  * </p>
  * 
+ * <p>Com o argumento {@code --servidor [porta [endereço]]}, a aplicação
+ * arranca em modo servidor: em vez do menu, expõe um gestor concorrente por
+ * HTTP (ver {@link ServidorHTTP}) até o processo ser terminado. Sem
+ * endereço, o servidor só escuta no endereço de loopback. Com
+ * {@code --lote [ficheiro]}, executa os comandos do ficheiro (ou da entrada
+ * padrão) sem interação e escreve os resultados na saída padrão (ver
+ * {@link ProcessadorDeLote}); o código de saída é 0 se todos os comandos
+ * tiverem sucesso, 1 se algum falhar e 2 se a entrada não puder ser lida.</p>
+ * 
  * <p>Desenvolvido em Java, seguindo os princípios da Programação Orientada
  * a Objetos, garantindo modularidade, legibilidade e robustez na execução.</p>
  */
@@ -30,6 +52,14 @@ public class Main {
 
     public static void main(String[] args) {
 
+        if (args.length > 0 && args[0].equals("--servidor")) {
+            iniciarServidor(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--lote")) {
+            System.exit(executarLote(args));
+        }
+
         var gestor = new GestorDeTarefas();
         var scanner = new Scanner(System.in);
         var continuar = true;
@@ -66,6 +96,50 @@ public class Main {
         scanner.close();
     }
 
+    /** Arranca o servidor HTTP, que fica ativo até o processo ser terminado. */
+    private static void iniciarServidor(String[] args) {
+        int porta;
+        try {
+            porta = args.length > 1 ? Integer.parseInt(args[1]) : ServidorHTTP.PORTA;
+        } catch (NumberFormatException e) {
+            System.out.println("Porta inválida: " + args[1]);
+            return;
+        }
+
+        try {
+            var endereco = args.length > 2
+                ? new InetSocketAddress(args[2], porta)
+                : new InetSocketAddress(InetAddress.getLoopbackAddress(), porta);
+            if (endereco.isUnresolved()) {
+                System.out.println("Endereço inválido: " + args[2]);
+                return;
+            }
+
+            var servidor = ServidorHTTP.iniciar(new GestorDeTarefasConcorrente(), endereco);
+            Runtime.getRuntime().addShutdownHook(new Thread(servidor::close));
+            System.out.println("Servidor HTTP a escutar em http://"
+                + servidor.getEndereco().getHostString() + ":" + servidor.getEndereco().getPort() + "/tarefas");
+        } catch (IOException e) {
+            System.out.println("Não foi possível iniciar o servidor HTTP: " + e.getMessage());
+        }
+    }
+
+    /** Executa os comandos de um ficheiro (ou da entrada padrão), devolvendo o código de saída. */
+    private static int executarLote(String[] args) {
+        var saida = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+
+        try (var entrada = args.length > 1 && !args[1].equals("-")
+                ? Files.newBufferedReader(Path.of(args[1]), StandardCharsets.UTF_8)
+                : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)) {
+
+            var resumo = new ProcessadorDeLote(new GestorDeTarefas()).executar(entrada, saida);
+            return resumo.erros() == 0 ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println("Erro ao executar os comandos: " + e.getMessage());
+            return 2;
+        }
+    }
+
     /** Apresenta o menu principal ao utilizador. */
     private static void mostrarMenu() {
         System.out.println("\n==============================================");
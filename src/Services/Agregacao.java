@@ -0,0 +1,202 @@
+package Services;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Consulta estatística sobre as tarefas de um {@link GestorDeTarefas}.
+ *
+ * <p>As tarefas podem ser agrupadas por estado, por prioridade e por
+ * período da data de criação (dia, semana, mês ou ano), em qualquer
+ * combinação. Para cada grupo é devolvido o número de tarefas e a
+ * proporção face ao total; com {@link #comIdades(double...)}, também as
+ * datas de criação mais antiga e mais recente e os percentis da idade das
+ * tarefas.</p>
+ *
+ * <pre>
+ * var criadasPorDia = gestor.agregar(new Agregacao()
+ *         .porPrioridade()
+ *         .porPeriodo(Agregacao.Periodo.DIA));
+ *
+ * var idadeDoBacklog = gestor.agregar(new Agregacao()
+ *         .porEstado()
+ *         .comIdades(50, 90, 99));
+ * </pre>
+ */
+public class Agregacao {
+
+    /** Períodos em que as datas de criação podem ser agrupadas. */
+    public enum Periodo {
+        DIA,
+        /** Semana de segunda a domingo. */
+        SEMANA,
+        MES,
+        ANO;
+
+        /** Primeiro dia do período que contém a data indicada. */
+        LocalDate inicio(LocalDate data) {
+            return switch (this) {
+                case DIA -> data;
+                case SEMANA -> data.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MES -> data.withDayOfMonth(1);
+                case ANO -> data.withDayOfYear(1);
+            };
+        }
+
+        /** Primeiro dia do período que contém o dia indicado, em dias desde a época. */
+        long inicio(long dia) {
+            return switch (this) {
+                case DIA -> dia;
+                // 1970-01-01 foi uma quinta-feira
+                case SEMANA -> dia - Math.floorMod(dia + 3, 7);
+                default -> inicio(LocalDate.ofEpochDay(dia)).toEpochDay();
+            };
+        }
+    }
+
+    /** Percentis da idade calculados por omissão em {@link #comIdades(double...)}. */
+    private static final double[] PERCENTIS_POR_OMISSAO = {50, 90, 99};
+
+    private boolean porEstado;
+    private boolean porPrioridade;
+    private Periodo periodo;
+    private Estado estado;
+    private Prioridade prioridade;
+    private LocalDate desde;
+    private LocalDate ate;
+    private double[] percentis;
+    private LocalDateTime referencia;
+
+    /** Agrupa as tarefas pelo estado. */
+    public Agregacao porEstado() {
+        this.porEstado = true;
+        return this;
+    }
+
+    /** Agrupa as tarefas pela prioridade. */
+    public Agregacao porPrioridade() {
+        this.porPrioridade = true;
+        return this;
+    }
+
+    /**
+     * Agrupa as tarefas pelo período da data de criação. As tarefas sem
+     * data de criação ficam num grupo próprio.
+     */
+    public Agregacao porPeriodo(Periodo periodo) {
+        this.periodo = periodo;
+        return this;
+    }
+
+    /** Restringe a consulta às tarefas no estado indicado. */
+    public Agregacao comEstado(Estado estado) {
+        this.estado = estado;
+        return this;
+    }
+
+    /** Restringe a consulta às tarefas com a prioridade indicada. */
+    public Agregacao comPrioridade(Prioridade prioridade) {
+        this.prioridade = prioridade;
+        return this;
+    }
+
+    /**
+     * Restringe a consulta às tarefas criadas no intervalo de dias indicado
+     * (as tarefas sem data de criação ficam excluídas).
+     *
+     * @param desde primeiro dia (inclusive), ou {@code null} para não limitar
+     * @param ate último dia (exclusive), ou {@code null} para não limitar
+     */
+    public Agregacao criadasEntre(LocalDate desde, LocalDate ate) {
+        if (desde != null && ate != null && desde.isAfter(ate)) {
+            throw new IllegalArgumentException("O início do intervalo não pode ser posterior ao fim.");
+        }
+        this.desde = desde;
+        this.ate = ate;
+        return this;
+    }
+
+    /**
+     * Calcula também, para cada grupo, as datas de criação mais antiga e mais
+     * recente e os percentis indicados da idade das tarefas (50, 90 e 99, se
+     * nenhum for indicado).
+     *
+     * <p>Sem esta opção, a consulta é respondida a partir das contagens
+     * diárias mantidas pelo gestor, sem percorrer as tarefas.</p>
+     *
+     * @param percentis percentis pretendidos, entre 0 e 100
+     */
+    public Agregacao comIdades(double... percentis) {
+        for (var percentil : percentis) {
+            if (!(percentil >= 0 && percentil <= 100)) {
+                throw new IllegalArgumentException("Percentil inválido: " + percentil + ".");
+            }
+        }
+        this.percentis = percentis.length > 0 ? percentis.clone() : PERCENTIS_POR_OMISSAO.clone();
+        return this;
+    }
+
+    /**
+     * Instante em relação ao qual as idades são calculadas (por omissão, o
+     * instante da consulta).
+     */
+    public Agregacao emRelacaoA(LocalDateTime referencia) {
+        this.referencia = referencia;
+        return this;
+    }
+
+    public boolean isPorEstado() {
+        return porEstado;
+    }
+
+    public boolean isPorPrioridade() {
+        return porPrioridade;
+    }
+
+    public Periodo getPeriodo() {
+        return periodo;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public Prioridade getPrioridade() {
+        return prioridade;
+    }
+
+    public LocalDate getDesde() {
+        return desde;
+    }
+
+    public LocalDate getAte() {
+        return ate;
+    }
+
+    /** Indica se são calculadas as datas extremas e os percentis da idade. */
+    public boolean isComIdades() {
+        return percentis != null;
+    }
+
+    /** Percentis da idade pretendidos, ou um array vazio sem {@link #comIdades(double...)}. */
+    public double[] getPercentis() {
+        return percentis != null ? percentis.clone() : new double[0];
+    }
+
+    public LocalDateTime getReferencia() {
+        return referencia;
+    }
+
+    @Override
+    public String toString() {
+        return "Agregação por" + (porEstado ? " estado" : "") + (porPrioridade ? " prioridade" : "")
+                + (periodo != null ? " " + periodo : "")
+                + (percentis != null ? ", idades " + Arrays.toString(percentis) : "");
+    }
+}
@@ -0,0 +1,436 @@
+package Services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Motor das consultas estatísticas ({@link Agregacao}) de um
+ * {@link GestorDeTarefas}.
+ *
+ * <p>Mantém, como {@link ObservadorDeAlteracoes}, o número de tarefas de
+ * cada dia de criação por estado e prioridade. As consultas só com
+ * contagens são respondidas a partir destes totais, num tempo proporcional
+ * ao número de dias e não ao de tarefas.</p>
+ *
+ * <p>As consultas com idades percorrem as tarefas numa redução paralela
+ * (fork-join): as tarefas são divididas em partes de até
+ * {@value #TAREFAS_POR_PARTE}, cada parte acumula os seus grupos (contagem,
+ * datas extremas e um histograma log-linear das idades, como em
+ * {@link HistogramaDeLatencia}) e os resultados parciais são juntos dois a
+ * dois. A mesma redução reconstrói as contagens diárias após uma
+ * substituição das tarefas.</p>
+ */
+final class AgregadorDeTarefas implements ObservadorDeAlteracoes {
+
+    /** Número máximo de tarefas percorridas por uma única tarefa fork-join. */
+    private static final int TAREFAS_POR_PARTE = 16_384;
+
+    private static final Estado[] ESTADOS = Estado.values();
+    private static final Prioridade[] PRIORIDADES = Prioridade.values();
+    private static final int CELULAS = ESTADOS.length * PRIORIDADES.length;
+
+    /** Chave do período quando não se agrupa por período. */
+    private static final long SEM_PERIODO = Long.MIN_VALUE;
+
+    /** Chave do período das tarefas sem data de criação. */
+    private static final long SEM_DATA = Long.MAX_VALUE;
+
+    /** Contagens por dia de criação (em dias desde a época) e por célula estado/prioridade. */
+    private final TreeMap<Long, int[]> porDia = new TreeMap<>();
+    private final int[] semData = new int[CELULAS];
+
+    /** Indica que as contagens têm de ser reconstruídas a partir do gestor. */
+    private boolean invalido = true;
+
+    /**
+     * Executa uma consulta.
+     *
+     * @param agregacao consulta a executar
+     * @param tarefas todas as tarefas do gestor
+     * @return grupos resultantes
+     */
+    ResultadoAgregacao agregar(Agregacao agregacao, Collection<Tarefa> tarefas) {
+        var parametros = Parametros.de(agregacao);
+
+        if (!agregacao.isComIdades()) {
+            reconstruirSeNecessario(tarefas);
+            return compor(agregacao, parametros, deContagens(parametros), true);
+        }
+        return compor(agregacao, parametros, reduzir(tarefas, parametros), false);
+    }
+
+    @Override
+    public void tarefaAdicionada(Tarefa tarefa) {
+        if (!invalido) {
+            contar(tarefa, tarefa.getEstado(), 1);
+        }
+    }
+
+    @Override
+    public void tarefaRemovida(Tarefa tarefa) {
+        if (!invalido) {
+            contar(tarefa, tarefa.getEstado(), -1);
+        }
+    }
+
+    @Override
+    public void estadoAlterado(Tarefa tarefa, Estado anterior, Estado novo) {
+        if (!invalido) {
+            contar(tarefa, anterior, -1);
+            contar(tarefa, novo, 1);
+        }
+    }
+
+    @Override
+    public void tarefasSubstituidas() {
+        invalido = true;
+        porDia.clear();
+        Arrays.fill(semData, 0);
+    }
+
+    private void contar(Tarefa tarefa, Estado estado, int delta) {
+        var celula = celula(estado, tarefa.getPrioridade());
+        var data = tarefa.getDataCriacao();
+
+        if (data == null) {
+            semData[celula] += delta;
+            return;
+        }
+
+        var dia = data.toLocalDate().toEpochDay();
+        var contagens = porDia.computeIfAbsent(dia, d -> new int[CELULAS]);
+        contagens[celula] += delta;
+        if (delta < 0 && Arrays.stream(contagens).allMatch(c -> c == 0)) {
+            porDia.remove(dia);
+        }
+    }
+
+    private void reconstruirSeNecessario(Collection<Tarefa> tarefas) {
+        if (!invalido) {
+            return;
+        }
+
+        var parametros = new Parametros(Agregacao.Periodo.DIA, -1, -1, Long.MIN_VALUE, Long.MAX_VALUE, false, 0);
+        for (var entrada : reduzir(tarefas, parametros).entrySet()) {
+            var contagens = entrada.getKey() == SEM_DATA ? semData : new int[CELULAS];
+            var acumuladores = entrada.getValue();
+            for (int c = 0; c < CELULAS; c++) {
+                if (acumuladores[c] != null) {
+                    contagens[c] = (int) acumuladores[c].contagem;
+                }
+            }
+            if (entrada.getKey() != SEM_DATA) {
+                porDia.put(entrada.getKey(), contagens);
+            }
+        }
+        invalido = false;
+    }
+
+    /** Grupos parciais obtidos das contagens diárias. */
+    private Map<Long, Acumulador[]> deContagens(Parametros parametros) {
+        Map<Long, Acumulador[]> parciais = new HashMap<>();
+
+        for (var entrada : porDia.subMap(parametros.desde(), true, parametros.ate(), false).entrySet()) {
+            var chave = parametros.periodo() != null ? parametros.periodo().inicio(entrada.getKey()) : SEM_PERIODO;
+            somar(parciais.computeIfAbsent(chave, k -> new Acumulador[CELULAS]), entrada.getValue(), parametros);
+        }
+        if (parametros.desde() == Long.MIN_VALUE && parametros.ate() == Long.MAX_VALUE) {
+            var chave = parametros.periodo() != null ? SEM_DATA : SEM_PERIODO;
+            somar(parciais.computeIfAbsent(chave, k -> new Acumulador[CELULAS]), semData, parametros);
+        }
+        return parciais;
+    }
+
+    private static void somar(Acumulador[] acumuladores, int[] contagens, Parametros parametros) {
+        for (int c = 0; c < CELULAS; c++) {
+            if (contagens[c] > 0 && parametros.aceita(c / PRIORIDADES.length, c % PRIORIDADES.length)) {
+                if (acumuladores[c] == null) {
+                    acumuladores[c] = new Acumulador();
+                }
+                acumuladores[c].contagem += contagens[c];
+            }
+        }
+    }
+
+    private static Map<Long, Acumulador[]> reduzir(Collection<Tarefa> tarefas, Parametros parametros) {
+        var todas = tarefas.toArray(new Tarefa[0]);
+        return ForkJoinPool.commonPool().invoke(new Reducao(todas, 0, todas.length, parametros));
+    }
+
+    /** Junta os grupos parciais segundo as dimensões pedidas e calcula as estatísticas finais. */
+    private static ResultadoAgregacao compor(Agregacao agregacao, Parametros parametros,
+            Map<Long, Acumulador[]> parciais, boolean incremental) {
+
+        var grupos = new TreeMap<ChaveDeGrupo, Acumulador>();
+        var total = 0L;
+
+        for (var entrada : parciais.entrySet()) {
+            var acumuladores = entrada.getValue();
+            for (int c = 0; c < CELULAS; c++) {
+                if (acumuladores[c] == null) {
+                    continue;
+                }
+                var chave = new ChaveDeGrupo(entrada.getKey(),
+                        agregacao.isPorEstado() ? c / PRIORIDADES.length : -1,
+                        agregacao.isPorPrioridade() ? c % PRIORIDADES.length : -1);
+                grupos.computeIfAbsent(chave, k -> new Acumulador()).juntar(acumuladores[c]);
+                total += acumuladores[c].contagem;
+            }
+        }
+
+        List<ResultadoAgregacao.Grupo> resultado = new ArrayList<>(grupos.size());
+        for (var entrada : grupos.entrySet()) {
+            var chave = entrada.getKey();
+            var acumulador = entrada.getValue();
+
+            Map<Double, Duration> idades = new LinkedHashMap<>();
+            if (acumulador.comData > 0) {
+                for (var percentil : agregacao.getPercentis()) {
+                    idades.put(percentil, Duration.ofSeconds(acumulador.idade(percentil, parametros.referencia())));
+                }
+            }
+
+            resultado.add(new ResultadoAgregacao.Grupo(
+                    chave.estado() >= 0 ? ESTADOS[chave.estado()] : null,
+                    chave.prioridade() >= 0 ? PRIORIDADES[chave.prioridade()] : null,
+                    chave.periodo() != SEM_PERIODO && chave.periodo() != SEM_DATA
+                            ? LocalDate.ofEpochDay(chave.periodo()) : null,
+                    acumulador.contagem,
+                    total > 0 ? (double) acumulador.contagem / total : 0,
+                    acumulador.maisAntiga,
+                    acumulador.maisRecente,
+                    idades));
+        }
+        return new ResultadoAgregacao(resultado, total, incremental);
+    }
+
+    private static long instanteDeReferencia(Agregacao agregacao) {
+        var referencia = agregacao.getReferencia() != null ? agregacao.getReferencia() : LocalDateTime.now();
+        return referencia.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static int celula(Estado estado, Prioridade prioridade) {
+        return estado.ordinal() * PRIORIDADES.length + prioridade.ordinal();
+    }
+
+    /** Grupo final: período (ou uma das chaves especiais) e, se pedidos, estado e prioridade (-1 se não). */
+    private record ChaveDeGrupo(long periodo, int estado, int prioridade) implements Comparable<ChaveDeGrupo> {
+
+        @Override
+        public int compareTo(ChaveDeGrupo outra) {
+            var comparacao = Long.compare(periodo, outra.periodo);
+            if (comparacao == 0) {
+                comparacao = Integer.compare(estado, outra.estado);
+            }
+            return comparacao != 0 ? comparacao : Integer.compare(prioridade, outra.prioridade);
+        }
+    }
+
+    /**
+     * Parâmetros de uma redução, já convertidos para tipos primitivos.
+     *
+     * @param periodo período de agrupamento, ou {@code null}
+     * @param estado ordinal do estado a incluir, ou -1 para todos
+     * @param prioridade ordinal da prioridade a incluir, ou -1 para todas
+     * @param desde primeiro dia a incluir, ou {@link Long#MIN_VALUE}
+     * @param ate dia seguinte ao último a incluir, ou {@link Long#MAX_VALUE}
+     * @param idades se devem ser acumuladas as datas extremas e as idades
+     * @param referencia instante de referência das idades, em segundos desde a época
+     */
+    private record Parametros(Agregacao.Periodo periodo, int estado, int prioridade,
+            long desde, long ate, boolean idades, long referencia) {
+
+        static Parametros de(Agregacao agregacao) {
+            return new Parametros(agregacao.getPeriodo(),
+                    agregacao.getEstado() != null ? agregacao.getEstado().ordinal() : -1,
+                    agregacao.getPrioridade() != null ? agregacao.getPrioridade().ordinal() : -1,
+                    agregacao.getDesde() != null ? agregacao.getDesde().toEpochDay() : Long.MIN_VALUE,
+                    agregacao.getAte() != null ? agregacao.getAte().toEpochDay() : Long.MAX_VALUE,
+                    agregacao.isComIdades(),
+                    agregacao.isComIdades() ? instanteDeReferencia(agregacao) : 0);
+        }
+
+        boolean aceita(int estado, int prioridade) {
+            return (this.estado < 0 || this.estado == estado) && (this.prioridade < 0 || this.prioridade == prioridade);
+        }
+
+        boolean filtraDatas() {
+            return desde != Long.MIN_VALUE || ate != Long.MAX_VALUE;
+        }
+    }
+
+    /** Estatísticas acumuladas de um conjunto de tarefas. */
+    private static final class Acumulador {
+        long contagem;
+        long comData;
+        LocalDateTime maisAntiga;
+        LocalDateTime maisRecente;
+
+        /** Histograma das idades em segundos (índices de {@link HistogramaDeLatencia#indice(long)}). */
+        long[] idades = new long[0];
+
+        void registar(LocalDateTime data, Parametros parametros) {
+            contagem++;
+            if (data == null || !parametros.idades()) {
+                return;
+            }
+
+            comData++;
+            if (maisAntiga == null || data.isBefore(maisAntiga)) {
+                maisAntiga = data;
+            }
+            if (maisRecente == null || data.isAfter(maisRecente)) {
+                maisRecente = data;
+            }
+
+            var idade = Math.max(0, parametros.referencia() - data.toEpochSecond(ZoneOffset.UTC));
+            var indice = HistogramaDeLatencia.indice(idade);
+            if (indice >= idades.length) {
+                idades = Arrays.copyOf(idades, Math.max(indice + 1, idades.length * 2));
+            }
+            idades[indice]++;
+        }
+
+        void juntar(Acumulador outro) {
+            contagem += outro.contagem;
+            comData += outro.comData;
+            if (outro.maisAntiga != null && (maisAntiga == null || outro.maisAntiga.isBefore(maisAntiga))) {
+                maisAntiga = outro.maisAntiga;
+            }
+            if (outro.maisRecente != null && (maisRecente == null || outro.maisRecente.isAfter(maisRecente))) {
+                maisRecente = outro.maisRecente;
+            }
+            if (outro.idades.length > idades.length) {
+                idades = Arrays.copyOf(idades, outro.idades.length);
+            }
+            for (int i = 0; i < outro.idades.length; i++) {
+                idades[i] += outro.idades[i];
+            }
+        }
+
+        /** Idade, em segundos, abaixo da qual se encontra a percentagem indicada das tarefas com data. */
+        long idade(double percentil, long referencia) {
+            var maxima = Math.max(0, referencia - maisAntiga.toEpochSecond(ZoneOffset.UTC));
+            var alvo = Math.max(1, (long) Math.ceil(comData * percentil / 100));
+            var acumulado = 0L;
+            for (int i = 0; i < idades.length; i++) {
+                acumulado += idades[i];
+                if (acumulado >= alvo) {
+                    return Math.min(HistogramaDeLatencia.limiteSuperior(i), maxima);
+                }
+            }
+            return maxima;
+        }
+    }
+
+    /** Redução paralela de um intervalo de tarefas em grupos parciais, por período e célula. */
+    @SuppressWarnings("serial") // nunca é serializada: só existe durante a agregação
+    private static final class Reducao extends RecursiveTask<Map<Long, Acumulador[]>> {
+
+        private final Tarefa[] tarefas;
+        private final int inicio;
+        private final int fim;
+        private final Parametros parametros;
+
+        Reducao(Tarefa[] tarefas, int inicio, int fim, Parametros parametros) {
+            this.tarefas = tarefas;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.parametros = parametros;
+        }
+
+        @Override
+        protected Map<Long, Acumulador[]> compute() {
+            if (fim - inicio <= TAREFAS_POR_PARTE) {
+                return percorrer();
+            }
+
+            var meio = (inicio + fim) >>> 1;
+            var esquerda = new Reducao(tarefas, inicio, meio, parametros);
+            esquerda.fork();
+            var direita = new Reducao(tarefas, meio, fim, parametros).compute();
+            var resultado = esquerda.join();
+
+            for (var entrada : direita.entrySet()) {
+                var acumuladores = resultado.get(entrada.getKey());
+                if (acumuladores == null) {
+                    resultado.put(entrada.getKey(), entrada.getValue());
+                    continue;
+                }
+                var outros = entrada.getValue();
+                for (int c = 0; c < CELULAS; c++) {
+                    if (outros[c] == null) {
+                        continue;
+                    }
+                    if (acumuladores[c] == null) {
+                        acumuladores[c] = outros[c];
+                    } else {
+                        acumuladores[c].juntar(outros[c]);
+                    }
+                }
+            }
+            return resultado;
+        }
+
+        private Map<Long, Acumulador[]> percorrer() {
+            Map<Long, Acumulador[]> parciais = new HashMap<>();
+            var periodo = parametros.periodo();
+            var ultimaChave = 0L;
+            Acumulador[] ultimos = null;
+
+            for (int i = inicio; i < fim; i++) {
+                var tarefa = tarefas[i];
+                var estado = tarefa.getEstado().ordinal();
+                var prioridade = tarefa.getPrioridade().ordinal();
+                if (!parametros.aceita(estado, prioridade)) {
+                    continue;
+                }
+
+                var data = tarefa.getDataCriacao();
+                long chave;
+                if (data == null) {
+                    if (parametros.filtraDatas()) {
+                        continue;
+                    }
+                    chave = periodo != null ? SEM_DATA : SEM_PERIODO;
+                } else {
+                    var dia = data.toLocalDate().toEpochDay();
+                    if (dia < parametros.desde() || dia >= parametros.ate()) {
+                        continue;
+                    }
+                    chave = periodo != null ? periodo.inicio(dia) : SEM_PERIODO;
+                }
+
+                // As tarefas consecutivas costumam cair no mesmo período: evita a procura no mapa
+                if (ultimos == null || chave != ultimaChave) {
+                    ultimos = parciais.computeIfAbsent(chave, k -> new Acumulador[CELULAS]);
+                    ultimaChave = chave;
+                }
+
+                var celula = estado * PRIORIDADES.length + prioridade;
+                var acumulador = ultimos[celula];
+                if (acumulador == null) {
+                    acumulador = new Acumulador();
+                    ultimos[celula] = acumulador;
+                }
+                acumulador.registar(data, parametros);
+            }
+            return parciais;
+        }
+    }
+}
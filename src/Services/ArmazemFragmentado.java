@@ -0,0 +1,345 @@
+package Services;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import javax.xml.stream.XMLStreamException;
+
+import Entities.Estado;
+
+/**
+ * Conjunto de ficheiros XML (fragmentos) numa pasta, cada um com as tarefas
+ * cujo título normalizado lhe corresponde pela dispersão.
+ *
+ * <pre>
+ * pasta/fragmentos.txt                     número de fragmentos
+ * pasta/tarefas-000-de-016.xml             fragmento 0 de 16
+ * pasta/tarefas-000-de-016.xml.historico   histórico dos estados das tarefas do fragmento 0
+ * ...
+ * </pre>
+ *
+ * <p>Os fragmentos são lidos e escritos em paralelo, no
+ * {@link java.util.concurrent.ForkJoinPool#commonPool() ForkJoinPool comum}.
+ * Cada fragmento é escrito num ficheiro temporário e colocado no lugar
+ * através de uma mudança de nome atómica, pelo que um ficheiro corrompido
+ * ou uma escrita interrompida afeta apenas as tarefas desse fragmento. O
+ * ficheiro {@code fragmentos.txt} só é substituído depois de todos os
+ * fragmentos estarem escritos; os fragmentos de outra divisão são então
+ * apagados.</p>
+ *
+ * <p>No carregamento, um fragmento em falta ou corrompido não impede a
+ * leitura dos restantes: é indicado em {@link #getFalhados()} e, antes de
+ * ser reescrito, o ficheiro é guardado ao lado, com a extensão
+ * {@code .corrompido}, para que as suas tarefas possam ser recuperadas.</p>
+ *
+ * <p>Como {@link ObservadorDeAlteracoes}, o armazém regista os fragmentos
+ * com tarefas adicionadas, removidas ou com o estado alterado desde a
+ * última gravação, e só esses são reescritos. São as mesmas alterações que
+ * acrescentam registos ao histórico dos estados, pelo que o histórico de
+ * cada fragmento é reescrito com ele (ver {@link HistoricoDeEstados}).</p>
+ */
+final class ArmazemFragmentado implements ObservadorDeAlteracoes {
+
+    private static final String MANIFESTO = "fragmentos.txt";
+    private static final Pattern NOME_FRAGMENTO = Pattern.compile(
+            "tarefas-(\\d+)-de-(\\d+)\\.xml(?:" + Pattern.quote(HistoricoDeEstados.EXTENSAO) + ")?");
+    private static final int TAMANHO_BUFFER = 1 << 16;
+
+    private final Path pasta;
+    private final int fragmentos;
+
+    /** Fragmentos alterados desde a última gravação (protegido pelo próprio conjunto). */
+    private final BitSet alterados = new BitSet();
+
+    /** Fragmentos que não puderam ser lidos no carregamento e ainda não foram reescritos. */
+    private final BitSet falhados = new BitSet();
+
+    /**
+     * Cria o armazém para a pasta indicada, com todos os fragmentos por escrever.
+     *
+     * @param pasta pasta dos fragmentos
+     * @param fragmentos número de fragmentos
+     */
+    ArmazemFragmentado(Path pasta, int fragmentos) {
+        if (fragmentos <= 0 || fragmentos > 999) {
+            throw new IllegalArgumentException("O número de fragmentos tem de estar entre 1 e 999: " + fragmentos + ".");
+        }
+        this.pasta = pasta.toAbsolutePath().normalize();
+        this.fragmentos = fragmentos;
+        this.alterados.set(0, fragmentos);
+    }
+
+    /** Indica se o armazém corresponde à pasta e ao número de fragmentos indicados. */
+    boolean corresponde(Path pasta, int fragmentos) {
+        return this.fragmentos == fragmentos && this.pasta.equals(pasta.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Carrega as tarefas de todos os fragmentos da pasta, em paralelo. Os
+     * fragmentos que não puderem ser lidos são ignorados e indicados em
+     * {@link #getFalhados()}.
+     *
+     * @param pasta pasta dos fragmentos
+     * @param destino recebe as tarefas lidas, fragmento a fragmento
+     * @return armazém sem fragmentos alterados, ou {@code null} se a pasta não tiver fragmentos
+     * @throws IOException se o ficheiro {@code fragmentos.txt} não puder ser lido
+     */
+    static ArmazemFragmentado abrir(Path pasta, List<Tarefa> destino) throws IOException {
+        var manifesto = pasta.resolve(MANIFESTO);
+        if (!Files.exists(manifesto)) {
+            return null;
+        }
+
+        int fragmentos;
+        try {
+            fragmentos = Integer.parseInt(Files.readString(manifesto, StandardCharsets.UTF_8).strip());
+        } catch (NumberFormatException e) {
+            throw new IOException("O ficheiro '" + manifesto + "' não indica um número de fragmentos válido.", e);
+        }
+
+        var armazem = new ArmazemFragmentado(pasta, fragmentos);
+        var lidas = IntStream.range(0, fragmentos).parallel()
+                .mapToObj(armazem::lerFragmento)
+                .toList();
+        for (int i = 0; i < fragmentos; i++) {
+            if (lidas.get(i) != null) {
+                destino.addAll(lidas.get(i));
+            } else {
+                armazem.falhados.set(i);
+            }
+        }
+
+        armazem.alterados.clear();
+        return armazem;
+    }
+
+    /**
+     * Devolve os ficheiros dos fragmentos que não puderam ser lidos no
+     * carregamento e que ainda não foram reescritos.
+     */
+    List<Path> getFalhados() {
+        synchronized (alterados) {
+            return falhados.stream().mapToObj(this::caminho).toList();
+        }
+    }
+
+    /**
+     * Devolve os ficheiros de histórico dos fragmentos lidos no carregamento.
+     */
+    List<Path> getHistoricos() {
+        synchronized (alterados) {
+            return IntStream.range(0, fragmentos)
+                    .filter(i -> !falhados.get(i))
+                    .mapToObj(this::caminhoDoHistorico)
+                    .toList();
+        }
+    }
+
+    /**
+     * Reescreve, em paralelo, os fragmentos alterados desde a última
+     * gravação, cada um seguido do histórico das suas tarefas.
+     *
+     * @param tarefas todas as tarefas do gestor
+     * @param historico histórico dos estados das tarefas
+     * @return número de fragmentos reescritos
+     * @throws IOException se algum fragmento não puder ser escrito (os fragmentos
+     *         a escrever continuam marcados como alterados)
+     */
+    int guardar(Collection<Tarefa> tarefas, HistoricoDeEstados historico) throws IOException {
+        BitSet aEscrever;
+        synchronized (alterados) {
+            aEscrever = (BitSet) alterados.clone();
+            alterados.clear();
+        }
+        if (!Files.exists(pasta.resolve(MANIFESTO))) {
+            aEscrever.set(0, fragmentos);
+        }
+        if (aEscrever.isEmpty()) {
+            return 0;
+        }
+
+        // Separa as tarefas (e os estados, fixados neste instante) pelos fragmentos a escrever
+        List<List<Tarefa>> porFragmento = new ArrayList<>(fragmentos);
+        List<List<Estado>> estados = new ArrayList<>(fragmentos);
+        for (int i = 0; i < fragmentos; i++) {
+            porFragmento.add(aEscrever.get(i) ? new ArrayList<>() : null);
+            estados.add(aEscrever.get(i) ? new ArrayList<>() : null);
+        }
+        for (var tarefa : tarefas) {
+            var i = fragmento(tarefa.getTitulo(), fragmentos);
+            if (aEscrever.get(i)) {
+                porFragmento.get(i).add(tarefa);
+                estados.get(i).add(tarefa.getEstado());
+            }
+        }
+
+        Files.createDirectories(pasta);
+        guardarFalhados(aEscrever);
+        try {
+            aEscrever.stream().parallel().forEach(i -> {
+                try {
+                    escreverFragmento(i, porFragmento.get(i), estados.get(i));
+                    historico.guardar(caminhoDoHistorico(i), porFragmento.get(i));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            synchronized (alterados) {
+                // Não se sabe que fragmentos ficaram por escrever quando a travessia parou
+                alterados.or(aEscrever);
+            }
+            if (e instanceof UncheckedIOException falha) {
+                throw falha.getCause();
+            }
+            throw e;
+        }
+
+        escreverAtomicamente(pasta.resolve(MANIFESTO), destino -> Files.writeString(destino,
+                fragmentos + System.lineSeparator(), StandardCharsets.UTF_8));
+        apagarOutrasDivisoes();
+        return aEscrever.cardinality();
+    }
+
+    @Override
+    public void tarefaAdicionada(Tarefa tarefa) {
+        marcar(tarefa);
+    }
+
+    @Override
+    public void tarefaRemovida(Tarefa tarefa) {
+        marcar(tarefa);
+    }
+
+    @Override
+    public void estadoAlterado(Tarefa tarefa, Estado anterior, Estado novo) {
+        marcar(tarefa);
+    }
+
+    @Override
+    public void tarefasSubstituidas() {
+        synchronized (alterados) {
+            alterados.set(0, fragmentos);
+        }
+    }
+
+    /** Fragmento de uma tarefa com o título indicado, estável entre execuções. */
+    static int fragmento(String titulo, int fragmentos) {
+        if (titulo == null) {
+            return 0;
+        }
+        var h = GestorDeTarefas.normalizarTitulo(titulo).hashCode() * 0x9E3779B9;
+        return Math.floorMod(h ^ (h >>> 16), fragmentos);
+    }
+
+    private void marcar(Tarefa tarefa) {
+        var i = fragmento(tarefa.getTitulo(), fragmentos);
+        synchronized (alterados) {
+            alterados.set(i);
+        }
+    }
+
+    private Path caminho(int fragmento) {
+        return pasta.resolve(String.format("tarefas-%03d-de-%03d.xml", fragmento, fragmentos));
+    }
+
+    private Path caminhoDoHistorico(int fragmento) {
+        return HistoricoDeEstados.caminhoJunto(caminho(fragmento).toString());
+    }
+
+    /** Lê as tarefas de um fragmento; devolve {@code null} se este faltar ou estiver corrompido. */
+    private List<Tarefa> lerFragmento(int fragmento) {
+        List<Tarefa> tarefas = new ArrayList<>();
+
+        try (var entrada = new BufferedInputStream(Files.newInputStream(caminho(fragmento)), TAMANHO_BUFFER)) {
+            LeitorXMLDeTarefas.ler(entrada, tarefas::add);
+        } catch (XMLStreamException | IOException | RuntimeException e) {
+            return null;
+        }
+        return tarefas;
+    }
+
+    /**
+     * Guarda ao lado, com a extensão {@code .corrompido}, os fragmentos que
+     * falharam no carregamento e que vão ser reescritos.
+     */
+    private void guardarFalhados(BitSet aEscrever) throws IOException {
+        synchronized (alterados) {
+            for (var i = falhados.nextSetBit(0); i >= 0; i = falhados.nextSetBit(i + 1)) {
+                if (aEscrever.get(i)) {
+                    var ficheiro = caminho(i);
+                    if (Files.exists(ficheiro)) {
+                        Files.move(ficheiro, ficheiro.resolveSibling(ficheiro.getFileName() + ".corrompido"),
+                                StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    falhados.clear(i);
+                }
+            }
+        }
+    }
+
+    private void escreverFragmento(int fragmento, List<Tarefa> tarefas, List<Estado> estados) throws IOException {
+        escreverAtomicamente(caminho(fragmento), destino -> {
+            try (var escritor = new EscritorXMLDeTarefas(
+                    new BufferedOutputStream(Files.newOutputStream(destino), TAMANHO_BUFFER))) {
+                for (int i = 0; i < tarefas.size(); i++) {
+                    escritor.escrever(tarefas.get(i), estados.get(i));
+                }
+            } catch (XMLStreamException e) {
+                throw new IOException("Erro ao escrever o fragmento '" + destino + "'.", e);
+            }
+        });
+    }
+
+    /** Apaga os fragmentos de uma divisão com outro número de fragmentos. */
+    private void apagarOutrasDivisoes() throws IOException {
+        try (var ficheiros = Files.list(pasta)) {
+            for (var ficheiro : (Iterable<Path>) ficheiros::iterator) {
+                var nome = NOME_FRAGMENTO.matcher(ficheiro.getFileName().toString());
+                if (nome.matches() && Integer.parseInt(nome.group(2)) != fragmentos) {
+                    Files.deleteIfExists(ficheiro);
+                }
+            }
+        }
+    }
+
+    /** Escrita do conteúdo de um ficheiro. */
+    private interface Escrita {
+        void escrever(Path destino) throws IOException;
+    }
+
+    /** Escreve num ficheiro temporário, força-o para o disco e substitui o destino atomicamente. */
+    private static void escreverAtomicamente(Path destino, Escrita escrita) throws IOException {
+        var temporario = Files.createTempFile(destino.getParent(), destino.getFileName() + ".", ".tmp");
+        try {
+            escrita.escrever(temporario);
+
+            try (var canal = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+                canal.force(true);
+            }
+
+            try {
+                Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+}
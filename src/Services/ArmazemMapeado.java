@@ -0,0 +1,324 @@
+package Services;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Armazém de tarefas num ficheiro mapeado em memória.
+ *
+ * <p>O ficheiro está organizado em colunas de largura fixa, uma entrada de
+ * {@value #TAMANHO_REGISTO} bytes por tarefa, seguidas de uma zona de
+ * textos onde o título e a descrição de cada tarefa ficam contíguos:</p>
+ *
+ * <pre>
+ * cabeçalho: [int magia "GTM1"][short versão][int número de tarefas][long início dos textos]
+ * registo:   [byte estado][byte prioridade][short reservado][int nanossegundos (-1 sem data)]
+ *            [long segundos][long posição dos textos][int n título][int n descrição]
+ * textos:    [título UTF-8][descrição UTF-8] ...
+ * </pre>
+ *
+ * <p>Os campos de largura fixa são lidos diretamente do mapeamento e os
+ * textos só são descodificados quando pedidos (ver {@link TarefaMapeada}).
+ * Ao abrir, os campos de largura fixa de todos os registos são verificados
+ * numa passagem sequencial, para que um ficheiro corrompido seja rejeitado
+ * com uma {@link IOException} e não falhe mais tarde numa vista.
+ * A zona de textos é mapeada em blocos de {@value #TAMANHO_BLOCO} bytes;
+ * o escritor garante que os textos de uma tarefa nunca atravessam o limite
+ * de um bloco.</p>
+ *
+ * <p>O ficheiro é mapeado apenas para leitura: as mudanças de estado ficam
+ * nas vistas em memória e só são persistidas quando o armazém é novamente
+ * escrito. A escrita é feita num ficheiro temporário seguido de uma mudança
+ * de nome atómica, pelo que os mapeamentos existentes continuam válidos.</p>
+ */
+final class ArmazemMapeado {
+
+    /** Identificador do formato ("GTM1"). */
+    private static final int MAGIA = 0x47544D31;
+    private static final short VERSAO = 1;
+    private static final int TAMANHO_CABECALHO = 4 + 2 + 4 + 8;
+
+    static final int TAMANHO_REGISTO = 32;
+    static final int TAMANHO_BLOCO = 1 << 30;
+
+    private static final int ESTADO = 0;
+    private static final int PRIORIDADE = 1;
+    private static final int NANOS = 4;
+    private static final int SEGUNDOS = 8;
+    private static final int POSICAO_TEXTOS = 16;
+    private static final int TAMANHO_TITULO = 24;
+    private static final int TAMANHO_DESCRICAO = 28;
+
+    private static final int TAMANHO_BUFFER = 1 << 20;
+
+    private static final Prioridade[] PRIORIDADES = Prioridade.values();
+    private static final Estado[] ESTADOS = Estado.values();
+
+    private final int contagem;
+    private final MappedByteBuffer registos;
+    private final MappedByteBuffer[] textos;
+
+    private ArmazemMapeado(int contagem, MappedByteBuffer registos, MappedByteBuffer[] textos) {
+        this.contagem = contagem;
+        this.registos = registos;
+        this.textos = textos;
+    }
+
+    /**
+     * Mapeia um armazém existente.
+     *
+     * @param caminho caminho do ficheiro
+     * @return armazém mapeado
+     * @throws IOException se o ficheiro não for um armazém válido ou não puder ser mapeado
+     */
+    static ArmazemMapeado abrir(Path caminho) throws IOException {
+        try (var canal = FileChannel.open(caminho, StandardOpenOption.READ)) {
+            var cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+            while (cabecalho.hasRemaining() && canal.read(cabecalho) >= 0) {
+                // lê o cabeçalho completo
+            }
+            cabecalho.flip();
+
+            if (cabecalho.remaining() < TAMANHO_CABECALHO || cabecalho.getInt() != MAGIA) {
+                throw new IOException("O ficheiro '" + caminho + "' não é um armazém mapeado de tarefas.");
+            }
+            var versao = cabecalho.getShort();
+            if (versao != VERSAO) {
+                throw new IOException("Versão do armazém mapeado não suportada: " + versao);
+            }
+
+            var contagem = cabecalho.getInt();
+            var inicioTextos = cabecalho.getLong();
+            var tamanhoRegistos = (long) contagem * TAMANHO_REGISTO;
+
+            if (contagem < 0 || TAMANHO_CABECALHO + tamanhoRegistos != inicioTextos || inicioTextos > canal.size()) {
+                throw new IOException("O armazém mapeado '" + caminho + "' está corrompido.");
+            }
+
+            var registos = canal.map(FileChannel.MapMode.READ_ONLY, TAMANHO_CABECALHO, tamanhoRegistos);
+
+            var tamanhoTextos = canal.size() - inicioTextos;
+            if (!registosValidos(registos, contagem, tamanhoTextos)) {
+                throw new IOException("O armazém mapeado '" + caminho + "' está corrompido.");
+            }
+
+            var blocos = (int) ((tamanhoTextos + TAMANHO_BLOCO - 1) / TAMANHO_BLOCO);
+            var textos = new MappedByteBuffer[blocos];
+            for (int i = 0; i < blocos; i++) {
+                var inicio = (long) i * TAMANHO_BLOCO;
+                textos[i] = canal.map(FileChannel.MapMode.READ_ONLY,
+                        inicioTextos + inicio, Math.min(TAMANHO_BLOCO, tamanhoTextos - inicio));
+            }
+
+            return new ArmazemMapeado(contagem, registos, textos);
+        }
+    }
+
+    /**
+     * Escreve um armazém com as tarefas indicadas, substituindo o ficheiro
+     * de forma atómica.
+     *
+     * @param caminho caminho do ficheiro
+     * @param tarefas tarefas a escrever
+     * @throws IOException se ocorrer um erro de escrita
+     */
+    static void escrever(Path caminho, Collection<Tarefa> tarefas) throws IOException {
+        if ((long) tarefas.size() * TAMANHO_REGISTO > Integer.MAX_VALUE) {
+            throw new IOException("Demasiadas tarefas para um armazém mapeado: " + tarefas.size());
+        }
+        if (caminho.getParent() != null) {
+            caminho.getParent().toFile().mkdirs();
+        }
+
+        var temporario = caminho.resolveSibling(caminho.getFileName() + ".tmp");
+        var inicioTextos = TAMANHO_CABECALHO + (long) tarefas.size() * TAMANHO_REGISTO;
+
+        try (var canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            var cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO)
+                    .putInt(MAGIA).putShort(VERSAO).putInt(tarefas.size()).putLong(inicioTextos)
+                    .flip();
+            escreverTudo(canal, cabecalho, 0);
+
+            var registos = ByteBuffer.allocateDirect(TAMANHO_BUFFER);
+            var textos = ByteBuffer.allocateDirect(TAMANHO_BUFFER);
+            long posicaoRegistos = TAMANHO_CABECALHO;
+            long posicaoTextos = 0;
+            long inicioBufferTextos = 0;
+
+            for (var tarefa : tarefas) {
+                var titulo = codificar(tarefa.getTitulo());
+                var descricao = codificar(tarefa.getDescricao());
+                var tamanho = (long) comprimento(titulo) + comprimento(descricao);
+
+                if (tamanho > TAMANHO_BLOCO) {
+                    throw new IOException("Texto demasiado grande na tarefa '" + tarefa.getTitulo() + "'.");
+                }
+
+                // Os textos de uma tarefa não podem atravessar o limite de um bloco
+                if (posicaoTextos % TAMANHO_BLOCO + tamanho > TAMANHO_BLOCO) {
+                    escreverTudo(canal, textos.flip(), inicioTextos + inicioBufferTextos);
+                    textos.clear();
+                    posicaoTextos = (posicaoTextos / TAMANHO_BLOCO + 1) * TAMANHO_BLOCO;
+                    inicioBufferTextos = posicaoTextos;
+                }
+
+                if (registos.remaining() < TAMANHO_REGISTO) {
+                    posicaoRegistos += escreverTudo(canal, registos.flip(), posicaoRegistos);
+                    registos.clear();
+                }
+
+                var data = tarefa.getDataCriacao();
+                registos.put((byte) tarefa.getEstado().ordinal())
+                        .put((byte) tarefa.getPrioridade().ordinal())
+                        .putShort((short) 0)
+                        .putInt(data != null ? data.getNano() : EscritorBinarioDeTarefas.SEM_DATA)
+                        .putLong(data != null ? data.toEpochSecond(ZoneOffset.UTC) : 0)
+                        .putLong(posicaoTextos)
+                        .putInt(titulo != null ? titulo.length : -1)
+                        .putInt(descricao != null ? descricao.length : -1);
+
+                for (var texto : new byte[][] { titulo, descricao }) {
+                    var posicao = 0;
+                    while (texto != null && posicao < texto.length) {
+                        if (!textos.hasRemaining()) {
+                            inicioBufferTextos += escreverTudo(canal, textos.flip(), inicioTextos + inicioBufferTextos);
+                            textos.clear();
+                        }
+                        var parte = Math.min(textos.remaining(), texto.length - posicao);
+                        textos.put(texto, posicao, parte);
+                        posicao += parte;
+                    }
+                }
+                posicaoTextos += tamanho;
+            }
+
+            escreverTudo(canal, registos.flip(), posicaoRegistos);
+            escreverTudo(canal, textos.flip(), inicioTextos + inicioBufferTextos);
+            canal.force(true);
+        }
+
+        try {
+            Files.move(temporario, caminho, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporario, caminho, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Verifica os campos de largura fixa de todos os registos: ordinais,
+     * nanossegundos e posição dos textos. Como o ficheiro mapeado não muda,
+     * as vistas podem depois lê-los sem voltar a verificar.
+     */
+    private static boolean registosValidos(MappedByteBuffer registos, int contagem, long tamanhoTextos) {
+        for (int i = 0; i < contagem; i++) {
+            var base = i * TAMANHO_REGISTO;
+            var estado = registos.get(base + ESTADO);
+            var prioridade = registos.get(base + PRIORIDADE);
+            var nanos = registos.getInt(base + NANOS);
+            var posicao = registos.getLong(base + POSICAO_TEXTOS);
+            var tamanhoTitulo = registos.getInt(base + TAMANHO_TITULO);
+            var tamanhoDescricao = registos.getInt(base + TAMANHO_DESCRICAO);
+
+            if (estado < 0 || estado >= ESTADOS.length || prioridade < 0 || prioridade >= PRIORIDADES.length
+                    || (nanos != EscritorBinarioDeTarefas.SEM_DATA && (nanos < 0 || nanos > 999_999_999))
+                    || tamanhoTitulo < -1 || tamanhoDescricao < -1 || posicao < 0) {
+                return false;
+            }
+
+            // Os textos de uma tarefa ficam dentro da zona de textos e de um único bloco
+            var tamanho = (long) Math.max(0, tamanhoTitulo) + Math.max(0, tamanhoDescricao);
+            if (posicao + tamanho > tamanhoTextos || posicao % TAMANHO_BLOCO + tamanho > TAMANHO_BLOCO) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Cria as vistas (ainda não materializadas) sobre todas as tarefas do armazém. */
+    List<Tarefa> vistas() {
+        List<Tarefa> vistas = new ArrayList<>(contagem);
+        for (int i = 0; i < contagem; i++) {
+            vistas.add(new TarefaMapeada(this, i));
+        }
+        return vistas;
+    }
+
+    int getContagem() {
+        return contagem;
+    }
+
+    Estado estado(int indice) {
+        return ESTADOS[registos.get(indice * TAMANHO_REGISTO + ESTADO)];
+    }
+
+    Prioridade prioridade(int indice) {
+        return PRIORIDADES[registos.get(indice * TAMANHO_REGISTO + PRIORIDADE)];
+    }
+
+    LocalDateTime dataCriacao(int indice) {
+        var base = indice * TAMANHO_REGISTO;
+        var nanos = registos.getInt(base + NANOS);
+        if (nanos == EscritorBinarioDeTarefas.SEM_DATA) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(registos.getLong(base + SEGUNDOS), nanos, ZoneOffset.UTC);
+    }
+
+    String titulo(int indice) {
+        var base = indice * TAMANHO_REGISTO;
+        return texto(registos.getLong(base + POSICAO_TEXTOS), registos.getInt(base + TAMANHO_TITULO));
+    }
+
+    String descricao(int indice) {
+        var base = indice * TAMANHO_REGISTO;
+        var tamanhoTitulo = Math.max(0, registos.getInt(base + TAMANHO_TITULO));
+        return texto(registos.getLong(base + POSICAO_TEXTOS) + tamanhoTitulo,
+                registos.getInt(base + TAMANHO_DESCRICAO));
+    }
+
+    /** Descodifica um texto da zona de textos (as leituras absolutas são seguras entre threads). */
+    private String texto(long posicao, int comprimento) {
+        if (comprimento <= 0) {
+            return comprimento < 0 ? null : "";
+        }
+
+        var bytes = new byte[comprimento];
+        textos[(int) (posicao / TAMANHO_BLOCO)].get((int) (posicao % TAMANHO_BLOCO), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] codificar(String texto) {
+        return texto != null ? texto.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int comprimento(byte[] texto) {
+        return texto != null ? texto.length : 0;
+    }
+
+    /** Escreve o buffer completo na posição indicada e devolve o número de bytes escritos. */
+    private static int escreverTudo(FileChannel canal, ByteBuffer buffer, long posicao) throws IOException {
+        var total = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer, posicao + (total - buffer.remaining()));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,197 @@
+package Services;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import Entities.Estado;
+import Services.EventoDeTarefa.Tipo;
+
+/**
+ * Canal que distribui as alterações de um {@link GestorDeTarefas} pelos
+ * subscritores de eventos.
+ *
+ * <p>Os eventos são publicados num buffer circular de dimensão fixa, sem
+ * trincos: cada produtor reserva um número de sequência com um incremento
+ * atómico e escreve o evento na posição correspondente. Cada subscritor
+ * tem a sua thread, que lê o buffer a partir da sua própria sequência e
+ * entrega os eventos ao ouvinte em lotes (ver {@link SubscricaoDeEventos}).
+ * A thread que altera o gestor nunca espera pelos ouvintes, exceto quando
+ * um subscritor com {@link PoliticaDeSobrecarga#BLOQUEAR} deixa o buffer
+ * encher; com {@link PoliticaDeSobrecarga#DESCARTAR}, os eventos que o
+ * subscritor não leu a tempo são simplesmente reescritos.</p>
+ *
+ * <p>Sem subscritores, publicar um evento não tem qualquer custo.</p>
+ */
+final class CanalDeEventos implements ObservadorDeAlteracoes {
+
+    /** Número de eventos no buffer circular (potência de 2). */
+    static final int CAPACIDADE = 1 << 14;
+
+    /** Pausa de um produtor bloqueado enquanto aguarda espaço no buffer. */
+    private static final long PAUSA_PRODUTOR_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final AtomicReferenceArray<EventoDeTarefa> eventos = new AtomicReferenceArray<>(CAPACIDADE);
+
+    /** Sequência do próximo evento a publicar. */
+    private final AtomicLong proximo = new AtomicLong();
+
+    private final List<SubscricaoDeEventos> subscricoes = new CopyOnWriteArrayList<>();
+
+    /**
+     * Sequência a partir da qual os produtores têm de confirmar que há
+     * espaço (a menor sequência dos subscritores bloqueantes, mais a
+     * capacidade). Pode estar desatualizada por defeito, o que só obriga a
+     * recalculá-la, mas nunca por excesso: só é escrita com
+     * {@link #trincoDoLimite}, que os produtores apenas adquirem quando
+     * chegam ao limite.
+     */
+    private volatile long limite = Long.MAX_VALUE;
+    private final Object trincoDoLimite = new Object();
+
+    /**
+     * Regista um novo subscritor, que recebe os eventos publicados a partir
+     * deste momento.
+     */
+    SubscricaoDeEventos subscrever(OuvinteDeTarefas ouvinte, PoliticaDeSobrecarga politica) {
+        SubscricaoDeEventos subscricao;
+        synchronized (trincoDoLimite) {
+            // Um subscritor bloqueante começa por obrigar todos os produtores a
+            // confirmar o espaço: os que reservaram uma sequência antes disso
+            // publicam eventos anteriores ao seu início, e os restantes
+            // aguardam pelo trinco até o limite o incluir.
+            if (politica == PoliticaDeSobrecarga.BLOQUEAR) {
+                limite = Long.MIN_VALUE;
+            }
+            subscricao = new SubscricaoDeEventos(this, ouvinte, politica, proximo.get());
+            subscricoes.add(subscricao);
+            recalcularLimite();
+        }
+        subscricao.iniciar();
+        return subscricao;
+    }
+
+    void cancelar(SubscricaoDeEventos subscricao) {
+        subscricoes.remove(subscricao);
+    }
+
+    /**
+     * Recolhe para o lote os eventos disponíveis a partir da sequência do
+     * subscritor, até ao máximo indicado, e avança essa sequência. Os
+     * eventos que já foram reescritos são contados como descartados.
+     */
+    void recolher(SubscricaoDeEventos subscricao, List<EventoDeTarefa> lote, int maximo) {
+        var sequencia = subscricao.proxima;
+        while (lote.size() < maximo) {
+            var evento = eventos.get(posicao(sequencia));
+            if (evento == null || evento.sequencia() < sequencia) {
+                break;
+            }
+            if (evento.sequencia() == sequencia) {
+                lote.add(evento);
+                sequencia++;
+            } else {
+                // O subscritor ficou mais de uma volta para trás: salta para o evento mais antigo ainda no buffer
+                var retomar = Math.max(sequencia + 1, proximo.get() - CAPACIDADE);
+                subscricao.descartados.add(retomar - sequencia);
+                sequencia = retomar;
+            }
+        }
+        subscricao.proxima = sequencia;
+    }
+
+    /** Indica se já foi publicado um evento com a sequência indicada (ou posterior). */
+    boolean publicado(long sequencia) {
+        var evento = eventos.get(posicao(sequencia));
+        return evento != null && evento.sequencia() >= sequencia;
+    }
+
+    @Override
+    public void tarefaAdicionada(Tarefa tarefa) {
+        publicar(Tipo.ADICIONADA, tarefa, null, tarefa.getEstado());
+    }
+
+    @Override
+    public void tarefaRemovida(Tarefa tarefa) {
+        publicar(Tipo.REMOVIDA, tarefa, null, null);
+    }
+
+    @Override
+    public void estadoAlterado(Tarefa tarefa, Estado anterior, Estado novo) {
+        publicar(Tipo.ESTADO_ALTERADO, tarefa, anterior, novo);
+    }
+
+    @Override
+    public void tarefasSubstituidas() {
+        publicar(Tipo.SUBSTITUIDAS, null, null, null);
+    }
+
+    private void publicar(Tipo tipo, Tarefa tarefa, Estado anterior, Estado novo) {
+        if (subscricoes.isEmpty()) {
+            return;
+        }
+
+        var sequencia = proximo.getAndIncrement();
+        if (sequencia >= limite) {
+            aguardarEspaco(sequencia);
+        }
+
+        // Um produtor atrasado não pode reescrever um evento mais recente da mesma posição
+        var evento = new EventoDeTarefa(sequencia, tipo, tarefa, anterior, novo);
+        var posicao = posicao(sequencia);
+        EventoDeTarefa atual;
+        do {
+            atual = eventos.get(posicao);
+            if (atual != null && atual.sequencia() > sequencia) {
+                break;
+            }
+        } while (!eventos.compareAndSet(posicao, atual, evento));
+
+        for (var subscricao : subscricoes) {
+            subscricao.acordar();
+        }
+    }
+
+    /** Espera até que todos os subscritores bloqueantes tenham lido o evento que ocupa a posição. */
+    private void aguardarEspaco(long sequencia) {
+        while (true) {
+            long atualizado;
+            synchronized (trincoDoLimite) {
+                atualizado = recalcularLimite();
+            }
+            if (sequencia < atualizado) {
+                return;
+            }
+
+            for (var subscricao : subscricoes) {
+                subscricao.acordar();
+            }
+            LockSupport.parkNanos(this, PAUSA_PRODUTOR_NANOS);
+        }
+    }
+
+    /**
+     * Recalcula o limite a partir das sequências dos subscritores bloqueantes
+     * (chamado com {@link #trincoDoLimite}). Como o cálculo e a escrita são
+     * feitos com o trinco, um limite mais baixo fixado por um novo
+     * subscritor nunca é substituído por um calculado sem ele.
+     */
+    private long recalcularLimite() {
+        var menor = Long.MAX_VALUE;
+        for (var subscricao : subscricoes) {
+            if (subscricao.politica == PoliticaDeSobrecarga.BLOQUEAR) {
+                menor = Math.min(menor, subscricao.proxima);
+            }
+        }
+        var novo = menor == Long.MAX_VALUE ? Long.MAX_VALUE : menor + CAPACIDADE;
+        limite = novo;
+        return novo;
+    }
+
+    private static int posicao(long sequencia) {
+        return (int) sequencia & (CAPACIDADE - 1);
+    }
+}
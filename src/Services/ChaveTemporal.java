@@ -0,0 +1,55 @@
+package Services;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+
+/**
+ * Posição de uma tarefa na ordenação por data de criação e, em caso de
+ * empate, pelo título normalizado. É a ordem usada na paginação por cursor
+ * (ver {@link PaginaDeTarefas}).
+ *
+ * @param data data de criação
+ * @param chave título normalizado (ver {@link GestorDeTarefas#normalizarTitulo(String)})
+ */
+record ChaveTemporal(LocalDateTime data, String chave) implements Comparable<ChaveTemporal> {
+
+    private static final Comparator<ChaveTemporal> ORDEM = Comparator
+            .comparing(ChaveTemporal::data)
+            .thenComparing(ChaveTemporal::chave, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    /** Chave de uma tarefa, ou {@code null} se esta não tiver data de criação. */
+    static ChaveTemporal de(Tarefa tarefa) {
+        var data = tarefa.getDataCriacao();
+        return data != null ? new ChaveTemporal(data, GestorDeTarefas.normalizarTitulo(tarefa.getTitulo())) : null;
+    }
+
+    /**
+     * Lê a chave codificada num cursor.
+     *
+     * @throws IllegalArgumentException se o cursor não tiver sido produzido por {@link #cursor()}
+     */
+    static ChaveTemporal lerCursor(String cursor) {
+        var separador = cursor.indexOf('|');
+        try {
+            if (separador > 0) {
+                var chave = cursor.substring(separador + 1);
+                return new ChaveTemporal(LocalDateTime.parse(cursor.substring(0, separador)),
+                        chave.equals("\0") ? null : chave);
+            }
+        } catch (DateTimeParseException e) {
+            // tratado abaixo
+        }
+        throw new IllegalArgumentException("Cursor inválido: '" + cursor + "'.");
+    }
+
+    /** Codifica a chave como cursor ("data ISO|título normalizado"). */
+    String cursor() {
+        return data + "|" + (chave != null ? chave : "\0");
+    }
+
+    @Override
+    public int compareTo(ChaveTemporal outra) {
+        return ORDEM.compare(this, outra);
+    }
+}
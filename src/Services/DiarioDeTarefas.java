@@ -0,0 +1,561 @@
+package Services;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Diário (write-ahead log) das alterações feitas às tarefas de um gestor.
+ *
+ * <p>Cada adição, remoção ou mudança de estado é acrescentada ao fim do
+ * ficheiro como um registo binário compacto:</p>
+ *
+ * <pre>
+ * [int comprimento][int crc32][byte tipo][campos do registo]
+ * </pre>
+ *
+ * <p>Os registos são acumulados num buffer em memória e escritos por uma
+ * thread dedicada em lotes (<em>group commit</em>): um único {@code fsync}
+ * torna duráveis todos os registos acumulados durante a janela de
+ * agrupamento. Quem acrescenta um registo não espera pelo {@code fsync};
+ * {@link #sincronizar()} bloqueia até que todos os registos já
+ * acrescentados estejam em disco e é o único ponto de durabilidade.</p>
+ *
+ * <p>Na recuperação, os registos são reaplicados pela ordem em que foram
+ * escritos. A reaplicação é idempotente (uma adição substitui a tarefa
+ * existente; remoções e mudanças de estado de tarefas inexistentes são
+ * ignoradas), pelo que é seguro reaplicar o diário sobre um snapshot mais
+ * recente do que o seu início. Um registo final incompleto ou corrompido
+ * (por exemplo, após uma falha de energia) é descartado.</p>
+ *
+ * <p>As adições e as mudanças de estado guardam também o instante com que
+ * ficaram no histórico dos estados (ver {@link HistoricoDeEstados}, o
+ * primeiro observador do gestor), para que a reaplicação as registe no
+ * instante original.</p>
+ *
+ * <p>As alterações de uma operação em lote ficam entre um registo de início
+ * e um registo de fim de lote, e só são reaplicadas se o registo de fim
+ * existir: um lote interrompido é descartado por inteiro, juntamente com
+ * o que se lhe segue.</p>
+ */
+final class DiarioDeTarefas implements ObservadorDeAlteracoes, Closeable {
+
+    /** Identificador do formato ("GTJ2": os registos passaram a incluir o instante do histórico). */
+    private static final int MAGIA = 0x47544A32;
+    private static final int TAMANHO_CABECALHO = 4;
+    private static final int TAMANHO_CABECALHO_REGISTO = 8;
+
+    private static final byte ADICAO = 1;
+    private static final byte REMOCAO = 2;
+    private static final byte ESTADO = 3;
+    private static final byte INICIO_LOTE = 4;
+    private static final byte FIM_LOTE = 5;
+
+    /** Tempo máximo que um registo aguarda por outros antes de ser escrito. */
+    private static final long JANELA_AGRUPAMENTO_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    /** Dimensão a partir da qual um lote é escrito sem esperar pela janela. */
+    private static final int LIMITE_LOTE = 1 << 20;
+
+    /** Dimensão a partir da qual quem acrescenta registos espera pela escrita. */
+    private static final int LIMITE_PENDENTE = 64 << 20;
+
+    private final FileChannel canal;
+    private final Thread escritor;
+    private final Object trinco = new Object();
+    private final CRC32 crc = new CRC32();
+
+    /** Registos ainda não escritos e buffer livre para o lote seguinte. */
+    private ByteBuffer pendente = ByteBuffer.allocate(1 << 16);
+    private ByteBuffer reserva = ByteBuffer.allocate(1 << 16);
+
+    private long registados;
+    private long duraveis;
+    private int registosDesdeSnapshot;
+    private boolean urgente;
+    private boolean fechado;
+    private IOException falha;
+
+    private DiarioDeTarefas(FileChannel canal) {
+        this.canal = canal;
+        this.escritor = new Thread(this::escreverLotes, "diario-de-tarefas");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    /**
+     * Abre (ou cria) o diário, reaplicando sobre o gestor os registos
+     * existentes. O diário devolvido continua a acrescentar registos a
+     * seguir ao último registo válido.
+     *
+     * @param caminho caminho do ficheiro do diário
+     * @param gestor gestor sobre o qual os registos são reaplicados
+     * @return diário aberto, pronto a receber novos registos
+     * @throws IOException se o ficheiro não puder ser lido ou não for um diário
+     */
+    static DiarioDeTarefas abrir(Path caminho, GestorDeTarefas gestor) throws IOException {
+        if (caminho.getParent() != null) {
+            caminho.getParent().toFile().mkdirs();
+        }
+
+        var canal = FileChannel.open(caminho, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            var valido = reproduzir(canal, gestor);
+
+            if (valido == 0) {
+                var cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO).putInt(MAGIA).flip();
+                canal.write(cabecalho, 0);
+                valido = TAMANHO_CABECALHO;
+            }
+
+            canal.truncate(valido);
+            canal.position(valido);
+            canal.force(true);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+
+        return new DiarioDeTarefas(canal);
+    }
+
+    @Override
+    public void tarefaAdicionada(Tarefa tarefa) {
+        var titulo = codificar(tarefa.getTitulo());
+        var descricao = codificar(tarefa.getDescricao());
+        var data = tarefa.getDataCriacao();
+
+        synchronized (trinco) {
+            var inicio = iniciarRegisto(1 + 4 + tamanho(titulo) + 4 + tamanho(descricao) + 8 + 4 + 2 + 8);
+            pendente.put(ADICAO);
+            escreverTexto(titulo);
+            escreverTexto(descricao);
+            pendente.putLong(data != null ? data.toEpochSecond(ZoneOffset.UTC) : 0);
+            pendente.putInt(data != null ? data.getNano() : EscritorBinarioDeTarefas.SEM_DATA);
+            pendente.put((byte) tarefa.getPrioridade().ordinal());
+            pendente.put((byte) tarefa.getEstado().ordinal());
+            pendente.putLong(tarefa.getInstanteDoUltimoRegisto());
+            terminarRegisto(inicio);
+        }
+    }
+
+    @Override
+    public void tarefaRemovida(Tarefa tarefa) {
+        var titulo = codificar(tarefa.getTitulo());
+
+        synchronized (trinco) {
+            var inicio = iniciarRegisto(1 + 4 + tamanho(titulo));
+            pendente.put(REMOCAO);
+            escreverTexto(titulo);
+            terminarRegisto(inicio);
+        }
+    }
+
+    @Override
+    public void estadoAlterado(Tarefa tarefa, Estado anterior, Estado novo) {
+        var titulo = codificar(tarefa.getTitulo());
+
+        synchronized (trinco) {
+            var inicio = iniciarRegisto(1 + 4 + tamanho(titulo) + 1 + 8);
+            pendente.put(ESTADO);
+            escreverTexto(titulo);
+            pendente.put((byte) novo.ordinal());
+            pendente.putLong(tarefa.getInstanteDoUltimoRegisto());
+            terminarRegisto(inicio);
+        }
+    }
+
+    @Override
+    public void loteIniciado() {
+        marcar(INICIO_LOTE);
+    }
+
+    @Override
+    public void loteConcluido() {
+        marcar(FIM_LOTE);
+    }
+
+    /** Acrescenta um registo sem campos, que delimita um lote. */
+    private void marcar(byte tipo) {
+        synchronized (trinco) {
+            var inicio = iniciarRegisto(1);
+            pendente.put(tipo);
+            terminarRegisto(inicio);
+        }
+    }
+
+    /**
+     * Verifica que o diário pode receber registos, para que o gestor não
+     * aplique uma alteração que depois não ficaria registada.
+     *
+     * @throws IllegalStateException se o diário já tiver sido fechado
+     * @throws UncheckedIOException se a escrita do diário tiver falhado
+     */
+    void verificarEscrita() {
+        synchronized (trinco) {
+            verificarAberto();
+        }
+    }
+
+    /** Número de registos acrescentados desde o último snapshot. */
+    int getRegistosDesdeSnapshot() {
+        synchronized (trinco) {
+            return registosDesdeSnapshot;
+        }
+    }
+
+    /**
+     * Bloqueia até que todos os registos já acrescentados estejam em disco.
+     *
+     * @throws IOException se a escrita do diário tiver falhado
+     */
+    void sincronizar() throws IOException {
+        synchronized (trinco) {
+            var alvo = registados;
+            if (duraveis < alvo) {
+                urgente = true;
+                trinco.notifyAll();
+            }
+
+            while (duraveis < alvo && falha == null) {
+                esperar(0);
+            }
+            verificarFalha();
+        }
+    }
+
+    /**
+     * Descarta todos os registos, depois de o estado atual ter sido gravado
+     * num snapshot. Os registos pendentes são escritos antes de o ficheiro
+     * ser truncado.
+     *
+     * @throws IOException se o ficheiro não puder ser truncado
+     */
+    void truncar() throws IOException {
+        sincronizar();
+
+        synchronized (canal) {
+            canal.truncate(TAMANHO_CABECALHO);
+            canal.position(TAMANHO_CABECALHO);
+            canal.force(true);
+        }
+        synchronized (trinco) {
+            registosDesdeSnapshot = 0;
+        }
+    }
+
+    /** Escreve os registos pendentes e fecha o ficheiro do diário. */
+    @Override
+    public void close() throws IOException {
+        synchronized (trinco) {
+            if (fechado) {
+                return;
+            }
+            fechado = true;
+            trinco.notifyAll();
+        }
+
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        canal.close();
+        synchronized (trinco) {
+            verificarFalha();
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Escrita em lotes
+    // ----------------------------------------------------------------------
+
+    /** Ciclo da thread de escrita: agrupa os registos pendentes e torna-os duráveis. */
+    private void escreverLotes() {
+        while (true) {
+            ByteBuffer lote;
+            long ate;
+
+            synchronized (trinco) {
+                while (!fechado && pendente.position() == 0) {
+                    esperar(0);
+                }
+                if (pendente.position() == 0) {
+                    return;
+                }
+
+                // Janela de agrupamento: dá oportunidade a outros registos de
+                // partilharem o mesmo fsync.
+                var limite = System.nanoTime() + JANELA_AGRUPAMENTO_NANOS;
+                long restante;
+                while (!fechado && !urgente && pendente.position() < LIMITE_LOTE
+                        && (restante = limite - System.nanoTime()) > 0) {
+                    esperar(restante);
+                }
+
+                lote = pendente;
+                pendente = reserva;
+                reserva = null;
+                ate = registados;
+                urgente = false;
+            }
+
+            try {
+                synchronized (canal) {
+                    lote.flip();
+                    while (lote.hasRemaining()) {
+                        canal.write(lote);
+                    }
+                    canal.force(false);
+                }
+            } catch (IOException e) {
+                synchronized (trinco) {
+                    falha = e;
+                    trinco.notifyAll();
+                }
+                return;
+            }
+
+            synchronized (trinco) {
+                lote.clear();
+                reserva = lote;
+                duraveis = ate;
+                trinco.notifyAll();
+            }
+        }
+    }
+
+    private void verificarAberto() {
+        if (fechado) {
+            throw new IllegalStateException("O diário de tarefas já foi fechado.");
+        }
+        if (falha != null) {
+            throw new UncheckedIOException("Falha na escrita do diário de tarefas.", falha);
+        }
+    }
+
+    /** Reserva espaço para um registo e devolve a posição onde este começa. */
+    private int iniciarRegisto(int tamanhoDados) {
+        verificarAberto();
+
+        while (pendente.position() >= LIMITE_PENDENTE && falha == null) {
+            urgente = true;
+            trinco.notifyAll();
+            esperar(0);
+        }
+
+        var necessario = TAMANHO_CABECALHO_REGISTO + tamanhoDados;
+        if (pendente.remaining() < necessario) {
+            var maior = ByteBuffer.allocate(Math.max(pendente.capacity() * 2, pendente.position() + necessario));
+            pendente.flip();
+            maior.put(pendente);
+            pendente = maior;
+        }
+
+        var inicio = pendente.position();
+        pendente.position(inicio + TAMANHO_CABECALHO_REGISTO);
+        return inicio;
+    }
+
+    /** Preenche o cabeçalho (comprimento e CRC) de um registo já escrito. */
+    private void terminarRegisto(int inicio) {
+        var dados = inicio + TAMANHO_CABECALHO_REGISTO;
+        var comprimento = pendente.position() - dados;
+
+        crc.reset();
+        crc.update(pendente.array(), dados, comprimento);
+
+        pendente.putInt(inicio, comprimento);
+        pendente.putInt(inicio + 4, (int) crc.getValue());
+
+        registados++;
+        registosDesdeSnapshot++;
+
+        // Acorda a thread de escrita no primeiro registo do lote ou quando
+        // o lote atinge a dimensão máxima.
+        if (inicio == 0 || pendente.position() >= LIMITE_LOTE) {
+            trinco.notifyAll();
+        }
+    }
+
+    private void escreverTexto(byte[] texto) {
+        if (texto == null) {
+            pendente.putInt(-1);
+        } else {
+            pendente.putInt(texto.length);
+            pendente.put(texto);
+        }
+    }
+
+    private static byte[] codificar(String texto) {
+        return texto != null ? texto.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int tamanho(byte[] texto) {
+        return texto != null ? texto.length : 0;
+    }
+
+    /** Espera no trinco (que tem de estar adquirido) até ser notificado ou expirar. */
+    private void esperar(long nanos) {
+        try {
+            if (nanos > 0) {
+                TimeUnit.NANOSECONDS.timedWait(trinco, nanos);
+            } else {
+                trinco.wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido enquanto aguardava o diário de tarefas.", e);
+        }
+    }
+
+    private void verificarFalha() throws IOException {
+        if (falha != null) {
+            throw new IOException("Falha na escrita do diário de tarefas.", falha);
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Recuperação
+    // ----------------------------------------------------------------------
+
+    /**
+     * Reaplica os registos do diário sobre o gestor. Os registos de um lote
+     * são guardados até ao registo de fim do lote e só então aplicados.
+     *
+     * @return posição a seguir ao último registo aplicado (0 se o ficheiro estiver vazio)
+     */
+    private static long reproduzir(FileChannel canal, GestorDeTarefas gestor) throws IOException {
+        var tamanho = canal.size();
+        if (tamanho < TAMANHO_CABECALHO) {
+            return 0;
+        }
+
+        var entrada = new DataInputStream(new BufferedInputStream(Channels.newInputStream(canal.position(0)), 1 << 16));
+
+        if (entrada.readInt() != MAGIA) {
+            throw new IOException("O ficheiro não é um diário de tarefas válido.");
+        }
+
+        var posicao = (long) TAMANHO_CABECALHO;
+        var aplicado = posicao;
+        var verificador = new CRC32();
+        List<ByteBuffer> lote = null;
+
+        leitura:
+        while (tamanho - posicao >= TAMANHO_CABECALHO_REGISTO) {
+            var comprimento = entrada.readInt();
+            var crcEsperado = entrada.readInt();
+
+            if (comprimento <= 0 || comprimento > tamanho - posicao - TAMANHO_CABECALHO_REGISTO) {
+                break;
+            }
+
+            var dados = new byte[comprimento];
+            try {
+                entrada.readFully(dados);
+            } catch (EOFException e) {
+                break;
+            }
+
+            verificador.reset();
+            verificador.update(dados);
+            if ((int) verificador.getValue() != crcEsperado) {
+                break;
+            }
+
+            posicao += TAMANHO_CABECALHO_REGISTO + comprimento;
+            var registo = ByteBuffer.wrap(dados);
+
+            switch (registo.get(0)) {
+                case INICIO_LOTE -> {
+                    if (lote != null) {
+                        break leitura;
+                    }
+                    lote = new ArrayList<>();
+                }
+                case FIM_LOTE -> {
+                    if (lote == null) {
+                        break leitura;
+                    }
+                    for (var registoDoLote : lote) {
+                        aplicar(registoDoLote, gestor);
+                    }
+                    lote = null;
+                    aplicado = posicao;
+                }
+                default -> {
+                    if (lote != null) {
+                        lote.add(registo);
+                    } else {
+                        aplicar(registo, gestor);
+                        aplicado = posicao;
+                    }
+                }
+            }
+        }
+
+        return aplicado;
+    }
+
+    /** Aplica um único registo ao gestor. */
+    private static void aplicar(ByteBuffer registo, GestorDeTarefas gestor) throws IOException {
+        var tipo = registo.get();
+
+        switch (tipo) {
+            case ADICAO -> {
+                var titulo = lerTexto(registo);
+                var descricao = lerTexto(registo);
+                var segundos = registo.getLong();
+                var nanos = registo.getInt();
+                var prioridade = Prioridade.values()[registo.get()];
+                var estado = Estado.values()[registo.get()];
+                var instante = registo.getLong();
+
+                var data = nanos != EscritorBinarioDeTarefas.SEM_DATA
+                        ? LocalDateTime.ofEpochSecond(segundos, nanos, ZoneOffset.UTC)
+                        : null;
+                gestor.reporAdicao(new Tarefa(titulo, descricao, data, prioridade, estado), instante);
+            }
+            case REMOCAO -> gestor.reporRemocao(lerTexto(registo));
+            case ESTADO -> {
+                var titulo = lerTexto(registo);
+                var estado = Estado.values()[registo.get()];
+                gestor.reporEstado(titulo, estado, registo.getLong());
+            }
+            default -> throw new IOException("Tipo de registo desconhecido no diário: " + tipo);
+        }
+    }
+
+    private static String lerTexto(ByteBuffer registo) {
+        var comprimento = registo.getInt();
+        if (comprimento < 0) {
+            return null;
+        }
+
+        var texto = new String(registo.array(), registo.position(), comprimento, StandardCharsets.UTF_8);
+        registo.position(registo.position() + comprimento);
+        return texto;
+    }
+}
@@ -0,0 +1,176 @@
+package Services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+
+import Entities.Estado;
+
+/**
+ * Escritor do formato binário de snapshots de tarefas.
+ * 
+ * <p>O ficheiro começa por um cabeçalho fixo, seguido de um registo por
+ * tarefa, sem nomes de campos repetidos:</p>
+ * 
+ * <pre>
+ * cabeçalho: [int magia "GTB1"][short versão][int número de tarefas]
+ * tarefa:    [int n][n bytes UTF-8 título][int n][n bytes UTF-8 descrição]
+ *            [long segundos][int nanossegundos]   (data de criação, época UTC; nanossegundos -1 se não existir)
+ *            [byte prioridade][byte estado]       (ordinais)
+ * </pre>
+ * 
+ * <p>Um comprimento de texto igual a -1 representa {@code null}. A escrita é
+ * feita através de um {@link FileChannel} com um buffer direto; o número de
+ * tarefas é preenchido em {@link #concluir()}, o que permite escrever
+ * sequências de dimensão desconhecida (por exemplo, durante uma conversão).</p>
+ * 
+ * <p>As tarefas são escritas num ficheiro temporário na mesma pasta, que só
+ * substitui o destino em {@link #concluir()}, depois de forçado para o
+ * disco, através de uma mudança de nome atómica. Um escritor fechado sem
+ * ter sido concluído (por exemplo, após uma exceção) apaga o temporário e
+ * deixa o snapshot anterior intacto.</p>
+ */
+final class EscritorBinarioDeTarefas implements Closeable {
+
+    /** Identificador do formato ("GTB1"). */
+    static final int MAGIA = 0x47544231;
+    static final short VERSAO = 1;
+    static final int TAMANHO_CABECALHO = 4 + 2 + 4;
+
+    /** Valor dos nanossegundos que representa uma data de criação nula. */
+    static final int SEM_DATA = -1;
+
+    /** Posição do número de tarefas no cabeçalho. */
+    private static final int POSICAO_CONTAGEM = 4 + 2;
+
+    private static final int TAMANHO_BUFFER = 1 << 20;
+
+    private final Path destino;
+    private final Path temporario;
+    private final FileChannel canal;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER);
+    private int contagem;
+    private boolean concluido;
+
+    /**
+     * Cria o ficheiro temporário e escreve o cabeçalho. O destino só é
+     * criado (ou substituído) em {@link #concluir()}.
+     *
+     * @param caminho caminho do ficheiro binário
+     * @throws IOException se o ficheiro temporário não puder ser criado
+     */
+    EscritorBinarioDeTarefas(Path caminho) throws IOException {
+        var pasta = caminho.toAbsolutePath().getParent();
+        Files.createDirectories(pasta);
+
+        this.destino = caminho;
+        this.temporario = Files.createTempFile(pasta, caminho.getFileName() + ".", ".tmp");
+        try {
+            this.canal = FileChannel.open(temporario, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporario);
+            throw e;
+        }
+
+        buffer.putInt(MAGIA).putShort(VERSAO).putInt(0);
+    }
+
+    /** Escreve uma tarefa com o seu estado atual. */
+    void escrever(Tarefa tarefa) throws IOException {
+        escrever(tarefa, tarefa.getEstado());
+    }
+
+    /** Escreve uma tarefa, utilizando o estado indicado em vez do estado atual. */
+    void escrever(Tarefa tarefa, Estado estado) throws IOException {
+        escreverTexto(tarefa.getTitulo());
+        escreverTexto(tarefa.getDescricao());
+
+        garantirEspaco(8 + 4 + 1 + 1);
+        var data = tarefa.getDataCriacao();
+        buffer.putLong(data != null ? data.toEpochSecond(ZoneOffset.UTC) : 0);
+        buffer.putInt(data != null ? data.getNano() : SEM_DATA);
+        buffer.put((byte) tarefa.getPrioridade().ordinal());
+        buffer.put((byte) estado.ordinal());
+
+        contagem++;
+    }
+
+    /**
+     * Escreve o que resta no buffer, preenche a contagem, força o ficheiro
+     * para o disco e substitui o destino através de uma mudança de nome
+     * atómica.
+     *
+     * @throws IOException se ocorrer um erro de escrita (o destino não é alterado)
+     */
+    void concluir() throws IOException {
+        despejar();
+        canal.write(ByteBuffer.allocate(4).putInt(0, contagem), POSICAO_CONTAGEM);
+        canal.force(true);
+        canal.close();
+
+        try {
+            Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+        concluido = true;
+    }
+
+    /** Fecha o ficheiro; se o escritor não tiver sido concluído, apaga o temporário. */
+    @Override
+    public void close() throws IOException {
+        if (concluido) {
+            return;
+        }
+        try {
+            canal.close();
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+
+    private void escreverTexto(String texto) throws IOException {
+        if (texto == null) {
+            garantirEspaco(4);
+            buffer.putInt(-1);
+            return;
+        }
+
+        var bytes = texto.getBytes(StandardCharsets.UTF_8);
+        garantirEspaco(4);
+        buffer.putInt(bytes.length);
+
+        // Textos maiores do que o buffer são escritos em várias partes
+        var posicao = 0;
+        while (posicao < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                despejar();
+            }
+            var parte = Math.min(buffer.remaining(), bytes.length - posicao);
+            buffer.put(bytes, posicao, parte);
+            posicao += parte;
+        }
+    }
+
+    private void garantirEspaco(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            despejar();
+        }
+    }
+
+    private void despejar() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+}
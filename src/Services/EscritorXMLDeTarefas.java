@@ -0,0 +1,103 @@
+package Services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import Entities.Estado;
+
+/**
+ * Escritor sequencial (StAX) de tarefas no formato XML da aplicação.
+ * 
+ * <p>Ao contrário da construção de um documento DOM completo, cada tarefa
+ * é escrita diretamente no fluxo de saída, pelo que a memória utilizada é
+ * constante, independentemente do número de tarefas. O formato produzido
+ * (incluindo a indentação de dois espaços) é o mesmo do ficheiro
+ * {@code dados/tarefas.xml}:</p>
+ * 
+ * <pre>
+ * &lt;tarefas&gt;
+ *   &lt;tarefa&gt;
+ *     &lt;titulo&gt;...&lt;/titulo&gt;
+ *     &lt;descricao&gt;...&lt;/descricao&gt;
+ *     &lt;dataCriacao&gt;yyyy-MM-dd HH:mm:ss&lt;/dataCriacao&gt;
+ *     &lt;prioridade&gt;...&lt;/prioridade&gt;
+ *     &lt;estado&gt;...&lt;/estado&gt;
+ *   &lt;/tarefa&gt;
+ * &lt;/tarefas&gt;
+ * </pre>
+ */
+final class EscritorXMLDeTarefas implements Closeable {
+
+    private static final XMLOutputFactory FABRICA = XMLOutputFactory.newFactory();
+
+    private final OutputStream saida;
+    private final XMLStreamWriter xml;
+
+    /**
+     * Inicia o documento, escrevendo a declaração XML e o elemento raiz.
+     *
+     * @param saida fluxo de saída (deve ser já um fluxo com buffer)
+     * @throws XMLStreamException se ocorrer um erro de escrita
+     */
+    EscritorXMLDeTarefas(OutputStream saida) throws XMLStreamException {
+        this.saida = saida;
+        this.xml = FABRICA.createXMLStreamWriter(saida, "UTF-8");
+
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.writeCharacters("\n");
+        xml.writeStartElement("tarefas");
+    }
+
+    /** Escreve uma tarefa com o seu estado atual. */
+    void escrever(Tarefa tarefa) throws XMLStreamException {
+        escrever(tarefa, tarefa.getEstado());
+    }
+
+    /**
+     * Escreve uma tarefa, utilizando o estado indicado em vez do estado atual
+     * (útil para escrever cópias consistentes de um estado anterior).
+     */
+    void escrever(Tarefa tarefa, Estado estado) throws XMLStreamException {
+        xml.writeCharacters("\n  ");
+        xml.writeStartElement("tarefa");
+
+        escreverCampo("titulo", tarefa.getTitulo());
+        escreverCampo("descricao", tarefa.getDescricao());
+        var data = tarefa.getDataCriacao();
+        escreverCampo("dataCriacao", data != null ? data.format(Tarefa.FORMATO_DATA) : null);
+        escreverCampo("prioridade", tarefa.getPrioridade().name());
+        escreverCampo("estado", estado.name());
+
+        xml.writeCharacters("\n  ");
+        xml.writeEndElement();
+    }
+
+    /** Fecha o elemento raiz e o fluxo de saída. */
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.writeCharacters("\n");
+            xml.writeEndElement();
+            xml.writeCharacters("\n");
+            xml.writeEndDocument();
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Erro ao terminar o documento XML.", e);
+        } finally {
+            saida.close();
+        }
+    }
+
+    /** Escreve um elemento simples com o valor textual indicado. */
+    private void escreverCampo(String nome, String valor) throws XMLStreamException {
+        xml.writeCharacters("\n    ");
+        xml.writeStartElement(nome);
+        xml.writeCharacters(valor != null ? valor : "");
+        xml.writeEndElement();
+    }
+}
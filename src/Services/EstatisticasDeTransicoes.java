@@ -0,0 +1,105 @@
+package Services;
+
+import java.time.Duration;
+
+import Entities.Estado;
+
+/**
+ * Tempos em cada estado e de entrega do conjunto das tarefas de um gestor
+ * (ver {@link GestorDeTarefas#estatisticasDeTransicoes()}).
+ *
+ * <p>Para cada estado, considera-se o tempo total que cada tarefa lá passou
+ * (só as tarefas que passaram por ele); o tempo de entrega considera só as
+ * tarefas concluídas (ver {@link HistoricoDeTarefa#getTempoDeEntrega()}).
+ * Os percentis são calculados sobre um {@link HistogramaDeLatencia}, com um
+ * erro relativo inferior a 1/32.</p>
+ */
+public final class EstatisticasDeTransicoes {
+
+    private static final long NANOS_POR_MILISSEGUNDO = 1_000_000;
+
+    private final HistogramaDeLatencia[] porEstado = new HistogramaDeLatencia[Estado.values().length];
+    private final HistogramaDeLatencia entrega = new HistogramaDeLatencia();
+    private long tarefas;
+
+    EstatisticasDeTransicoes() {
+        for (int i = 0; i < porEstado.length; i++) {
+            porEstado[i] = new HistogramaDeLatencia();
+        }
+    }
+
+    /** Acrescenta o histórico de uma tarefa. */
+    void registar(HistoricoDeTarefa historico) {
+        tarefas++;
+        for (var estado : Estado.values()) {
+            var tempo = historico.milissegundosNoEstado(estado);
+            if (tempo > 0) {
+                porEstado[estado.ordinal()].registar(tempo * NANOS_POR_MILISSEGUNDO);
+            }
+        }
+
+        var tempoDeEntrega = historico.milissegundosDeEntrega();
+        if (tempoDeEntrega >= 0) {
+            entrega.registar(tempoDeEntrega * NANOS_POR_MILISSEGUNDO);
+        }
+    }
+
+    /** Número de tarefas com histórico. */
+    public long getTarefas() {
+        return tarefas;
+    }
+
+    /** Número de tarefas concluídas, com tempo de entrega. */
+    public long getTarefasEntregues() {
+        return entrega.getContagem();
+    }
+
+    /** Número de tarefas que passaram algum tempo no estado indicado. */
+    public long contarTarefasNoEstado(Estado estado) {
+        return histograma(estado).getContagem();
+    }
+
+    /** Tempo médio no estado indicado, entre as tarefas que passaram por ele. */
+    public Duration getTempoMedioNoEstado(Estado estado) {
+        return Duration.ofNanos(Math.round(histograma(estado).getMedia()));
+    }
+
+    /**
+     * Tempo no estado indicado abaixo do qual se encontra a percentagem
+     * indicada das tarefas que passaram por ele.
+     *
+     * @param estado estado pretendido
+     * @param percentil percentil, entre 0 e 100
+     */
+    public Duration tempoNoEstado(Estado estado, double percentil) {
+        return Duration.ofNanos(histograma(estado).percentil(percentil));
+    }
+
+    /** Tempo médio de entrega das tarefas concluídas. */
+    public Duration getTempoMedioDeEntrega() {
+        return Duration.ofNanos(Math.round(entrega.getMedia()));
+    }
+
+    /**
+     * Tempo de entrega abaixo do qual se encontra a percentagem indicada das
+     * tarefas concluídas.
+     *
+     * @param percentil percentil, entre 0 e 100
+     */
+    public Duration tempoDeEntrega(double percentil) {
+        return Duration.ofNanos(entrega.percentil(percentil));
+    }
+
+    private HistogramaDeLatencia histograma(Estado estado) {
+        if (estado == null) {
+            throw new IllegalArgumentException("O estado não pode ser nulo.");
+        }
+        return porEstado[estado.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        return tarefas + " tarefas, " + getTarefasEntregues() + " entregues, tempo médio de entrega "
+                + getTempoMedioDeEntrega();
+    }
+}
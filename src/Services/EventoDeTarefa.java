@@ -0,0 +1,28 @@
+package Services;
+
+import Entities.Estado;
+
+/**
+ * Alteração feita a um {@link GestorDeTarefas}, entregue aos subscritores
+ * de eventos (ver {@link GestorDeTarefas#subscreverEventos(OuvinteDeTarefas, PoliticaDeSobrecarga)}).
+ *
+ * <p>Os números de sequência são consecutivos; uma falha na sequência
+ * indica eventos descartados por sobrecarga do subscritor.</p>
+ *
+ * @param sequencia número de sequência do evento
+ * @param tipo tipo de alteração
+ * @param tarefa tarefa alterada ({@code null} em {@link Tipo#SUBSTITUIDAS})
+ * @param anterior estado anterior ({@code null} exceto em {@link Tipo#ESTADO_ALTERADO})
+ * @param novo estado após a alteração ({@code null} em {@link Tipo#REMOVIDA} e {@link Tipo#SUBSTITUIDAS})
+ */
+public record EventoDeTarefa(long sequencia, Tipo tipo, Tarefa tarefa, Estado anterior, Estado novo) {
+
+    /** Tipos de alteração. */
+    public enum Tipo {
+        ADICIONADA,
+        REMOVIDA,
+        ESTADO_ALTERADO,
+        /** Todas as tarefas foram substituídas (por exemplo, após um carregamento). */
+        SUBSTITUIDAS
+    }
+}
@@ -0,0 +1,224 @@
+package Services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Fila das tarefas pendentes de um {@link GestorDeTarefas}, pela ordem em
+ * que devem ser atendidas: prioridade mais alta primeiro e, dentro de cada
+ * prioridade, a mais antiga primeiro.
+ *
+ * <p>Cada prioridade tem a sua fila de prioridade ordenada pela data de
+ * criação (e, em caso de empate, pela ordem de entrada), pelo que retirar a
+ * próxima tarefa custa O(log N). A fila acompanha as alterações do gestor
+ * como {@link ObservadorDeAlteracoes}; as tarefas que deixam de estar
+ * pendentes são apenas desmarcadas e descartadas quando chegam ao topo
+ * (remoção preguiçosa). Quando as entradas descartadas passam a ser a
+ * maioria, as filas são reconstruídas.</p>
+ *
+ * <p>Todas as operações são protegidas por um {@link ReentrantLock}, cuja
+ * condição acorda os consumidores à espera quando entra uma nova tarefa.</p>
+ */
+final class FilaDeTrabalho implements ObservadorDeAlteracoes {
+
+    /** Número mínimo de entradas descartadas antes de reconstruir as filas. */
+    private static final int DESCARTADAS_PARA_COMPACTAR = 1024;
+
+    private static final Comparator<Entrada> ORDEM = Comparator
+            .comparing((Entrada e) -> e.dataCriacao, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingLong(e -> e.ordem);
+
+    /** Entrada de uma tarefa numa fila; só é válida enquanto for a entrada atual da tarefa. */
+    private static final class Entrada {
+        final Tarefa tarefa;
+        final LocalDateTime dataCriacao;
+        final long ordem;
+
+        Entrada(Tarefa tarefa, long ordem) {
+            this.tarefa = tarefa;
+            this.dataCriacao = tarefa.getDataCriacao();
+            this.ordem = ordem;
+        }
+    }
+
+    private final ReentrantLock trinco = new ReentrantLock();
+    private final Condition disponivel = trinco.newCondition();
+
+    private final Map<Prioridade, PriorityQueue<Entrada>> filas = new EnumMap<>(Prioridade.class);
+
+    /** Entrada atual de cada tarefa pendente. */
+    private final Map<Tarefa, Entrada> presentes = new HashMap<>();
+
+    /** Tarefas pendentes do gestor, para reconstruir a fila após uma substituição. */
+    private final Supplier<Collection<Tarefa>> pendentes;
+
+    private long proximaOrdem;
+    private int descartadas;
+
+    FilaDeTrabalho(Supplier<Collection<Tarefa>> pendentes) {
+        this.pendentes = pendentes;
+        for (var prioridade : Prioridade.values()) {
+            filas.put(prioridade, new PriorityQueue<>(ORDEM));
+        }
+        repor(pendentes.get());
+    }
+
+    /**
+     * Retira a próxima tarefa, esperando no máximo o tempo indicado.
+     *
+     * @param tempo tempo máximo de espera (0 para não esperar, negativo para esperar sem limite)
+     * @param unidade unidade do tempo de espera
+     * @return a tarefa retirada, ou {@code null} se o tempo de espera terminar
+     * @throws InterruptedException se a thread for interrompida durante a espera
+     */
+    Tarefa retirar(long tempo, TimeUnit unidade) throws InterruptedException {
+        var restante = unidade.toNanos(tempo);
+
+        trinco.lockInterruptibly();
+        try {
+            while (true) {
+                var tarefa = retirarSeExistir();
+                if (tarefa != null) {
+                    return tarefa;
+                }
+
+                if (tempo < 0) {
+                    disponivel.await();
+                } else if (restante > 0) {
+                    restante = disponivel.awaitNanos(restante);
+                } else {
+                    return null;
+                }
+            }
+        } finally {
+            trinco.unlock();
+        }
+    }
+
+    /** Número de tarefas pendentes na fila. */
+    int tamanho() {
+        trinco.lock();
+        try {
+            return presentes.size();
+        } finally {
+            trinco.unlock();
+        }
+    }
+
+    @Override
+    public void tarefaAdicionada(Tarefa tarefa) {
+        if (tarefa.getEstado() == Estado.PENDENTE) {
+            acrescentar(tarefa);
+        }
+    }
+
+    @Override
+    public void tarefaRemovida(Tarefa tarefa) {
+        descartar(tarefa);
+    }
+
+    @Override
+    public void estadoAlterado(Tarefa tarefa, Estado anterior, Estado novo) {
+        if (novo == Estado.PENDENTE) {
+            acrescentar(tarefa);
+        } else if (anterior == Estado.PENDENTE) {
+            descartar(tarefa);
+        }
+    }
+
+    @Override
+    public void tarefasSubstituidas() {
+        repor(pendentes.get());
+    }
+
+    /** Retira a tarefa válida do topo da fila de prioridade mais alta (chamado com o trinco). */
+    private Tarefa retirarSeExistir() {
+        for (var fila : filas.values()) {
+            Entrada entrada;
+            while ((entrada = fila.poll()) != null) {
+                if (presentes.get(entrada.tarefa) == entrada) {
+                    presentes.remove(entrada.tarefa);
+                    return entrada.tarefa;
+                }
+                descartadas--;
+            }
+        }
+        return null;
+    }
+
+    private void acrescentar(Tarefa tarefa) {
+        trinco.lock();
+        try {
+            var entrada = new Entrada(tarefa, proximaOrdem++);
+            if (presentes.put(tarefa, entrada) != null) {
+                descartadas++;
+            }
+            filas.get(tarefa.getPrioridade()).add(entrada);
+            disponivel.signal();
+        } finally {
+            trinco.unlock();
+        }
+    }
+
+    private void descartar(Tarefa tarefa) {
+        trinco.lock();
+        try {
+            if (presentes.remove(tarefa) != null) {
+                descartadas++;
+                if (descartadas >= DESCARTADAS_PARA_COMPACTAR && descartadas > presentes.size()) {
+                    compactar();
+                }
+            }
+        } finally {
+            trinco.unlock();
+        }
+    }
+
+    /** Reconstrói as filas apenas com as entradas válidas (chamado com o trinco). */
+    private void compactar() {
+        for (var fila : filas.values()) {
+            fila.clear();
+        }
+        for (var entrada : presentes.values()) {
+            filas.get(entrada.tarefa.getPrioridade()).add(entrada);
+        }
+        descartadas = 0;
+    }
+
+    private void repor(Collection<Tarefa> tarefas) {
+        trinco.lock();
+        try {
+            presentes.clear();
+            for (var fila : filas.values()) {
+                fila.clear();
+            }
+            descartadas = 0;
+
+            var entradas = new ArrayList<Entrada>(tarefas.size());
+            for (var tarefa : tarefas) {
+                var entrada = new Entrada(tarefa, proximaOrdem++);
+                presentes.put(tarefa, entrada);
+                entradas.add(entrada);
+            }
+            for (var entrada : entradas) {
+                filas.get(entrada.tarefa.getPrioridade()).add(entrada);
+            }
+            disponivel.signalAll();
+        } finally {
+            trinco.unlock();
+        }
+    }
+}
@@ -1,30 +1,38 @@
 package Services;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import javax.xml.stream.XMLStreamException;
 
 import Entities.Estado;
 import Entities.Prioridade;
+import Entities.ResultadoLote;
+import Entities.ResultadoLote.Falha;
 import Entities.TarefaNaoEncontradaException;
 import Interfaces.IGestorDeTarefas;
 
@@ -38,41 +46,142 @@ import Interfaces.IGestorDeTarefas;
  * 
  * <p>Adota uma estrutura modular, coesa e facilmente extensível, aplicando
  * os princípios de encapsulamento, abstração e responsabilidade única.</p>
+ * 
+ * <p>As tarefas são indexadas pelo título normalizado (ver
+ * {@link #normalizarTitulo(String)}), pelo que a deteção de duplicados, a
+ * pesquisa, a alteração de estado e a remoção são efetuadas em tempo
+ * constante. A ordem de inserção é preservada na listagem.</p>
+ * 
+ * <p>Mantém ainda um índice secundário por estado e prioridade, atualizado
+ * sempre que o estado de uma tarefa muda (incluindo através de
+ * {@link Tarefa#setEstado(Estado)}). Assim, {@link #listarPorEstado(Estado)}
+ * devolve as tarefas já ordenadas por prioridade, num tempo proporcional
+ * ao resultado, e as contagens por estado e prioridade são imediatas.</p>
+ * 
+ * <p>As tarefas pendentes podem ser atendidas por ordem de prioridade e
+ * antiguidade através de uma fila de trabalho (ver {@link #reclamarTarefa()}),
+ * segura para vários consumidores em simultâneo.</p>
+ * 
+ * <p>Outros componentes podem acompanhar as alterações subscrevendo os
+ * respetivos eventos (ver {@link #subscreverEventos(OuvinteDeTarefas, PoliticaDeSobrecarga)}),
+ * entregues em lotes e de forma assíncrona.</p>
+ * 
+ * <p>Opcionalmente, pode funcionar em modo com diário (ver
+ * {@link #ativarDiario(String, String)}): cada alteração é acrescentada a um
+ * ficheiro de diário e o ficheiro XML passa a funcionar como snapshot
+ * periódico. O diário é escrito em disco em lotes, em segundo plano, pelo
+ * que as alterações só são garantidamente duráveis depois de
+ * {@link #sincronizarDiario()}; uma falha pode perder as alterações dos
+ * últimos milissegundos, mas o estado recuperado corresponde sempre às
+ * alterações feitas até um dado momento, pela ordem em que foram feitas.</p>
+ * 
+ * <p>Para não bloquear quem altera as tarefas, a gravação em XML pode ainda
+ * ser feita em segundo plano (ver {@link #guardarEmXMLAssincrono(String)}),
+ * com os pedidos sucessivos agrupados numa única escrita.</p>
+ * 
+ * <p>Os leitores demorados (gravações, relatórios, exportações) podem
+ * trabalhar sobre um instantâneo imutável das tarefas (ver
+ * {@link #obterInstantaneo()}), percorrido sem bloquear quem as altera.</p>
+ * 
+ * <p>Cada mudança de estado fica registada, com o respetivo instante, num
+ * histórico compacto por tarefa (ver {@link #historicoDe(String)}), gravado
+ * e carregado juntamente com as tarefas em todos os armazéns e reposto,
+ * com os instantes originais, a partir do diário.</p>
  */
 public class GestorDeTarefas implements IGestorDeTarefas {
+
+    /** Dimensão dos buffers de leitura e escrita de ficheiros. */
+    private static final int TAMANHO_BUFFER = 1 << 16;
+
+    /** Número de registos do diário a partir do qual é criado um snapshot. */
+    private static final int REGISTOS_POR_SNAPSHOT = 100_000;
     
-    private List<Tarefa> tarefas;
+    /** Tarefas indexadas pelo título normalizado, pela ordem de inserção. */
+    private Map<String, Tarefa> tarefas;
+
+    /** Tarefas agrupadas por estado e, dentro de cada estado, por prioridade. */
+    private Map<Estado, Map<Prioridade, Set<Tarefa>>> porEstado;
+
+    /** Observador associado a cada tarefa, que mantém o índice por estado. */
+    private final ObservadorDeEstado observador = this::estadoAlterado;
+
+    /** Componentes notificados das alterações (diário, índices auxiliares, ...). */
+    private final List<ObservadorDeAlteracoes> observadores = new ArrayList<>();
+
+    /** Diário de alterações, quando o modo com diário está ativo. */
+    private DiarioDeTarefas diario;
+    private Path caminhoSnapshot;
+    private int registosPorSnapshot;
+
+    /** Relatório incremental, criado na primeira geração do relatório HTML. */
+    private RelatorioIncremental relatorio;
+
+    /** Índice de pesquisa de texto, criado na primeira pesquisa. */
+    private IndiceDeTexto indiceDeTexto;
+
+    /** Contagens diárias e motor das consultas estatísticas, criado na primeira agregação. */
+    private AgregadorDeTarefas agregador;
+
+    /** Fila das tarefas pendentes, criada no primeiro pedido de uma tarefa. */
+    private FilaDeTrabalho filaDeTrabalho;
+
+    /** Índice pela data de criação, criado na primeira consulta temporal. */
+    private IndiceTemporal indiceTemporal;
+
+    /** Canal dos eventos de alteração, criado na primeira subscrição. */
+    private CanalDeEventos canalDeEventos;
+
+    /** Métricas das operações de persistência e de relatório, quando instrumentado. */
+    private volatile MetricasDoGestor metricas;
+
+    /** Pasta de fragmentos usada na última gravação ou carregamento fragmentado. */
+    private ArmazemFragmentado armazemFragmentado;
+
+    /** Árvore persistente das tarefas, criada no primeiro pedido de um instantâneo. */
+    private VersoesDeTarefas versoes;
+
+    /** Gravador em segundo plano, criado no primeiro pedido de gravação assíncrona. */
+    private GravadorAssincrono gravador;
+
+    /** Número de alterações feitas às tarefas, para evitar gravações repetidas. */
+    private long versao;
+
+    /** Indica que um lote está a ser aplicado: o snapshot automático só é verificado no fim. */
+    private boolean emLote;
+
+    /** Registos da entrada de cada tarefa e das suas mudanças de estado. */
+    private final HistoricoDeEstados historico = new HistoricoDeEstados(() -> tarefas.values());
     
     public GestorDeTarefas() {
-        this.tarefas = new ArrayList<>();
+        this.tarefas = new LinkedHashMap<>();
+        this.porEstado = criarIndicePorEstado();
+        this.observadores.add(historico);
     }
 
     
     @Override
     public void adicionarTarefa(Tarefa tarefa) {
-        if (tarefa == null) {
-            throw new IllegalArgumentException("A tarefa não pode ser nula.");
-        }
-
-        for (var tar : tarefas) {
-            if (tar.getTitulo().equalsIgnoreCase(tarefa.getTitulo())) {
-                throw new IllegalArgumentException(
-                    "Já existe uma tarefa com o título '" + tarefa.getTitulo() + "'.");
-            }
+        var chave = tarefa != null ? normalizarTitulo(tarefa.getTitulo()) : null;
+        var motivo = motivoDeRejeicao(tarefa, chave);
+        if (motivo != null) {
+            throw new IllegalArgumentException(motivo);
         }
 
-        tarefas.add(tarefa);
+        verificarDiario();
+        inserir(chave, tarefa);
+        concluirAlteracao();
     }
 
     @Override
     public void removerTarefa(String titulo) throws TarefaNaoEncontradaException {
-        var removida = tarefas.removeIf(
-            tarefa -> tarefa.getTitulo().equalsIgnoreCase(titulo)
-        );
+        verificarDiario();
+        var removida = titulo != null ? tarefas.remove(normalizarTitulo(titulo)) : null;
 
-        if (!removida) {
+        if (removida == null) {
             throw new TarefaNaoEncontradaException(titulo);
         }
+        retirar(removida);
+        concluirAlteracao();
     }
 
     @Override
@@ -80,21 +189,164 @@ public class GestorDeTarefas implements IGestorDeTarefas {
             throws TarefaNaoEncontradaException {
 
         var tarefa = buscarPorTitulo(titulo);
+        verificarDiario();
         tarefa.setEstado(novoEstado);
     }
 
+    @Override
+    public ResultadoLote adicionarTarefas(Collection<Tarefa> lote) {
+        if (lote == null) {
+            throw new IllegalArgumentException("O lote não pode ser nulo.");
+        }
+
+        List<Falha> falhas = new ArrayList<>();
+        Map<String, Tarefa> validas = LinkedHashMap.newLinkedHashMap(lote.size());
+        var indice = 0;
+
+        for (var tarefa : lote) {
+            var chave = tarefa != null ? normalizarTitulo(tarefa.getTitulo()) : null;
+            var motivo = motivoDeRejeicao(tarefa, chave);
+            if (motivo == null && validas.putIfAbsent(chave, tarefa) != null) {
+                motivo = "O título '" + tarefa.getTitulo() + "' está repetido no lote.";
+            }
+            if (motivo != null) {
+                falhas.add(new Falha(indice, tarefa != null ? tarefa.getTitulo() : null, motivo));
+            }
+            indice++;
+        }
+
+        if (falhas.isEmpty()) {
+            verificarDiario();
+            List<Tarefa> aplicadas = new ArrayList<>(validas.size());
+            RuntimeException falha = null;
+            iniciarLote();
+            try {
+                for (var entrada : validas.entrySet()) {
+                    aplicadas.add(entrada.getValue());
+                    inserir(entrada.getKey(), entrada.getValue());
+                }
+            } catch (RuntimeException e) {
+                falha = e;
+                desfazerAdicoes(aplicadas, e);
+                throw e;
+            } finally {
+                concluirLote(falha);
+            }
+            concluirAlteracao();
+        }
+        return new ResultadoLote(indice, falhas);
+    }
+
+    @Override
+    public ResultadoLote removerTarefas(Collection<String> titulos) {
+        if (titulos == null) {
+            throw new IllegalArgumentException("O lote não pode ser nulo.");
+        }
+
+        List<Falha> falhas = new ArrayList<>();
+        Map<String, Tarefa> encontradas = LinkedHashMap.newLinkedHashMap(titulos.size());
+        var indice = 0;
+
+        for (var titulo : titulos) {
+            var chave = normalizarTitulo(titulo);
+            var tarefa = titulo != null ? tarefas.get(chave) : null;
+            if (tarefa == null) {
+                falhas.add(new Falha(indice, titulo, "A tarefa '" + titulo + "' não foi encontrada."));
+            } else if (encontradas.putIfAbsent(chave, tarefa) != null) {
+                falhas.add(new Falha(indice, titulo, "O título '" + titulo + "' está repetido no lote."));
+            }
+            indice++;
+        }
+
+        if (falhas.isEmpty()) {
+            verificarDiario();
+            List<Tarefa> aplicadas = new ArrayList<>(encontradas.size());
+            RuntimeException falha = null;
+            iniciarLote();
+            try {
+                for (var entrada : encontradas.entrySet()) {
+                    tarefas.remove(entrada.getKey());
+                    aplicadas.add(entrada.getValue());
+                    retirar(entrada.getValue());
+                }
+            } catch (RuntimeException e) {
+                falha = e;
+                desfazerRemocoes(aplicadas, e);
+                throw e;
+            } finally {
+                concluirLote(falha);
+            }
+            concluirAlteracao();
+        }
+        return new ResultadoLote(indice, falhas);
+    }
+
+    @Override
+    public ResultadoLote alterarEstados(Collection<String> titulos, Estado novoEstado) {
+        if (titulos == null) {
+            throw new IllegalArgumentException("O lote não pode ser nulo.");
+        }
+        if (novoEstado == null) {
+            throw new IllegalArgumentException("O estado não pode ser nulo.");
+        }
+
+        List<Falha> falhas = new ArrayList<>();
+        List<Tarefa> encontradas = new ArrayList<>(titulos.size());
+        var indice = 0;
+
+        for (var titulo : titulos) {
+            var tarefa = titulo != null ? tarefas.get(normalizarTitulo(titulo)) : null;
+            if (tarefa == null) {
+                falhas.add(new Falha(indice, titulo, "A tarefa '" + titulo + "' não foi encontrada."));
+            } else {
+                encontradas.add(tarefa);
+            }
+            indice++;
+        }
+
+        if (falhas.isEmpty()) {
+            verificarDiario();
+            var anteriores = new Estado[encontradas.size()];
+            var aplicadas = 0;
+            RuntimeException falha = null;
+            iniciarLote();
+            emLote = true;
+            try {
+                for (var tarefa : encontradas) {
+                    anteriores[aplicadas++] = tarefa.getEstado();
+                    tarefa.setEstado(novoEstado);
+                }
+            } catch (RuntimeException e) {
+                falha = e;
+                desfazerEstados(encontradas.subList(0, aplicadas), anteriores, e);
+                throw e;
+            } finally {
+                emLote = false;
+                concluirLote(falha);
+            }
+            concluirAlteracao();
+        }
+        return new ResultadoLote(indice, falhas);
+    }
+
     @Override
     public List<Tarefa> listarTarefas() {
-        return new ArrayList<>(tarefas);
+        return new ArrayList<>(tarefas.values());
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Dentro de cada prioridade, as tarefas surgem pela ordem em que
+     * entraram no estado.</p>
+     */
     @Override
     public List<Tarefa> listarPorEstado(Estado estado) {
-        List<Tarefa> filtradas = new ArrayList<>();
+        List<Tarefa> filtradas = new ArrayList<>(contarTarefas(estado));
 
-        for (var tarefa : tarefas) {
-            if (tarefa.getEstado() == estado) {
-                filtradas.add(tarefa);
+        if (estado != null) {
+            for (var bucket : porEstado.get(estado).values()) {
+                filtradas.addAll(bucket);
             }
         }
 
@@ -106,101 +358,795 @@ public class GestorDeTarefas implements IGestorDeTarefas {
         return tarefas.size();
     }
 
+    @Override
+    public int contarTarefas(Estado estado) {
+        if (estado == null) {
+            return 0;
+        }
+
+        var total = 0;
+        for (var bucket : porEstado.get(estado).values()) {
+            total += bucket.size();
+        }
+        return total;
+    }
+
+    @Override
+    public int contarTarefas(Estado estado, Prioridade prioridade) {
+        if (estado == null || prioridade == null) {
+            return 0;
+        }
+        return porEstado.get(estado).get(prioridade).size();
+    }
+
     @Override
     public Tarefa buscarPorTitulo(String titulo) throws TarefaNaoEncontradaException {
-        for (Tarefa t : tarefas) {
-            if (t.getTitulo().equalsIgnoreCase(titulo)) {
-                return t;
-            }
+        var tarefa = titulo != null ? tarefas.get(normalizarTitulo(titulo)) : null;
+
+        if (tarefa == null) {
+            throw new TarefaNaoEncontradaException(titulo);
         }
-        throw new TarefaNaoEncontradaException(titulo);
+        return tarefa;
     }
 
-       /**
+    /**
+     * Devolve as tarefas criadas num intervalo de tempo, da mais antiga para
+     * a mais recente.
+     * 
+     * <p>Na primeira consulta é construído um índice pela data de criação,
+     * particionado por estado, que a partir daí é mantido à medida que as
+     * tarefas mudam (ver {@link IndiceTemporal}). Cada consulta custa
+     * O(log N + k), em que k é o número de tarefas consumidas do resultado,
+     * e não copia as tarefas: o {@link Stream} percorre diretamente o índice,
+     * pelo que deve ser consumido antes de o gestor voltar a ser alterado.
+     * As tarefas sem data de criação não são consideradas.</p>
+     *
+     * @param estado estado das tarefas, ou {@code null} para todos
+     * @param desde início do intervalo (inclusive), ou {@code null} para não limitar
+     * @param ate fim do intervalo (exclusive), ou {@code null} para não limitar
+     * @return tarefas criadas no intervalo
+     */
+    public Stream<Tarefa> criadasEntre(Estado estado, LocalDateTime desde, LocalDateTime ate) {
+        return indiceTemporal().intervalo(tarefas.values(), estado, desde, ate);
+    }
+
+    /**
+     * Devolve as tarefas criadas antes do instante indicado, da mais antiga
+     * para a mais recente (ver {@link #criadasEntre(Estado, LocalDateTime, LocalDateTime)}).
+     * Por exemplo, as tarefas pendentes há mais de uma semana:
+     * {@code criadasAntesDe(Estado.PENDENTE, LocalDateTime.now().minusWeeks(1))}.
+     *
+     * @param estado estado das tarefas, ou {@code null} para todos
+     * @param limite instante limite (exclusive)
+     * @return tarefas criadas antes do limite
+     */
+    public Stream<Tarefa> criadasAntesDe(Estado estado, LocalDateTime limite) {
+        if (limite == null) {
+            throw new IllegalArgumentException("O instante limite não pode ser nulo.");
+        }
+        return criadasEntre(estado, null, limite);
+    }
+
+    /**
+     * Devolve as tarefas criadas a partir do instante indicado, da mais
+     * antiga para a mais recente (ver {@link #criadasEntre(Estado, LocalDateTime, LocalDateTime)}).
+     * Por exemplo, as tarefas criadas na última hora:
+     * {@code criadasDesde(null, LocalDateTime.now().minusHours(1))}.
+     *
+     * @param estado estado das tarefas, ou {@code null} para todos
+     * @param limite instante limite (inclusive)
+     * @return tarefas criadas a partir do limite
+     */
+    public Stream<Tarefa> criadasDesde(Estado estado, LocalDateTime limite) {
+        if (limite == null) {
+            throw new IllegalArgumentException("O instante limite não pode ser nulo.");
+        }
+        return criadasEntre(estado, limite, null);
+    }
+
+    /**
+     * Devolve as tarefas mais antigas, da mais antiga para a mais recente
+     * (ver {@link #criadasEntre(Estado, LocalDateTime, LocalDateTime)}).
+     *
+     * @param estado estado das tarefas, ou {@code null} para todos
+     * @param quantidade número máximo de tarefas
+     * @return as tarefas mais antigas
+     */
+    public Stream<Tarefa> maisAntigas(Estado estado, int quantidade) {
+        if (quantidade < 0) {
+            throw new IllegalArgumentException("A quantidade não pode ser negativa.");
+        }
+        return criadasEntre(estado, null, null).limit(quantidade);
+    }
+
+    /**
+     * Reclama a próxima tarefa pendente, sem esperar: a de prioridade mais
+     * alta e, dentro desta, a criada há mais tempo. A tarefa passa, de forma
+     * atómica, para o estado {@link Estado#EM_PROGRESSO}.
+     * 
+     * <p>A fila de trabalho é criada no primeiro pedido e mantida a partir
+     * daí, pelo que cada pedido custa O(log N) (ver {@link FilaDeTrabalho}).
+     * Os pedidos podem ser feitos por várias threads em simultâneo, tal
+     * como o fim do trabalho sobre a tarefa reclamada (ver
+     * {@link #concluirTarefa(Tarefa)} e {@link #libertarTarefa(Tarefa)}),
+     * feitos com o mesmo monitor. As restantes operações do gestor não são
+     * sincronizadas, pelo que, quando a fila é usada por várias threads, as
+     * outras alterações ao gestor têm de ser feitas com o monitor do gestor
+     * ({@code synchronized (gestor)}).</p>
+     *
+     * @return a tarefa reclamada, ou vazio se não existirem tarefas pendentes
+     */
+    public Optional<Tarefa> reclamarTarefa() {
+        try {
+            return Optional.ofNullable(reclamar(0, TimeUnit.NANOSECONDS));
+        } catch (InterruptedException e) {
+            // Sem espera, a fila nunca é interrompida a meio
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Reclama a próxima tarefa pendente, esperando no máximo o tempo indicado
+     * que uma fique disponível (ver {@link #reclamarTarefa()}).
+     *
+     * @param tempo tempo máximo de espera
+     * @param unidade unidade do tempo de espera
+     * @return a tarefa reclamada, ou {@code null} se o tempo de espera terminar
+     * @throws InterruptedException se a thread for interrompida durante a espera
+     */
+    public Tarefa reclamarTarefa(long tempo, TimeUnit unidade) throws InterruptedException {
+        if (tempo < 0) {
+            throw new IllegalArgumentException("O tempo de espera não pode ser negativo.");
+        }
+        return reclamar(tempo, unidade);
+    }
+
+    /**
+     * Reclama a próxima tarefa pendente, esperando o tempo que for preciso
+     * até que uma fique disponível (ver {@link #reclamarTarefa()}).
+     *
+     * @return a tarefa reclamada
+     * @throws InterruptedException se a thread for interrompida durante a espera
+     */
+    public Tarefa aguardarTarefa() throws InterruptedException {
+        return reclamar(-1, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Conclui uma tarefa reclamada (ver {@link #reclamarTarefa()}), que passa
+     * de {@link Estado#EM_PROGRESSO} para {@link Estado#CONCLUIDA}. Tal como
+     * a reclamação, é feito com o monitor do gestor, pelo que os
+     * consumidores da fila o podem chamar sem sincronização adicional.
+     *
+     * @param tarefa tarefa reclamada
+     * @throws IllegalArgumentException se a tarefa não pertencer ao gestor
+     * @throws IllegalStateException se a tarefa não estiver em progresso
+     */
+    public synchronized void concluirTarefa(Tarefa tarefa) {
+        terminarReclamacao(tarefa, Estado.CONCLUIDA);
+    }
+
+    /**
+     * Devolve à fila de trabalho uma tarefa reclamada que não chegou a ser
+     * concluída: a tarefa volta a {@link Estado#PENDENTE} e pode ser
+     * reclamada de novo (ver {@link #concluirTarefa(Tarefa)}).
+     *
+     * @param tarefa tarefa reclamada
+     * @throws IllegalArgumentException se a tarefa não pertencer ao gestor
+     * @throws IllegalStateException se a tarefa não estiver em progresso
+     */
+    public synchronized void libertarTarefa(Tarefa tarefa) {
+        terminarReclamacao(tarefa, Estado.PENDENTE);
+    }
+
+    /**
+     * Pesquisa tarefas pelas palavras do título e da descrição.
+     * 
+     * <p>Na primeira pesquisa é construído um índice invertido com todas as
+     * tarefas, que a partir daí é mantido à medida que estas são adicionadas
+     * ou removidas; as pesquisas seguintes não percorrem as tarefas (ver
+     * {@link IndiceDeTexto}). Os resultados são ordenados por relevância e
+     * devolvidos em páginas.</p>
+     *
+     * @param pesquisa termos, filtros e página pretendida
+     * @return página de resultados
+     */
+    public ResultadoPesquisa pesquisar(Pesquisa pesquisa) {
+        if (pesquisa == null) {
+            throw new IllegalArgumentException("A pesquisa não pode ser nula.");
+        }
+
+        if (indiceDeTexto == null) {
+            indiceDeTexto = new IndiceDeTexto();
+            observadores.add(indiceDeTexto);
+        }
+        return indiceDeTexto.pesquisar(pesquisa, tarefas.values());
+    }
+
+    /**
+     * Calcula estatísticas sobre as tarefas, agrupadas por estado, prioridade
+     * e/ou período da data de criação.
+     *
+     * <p>Na primeira agregação são contadas as tarefas de cada dia por estado
+     * e prioridade; as contagens são depois mantidas à medida que as tarefas
+     * são adicionadas, removidas ou mudam de estado, e as consultas só com
+     * contagens não percorrem as tarefas. As consultas com idades
+     * ({@link Agregacao#comIdades(double...)}) percorrem-nas numa redução
+     * paralela (ver {@link AgregadorDeTarefas}).</p>
+     *
+     * @param agregacao dimensões, filtros e estatísticas pretendidas
+     * @return um grupo por combinação com tarefas
+     */
+    public ResultadoAgregacao agregar(Agregacao agregacao) {
+        if (agregacao == null) {
+            throw new IllegalArgumentException("A agregação não pode ser nula.");
+        }
+
+        if (agregador == null) {
+            agregador = new AgregadorDeTarefas();
+            observadores.add(agregador);
+        }
+        return agregador.agregar(agregacao, tarefas.values());
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>As tarefas são percorridas pela ordem de inserção, diretamente sobre
+     * o índice do gestor. Como o gestor não é sincronizado, o {@link Stream}
+     * deve ser consumido antes de o gestor voltar a ser alterado.</p>
+     */
+    @Override
+    public Stream<Tarefa> percorrerTarefas() {
+        return tarefas.values().stream();
+    }
+
+    @Override
+    public Stream<Tarefa> percorrerPorEstado(Estado estado) {
+        if (estado == null) {
+            return Stream.empty();
+        }
+        return porEstado.get(estado).values().stream().flatMap(Set::stream);
+    }
+
+    @Override
+    public List<Tarefa> listarTarefas(int inicio, int quantidade) {
+        if (inicio < 0 || quantidade < 0) {
+            throw new IllegalArgumentException("Página inválida: início " + inicio + ", quantidade " + quantidade + ".");
+        }
+        return percorrerTarefas().skip(inicio).limit(quantidade).toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>A página é obtida a partir do índice pela data de criação (ver
+     * {@link #criadasEntre(Estado, LocalDateTime, LocalDateTime)}), pelo que
+     * custa O(log N + quantidade).</p>
+     */
+    @Override
+    public PaginaDeTarefas listarPagina(String cursor, int quantidade) {
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("A quantidade tem de ser positiva.");
+        }
+
+        var depoisDe = cursor != null ? ChaveTemporal.lerCursor(cursor) : null;
+        var seguintes = indiceTemporal().posteriores(tarefas.values(), depoisDe)
+                .limit(quantidade + 1L)
+                .toList();
+        return PaginaDeTarefas.de(seguintes, quantidade);
+    }
+
+    /**
      * Guarda todas as tarefas num ficheiro XML.
+     * 
+     * <p>A escrita é sequencial (StAX): cada tarefa é enviada diretamente
+     * para o ficheiro, sem construir o documento completo em memória. O
+     * histórico dos estados é gravado ao lado, com a extensão
+     * {@value HistoricoDeEstados#EXTENSAO} acrescentada ao caminho.</p>
      *
      * @param caminho caminho do ficheiro (por exemplo, "dados/tarefas.xml")
      * @throws Exception se ocorrer um erro durante o processo de escrita
      */
     public void guardarEmXML(String caminho) throws Exception {
-        var factory = DocumentBuilderFactory.newInstance();
-        var builder = factory.newDocumentBuilder();
-        var doc = builder.newDocument();
-
-        var raiz = doc.createElement("tarefas");
-        doc.appendChild(raiz);
-
-        for (Tarefa t : tarefas) {
-            var tarefaElement = doc.createElement("tarefa");
-
-            tarefaElement.appendChild(criarElemento(doc, "titulo", t.getTitulo()));
-            tarefaElement.appendChild(criarElemento(doc, "descricao", t.getDescricao()));
-            tarefaElement.appendChild(criarElemento(doc, "dataCriacao", t.getDataCriacao().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))));
-            tarefaElement.appendChild(criarElemento(doc, "prioridade", t.getPrioridade().name()));
-            tarefaElement.appendChild(criarElemento(doc, "estado", t.getEstado().name()));
+        medir(OperacaoDoGestor.GUARDAR_XML, () -> {
+            escreverXML(new File(caminho));
+            historico.guardar(HistoricoDeEstados.caminhoJunto(caminho), tarefas.values());
+        });
+    }
 
-            raiz.appendChild(tarefaElement);
+    /**
+     * Pede a gravação das tarefas num ficheiro XML, numa thread em segundo
+     * plano, e regressa de imediato.
+     *
+     * <p>O estado atual fica fixado numa fotografia das tarefas e dos seus
+     * estados. Os pedidos para o mesmo ficheiro feitos enquanto outro aguarda
+     * são agrupados numa única escrita, da versão mais recente, sem nova
+     * cópia; um pedido sem alterações desde a última gravação não escreve
+     * nada. O ficheiro é substituído através de uma mudança de nome
+     * atómica. O histórico dos estados é gravado ao lado, tal como em
+     * {@link #guardarEmXML(String)}, a partir da mesma fotografia.</p>
+     *
+     * @param caminho caminho do ficheiro (por exemplo, "dados/tarefas.xml")
+     * @return resultado concluído quando o ficheiro contiver (pelo menos) o
+     *         estado atual, ou concluído com a exceção da escrita, se falhar
+     */
+    public CompletableFuture<Void> guardarEmXMLAssincrono(String caminho) {
+        if (gravador == null) {
+            gravador = new GravadorAssincrono(this::fotografar, historico);
+            observadores.add(gravador);
         }
+        return gravador.guardar(Path.of(caminho), versao);
+    }
 
-        var transformerFactory = TransformerFactory.newInstance();
-        var transformer = transformerFactory.newTransformer();
-        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+    /**
+     * Devolve o histórico dos estados de uma tarefa: a entrada no gestor e
+     * cada mudança de estado, com o respetivo instante, e os tempos em cada
+     * estado e de entrega daí resultantes.
+     *
+     * <p>As alterações reaplicadas a partir do diário mantêm o instante em
+     * que foram feitas.</p>
+     *
+     * @param titulo título da tarefa
+     * @return histórico da tarefa
+     * @throws TarefaNaoEncontradaException se não existir uma tarefa com esse título
+     */
+    public HistoricoDeTarefa historicoDe(String titulo) throws TarefaNaoEncontradaException {
+        return historico.historico(buscarPorTitulo(titulo));
+    }
 
-        var ficheiro = new File(caminho);
-        if (ficheiro.getParentFile() != null) {
-            ficheiro.getParentFile().mkdirs();
+    /**
+     * Calcula os tempos em cada estado e de entrega do conjunto das tarefas,
+     * a partir dos respetivos históricos (ver {@link #historicoDe(String)}).
+     *
+     * @return estatísticas das tarefas com histórico
+     */
+    public EstatisticasDeTransicoes estatisticasDeTransicoes() {
+        return historico.estatisticas(tarefas.values());
+    }
+
+    /**
+     * Devolve uma vista imutável das tarefas e dos seus estados neste
+     * instante, que pode ser percorrida noutra thread, sem sincronização,
+     * enquanto o gestor continua a ser alterado.
+     *
+     * <p>No primeiro pedido é construída uma árvore persistente com todas as
+     * tarefas, depois mantida à medida que estas são alteradas; os pedidos
+     * seguintes têm custo constante e o instantâneo partilha com o gestor
+     * tudo o que não for alterado depois dele (ver {@link VersoesDeTarefas}).
+     * Tal como as restantes operações, deve ser chamado pela thread que
+     * altera o gestor (ou com a mesma sincronização).</p>
+     *
+     * @return instantâneo das tarefas atuais
+     */
+    public InstantaneoDeTarefas obterInstantaneo() {
+        if (versoes == null) {
+            versoes = new VersoesDeTarefas();
+            observadores.add(versoes);
         }
+        return versoes.instantaneo(tarefas.values(), versao);
+    }
 
-        transformer.transform(new DOMSource(doc), new StreamResult(ficheiro));
+    /**
+     * Devolve um resultado que fica concluído quando todas as gravações
+     * assíncronas já pedidas estiverem em disco.
+     *
+     * @return resultado das gravações pendentes (concluído de imediato se não houver nenhuma)
+     */
+    public CompletableFuture<Void> sincronizarGravacoes() {
+        return gravador != null ? gravador.sincronizar() : CompletableFuture.completedFuture(null);
     }
 
     /**
      * Carrega as tarefas a partir de um ficheiro XML existente.
      * 
-     * <p>Se o ficheiro não existir, o sistema reinicia a lista de tarefas.</p>
+     * <p>Se o ficheiro não existir, o sistema reinicia a lista de tarefas.
+     * A leitura é feita numa única passagem (StAX), sem árvore DOM.</p>
      *
      * @param caminho caminho do ficheiro XML
      * @throws Exception se ocorrer um erro de leitura ou de análise
      */
     public void carregarDeXML(String caminho) throws Exception {
-        var ficheiro = new File(caminho);
+        medir(OperacaoDoGestor.CARREGAR_XML, () -> {
+            var ficheiro = new File(caminho);
 
-        if (!ficheiro.exists()) {
-            this.tarefas = new ArrayList<>();
-            return;
+            if (!ficheiro.exists()) {
+                substituirTarefas(List.of(), List.of());
+                return;
+            }
+
+            List<Tarefa> tarefasCarregadas = new ArrayList<>();
+
+            try (var entrada = new BufferedInputStream(new FileInputStream(ficheiro), TAMANHO_BUFFER)) {
+                LeitorXMLDeTarefas.ler(entrada, tarefasCarregadas::add);
+            }
+
+            substituirTarefas(tarefasCarregadas, List.of(HistoricoDeEstados.caminhoJunto(caminho)));
+
+            // O estado carregado passa a ser a nova base do diário
+            if (diario != null) {
+                criarSnapshot();
+            }
+        });
+    }
+
+    /**
+     * Guarda todas as tarefas num snapshot binário compacto (ver
+     * {@link EscritorBinarioDeTarefas} para a descrição do formato). O
+     * ficheiro é substituído de forma atómica: se a gravação falhar, o
+     * snapshot anterior mantém-se.
+     *
+     * @param caminho caminho do ficheiro (por exemplo, "dados/tarefas.bin")
+     * @throws IOException se ocorrer um erro de escrita
+     */
+    public void guardarEmBinario(String caminho) throws IOException {
+        medir(OperacaoDoGestor.GUARDAR_BINARIO, () -> {
+            try (var escritor = new EscritorBinarioDeTarefas(Path.of(caminho))) {
+                for (var tarefa : tarefas.values()) {
+                    escritor.escrever(tarefa);
+                }
+                escritor.concluir();
+            }
+            historico.guardar(HistoricoDeEstados.caminhoJunto(caminho), tarefas.values());
+        });
+    }
+
+    /**
+     * Carrega as tarefas a partir de um snapshot binário.
+     * 
+     * <p>Se o ficheiro não existir, o sistema reinicia a lista de tarefas.</p>
+     *
+     * @param caminho caminho do ficheiro binário
+     * @throws IOException se o ficheiro não for um snapshot válido ou não puder ser lido
+     */
+    public void carregarDeBinario(String caminho) throws IOException {
+        medir(OperacaoDoGestor.CARREGAR_BINARIO, () -> {
+            var ficheiro = Path.of(caminho);
+
+            if (!Files.exists(ficheiro)) {
+                substituirTarefas(List.of(), List.of());
+                return;
+            }
+
+            List<Tarefa> tarefasCarregadas = new ArrayList<>();
+            LeitorBinarioDeTarefas.ler(ficheiro, tarefasCarregadas::add);
+            substituirTarefas(tarefasCarregadas, List.of(HistoricoDeEstados.caminhoJunto(caminho)));
+
+            if (diario != null) {
+                criarSnapshot();
+            }
+        });
+    }
+
+    /**
+     * Guarda todas as tarefas num armazém mapeado em memória (ver
+     * {@link ArmazemMapeado}), substituindo o ficheiro de forma atómica. O
+     * histórico dos estados é gravado ao lado, tal como em
+     * {@link #guardarEmXML(String)}.
+     *
+     * @param caminho caminho do ficheiro (por exemplo, "dados/tarefas.map")
+     * @throws IOException se ocorrer um erro de escrita
+     */
+    public void guardarEmArmazemMapeado(String caminho) throws IOException {
+        medir(OperacaoDoGestor.GUARDAR_ARMAZEM_MAPEADO, () -> {
+            ArmazemMapeado.escrever(Path.of(caminho), tarefas.values());
+            historico.guardar(HistoricoDeEstados.caminhoJunto(caminho), tarefas.values());
+        });
+    }
+
+    /**
+     * Carrega as tarefas a partir de um armazém mapeado em memória.
+     * 
+     * <p>As tarefas não são materializadas: cada uma é uma vista leve sobre
+     * o ficheiro, que lê os campos de largura fixa diretamente do mapeamento
+     * e só descodifica a descrição quando esta é pedida. A memória ocupada é,
+     * por isso, uma pequena fração da de um carregamento completo. O
+     * carregamento continua a ser O(N): os registos são verificados e o
+     * título de cada tarefa é descodificado para os índices do gestor, mas
+     * as descrições não são lidas. As alterações feitas às tarefas só são
+     * persistidas quando o armazém for novamente guardado.</p>
+     * 
+     * <p>Se o ficheiro não existir, o sistema reinicia a lista de tarefas.</p>
+     *
+     * @param caminho caminho do ficheiro
+     * @throws IOException se o ficheiro não for um armazém válido ou não puder ser mapeado
+     */
+    public void carregarDeArmazemMapeado(String caminho) throws IOException {
+        medir(OperacaoDoGestor.CARREGAR_ARMAZEM_MAPEADO, () -> {
+            var ficheiro = Path.of(caminho);
+
+            if (!Files.exists(ficheiro)) {
+                substituirTarefas(List.of(), List.of());
+                return;
+            }
+
+            substituirTarefas(ArmazemMapeado.abrir(ficheiro).vistas(),
+                    List.of(HistoricoDeEstados.caminhoJunto(caminho)));
+
+            if (diario != null) {
+                criarSnapshot();
+            }
+        });
+    }
+
+    /**
+     * Guarda as tarefas numa pasta de fragmentos XML (ver
+     * {@link ArmazemFragmentado}), distribuídas pela dispersão do título.
+     * 
+     * <p>Os fragmentos são escritos em paralelo, cada um substituído de
+     * forma atómica. Nas gravações seguintes para a mesma pasta e o mesmo
+     * número de fragmentos, só são reescritos os fragmentos com tarefas
+     * adicionadas, removidas ou com o estado alterado entretanto. Cada
+     * fragmento é acompanhado pelo histórico dos estados das suas
+     * tarefas.</p>
+     *
+     * @param pasta pasta dos fragmentos (por exemplo, "dados/fragmentos")
+     * @param fragmentos número de fragmentos (entre 1 e 999)
+     * @throws IOException se algum fragmento não puder ser escrito
+     */
+    public void guardarEmFragmentos(String pasta, int fragmentos) throws IOException {
+        medir(OperacaoDoGestor.GUARDAR_FRAGMENTOS, () -> {
+            var destino = Path.of(pasta);
+            if (armazemFragmentado == null || !armazemFragmentado.corresponde(destino, fragmentos)) {
+                var novo = new ArmazemFragmentado(destino, fragmentos);
+                observadores.remove(armazemFragmentado);
+                armazemFragmentado = novo;
+                observadores.add(novo);
+            }
+            armazemFragmentado.guardar(tarefas.values(), historico);
+        });
+    }
+
+    /**
+     * Carrega as tarefas de uma pasta de fragmentos XML, lidos em paralelo.
+     * 
+     * <p>As tarefas ficam agrupadas por fragmento (a ordem de inserção
+     * original não é preservada). Se a pasta não tiver fragmentos, o sistema
+     * reinicia a lista de tarefas.</p>
+     * 
+     * <p>Um fragmento em falta ou corrompido não impede o carregamento dos
+     * restantes: as suas tarefas ficam de fora e o ficheiro é devolvido na
+     * lista de fragmentos falhados. Na gravação seguinte que o reescreva, o
+     * ficheiro original é guardado ao lado, com a extensão
+     * {@code .corrompido} (ver {@link ArmazemFragmentado}).</p>
+     *
+     * @param pasta pasta dos fragmentos
+     * @return ficheiros dos fragmentos que não puderam ser lidos (vazia se todos foram lidos)
+     * @throws IOException se o número de fragmentos da pasta não puder ser lido
+     */
+    public List<String> carregarDeFragmentos(String pasta) throws IOException {
+        List<String> falhados = new ArrayList<>();
+        medir(OperacaoDoGestor.CARREGAR_FRAGMENTOS, () -> {
+            List<Tarefa> tarefasCarregadas = new ArrayList<>();
+            var armazem = ArmazemFragmentado.abrir(Path.of(pasta), tarefasCarregadas);
+            if (armazem != null) {
+                armazem.getFalhados().forEach(f -> falhados.add(f.toString()));
+            }
+
+            substituirTarefas(tarefasCarregadas, armazem != null ? armazem.getHistoricos() : List.of());
+
+            // Os fragmentos acabados de ler não precisam de ser reescritos
+            observadores.remove(armazemFragmentado);
+            armazemFragmentado = armazem;
+            if (armazem != null) {
+                observadores.add(armazem);
+            }
+
+            if (diario != null) {
+                criarSnapshot();
+            }
+        });
+        return falhados;
+    }
+
+    /**
+     * Converte um ficheiro XML de tarefas num snapshot binário, tarefa a
+     * tarefa, sem carregar o conteúdo completo em memória. O snapshot de
+     * destino só é substituído, de forma atómica, no fim da conversão.
+     *
+     * @param caminhoXML ficheiro XML de origem
+     * @param caminhoBinario snapshot binário de destino
+     * @throws Exception se ocorrer um erro de leitura, de análise ou de escrita
+     */
+    public static void converterXMLParaBinario(String caminhoXML, String caminhoBinario) throws Exception {
+        try (var entrada = new BufferedInputStream(new FileInputStream(caminhoXML), TAMANHO_BUFFER);
+             var escritor = new EscritorBinarioDeTarefas(Path.of(caminhoBinario))) {
+
+            LeitorXMLDeTarefas.ler(entrada, tarefa -> {
+                try {
+                    escritor.escrever(tarefa);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            escritor.concluir();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+    }
 
-        var factory = DocumentBuilderFactory.newInstance();
-        var builder = factory.newDocumentBuilder();
-        var doc = builder.parse(ficheiro);
-        doc.getDocumentElement().normalize();
+    /**
+     * Converte um snapshot binário num ficheiro XML de tarefas, tarefa a
+     * tarefa, sem carregar o conteúdo completo em memória.
+     *
+     * @param caminhoBinario snapshot binário de origem
+     * @param caminhoXML ficheiro XML de destino
+     * @throws Exception se ocorrer um erro de leitura ou de escrita
+     */
+    public static void converterBinarioParaXML(String caminhoBinario, String caminhoXML) throws Exception {
+        var ficheiro = new File(caminhoXML);
+        if (ficheiro.getParentFile() != null) {
+            ficheiro.getParentFile().mkdirs();
+        }
 
-        var listaTarefas = doc.getElementsByTagName("tarefa");
-        List<Tarefa> tarefasCarregadas = new ArrayList<>();
+        try (var escritor = new EscritorXMLDeTarefas(
+                new BufferedOutputStream(new FileOutputStream(ficheiro), TAMANHO_BUFFER))) {
 
-        for (int i = 0; i < listaTarefas.getLength(); i++) {
-            var node = listaTarefas.item(i);
+            LeitorBinarioDeTarefas.ler(Path.of(caminhoBinario), tarefa -> {
+                try {
+                    escritor.escrever(tarefa);
+                } catch (XMLStreamException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof XMLStreamException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
 
-            if (node.getNodeType() == Node.ELEMENT_NODE) {
-                var elemento = (Element) node;
+    /**
+     * Ativa o modo com diário, com um snapshot automático a cada
+     * {@value #REGISTOS_POR_SNAPSHOT} alterações.
+     *
+     * @see #ativarDiario(String, String, int)
+     */
+    public void ativarDiario(String caminhoSnapshot, String caminhoDiario) throws Exception {
+        ativarDiario(caminhoSnapshot, caminhoDiario, REGISTOS_POR_SNAPSHOT);
+    }
+
+    /**
+     * Ativa o modo com diário, recuperando o estado persistido.
+     * 
+     * <p>O snapshot XML é carregado e os registos do diário são reaplicados
+     * por cima dele. A partir daí, cada adição, remoção ou mudança de estado
+     * é acrescentada ao diário (com escrita agrupada em lotes, em segundo
+     * plano: ver {@link #sincronizarDiario()}) e, sempre que
+     * o diário acumula {@code registosPorSnapshot} registos, o estado atual
+     * é gravado no snapshot e o diário é truncado.</p>
+     *
+     * @param caminhoSnapshot caminho do ficheiro XML que serve de snapshot
+     * @param caminhoDiario caminho do ficheiro do diário
+     * @param registosPorSnapshot número de registos entre snapshots automáticos
+     * @throws Exception se ocorrer um erro na leitura do snapshot ou do diário
+     */
+    public void ativarDiario(String caminhoSnapshot, String caminhoDiario, int registosPorSnapshot)
+            throws Exception {
 
-                var titulo = getValorTag(elemento, "titulo");
-                var descricao = getValorTag(elemento, "descricao");
-                var dataStr = getValorTag(elemento, "dataCriacao");
-                var prioridadeStr = getValorTag(elemento, "prioridade");
-                var estadoStr = getValorTag(elemento, "estado");
+        if (diario != null) {
+            throw new IllegalStateException("O diário já está ativo.");
+        }
+        if (registosPorSnapshot <= 0) {
+            throw new IllegalArgumentException("O número de registos por snapshot tem de ser positivo.");
+        }
 
-                var data = LocalDateTime.parse(dataStr);
-                var prioridade = Prioridade.valueOf(prioridadeStr);
-                var estado = Estado.valueOf(estadoStr);
+        carregarDeXML(caminhoSnapshot);
+        var aberto = DiarioDeTarefas.abrir(Path.of(caminhoDiario), this);
 
-                var tarefa = new Tarefa(titulo, descricao, data, prioridade, estado);
-                tarefasCarregadas.add(tarefa);
+        this.diario = aberto;
+        this.caminhoSnapshot = Path.of(caminhoSnapshot);
+        this.registosPorSnapshot = registosPorSnapshot;
+        observadores.add(aberto);
+    }
+
+    /**
+     * Grava o estado atual no snapshot (de forma atómica) e trunca o diário.
+     *
+     * @throws IOException se ocorrer um erro de escrita
+     */
+    public void criarSnapshot() throws IOException {
+        medir(OperacaoDoGestor.CRIAR_SNAPSHOT, () -> {
+            if (diario == null) {
+                throw new IllegalStateException("O diário não está ativo.");
             }
+
+            escreverXMLAtomicamente(caminhoSnapshot);
+            historico.guardar(HistoricoDeEstados.caminhoJunto(caminhoSnapshot.toString()), tarefas.values());
+            diario.truncar();
+        });
+    }
+
+    /**
+     * Bloqueia até que todas as alterações já efetuadas estejam gravadas
+     * em disco no diário.
+     * 
+     * <p>Os métodos que alteram as tarefas regressam assim que a alteração
+     * é acrescentada ao buffer do diário, sem esperar pelo {@code fsync}
+     * do lote. Este método é o ponto de durabilidade: as alterações feitas
+     * antes da sua chamada sobrevivem a uma falha; as restantes podem
+     * perder-se, a partir do fim (nunca a meio da sequência).</p>
+     *
+     * @throws IOException se a escrita do diário tiver falhado
+     */
+    public void sincronizarDiario() throws IOException {
+        if (diario != null) {
+            diario.sincronizar();
+        }
+    }
+
+    /**
+     * Desativa o modo com diário, escrevendo os registos pendentes. O
+     * snapshot e o diário mantêm-se e serão usados na próxima ativação.
+     *
+     * @throws IOException se a escrita do diário tiver falhado
+     */
+    public void desativarDiario() throws IOException {
+        if (diario == null) {
+            return;
+        }
+
+        observadores.remove(diario);
+        try {
+            diario.close();
+        } finally {
+            diario = null;
+            caminhoSnapshot = null;
         }
+    }
 
-        this.tarefas = tarefasCarregadas;
+    /**
+     * Passa a registar a duração das operações de persistência (XML,
+     * binário, armazém mapeado e snapshots) e da geração do relatório HTML
+     * nas métricas indicadas (ver {@link MetricasDoGestor}). As restantes
+     * operações são medidas pelo {@link GestorDeTarefasInstrumentado}.
+     *
+     * @param metricas métricas a usar, ou {@code null} para deixar de medir
+     */
+    public void instrumentar(MetricasDoGestor metricas) {
+        this.metricas = metricas;
+    }
+
+    /**
+     * Subscreve os eventos de alteração do gestor, descartando os eventos
+     * que o ouvinte não consiga acompanhar.
+     *
+     * @see #subscreverEventos(OuvinteDeTarefas, PoliticaDeSobrecarga)
+     */
+    public SubscricaoDeEventos subscreverEventos(OuvinteDeTarefas ouvinte) {
+        return subscreverEventos(ouvinte, PoliticaDeSobrecarga.DESCARTAR);
+    }
+
+    /**
+     * Subscreve os eventos de alteração do gestor: tarefas adicionadas,
+     * removidas ou com o estado alterado, e substituições de todas as
+     * tarefas (carregamentos).
+     *
+     * <p>Os eventos são publicados num buffer circular sem trincos e
+     * entregues ao ouvinte em lotes, numa thread própria da subscrição, pelo
+     * que o ouvinte não atrasa as alterações ao gestor (ver
+     * {@link CanalDeEventos}). Quando o ouvinte não acompanha o ritmo das
+     * alterações, a política indicada decide se quem altera o gestor espera
+     * ({@link PoliticaDeSobrecarga#BLOQUEAR}) ou se os eventos mais antigos
+     * se perdem ({@link PoliticaDeSobrecarga#DESCARTAR}). Com
+     * {@code BLOQUEAR}, o ouvinte não deve alterar o gestor.</p>
+     *
+     * @param ouvinte ouvinte que recebe os lotes de eventos
+     * @param politica comportamento quando o ouvinte fica para trás
+     * @return subscrição, a fechar quando os eventos deixarem de interessar
+     */
+    public SubscricaoDeEventos subscreverEventos(OuvinteDeTarefas ouvinte, PoliticaDeSobrecarga politica) {
+        if (ouvinte == null || politica == null) {
+            throw new IllegalArgumentException("O ouvinte e a política não podem ser nulos.");
+        }
+
+        if (canalDeEventos == null) {
+            canalDeEventos = new CanalDeEventos();
+            observadores.add(canalDeEventos);
+        }
+        return canalDeEventos.subscrever(ouvinte, politica);
     }
 
     /**
@@ -213,107 +1159,452 @@ public class GestorDeTarefas implements IGestorDeTarefas {
      *   <li>Tarefas Concluídas </li>
      * </ul>
      * </p>
+     * 
+     * <p>As tarefas são escritas diretamente a partir do índice por estado,
+     * em fluxo contínuo e sem listas intermédias (ver {@link RelatorioHTML}).</p>
+     * 
+     * <p>A partir da primeira geração, o gestor mantém em memória o HTML já
+     * produzido e acompanha as tarefas adicionadas, removidas ou com o estado
+     * alterado; as gerações seguintes só voltam a produzir as partes afetadas
+     * por essas alterações (ver {@link RelatorioIncremental}). Se as
+     * alterações desde a última geração excederem o número de tarefas, o HTML
+     * guardado é descartado (ver {@link #descartarRelatorioIncremental()}).</p>
      *
      * @param caminho caminho do ficheiro HTML a criar
      * @throws IOException se ocorrer um erro de escrita
      */
     public void gerarRelatorioHTML(String caminho) throws IOException {
-        var ficheiro = new File(caminho);
-        if (ficheiro.getParentFile() != null) {
-            ficheiro.getParentFile().mkdirs();
+        medir(OperacaoDoGestor.GERAR_RELATORIO_HTML, () -> {
+            var ficheiro = new File(caminho);
+            if (ficheiro.getParentFile() != null) {
+                ficheiro.getParentFile().mkdirs();
+            }
+
+            if (relatorio == null) {
+                relatorio = new RelatorioIncremental();
+                observadores.add(relatorio);
+            }
+            relatorio.gerar(ficheiro.toPath(), porEstado);
+        });
+    }
+
+    /**
+     * Descarta o HTML guardado em memória pelo relatório incremental e deixa
+     * de acompanhar as alterações para ele. A geração seguinte volta a
+     * produzir o relatório de raiz.
+     *
+     * <p>É chamado automaticamente quando as alterações desde a última
+     * geração excedem o número de tarefas, já que o relatório seguinte seria
+     * quase todo produzido de novo; pode ser chamado diretamente quando não
+     * se espera gerar o relatório outra vez.</p>
+     */
+    public void descartarRelatorioIncremental() {
+        if (relatorio != null) {
+            observadores.remove(relatorio);
+            relatorio = null;
         }
+    }
 
-        var pendentes = listarPorEstado(Estado.PENDENTE);
-        var emProgresso = listarPorEstado(Estado.EM_PROGRESSO);
-        var concluidas = listarPorEstado(Estado.CONCLUIDA);
-
-        var prioridadeComparator = Comparator.comparing(Tarefa::getPrioridade);
-
-        pendentes.sort(prioridadeComparator);
-        emProgresso.sort(prioridadeComparator);
-        concluidas.sort(prioridadeComparator);
-
-        try (var writer = new PrintWriter(new FileWriter(ficheiro))) {
-            writer.println("<!DOCTYPE html>");
-            writer.println("<html lang='pt-PT'>");
-            writer.println("<head>");
-            writer.println("  <meta charset='UTF-8'>");
-            writer.println("  <title>Relatório de Tarefas</title>");
-            writer.println("</head>");
-            writer.println("<body>");
-            writer.println("<h1>Relatório de Tarefas</h1>");
-            writer.println("<p>Gerado em: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) + "</p>");
-            writer.println("<hr>");
-
-            // Secção: Pendentes
-            writer.println("<h2>Tarefas Pendentes</h2>");
-            if (pendentes.isEmpty()) {
-                writer.println("<p><i>Não existem tarefas pendentes.</i></p>");
-            } else {
-                for (var tarefa : pendentes) {
-                    String cor = switch (tarefa.getPrioridade()) {
-                        case ALTA -> "red";
-                        case MEDIA -> "orange";
-                        case BAIXA -> "green";
-                    };
-                    writer.printf("<p><font color='%s'>• [%s]</font> <b>%s</b> — %s<br><small>Criada em: %s</small></p>%n",
-                            cor, tarefa.getPrioridade(), tarefa.getTitulo(), tarefa.getDescricao(), tarefa.getDataCriacao().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+    
+    /** Corpo de uma operação medida por {@link #medir(OperacaoDoGestor, Medicao)}. */
+    @FunctionalInterface
+    private interface Medicao<E extends Exception> {
+        void executar() throws E;
+    }
+
+    /** Executa uma operação, registando a sua duração se o gestor estiver instrumentado. */
+    private <E extends Exception> void medir(OperacaoDoGestor operacao, Medicao<E> corpo) throws E {
+        var metricas = this.metricas;
+        if (metricas == null) {
+            corpo.executar();
+            return;
+        }
+
+        var inicio = System.nanoTime();
+        try {
+            corpo.executar();
+        } catch (Exception e) {
+            metricas.registarFalha(operacao, inicio, e);
+            throw e;
+        }
+        metricas.registar(operacao, inicio);
+    }
+
+    /** Cria o índice por estado e prioridade, com todos os grupos vazios. */
+    private static Map<Estado, Map<Prioridade, Set<Tarefa>>> criarIndicePorEstado() {
+        Map<Estado, Map<Prioridade, Set<Tarefa>>> indice = new EnumMap<>(Estado.class);
+
+        for (var estado : Estado.values()) {
+            Map<Prioridade, Set<Tarefa>> porPrioridade = new EnumMap<>(Prioridade.class);
+            for (var prioridade : Prioridade.values()) {
+                porPrioridade.put(prioridade, new LinkedHashSet<>());
+            }
+            indice.put(estado, porPrioridade);
+        }
+        return indice;
+    }
+
+    private IndiceTemporal indiceTemporal() {
+        if (indiceTemporal == null) {
+            indiceTemporal = new IndiceTemporal();
+            observadores.add(indiceTemporal);
+        }
+        return indiceTemporal;
+    }
+
+    /** Retira tarefas da fila até conseguir reclamar uma (tempo negativo: sem limite). */
+    private Tarefa reclamar(long tempo, TimeUnit unidade) throws InterruptedException {
+        FilaDeTrabalho fila;
+        synchronized (this) {
+            if (filaDeTrabalho == null) {
+                filaDeTrabalho = new FilaDeTrabalho(() -> listarPorEstado(Estado.PENDENTE));
+                observadores.add(filaDeTrabalho);
+            }
+            fila = filaDeTrabalho;
+        }
+
+        var limite = System.nanoTime() + unidade.toNanos(tempo);
+        while (true) {
+            var restante = tempo < 0 ? -1 : Math.max(0, limite - System.nanoTime());
+            var tarefa = fila.retirar(restante, TimeUnit.NANOSECONDS);
+            if (tarefa == null) {
+                return null;
+            }
+
+            // Entre a retirada e este ponto, a tarefa pode ter sido removida,
+            // alterada ou reclamada por outra via: só é reclamada se ainda estiver pendente
+            synchronized (this) {
+                if (tarefa.getEstado() == Estado.PENDENTE
+                        && tarefas.get(normalizarTitulo(tarefa.getTitulo())) == tarefa) {
+                    tarefa.setEstado(Estado.EM_PROGRESSO);
+                    return tarefa;
                 }
             }
+        }
+    }
 
-            // Secção: Em Progresso
-            writer.println("<h2>Tarefas em Progresso</h2>");
-            if (emProgresso.isEmpty()) {
-                writer.println("<p><i>Não existem tarefas em progresso.</i></p>");
-            } else {
-                for (var tarefa : emProgresso) {
-                    String cor = switch (tarefa.getPrioridade()) {
-                        case ALTA -> "red";
-                        case MEDIA -> "orange";
-                        case BAIXA -> "green";
-                    };
-                    writer.printf("<p><font color='%s'>• [%s]</font> <b>%s</b> — %s<br><small>Criada em: %s</small></p>%n",
-                            cor, tarefa.getPrioridade(), tarefa.getTitulo(), tarefa.getDescricao(), tarefa.getDataCriacao().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+    /** Passa uma tarefa reclamada e ainda em progresso para o estado indicado (chamado com o monitor). */
+    private void terminarReclamacao(Tarefa tarefa, Estado novoEstado) {
+        if (tarefa == null || tarefas.get(normalizarTitulo(tarefa.getTitulo())) != tarefa) {
+            throw new IllegalArgumentException("A tarefa não pertence a este gestor.");
+        }
+        if (tarefa.getEstado() != Estado.EM_PROGRESSO) {
+            throw new IllegalStateException("A tarefa '" + tarefa.getTitulo() + "' não está em progresso.");
+        }
+
+        verificarDiario();
+        tarefa.setEstado(novoEstado);
+    }
+
+    /** Devolve o motivo pelo qual a tarefa não pode ser adicionada, ou {@code null} se puder. */
+    private String motivoDeRejeicao(Tarefa tarefa, String chave) {
+        if (tarefa == null) {
+            return "A tarefa não pode ser nula.";
+        }
+        if (tarefa.getPrioridade() == null || tarefa.getEstado() == null) {
+            return "A tarefa tem de ter prioridade e estado definidos.";
+        }
+        if (tarefas.containsKey(chave)) {
+            return "Já existe uma tarefa com o título '" + tarefa.getTitulo() + "'.";
+        }
+        if (tarefa.isAssociada()) {
+            return "A tarefa '" + tarefa.getTitulo() + "' já pertence a outro gestor.";
+        }
+        return null;
+    }
+
+    /**
+     * Falha antes de uma alteração se o diário estiver ativo mas já não
+     * puder registá-la; de outro modo, a alteração ficaria aplicada em
+     * memória e perder-se-ia na recuperação.
+     */
+    private void verificarDiario() {
+        if (diario != null) {
+            diario.verificarEscrita();
+        }
+    }
+
+    /** Insere uma tarefa já validada e notifica os observadores. */
+    private void inserir(String chave, Tarefa tarefa) {
+        tarefas.put(chave, tarefa);
+        indexar(tarefa);
+        versao++;
+
+        for (var o : observadores) {
+            o.tarefaAdicionada(tarefa);
+        }
+    }
+
+    /** Conclui a remoção de uma tarefa já retirada do mapa principal. */
+    private void retirar(Tarefa tarefa) {
+        desindexar(tarefa);
+        versao++;
+
+        for (var o : observadores) {
+            o.tarefaRemovida(tarefa);
+        }
+    }
+
+    /** Acrescenta uma tarefa recém-inserida ao índice por estado. */
+    private void indexar(Tarefa tarefa) {
+        tarefa.associar(observador);
+        porEstado.get(tarefa.getEstado()).get(tarefa.getPrioridade()).add(tarefa);
+    }
+
+    /** Retira uma tarefa removida do índice por estado. */
+    private void desindexar(Tarefa tarefa) {
+        tarefa.desassociar(observador);
+        porEstado.get(tarefa.getEstado()).get(tarefa.getPrioridade()).remove(tarefa);
+    }
+
+    /** Move a tarefa para o grupo correspondente ao novo estado. */
+    private void estadoAlterado(Tarefa tarefa, Estado anterior, Estado novo) {
+        porEstado.get(anterior).get(tarefa.getPrioridade()).remove(tarefa);
+        porEstado.get(novo).get(tarefa.getPrioridade()).add(tarefa);
+        versao++;
+
+        for (var o : observadores) {
+            o.estadoAlterado(tarefa, anterior, novo);
+        }
+        if (!emLote) {
+            concluirAlteracao();
+        }
+    }
+
+    /**
+     * Assinala aos observadores o início de um lote: o diário, por exemplo,
+     * só reaplica as alterações do lote se encontrar também o seu fim.
+     */
+    private void iniciarLote() {
+        for (var o : observadores) {
+            o.loteIniciado();
+        }
+    }
+
+    /**
+     * Assinala aos observadores o fim de um lote. Se o lote tiver falhado,
+     * uma falha na notificação é acrescentada à original como suprimida.
+     */
+    private void concluirLote(RuntimeException falha) {
+        try {
+            for (var o : observadores) {
+                o.loteConcluido();
+            }
+        } catch (RuntimeException e) {
+            if (falha == null) {
+                throw e;
+            }
+            falha.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Desfaz as adições de um lote interrompido por um observador (por
+     * exemplo, o diário), da última para a primeira e com a notificação dos
+     * observadores, para que o lote seja aplicado por inteiro ou não seja
+     * aplicado. Uma falha durante a reposição é acrescentada à original como
+     * suprimida; o mesmo vale para os dois métodos seguintes.
+     */
+    private void desfazerAdicoes(List<Tarefa> aplicadas, RuntimeException falha) {
+        for (int i = aplicadas.size() - 1; i >= 0; i--) {
+            var tarefa = aplicadas.get(i);
+            try {
+                if (tarefas.remove(normalizarTitulo(tarefa.getTitulo()), tarefa)) {
+                    retirar(tarefa);
                 }
+            } catch (RuntimeException e) {
+                falha.addSuppressed(e);
             }
+        }
+    }
 
-            // Secção: Concluídas
-            writer.println("<h2>Tarefas Concluídas</h2>");
-            if (concluidas.isEmpty()) {
-                writer.println("<p><i>Não existem tarefas concluídas.</i></p>");
-            } else {
-                for (var tarefa : concluidas) {
-                    String cor = switch (tarefa.getPrioridade()) {
-                        case ALTA -> "red";
-                        case MEDIA -> "orange";
-                        case BAIXA -> "green";
-                    };
-                    writer.printf("<p><font color='%s'>• [%s]</font> <b>%s</b> — %s<br><small>Criada em: %s</small></p>%n",
-                            cor, tarefa.getPrioridade(), tarefa.getTitulo(), tarefa.getDescricao(), tarefa.getDataCriacao().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+    /** Desfaz as remoções de um lote: as tarefas voltam a entrar, pela ordem do lote, no fim. */
+    private void desfazerRemocoes(List<Tarefa> aplicadas, RuntimeException falha) {
+        for (var tarefa : aplicadas) {
+            try {
+                var chave = normalizarTitulo(tarefa.getTitulo());
+                if (!tarefas.containsKey(chave)) {
+                    inserir(chave, tarefa);
                 }
+            } catch (RuntimeException e) {
+                falha.addSuppressed(e);
+            }
+        }
+    }
+
+    /** Desfaz as mudanças de estado de um lote, repondo os estados anteriores. */
+    private void desfazerEstados(List<Tarefa> aplicadas, Estado[] anteriores, RuntimeException falha) {
+        for (int i = aplicadas.size() - 1; i >= 0; i--) {
+            try {
+                aplicadas.get(i).setEstado(anteriores[i]);
+            } catch (RuntimeException e) {
+                falha.addSuppressed(e);
+            }
+        }
+    }
+
+    /**
+     * Substitui todas as tarefas do gestor (por exemplo, após um carregamento).
+     * 
+     * <p>Se existirem títulos repetidos, prevalece a primeira ocorrência.</p>
+     *
+     * @param novas tarefas carregadas
+     * @param historicos ficheiros com o histórico dos estados das tarefas carregadas
+     */
+    private void substituirTarefas(Collection<Tarefa> novas, List<Path> historicos) {
+        for (var tarefa : tarefas.values()) {
+            tarefa.desassociar(observador);
+        }
+
+        this.tarefas = LinkedHashMap.newLinkedHashMap(novas.size());
+        this.porEstado = criarIndicePorEstado();
+
+        for (var tarefa : novas) {
+            if (tarefas.putIfAbsent(normalizarTitulo(tarefa.getTitulo()), tarefa) == null) {
+                indexar(tarefa);
             }
+        }
+        versao++;
 
-            writer.println("<hr>");
-            writer.println("</body>");
-            writer.println("</html>");
+        // O histórico fica carregado antes de os restantes observadores (como o gravador) o consultarem
+        historico.substituir(historicos, tarefas);
+        for (var o : observadores) {
+            o.tarefasSubstituidas();
         }
     }
 
-    
-    /** Cria um elemento XML com nome e valor associados. */
-    private Element criarElemento(Document doc, String nome, String valor) {
-        var elemento = doc.createElement(nome);
-        elemento.appendChild(doc.createTextNode(valor != null ? valor : ""));
-        return elemento;
+    /** Reaplica a adição de uma tarefa registada no diário, substituindo a existente. */
+    void reporAdicao(Tarefa tarefa, long instante) {
+        var chave = normalizarTitulo(tarefa.getTitulo());
+        var existente = tarefas.remove(chave);
+
+        if (existente != null) {
+            retirar(existente);
+        }
+        historico.reporNoInstante(instante, () -> inserir(chave, tarefa));
+    }
+
+    /** Reaplica a remoção de uma tarefa registada no diário, se esta existir. */
+    void reporRemocao(String titulo) {
+        var removida = tarefas.remove(normalizarTitulo(titulo));
+
+        if (removida != null) {
+            retirar(removida);
+        }
+    }
+
+    /** Reaplica uma mudança de estado registada no diário, se a tarefa existir. */
+    void reporEstado(String titulo, Estado estado, long instante) {
+        var tarefa = tarefas.get(normalizarTitulo(titulo));
+
+        if (tarefa != null) {
+            historico.reporNoInstante(instante, () -> tarefa.setEstado(estado));
+        }
+    }
+
+    /**
+     * Copia as referências das tarefas, os respetivos estados e as posições
+     * dos seus históricos, para gravação posterior.
+     */
+    private GravadorAssincrono.Fotografia fotografar() {
+        var copia = new Tarefa[tarefas.size()];
+        var estados = new Estado[copia.length];
+        var ultimosRegistos = new int[copia.length];
+        var i = 0;
+        for (var tarefa : tarefas.values()) {
+            copia[i] = tarefa;
+            estados[i] = tarefa.getEstado();
+            ultimosRegistos[i++] = tarefa.getUltimoRegisto();
+        }
+        return new GravadorAssincrono.Fotografia(copia, estados, ultimosRegistos,
+                historico.getRegistos(), historico.getGeracao());
     }
 
-    /** Obtém o valor textual de uma tag XML. */
-    private String getValorTag(Element pai, String nomeTag) {
-        var lista = pai.getElementsByTagName(nomeTag);
-        if (lista == null || lista.getLength() == 0) {
-            return "";
+    /**
+     * Trabalho feito depois de cada alteração (ou de cada lote): o snapshot
+     * automático e o descarte do relatório incremental que deixou de
+     * compensar.
+     */
+    private void concluirAlteracao() {
+        verificarSnapshot();
+        if (relatorio != null && relatorio.isAbandonado()) {
+            descartarRelatorioIncremental();
+        }
+    }
+
+    /** Cria um snapshot se o diário tiver atingido o número de registos configurado. */
+    private void verificarSnapshot() {
+        if (diario != null && diario.getRegistosDesdeSnapshot() >= registosPorSnapshot) {
+            try {
+                criarSnapshot();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Não foi possível criar o snapshot das tarefas.", e);
+            }
+        }
+    }
+
+    /** Escreve todas as tarefas no ficheiro XML indicado. */
+    private void escreverXML(File ficheiro) throws IOException {
+        if (ficheiro.getParentFile() != null) {
+            ficheiro.getParentFile().mkdirs();
+        }
+
+        try (var escritor = new EscritorXMLDeTarefas(
+                new BufferedOutputStream(new FileOutputStream(ficheiro), TAMANHO_BUFFER))) {
+            for (var tarefa : tarefas.values()) {
+                escritor.escrever(tarefa);
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Erro ao escrever o ficheiro XML '" + ficheiro + "'.", e);
+        }
+    }
+
+    /**
+     * Escreve as tarefas num ficheiro temporário, força a sua gravação em
+     * disco e substitui o destino através de uma mudança de nome atómica.
+     */
+    private void escreverXMLAtomicamente(Path destino) throws IOException {
+        var temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+        escreverXML(temporario.toFile());
+
+        try (var canal = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+            canal.force(true);
+        }
+
+        try {
+            Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Normaliza um título para utilização como chave do índice.
+     * 
+     * <p>A normalização é feita carácter a carácter, tal como em
+     * {@link String#equalsIgnoreCase(String)}, garantindo que dois títulos
+     * são considerados iguais pelo índice se e só se o forem por
+     * {@code equalsIgnoreCase}.</p>
+     *
+     * @param titulo título original (pode ser {@code null})
+     * @return título normalizado, ou {@code null} se o título for nulo
+     */
+    static String normalizarTitulo(String titulo) {
+        if (titulo == null) {
+            return null;
+        }
+
+        char[] normalizado = null;
+        for (int i = 0; i < titulo.length(); i++) {
+            var c = titulo.charAt(i);
+            var n = Character.toLowerCase(Character.toUpperCase(c));
+            if (n != c) {
+                if (normalizado == null) {
+                    normalizado = titulo.toCharArray();
+                }
+                normalizado[i] = n;
+            }
         }
-        var node = lista.item(0);
-        return node.getTextContent();
+        return normalizado != null ? new String(normalizado) : titulo;
     }
 }
\ No newline at end of file
@@ -0,0 +1,682 @@
+package Services;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import Entities.Estado;
+import Entities.Prioridade;
+import Entities.ResultadoLote;
+import Entities.ResultadoLote.Falha;
+import Entities.TarefaNaoEncontradaException;
+import Interfaces.IGestorDeTarefas;
+
+/**
+ * Implementação de {@link IGestorDeTarefas} que guarda as tarefas em
+ * colunas de tipos primitivos, para conjuntos com milhões de tarefas.
+ *
+ * <p>Em vez de um objeto {@link Tarefa} (com uma {@link LocalDateTime} e as
+ * respetivas data e hora) por tarefa, cada campo tem o seu array: o estado
+ * e a prioridade em {@code byte[]}, a data de criação em segundos e
+ * nanossegundos desde a época (UTC), e a descrição como o número de um
+ * texto num {@link ReservatorioDeTextos}, onde as descrições repetidas
+ * ocupam uma única entrada. Os títulos, únicos por definição, ficam num
+ * {@code String[]}. O índice pelo título é uma tabela de dispersão de
+ * endereçamento aberto sobre as posições nas colunas, sem objetos por
+ * entrada.</p>
+ *
+ * <p>As tarefas devolvidas são vistas ({@link TarefaColunar}) criadas a
+ * pedido, que leem e alteram diretamente as colunas. Uma tarefa adicionada
+ * ao gestor é copiada para as colunas: as alterações seguintes devem ser
+ * feitas através do gestor ou das vistas que este devolve.</p>
+ *
+ * <p>As colunas seguem a ordem de inserção. Uma remoção apenas marca a
+ * posição como livre; quando as posições removidas passam a ser a maioria,
+ * as colunas são compactadas. As contagens por estado e prioridade são
+ * mantidas à parte, e as listagens por estado são ciclos sobre os arrays de
+ * bytes, sem acessos a outros objetos.</p>
+ *
+ * <p>Tal como {@link GestorDeTarefas}, não é sincronizado.</p>
+ */
+public class GestorDeTarefasColunar implements IGestorDeTarefas {
+
+    /** Valor da coluna dos estados numa posição removida. */
+    private static final byte REMOVIDA = -1;
+
+    /** Número mínimo de posições removidas antes de compactar as colunas. */
+    private static final int REMOVIDAS_PARA_COMPACTAR = 1024;
+
+    private static final Estado[] ESTADOS = Estado.values();
+    private static final Prioridade[] PRIORIDADES = Prioridade.values();
+
+    private String[] titulos;
+    private int[] descricoes;
+    private long[] segundos;
+    private int[] nanos;
+    private byte[] prioridades;
+    private byte[] estados;
+
+    /** Dispersão do título normalizado de cada tarefa, para o índice pelo título. */
+    private int[] dispersoes;
+
+    /** Identificador de cada tarefa, crescente pela ordem das posições. */
+    private int[] ids;
+
+    /** Índice pelo título: posição + 1 de cada tarefa, ou 0 nas entradas livres. */
+    private int[] tabela;
+
+    private final ReservatorioDeTextos textos = new ReservatorioDeTextos();
+
+    /** Número de tarefas por estado e prioridade ({@code estado * prioridades + prioridade}). */
+    private final int[] contagens = new int[ESTADOS.length * PRIORIDADES.length];
+
+    /** Posições ocupadas nas colunas (incluindo as removidas). */
+    private int tamanho;
+    private int vivas;
+    private int removidas;
+    private int proximoId;
+
+    /** Número de compactações, para as vistas saberem quando procurar de novo a sua posição. */
+    private int compactacoes;
+
+    /** Número de adições e remoções, para detetar alterações durante uma travessia. */
+    private int modificacoes;
+
+    public GestorDeTarefasColunar() {
+        this(16);
+    }
+
+    /**
+     * Cria um gestor com espaço reservado para o número de tarefas indicado.
+     *
+     * @param capacidade número de tarefas previsto
+     */
+    public GestorDeTarefasColunar(int capacidade) {
+        if (capacidade < 0) {
+            throw new IllegalArgumentException("A capacidade não pode ser negativa.");
+        }
+
+        var inicial = Math.max(capacidade, 16);
+        titulos = new String[inicial];
+        descricoes = new int[inicial];
+        segundos = new long[inicial];
+        nanos = new int[inicial];
+        prioridades = new byte[inicial];
+        estados = new byte[inicial];
+        dispersoes = new int[inicial];
+        ids = new int[inicial];
+        tabela = new int[Integer.highestOneBit(inicial * 2 - 1) * 2];
+    }
+
+    @Override
+    public void adicionarTarefa(Tarefa tarefa) {
+        var dispersao = tarefa != null ? dispersao(tarefa.getTitulo()) : 0;
+        var motivo = motivoDeRejeicao(tarefa, dispersao);
+        if (motivo != null) {
+            throw new IllegalArgumentException(motivo);
+        }
+        inserir(tarefa, dispersao);
+    }
+
+    @Override
+    public void removerTarefa(String titulo) throws TarefaNaoEncontradaException {
+        var posicao = procurar(titulo, dispersao(titulo));
+        if (posicao < 0) {
+            throw new TarefaNaoEncontradaException(titulo);
+        }
+        retirar(posicao);
+        compactarSeNecessario();
+    }
+
+    @Override
+    public void alterarEstado(String titulo, Estado novoEstado)
+            throws TarefaNaoEncontradaException {
+
+        var posicao = procurar(titulo, dispersao(titulo));
+        if (posicao < 0) {
+            throw new TarefaNaoEncontradaException(titulo);
+        }
+        if (novoEstado == null) {
+            throw new IllegalArgumentException("O estado não pode ser nulo.");
+        }
+        guardarEstado(posicao, novoEstado);
+    }
+
+    @Override
+    public ResultadoLote adicionarTarefas(Collection<Tarefa> lote) {
+        if (lote == null) {
+            throw new IllegalArgumentException("O lote não pode ser nulo.");
+        }
+
+        List<Falha> falhas = new ArrayList<>();
+        Map<String, Tarefa> validas = LinkedHashMap.newLinkedHashMap(lote.size());
+        var indice = 0;
+
+        for (var tarefa : lote) {
+            var motivo = motivoDeRejeicao(tarefa, tarefa != null ? dispersao(tarefa.getTitulo()) : 0);
+            if (motivo == null
+                    && validas.putIfAbsent(GestorDeTarefas.normalizarTitulo(tarefa.getTitulo()), tarefa) != null) {
+                motivo = "O título '" + tarefa.getTitulo() + "' está repetido no lote.";
+            }
+            if (motivo != null) {
+                falhas.add(new Falha(indice, tarefa != null ? tarefa.getTitulo() : null, motivo));
+            }
+            indice++;
+        }
+
+        if (falhas.isEmpty()) {
+            for (var tarefa : validas.values()) {
+                inserir(tarefa, dispersao(tarefa.getTitulo()));
+            }
+        }
+        return new ResultadoLote(indice, falhas);
+    }
+
+    @Override
+    public ResultadoLote removerTarefas(Collection<String> titulos) {
+        if (titulos == null) {
+            throw new IllegalArgumentException("O lote não pode ser nulo.");
+        }
+
+        List<Falha> falhas = new ArrayList<>();
+        Map<Integer, String> encontradas = LinkedHashMap.newLinkedHashMap(titulos.size());
+        var indice = 0;
+
+        for (var titulo : titulos) {
+            var posicao = procurar(titulo, dispersao(titulo));
+            if (posicao < 0) {
+                falhas.add(new Falha(indice, titulo, "A tarefa '" + titulo + "' não foi encontrada."));
+            } else if (encontradas.putIfAbsent(posicao, titulo) != null) {
+                falhas.add(new Falha(indice, titulo, "O título '" + titulo + "' está repetido no lote."));
+            }
+            indice++;
+        }
+
+        if (falhas.isEmpty()) {
+            // As posições só mudam na compactação, feita no fim
+            for (var posicao : encontradas.keySet()) {
+                retirar(posicao);
+            }
+            compactarSeNecessario();
+        }
+        return new ResultadoLote(indice, falhas);
+    }
+
+    @Override
+    public ResultadoLote alterarEstados(Collection<String> titulos, Estado novoEstado) {
+        if (titulos == null) {
+            throw new IllegalArgumentException("O lote não pode ser nulo.");
+        }
+        if (novoEstado == null) {
+            throw new IllegalArgumentException("O estado não pode ser nulo.");
+        }
+
+        List<Falha> falhas = new ArrayList<>();
+        var encontradas = new int[titulos.size()];
+        var quantidade = 0;
+        var indice = 0;
+
+        for (var titulo : titulos) {
+            var posicao = procurar(titulo, dispersao(titulo));
+            if (posicao < 0) {
+                falhas.add(new Falha(indice, titulo, "A tarefa '" + titulo + "' não foi encontrada."));
+            } else if (quantidade < encontradas.length) {
+                encontradas[quantidade++] = posicao;
+            }
+            indice++;
+        }
+
+        if (falhas.isEmpty()) {
+            for (int i = 0; i < quantidade; i++) {
+                guardarEstado(encontradas[i], novoEstado);
+            }
+        }
+        return new ResultadoLote(indice, falhas);
+    }
+
+    @Override
+    public List<Tarefa> listarTarefas() {
+        List<Tarefa> lista = new ArrayList<>(vivas);
+        for (int p = 0; p < tamanho; p++) {
+            if (estados[p] != REMOVIDA) {
+                lista.add(vista(p));
+            }
+        }
+        return lista;
+    }
+
+    @Override
+    public Tarefa buscarPorTitulo(String titulo) throws TarefaNaoEncontradaException {
+        var posicao = procurar(titulo, dispersao(titulo));
+        if (posicao < 0) {
+            throw new TarefaNaoEncontradaException(titulo);
+        }
+        return vista(posicao);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Dentro de cada prioridade, as tarefas seguem a ordem de inserção.
+     * As posições são recolhidas numa única passagem pela coluna dos
+     * estados, diretamente para arrays por prioridade com a dimensão exata
+     * (conhecida pelas contagens). Só depois são criadas as vistas.</p>
+     */
+    @Override
+    public List<Tarefa> listarPorEstado(Estado estado) {
+        if (estado == null) {
+            return new ArrayList<>();
+        }
+
+        var codigo = (byte) estado.ordinal();
+        var porPrioridade = new int[PRIORIDADES.length][];
+        var preenchidas = new int[PRIORIDADES.length];
+        for (int pr = 0; pr < PRIORIDADES.length; pr++) {
+            porPrioridade[pr] = new int[contagens[indiceContagem(estado.ordinal(), pr)]];
+        }
+
+        var estados = this.estados;
+        var prioridades = this.prioridades;
+        for (int p = 0; p < tamanho; p++) {
+            if (estados[p] == codigo) {
+                var pr = prioridades[p];
+                porPrioridade[pr][preenchidas[pr]++] = p;
+            }
+        }
+
+        List<Tarefa> filtradas = new ArrayList<>(contarTarefas(estado));
+        for (var posicoes : porPrioridade) {
+            for (var p : posicoes) {
+                filtradas.add(vista(p));
+            }
+        }
+        return filtradas;
+    }
+
+    @Override
+    public int contarTarefas() {
+        return vivas;
+    }
+
+    @Override
+    public int contarTarefas(Estado estado) {
+        if (estado == null) {
+            return 0;
+        }
+
+        var total = 0;
+        for (int pr = 0; pr < PRIORIDADES.length; pr++) {
+            total += contagens[indiceContagem(estado.ordinal(), pr)];
+        }
+        return total;
+    }
+
+    @Override
+    public int contarTarefas(Estado estado, Prioridade prioridade) {
+        if (estado == null || prioridade == null) {
+            return 0;
+        }
+        return contagens[indiceContagem(estado.ordinal(), prioridade.ordinal())];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>As tarefas são percorridas pela ordem de inserção, diretamente sobre
+     * as colunas. Se forem adicionadas ou removidas tarefas durante a
+     * travessia, é lançada uma {@link ConcurrentModificationException}.</p>
+     */
+    @Override
+    public Stream<Tarefa> percorrerTarefas() {
+        var esperadas = modificacoes;
+        return IntStream.range(0, tamanho)
+                .filter(p -> presente(p, esperadas))
+                .mapToObj(this::vista);
+    }
+
+    @Override
+    public Stream<Tarefa> percorrerPorEstado(Estado estado) {
+        if (estado == null) {
+            return Stream.empty();
+        }
+
+        var esperadas = modificacoes;
+        var codigo = (byte) estado.ordinal();
+        return IntStream.range(0, PRIORIDADES.length).boxed()
+                .flatMap(pr -> IntStream.range(0, tamanho)
+                        .filter(p -> presente(p, esperadas) && estados[p] == codigo && prioridades[p] == pr)
+                        .mapToObj(this::vista));
+    }
+
+    @Override
+    public List<Tarefa> listarTarefas(int inicio, int quantidade) {
+        if (inicio < 0 || quantidade < 0) {
+            throw new IllegalArgumentException("Página inválida: início " + inicio + ", quantidade " + quantidade + ".");
+        }
+        return percorrerTarefas().skip(inicio).limit(quantidade).toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Não é mantido um índice pela data: a página é obtida numa passagem
+     * pelas colunas das datas, guardando apenas as {@code quantidade + 1}
+     * primeiras posições num monte, pelo que custa O(N log quantidade).</p>
+     */
+    @Override
+    public PaginaDeTarefas listarPagina(String cursor, int quantidade) {
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("A quantidade tem de ser positiva.");
+        }
+
+        var depoisDe = cursor != null ? ChaveTemporal.lerCursor(cursor) : null;
+        var limite = (int) Math.min(quantidade + 1L, Integer.MAX_VALUE);
+        Comparator<Integer> ordem = this::compararPorData;
+        var primeiras = new PriorityQueue<Integer>(Math.min(limite, 1024), ordem.reversed());
+
+        for (int p = 0; p < tamanho; p++) {
+            if (estados[p] == REMOVIDA || nanos[p] == EscritorBinarioDeTarefas.SEM_DATA) {
+                continue;
+            }
+            if (depoisDe != null && compararComChave(p, depoisDe) <= 0) {
+                continue;
+            }
+            if (primeiras.size() < limite) {
+                primeiras.add(p);
+            } else if (compararPorData(p, primeiras.peek()) < 0) {
+                primeiras.poll();
+                primeiras.add(p);
+            }
+        }
+
+        var posicoes = new ArrayList<>(primeiras);
+        posicoes.sort(ordem);
+        return PaginaDeTarefas.de(posicoes.stream().<Tarefa>map(this::vista).toList(), quantidade);
+    }
+
+    /** Número de descrições distintas guardadas. */
+    public int contarDescricoesDistintas() {
+        return textos.tamanho();
+    }
+
+    String titulo(int posicao) {
+        return titulos[posicao];
+    }
+
+    String descricao(int posicao) {
+        return textos.texto(descricoes[posicao]);
+    }
+
+    LocalDateTime dataCriacao(int posicao) {
+        var n = nanos[posicao];
+        return n != EscritorBinarioDeTarefas.SEM_DATA
+                ? LocalDateTime.ofEpochSecond(segundos[posicao], n, ZoneOffset.UTC)
+                : null;
+    }
+
+    Prioridade prioridade(int posicao) {
+        return PRIORIDADES[prioridades[posicao]];
+    }
+
+    Estado estado(int posicao) {
+        return ESTADOS[estados[posicao]];
+    }
+
+    /** Escreve o novo estado na coluna e atualiza as contagens. */
+    void guardarEstado(int posicao, Estado novoEstado) {
+        var anterior = estados[posicao];
+        var prioridade = prioridades[posicao];
+        contagens[indiceContagem(anterior, prioridade)]--;
+        contagens[indiceContagem(novoEstado.ordinal(), prioridade)]++;
+        estados[posicao] = (byte) novoEstado.ordinal();
+    }
+
+    int getCompactacoes() {
+        return compactacoes;
+    }
+
+    /** Posição atual da tarefa com o identificador indicado, ou -1 se já não existir. */
+    int posicaoDe(int id) {
+        var posicao = Arrays.binarySearch(ids, 0, tamanho, id);
+        return posicao >= 0 ? posicao : -1;
+    }
+
+    /** Indica se a posição ainda contém a tarefa com o identificador indicado. */
+    boolean existe(int posicao, int id) {
+        return posicao < tamanho && ids[posicao] == id && estados[posicao] != REMOVIDA;
+    }
+
+    private TarefaColunar vista(int posicao) {
+        return new TarefaColunar(this, ids[posicao], posicao);
+    }
+
+    private boolean presente(int posicao, int esperadas) {
+        if (modificacoes != esperadas) {
+            throw new ConcurrentModificationException();
+        }
+        return estados[posicao] != REMOVIDA;
+    }
+
+    /** Devolve o motivo pelo qual a tarefa não pode ser adicionada, ou {@code null}. */
+    private String motivoDeRejeicao(Tarefa tarefa, int dispersao) {
+        if (tarefa == null) {
+            return "A tarefa não pode ser nula.";
+        }
+        if (tarefa.getPrioridade() == null || tarefa.getEstado() == null) {
+            return "A tarefa tem de ter prioridade e estado definidos.";
+        }
+        if (procurar(tarefa.getTitulo(), dispersao) >= 0) {
+            return "Já existe uma tarefa com o título '" + tarefa.getTitulo() + "'.";
+        }
+        if (tarefa.isAssociada()) {
+            return "A tarefa '" + tarefa.getTitulo() + "' já pertence a outro gestor.";
+        }
+        return null;
+    }
+
+    /** Copia uma tarefa já validada para o fim das colunas. */
+    private void inserir(Tarefa tarefa, int dispersao) {
+        if (proximoId == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Foi atingido o número máximo de tarefas criadas neste gestor.");
+        }
+        garantirCapacidade();
+
+        var p = tamanho++;
+        var data = tarefa.getDataCriacao();
+        var estado = tarefa.getEstado();
+        var prioridade = tarefa.getPrioridade();
+
+        titulos[p] = tarefa.getTitulo();
+        descricoes[p] = textos.guardar(tarefa.getDescricao());
+        segundos[p] = data != null ? data.toEpochSecond(ZoneOffset.UTC) : 0;
+        nanos[p] = data != null ? data.getNano() : EscritorBinarioDeTarefas.SEM_DATA;
+        prioridades[p] = (byte) prioridade.ordinal();
+        estados[p] = (byte) estado.ordinal();
+        dispersoes[p] = dispersao;
+        ids[p] = proximoId++;
+
+        contagens[indiceContagem(estado.ordinal(), prioridade.ordinal())]++;
+        vivas++;
+        modificacoes++;
+
+        if (vivas * 2 > tabela.length) {
+            reconstruirTabela(tabela.length * 2);
+        } else {
+            indexar(p);
+        }
+    }
+
+    /** Marca a posição como removida; a compactação fica a cargo de quem chama. */
+    private void retirar(int posicao) {
+        desindexar(posicao);
+        textos.libertar(descricoes[posicao]);
+        contagens[indiceContagem(estados[posicao], prioridades[posicao])]--;
+
+        titulos[posicao] = null;
+        descricoes[posicao] = ReservatorioDeTextos.NULO;
+        estados[posicao] = REMOVIDA;
+        vivas--;
+        removidas++;
+        modificacoes++;
+    }
+
+    private void compactarSeNecessario() {
+        if (removidas >= REMOVIDAS_PARA_COMPACTAR && removidas > vivas) {
+            compactar();
+        }
+    }
+
+    /** Junta as posições ocupadas no início das colunas, mantendo a ordem. */
+    private void compactar() {
+        var destino = 0;
+        for (int p = 0; p < tamanho; p++) {
+            if (estados[p] == REMOVIDA) {
+                continue;
+            }
+            if (p != destino) {
+                titulos[destino] = titulos[p];
+                descricoes[destino] = descricoes[p];
+                segundos[destino] = segundos[p];
+                nanos[destino] = nanos[p];
+                prioridades[destino] = prioridades[p];
+                estados[destino] = estados[p];
+                dispersoes[destino] = dispersoes[p];
+                ids[destino] = ids[p];
+            }
+            destino++;
+        }
+        Arrays.fill(titulos, destino, tamanho, null);
+
+        tamanho = destino;
+        removidas = 0;
+        compactacoes++;
+        reconstruirTabela(tabela.length);
+    }
+
+    private void garantirCapacidade() {
+        if (tamanho < titulos.length) {
+            return;
+        }
+        if (removidas > tamanho / 2) {
+            compactar();
+            return;
+        }
+
+        var nova = titulos.length + (titulos.length >> 1);
+        titulos = Arrays.copyOf(titulos, nova);
+        descricoes = Arrays.copyOf(descricoes, nova);
+        segundos = Arrays.copyOf(segundos, nova);
+        nanos = Arrays.copyOf(nanos, nova);
+        prioridades = Arrays.copyOf(prioridades, nova);
+        estados = Arrays.copyOf(estados, nova);
+        dispersoes = Arrays.copyOf(dispersoes, nova);
+        ids = Arrays.copyOf(ids, nova);
+    }
+
+    /** Posição da tarefa com o título indicado, ou -1 se não existir. */
+    private int procurar(String titulo, int dispersao) {
+        var mascara = tabela.length - 1;
+        for (int i = dispersao & mascara; ; i = (i + 1) & mascara) {
+            var entrada = tabela[i];
+            if (entrada == 0) {
+                return -1;
+            }
+            var p = entrada - 1;
+            if (dispersoes[p] == dispersao
+                    && (titulo == null ? titulos[p] == null : titulo.equalsIgnoreCase(titulos[p]))) {
+                return p;
+            }
+        }
+    }
+
+    private void indexar(int posicao) {
+        var mascara = tabela.length - 1;
+        var i = dispersoes[posicao] & mascara;
+        while (tabela[i] != 0) {
+            i = (i + 1) & mascara;
+        }
+        tabela[i] = posicao + 1;
+    }
+
+    /** Retira a posição da tabela, recuando as entradas seguintes do mesmo grupo. */
+    private void desindexar(int posicao) {
+        var mascara = tabela.length - 1;
+        var i = dispersoes[posicao] & mascara;
+        while (tabela[i] != posicao + 1) {
+            i = (i + 1) & mascara;
+        }
+
+        for (int j = (i + 1) & mascara; tabela[j] != 0; j = (j + 1) & mascara) {
+            var ideal = dispersoes[tabela[j] - 1] & mascara;
+            // A entrada em j pode ocupar i se a sua posição ideal não estiver entre i (exclusive) e j
+            var podeRecuar = i <= j ? (ideal <= i || ideal > j) : (ideal <= i && ideal > j);
+            if (podeRecuar) {
+                tabela[i] = tabela[j];
+                i = j;
+            }
+        }
+        tabela[i] = 0;
+    }
+
+    private void reconstruirTabela(int capacidade) {
+        tabela = new int[capacidade];
+        for (int p = 0; p < tamanho; p++) {
+            if (estados[p] != REMOVIDA) {
+                indexar(p);
+            }
+        }
+    }
+
+    /** Compara duas posições pela data de criação e, em caso de empate, pelo título normalizado. */
+    private int compararPorData(int a, int b) {
+        var comparacao = Long.compare(segundos[a], segundos[b]);
+        if (comparacao == 0) {
+            comparacao = Integer.compare(nanos[a], nanos[b]);
+        }
+        if (comparacao == 0) {
+            comparacao = compararTitulos(GestorDeTarefas.normalizarTitulo(titulos[a]),
+                    GestorDeTarefas.normalizarTitulo(titulos[b]));
+        }
+        return comparacao;
+    }
+
+    private int compararComChave(int p, ChaveTemporal chave) {
+        var comparacao = Long.compare(segundos[p], chave.data().toEpochSecond(ZoneOffset.UTC));
+        if (comparacao == 0) {
+            comparacao = Integer.compare(nanos[p], chave.data().getNano());
+        }
+        if (comparacao == 0) {
+            comparacao = compararTitulos(GestorDeTarefas.normalizarTitulo(titulos[p]), chave.chave());
+        }
+        return comparacao;
+    }
+
+    private static int compararTitulos(String a, String b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        return a.compareTo(b);
+    }
+
+    private static int dispersao(String titulo) {
+        if (titulo == null) {
+            return 0;
+        }
+        var h = GestorDeTarefas.normalizarTitulo(titulo).hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int indiceContagem(int estado, int prioridade) {
+        return estado * PRIORIDADES.length + prioridade;
+    }
+}
@@ -0,0 +1,468 @@
+package Services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+import Entities.Estado;
+import Entities.Prioridade;
+import Entities.ResultadoLote;
+import Entities.ResultadoLote.Falha;
+import Entities.TarefaNaoEncontradaException;
+import Interfaces.IGestorDeTarefas;
+
+/**
+ * Implementação de {@link IGestorDeTarefas} segura para utilização
+ * concorrente por várias threads.
+ *
+ * <p>As tarefas são guardadas num {@link ConcurrentHashMap} indexado pelo
+ * título normalizado, pelo que operações sobre títulos diferentes não se
+ * bloqueiam entre si e a rejeição de títulos duplicados é atómica. O índice
+ * por estado e prioridade usa conjuntos concorrentes; as mudanças de estado
+ * de uma mesma tarefa são serializadas pelo monitor da própria tarefa
+ * (ver {@link Tarefa#setEstado(Estado)}).</p>
+ *
+ * <p>As tarefas são ainda mantidas numa árvore persistente (ver
+ * {@link VersoesDeTarefas}), atualizada em cada alteração com o monitor da
+ * tarefa e o da árvore, que só é detido durante a cópia de um caminho (no
+ * máximo um nó por nível). {@link #listarTarefas()} e
+ * {@link #obterInstantaneo()} apenas fixam a raiz atual e percorrem-na sem
+ * bloquear os escritores, pelo que devolvem as tarefas existentes num dado
+ * instante, pela ordem de inserção, mesmo sob escrita contínua.</p>
+ *
+ * <p>Para a paginação por cursor, mantém ainda um
+ * {@link ConcurrentSkipListMap} das tarefas pela data de criação e título.</p>
+ */
+public class GestorDeTarefasConcorrente implements IGestorDeTarefas {
+
+    /** Tarefas indexadas pelo título normalizado. */
+    private final ConcurrentHashMap<String, Tarefa> tarefas = new ConcurrentHashMap<>();
+
+    /** Tarefas agrupadas por estado e, dentro de cada estado, por prioridade. */
+    private final Map<Estado, Map<Prioridade, Set<Tarefa>>> porEstado = new EnumMap<>(Estado.class);
+
+    /** Tarefas pela data de criação e título, para a paginação por cursor. */
+    private final ConcurrentSkipListMap<ChaveTemporal, Tarefa> porData = new ConcurrentSkipListMap<>();
+
+    /**
+     * Árvore persistente das tarefas, de onde são obtidas as listagens e os
+     * instantâneos. Só é acedida com o seu próprio monitor, adquirido depois
+     * do monitor da tarefa alterada.
+     */
+    private final VersoesDeTarefas versoes = VersoesDeTarefas.vazia();
+
+    /** Número de alterações refletidas na árvore (protegido pelo monitor de {@link #versoes}). */
+    private long versao;
+
+    /** Observador associado a cada tarefa, que mantém o índice por estado. */
+    private final ObservadorDeEstado observador = this::estadoAlterado;
+
+    public GestorDeTarefasConcorrente() {
+        for (var estado : Estado.values()) {
+            Map<Prioridade, Set<Tarefa>> porPrioridade = new EnumMap<>(Prioridade.class);
+            for (var prioridade : Prioridade.values()) {
+                porPrioridade.put(prioridade, ConcurrentHashMap.newKeySet());
+            }
+            porEstado.put(estado, porPrioridade);
+        }
+    }
+
+    @Override
+    public void adicionarTarefa(Tarefa tarefa) {
+        var motivo = motivoDeRejeicao(tarefa);
+        if (motivo != null) {
+            throw new IllegalArgumentException(motivo);
+        }
+
+        var chave = GestorDeTarefas.normalizarTitulo(tarefa.getTitulo());
+        if (tarefas.containsKey(chave)) {
+            throw duplicada(tarefa);
+        }
+        inserir(chave, tarefa);
+    }
+
+    @Override
+    public void removerTarefa(String titulo) throws TarefaNaoEncontradaException {
+        if (titulo == null) {
+            throw new TarefaNaoEncontradaException(titulo);
+        }
+
+        var removida = tarefas.remove(GestorDeTarefas.normalizarTitulo(titulo));
+        if (removida == null) {
+            throw new TarefaNaoEncontradaException(titulo);
+        }
+        desindexar(removida);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>A validação é feita antes de qualquer alteração. Se, entretanto,
+     * outra thread adicionar uma tarefa com um dos títulos do lote, as
+     * tarefas já inseridas são novamente retiradas e essa tarefa é indicada
+     * como rejeitada. Durante a aplicação, outras threads podem observar
+     * parte do lote.</p>
+     */
+    @Override
+    public ResultadoLote adicionarTarefas(Collection<Tarefa> lote) {
+        if (lote == null) {
+            throw new IllegalArgumentException("O lote não pode ser nulo.");
+        }
+
+        List<Falha> falhas = new ArrayList<>();
+        Map<String, Tarefa> validas = LinkedHashMap.newLinkedHashMap(lote.size());
+        List<Integer> posicoes = new ArrayList<>(lote.size());
+        var indice = 0;
+
+        for (var tarefa : lote) {
+            var motivo = motivoDeRejeicao(tarefa);
+            if (motivo == null) {
+                var chave = GestorDeTarefas.normalizarTitulo(tarefa.getTitulo());
+                if (tarefas.containsKey(chave)) {
+                    motivo = duplicada(tarefa).getMessage();
+                } else if (tarefa.isAssociada()) {
+                    motivo = "A tarefa '" + tarefa.getTitulo() + "' já pertence a outro gestor.";
+                } else if (validas.putIfAbsent(chave, tarefa) != null) {
+                    motivo = "O título '" + tarefa.getTitulo() + "' está repetido no lote.";
+                } else {
+                    posicoes.add(indice);
+                }
+            }
+            if (motivo != null) {
+                falhas.add(new Falha(indice, tarefa != null ? tarefa.getTitulo() : null, motivo));
+            }
+            indice++;
+        }
+
+        if (!falhas.isEmpty()) {
+            return new ResultadoLote(indice, falhas);
+        }
+
+        List<Map.Entry<String, Tarefa>> inseridas = new ArrayList<>(validas.size());
+        for (var entrada : validas.entrySet()) {
+            try {
+                inserir(entrada.getKey(), entrada.getValue());
+                inseridas.add(entrada);
+            } catch (IllegalArgumentException e) {
+                for (var inserida : inseridas) {
+                    retirar(inserida.getKey(), inserida.getValue());
+                }
+                var tarefa = entrada.getValue();
+                return new ResultadoLote(indice, List.of(
+                    new Falha(posicoes.get(inseridas.size()), tarefa.getTitulo(), e.getMessage())));
+            }
+        }
+        return new ResultadoLote(indice, falhas);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>Se, entretanto, outra thread remover uma das tarefas do lote, as
+     * tarefas já removidas são repostas (exceto se, nesse intervalo, tiver
+     * sido adicionada outra tarefa com o mesmo título) e essa tarefa é
+     * indicada como não encontrada.</p>
+     */
+    @Override
+    public ResultadoLote removerTarefas(Collection<String> titulos) {
+        if (titulos == null) {
+            throw new IllegalArgumentException("O lote não pode ser nulo.");
+        }
+
+        List<Falha> falhas = new ArrayList<>();
+        Map<String, Tarefa> encontradas = LinkedHashMap.newLinkedHashMap(titulos.size());
+        List<Integer> posicoes = new ArrayList<>(titulos.size());
+        var indice = 0;
+
+        for (var titulo : titulos) {
+            var chave = titulo != null ? GestorDeTarefas.normalizarTitulo(titulo) : null;
+            var tarefa = chave != null ? tarefas.get(chave) : null;
+            if (tarefa == null) {
+                falhas.add(new Falha(indice, titulo, "A tarefa '" + titulo + "' não foi encontrada."));
+            } else if (encontradas.putIfAbsent(chave, tarefa) != null) {
+                falhas.add(new Falha(indice, titulo, "O título '" + titulo + "' está repetido no lote."));
+            } else {
+                posicoes.add(indice);
+            }
+            indice++;
+        }
+
+        if (!falhas.isEmpty()) {
+            return new ResultadoLote(indice, falhas);
+        }
+
+        List<Map.Entry<String, Tarefa>> removidas = new ArrayList<>(encontradas.size());
+        for (var entrada : encontradas.entrySet()) {
+            if (retirar(entrada.getKey(), entrada.getValue())) {
+                removidas.add(entrada);
+                continue;
+            }
+
+            for (var removida : removidas) {
+                try {
+                    inserir(removida.getKey(), removida.getValue());
+                } catch (IllegalArgumentException e) {
+                    // O título voltou a ser usado por outra thread: prevalece essa tarefa
+                }
+            }
+            var titulo = entrada.getValue().getTitulo();
+            return new ResultadoLote(indice, List.of(new Falha(posicoes.get(removidas.size()),
+                titulo, "A tarefa '" + titulo + "' não foi encontrada.")));
+        }
+        return new ResultadoLote(indice, falhas);
+    }
+
+    @Override
+    public ResultadoLote alterarEstados(Collection<String> titulos, Estado novoEstado) {
+        if (titulos == null) {
+            throw new IllegalArgumentException("O lote não pode ser nulo.");
+        }
+        if (novoEstado == null) {
+            throw new IllegalArgumentException("O estado não pode ser nulo.");
+        }
+
+        List<Falha> falhas = new ArrayList<>();
+        List<Tarefa> encontradas = new ArrayList<>(titulos.size());
+        var indice = 0;
+
+        for (var titulo : titulos) {
+            var tarefa = titulo != null ? tarefas.get(GestorDeTarefas.normalizarTitulo(titulo)) : null;
+            if (tarefa == null) {
+                falhas.add(new Falha(indice, titulo, "A tarefa '" + titulo + "' não foi encontrada."));
+            } else {
+                encontradas.add(tarefa);
+            }
+            indice++;
+        }
+
+        if (falhas.isEmpty()) {
+            for (var tarefa : encontradas) {
+                tarefa.setEstado(novoEstado);
+            }
+        }
+        return new ResultadoLote(indice, falhas);
+    }
+
+    @Override
+    public void alterarEstado(String titulo, Estado novoEstado)
+            throws TarefaNaoEncontradaException {
+
+        var tarefa = buscarPorTitulo(titulo);
+        tarefa.setEstado(novoEstado);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>A lista é obtida de um instantâneo (ver {@link #obterInstantaneo()}),
+     * sem bloquear os escritores, e tem as tarefas pela ordem de inserção.</p>
+     */
+    @Override
+    public List<Tarefa> listarTarefas() {
+        return obterInstantaneo().listarOriginais();
+    }
+
+    /**
+     * Devolve uma vista imutável das tarefas e dos seus estados num dado
+     * instante, que pode ser percorrida noutra thread enquanto o gestor
+     * continua a ser alterado.
+     *
+     * <p>O instantâneo é obtido em tempo constante, fixando a raiz da árvore
+     * persistente; os escritores nunca aguardam pela sua travessia. Cada
+     * alteração é vista por inteiro ou não é vista; de um lote, tal como
+     * nas restantes leituras, pode ser vista apenas uma parte.</p>
+     *
+     * @return instantâneo das tarefas atuais, pela ordem de inserção
+     */
+    public InstantaneoDeTarefas obterInstantaneo() {
+        synchronized (versoes) {
+            return versoes.instantaneo(List.of(), versao);
+        }
+    }
+
+    @Override
+    public Tarefa buscarPorTitulo(String titulo) throws TarefaNaoEncontradaException {
+        var tarefa = titulo != null ? tarefas.get(GestorDeTarefas.normalizarTitulo(titulo)) : null;
+
+        if (tarefa == null) {
+            throw new TarefaNaoEncontradaException(titulo);
+        }
+        return tarefa;
+    }
+
+    @Override
+    public List<Tarefa> listarPorEstado(Estado estado) {
+        List<Tarefa> filtradas = new ArrayList<>();
+
+        if (estado != null) {
+            for (var grupo : porEstado.get(estado).values()) {
+                filtradas.addAll(grupo);
+            }
+        }
+
+        return filtradas;
+    }
+
+    @Override
+    public int contarTarefas() {
+        return tarefas.size();
+    }
+
+    @Override
+    public int contarTarefas(Estado estado) {
+        if (estado == null) {
+            return 0;
+        }
+
+        var total = 0;
+        for (var grupo : porEstado.get(estado).values()) {
+            total += grupo.size();
+        }
+        return total;
+    }
+
+    @Override
+    public int contarTarefas(Estado estado, Prioridade prioridade) {
+        if (estado == null || prioridade == null) {
+            return 0;
+        }
+        return grupo(estado, prioridade).size();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>O {@link Stream} é fracamente consistente: nunca lança
+     * {@link java.util.ConcurrentModificationException}, cada tarefa presente
+     * durante toda a travessia aparece exatamente uma vez e as alterações
+     * concorrentes podem ou não ser refletidas. A ordem não é especificada.</p>
+     */
+    @Override
+    public Stream<Tarefa> percorrerTarefas() {
+        return tarefas.values().stream();
+    }
+
+    @Override
+    public Stream<Tarefa> percorrerPorEstado(Estado estado) {
+        if (estado == null) {
+            return Stream.empty();
+        }
+        return porEstado.get(estado).values().stream().flatMap(Set::stream);
+    }
+
+    @Override
+    public List<Tarefa> listarTarefas(int inicio, int quantidade) {
+        if (inicio < 0 || quantidade < 0) {
+            throw new IllegalArgumentException("Página inválida: início " + inicio + ", quantidade " + quantidade + ".");
+        }
+        return percorrerTarefas().skip(inicio).limit(quantidade).toList();
+    }
+
+    @Override
+    public PaginaDeTarefas listarPagina(String cursor, int quantidade) {
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("A quantidade tem de ser positiva.");
+        }
+
+        var seguintes = cursor != null
+            ? porData.tailMap(ChaveTemporal.lerCursor(cursor), false)
+            : porData;
+        return PaginaDeTarefas.de(seguintes.values().stream().limit(quantidade + 1L).toList(), quantidade);
+    }
+
+    /** Move a tarefa para o grupo do novo estado (chamado com o monitor da tarefa). */
+    private void estadoAlterado(Tarefa tarefa, Estado anterior, Estado novo) {
+        grupo(anterior, tarefa.getPrioridade()).remove(tarefa);
+        grupo(novo, tarefa.getPrioridade()).add(tarefa);
+
+        synchronized (versoes) {
+            versoes.estadoAlterado(tarefa, anterior, novo);
+            versao++;
+        }
+    }
+
+    /** Devolve o motivo pelo qual a tarefa nunca pode ser adicionada, ou {@code null}. */
+    private static String motivoDeRejeicao(Tarefa tarefa) {
+        if (tarefa == null) {
+            return "A tarefa não pode ser nula.";
+        }
+        if (tarefa.getPrioridade() == null || tarefa.getEstado() == null) {
+            return "A tarefa tem de ter prioridade e estado definidos.";
+        }
+        if (tarefa.getTitulo() == null) {
+            return "O título da tarefa não pode ser nulo.";
+        }
+        return null;
+    }
+
+    /** Insere e indexa uma tarefa válida, rejeitando títulos duplicados de forma atómica. */
+    private void inserir(String chave, Tarefa tarefa) {
+        // O monitor da tarefa impede que o estado mude entre a inserção e
+        // a indexação, e que uma remoção concorrente a encontre a meio.
+        synchronized (tarefa) {
+            if (tarefa.isAssociada()) {
+                throw new IllegalArgumentException(
+                    "A tarefa '" + tarefa.getTitulo() + "' já pertence a outro gestor.");
+            }
+            if (tarefas.putIfAbsent(chave, tarefa) != null) {
+                throw duplicada(tarefa);
+            }
+
+            tarefa.associar(observador);
+            grupo(tarefa.getEstado(), tarefa.getPrioridade()).add(tarefa);
+
+            var chaveTemporal = ChaveTemporal.de(tarefa);
+            if (chaveTemporal != null) {
+                porData.put(chaveTemporal, tarefa);
+            }
+
+            synchronized (versoes) {
+                versoes.tarefaAdicionada(tarefa);
+                versao++;
+            }
+        }
+    }
+
+    /** Retira a tarefa, se ainda for a associada ao título; devolve {@code true} se a retirou. */
+    private boolean retirar(String chave, Tarefa tarefa) {
+        if (!tarefas.remove(chave, tarefa)) {
+            return false;
+        }
+        desindexar(tarefa);
+        return true;
+    }
+
+    private void desindexar(Tarefa tarefa) {
+        synchronized (tarefa) {
+            tarefa.desassociar(observador);
+            grupo(tarefa.getEstado(), tarefa.getPrioridade()).remove(tarefa);
+
+            // Condicional: a chave pode já pertencer a uma nova tarefa com o mesmo título e data
+            var chaveTemporal = ChaveTemporal.de(tarefa);
+            if (chaveTemporal != null) {
+                porData.remove(chaveTemporal, tarefa);
+            }
+
+            synchronized (versoes) {
+                versoes.tarefaRemovida(tarefa);
+                versao++;
+            }
+        }
+    }
+
+    private Set<Tarefa> grupo(Estado estado, Prioridade prioridade) {
+        return porEstado.get(estado).get(prioridade);
+    }
+
+    private static IllegalArgumentException duplicada(Tarefa tarefa) {
+        return new IllegalArgumentException(
+            "Já existe uma tarefa com o título '" + tarefa.getTitulo() + "'.");
+    }
+}
@@ -0,0 +1,268 @@
+package Services;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import Entities.Estado;
+import Entities.Prioridade;
+import Entities.ResultadoLote;
+import Entities.TarefaNaoEncontradaException;
+import Interfaces.IGestorDeTarefas;
+
+/**
+ * Decorador de um {@link IGestorDeTarefas} que mede cada operação.
+ *
+ * <p>Cada chamada é delegada ao gestor decorado e a sua duração é
+ * registada nas {@link MetricasDoGestor}, assim como as exceções lançadas
+ * (em particular, as {@link TarefaNaoEncontradaException}). A medição
+ * consiste em duas leituras de {@link System#nanoTime()} e no incremento
+ * de contadores atómicos, sem alocar memória.</p>
+ *
+ * <p>Se o gestor decorado for um {@link GestorDeTarefas}, as suas operações
+ * de persistência e de relatório passam também a ser registadas nas mesmas
+ * métricas (ver {@link GestorDeTarefas#instrumentar(MetricasDoGestor)}).</p>
+ *
+ * <p>Em {@link #percorrerTarefas()} e {@link #percorrerPorEstado(Estado)}
+ * só é medida a criação do {@link Stream}, que é percorrido depois pelo
+ * chamador.</p>
+ */
+public class GestorDeTarefasInstrumentado implements IGestorDeTarefas {
+
+    private final IGestorDeTarefas gestor;
+    private final MetricasDoGestor metricas;
+
+    /**
+     * Decora um gestor, registando as métricas num novo {@link MetricasDoGestor}.
+     *
+     * @param gestor gestor a decorar
+     */
+    public GestorDeTarefasInstrumentado(IGestorDeTarefas gestor) {
+        this(gestor, new MetricasDoGestor());
+    }
+
+    /**
+     * Decora um gestor, registando as métricas nas métricas indicadas.
+     *
+     * @param gestor gestor a decorar
+     * @param metricas métricas onde as operações são registadas
+     */
+    public GestorDeTarefasInstrumentado(IGestorDeTarefas gestor, MetricasDoGestor metricas) {
+        if (gestor == null || metricas == null) {
+            throw new IllegalArgumentException("O gestor e as métricas não podem ser nulos.");
+        }
+        this.gestor = gestor;
+        this.metricas = metricas;
+
+        if (gestor instanceof GestorDeTarefas simples) {
+            simples.instrumentar(metricas);
+        }
+    }
+
+    /** Gestor decorado. */
+    public IGestorDeTarefas getGestor() {
+        return gestor;
+    }
+
+    public MetricasDoGestor getMetricas() {
+        return metricas;
+    }
+
+    @Override
+    public void adicionarTarefa(Tarefa tarefa) {
+        var inicio = System.nanoTime();
+        try {
+            gestor.adicionarTarefa(tarefa);
+        } catch (RuntimeException e) {
+            metricas.registarFalha(OperacaoDoGestor.ADICIONAR_TAREFA, inicio, e);
+            throw e;
+        }
+        metricas.registar(OperacaoDoGestor.ADICIONAR_TAREFA, inicio);
+    }
+
+    @Override
+    public void removerTarefa(String titulo) throws TarefaNaoEncontradaException {
+        var inicio = System.nanoTime();
+        try {
+            gestor.removerTarefa(titulo);
+        } catch (TarefaNaoEncontradaException | RuntimeException e) {
+            metricas.registarFalha(OperacaoDoGestor.REMOVER_TAREFA, inicio, e);
+            throw e;
+        }
+        metricas.registar(OperacaoDoGestor.REMOVER_TAREFA, inicio);
+    }
+
+    @Override
+    public void alterarEstado(String titulo, Estado novoEstado) throws TarefaNaoEncontradaException {
+        var inicio = System.nanoTime();
+        try {
+            gestor.alterarEstado(titulo, novoEstado);
+        } catch (TarefaNaoEncontradaException | RuntimeException e) {
+            metricas.registarFalha(OperacaoDoGestor.ALTERAR_ESTADO, inicio, e);
+            throw e;
+        }
+        metricas.registar(OperacaoDoGestor.ALTERAR_ESTADO, inicio);
+    }
+
+    @Override
+    public List<Tarefa> listarTarefas() {
+        var inicio = System.nanoTime();
+        try {
+            var resultado = gestor.listarTarefas();
+            metricas.registar(OperacaoDoGestor.LISTAR_TAREFAS, inicio);
+            return resultado;
+        } catch (RuntimeException e) {
+            metricas.registarFalha(OperacaoDoGestor.LISTAR_TAREFAS, inicio, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Tarefa buscarPorTitulo(String titulo) throws TarefaNaoEncontradaException {
+        var inicio = System.nanoTime();
+        try {
+            var tarefa = gestor.buscarPorTitulo(titulo);
+            metricas.registar(OperacaoDoGestor.BUSCAR_POR_TITULO, inicio);
+            return tarefa;
+        } catch (TarefaNaoEncontradaException | RuntimeException e) {
+            metricas.registarFalha(OperacaoDoGestor.BUSCAR_POR_TITULO, inicio, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Tarefa> listarPorEstado(Estado estado) {
+        var inicio = System.nanoTime();
+        try {
+            var resultado = gestor.listarPorEstado(estado);
+            metricas.registar(OperacaoDoGestor.LISTAR_POR_ESTADO, inicio);
+            return resultado;
+        } catch (RuntimeException e) {
+            metricas.registarFalha(OperacaoDoGestor.LISTAR_POR_ESTADO, inicio, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int contarTarefas() {
+        var inicio = System.nanoTime();
+        var contagem = gestor.contarTarefas();
+        metricas.registar(OperacaoDoGestor.CONTAR_TAREFAS, inicio);
+        return contagem;
+    }
+
+    @Override
+    public int contarTarefas(Estado estado) {
+        var inicio = System.nanoTime();
+        try {
+            var contagem = gestor.contarTarefas(estado);
+            metricas.registar(OperacaoDoGestor.CONTAR_TAREFAS, inicio);
+            return contagem;
+        } catch (RuntimeException e) {
+            metricas.registarFalha(OperacaoDoGestor.CONTAR_TAREFAS, inicio, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int contarTarefas(Estado estado, Prioridade prioridade) {
+        var inicio = System.nanoTime();
+        try {
+            var contagem = gestor.contarTarefas(estado, prioridade);
+            metricas.registar(OperacaoDoGestor.CONTAR_TAREFAS, inicio);
+            return contagem;
+        } catch (RuntimeException e) {
+            metricas.registarFalha(OperacaoDoGestor.CONTAR_TAREFAS, inicio, e);
+            throw e;
+        }
+    }
+
+    /** {@inheritDoc} Um lote rejeitado não conta como falha da operação. */
+    @Override
+    public ResultadoLote adicionarTarefas(Collection<Tarefa> tarefas) {
+        var inicio = System.nanoTime();
+        try {
+            var resultado = gestor.adicionarTarefas(tarefas);
+            metricas.registar(OperacaoDoGestor.ADICIONAR_TAREFAS, inicio);
+            return resultado;
+        } catch (RuntimeException e) {
+            metricas.registarFalha(OperacaoDoGestor.ADICIONAR_TAREFAS, inicio, e);
+            throw e;
+        }
+    }
+
+    /** {@inheritDoc} Um lote rejeitado não conta como falha da operação. */
+    @Override
+    public ResultadoLote removerTarefas(Collection<String> titulos) {
+        var inicio = System.nanoTime();
+        try {
+            var resultado = gestor.removerTarefas(titulos);
+            metricas.registar(OperacaoDoGestor.REMOVER_TAREFAS, inicio);
+            return resultado;
+        } catch (RuntimeException e) {
+            metricas.registarFalha(OperacaoDoGestor.REMOVER_TAREFAS, inicio, e);
+            throw e;
+        }
+    }
+
+    /** {@inheritDoc} Um lote rejeitado não conta como falha da operação. */
+    @Override
+    public ResultadoLote alterarEstados(Collection<String> titulos, Estado novoEstado) {
+        var inicio = System.nanoTime();
+        try {
+            var resultado = gestor.alterarEstados(titulos, novoEstado);
+            metricas.registar(OperacaoDoGestor.ALTERAR_ESTADOS, inicio);
+            return resultado;
+        } catch (RuntimeException e) {
+            metricas.registarFalha(OperacaoDoGestor.ALTERAR_ESTADOS, inicio, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Stream<Tarefa> percorrerTarefas() {
+        var inicio = System.nanoTime();
+        var tarefas = gestor.percorrerTarefas();
+        metricas.registar(OperacaoDoGestor.PERCORRER_TAREFAS, inicio);
+        return tarefas;
+    }
+
+    @Override
+    public Stream<Tarefa> percorrerPorEstado(Estado estado) {
+        var inicio = System.nanoTime();
+        try {
+            var tarefas = gestor.percorrerPorEstado(estado);
+            metricas.registar(OperacaoDoGestor.PERCORRER_TAREFAS, inicio);
+            return tarefas;
+        } catch (RuntimeException e) {
+            metricas.registarFalha(OperacaoDoGestor.PERCORRER_TAREFAS, inicio, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Tarefa> listarTarefas(int inicio, int quantidade) {
+        var inicioMedicao = System.nanoTime();
+        try {
+            var resultado = gestor.listarTarefas(inicio, quantidade);
+            metricas.registar(OperacaoDoGestor.LISTAR_PAGINA, inicioMedicao);
+            return resultado;
+        } catch (RuntimeException e) {
+            metricas.registarFalha(OperacaoDoGestor.LISTAR_PAGINA, inicioMedicao, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public PaginaDeTarefas listarPagina(String cursor, int quantidade) {
+        var inicio = System.nanoTime();
+        try {
+            var pagina = gestor.listarPagina(cursor, quantidade);
+            metricas.registar(OperacaoDoGestor.LISTAR_PAGINA, inicio);
+            return pagina;
+        } catch (RuntimeException e) {
+            metricas.registarFalha(OperacaoDoGestor.LISTAR_PAGINA, inicio, e);
+            throw e;
+        }
+    }
+}
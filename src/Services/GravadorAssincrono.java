@@ -0,0 +1,346 @@
+package Services;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import javax.xml.stream.XMLStreamException;
+
+import Entities.Estado;
+
+/**
+ * Gravação das tarefas de um {@link GestorDeTarefas} em ficheiros XML numa
+ * thread dedicada.
+ *
+ * <p>O primeiro pedido para um ficheiro tira uma fotografia do gestor: as
+ * referências das tarefas e os respetivos estados, copiados para dois
+ * arrays (os restantes campos de uma tarefa não mudam depois de criada).
+ * Enquanto o pedido aguarda pela thread de escrita, o gravador acompanha as
+ * alterações do gestor como {@link ObservadorDeAlteracoes} e regista-as
+ * sobre essa fotografia (tarefas acrescentadas, removidas e novos estados),
+ * em vez de a copiar de novo. Os pedidos seguintes para o mesmo ficheiro
+ * são assim agrupados no pendente em tempo constante, e uma rajada de
+ * pedidos resulta numa única escrita, da versão mais recente. Um pedido
+ * para uma versão que já está a ser (ou já foi) gravada não volta a
+ * escrever o ficheiro.</p>
+ *
+ * <p>Cada escrita é feita num ficheiro temporário na mesma pasta, forçada
+ * para o disco e colocada no destino através de uma mudança de nome
+ * atómica; após uma falha, o destino contém a versão anterior ou a nova,
+ * nunca uma mistura das duas.</p>
+ *
+ * <p>O histórico dos estados é gravado ao lado de cada ficheiro (ver
+ * {@link HistoricoDeEstados}). Como os registos já escritos no histórico não
+ * mudam, a fotografia guarda apenas a referência ao array dos registos e a
+ * posição do último registo de cada tarefa, e as alterações posteriores
+ * atualizam essas posições. Se os registos forem compactados enquanto o
+ * pedido aguarda, as posições deixam de ser válidas e a fotografia é tirada
+ * de novo.</p>
+ */
+final class GravadorAssincrono implements ObservadorDeAlteracoes {
+
+    /** Dimensão do buffer de escrita. */
+    private static final int TAMANHO_BUFFER = 1 << 16;
+
+    /**
+     * Tarefas do gestor e respetivos estados, pela ordem de inserção, com a
+     * posição do último registo de cada uma no histórico.
+     *
+     * @param historico array dos registos do histórico
+     * @param geracao geração das posições do histórico (ver {@link HistoricoDeEstados#getGeracao()})
+     */
+    record Fotografia(Tarefa[] tarefas, Estado[] estados, int[] ultimosRegistos, byte[] historico, int geracao) {
+    }
+
+    /** Gravação pedida para um ficheiro, partilhada por todos os pedidos agrupados. */
+    private static final class Pedido {
+        final Path destino;
+        final CompletableFuture<Void> concluido = new CompletableFuture<>();
+        long versao;
+        Fotografia base;
+
+        /** Alterações posteriores à fotografia. */
+        final Set<Tarefa> acrescentadas = new LinkedHashSet<>();
+        final Set<Tarefa> removidas = new HashSet<>();
+        final Map<Tarefa, Estado> estados = new HashMap<>();
+        final Map<Tarefa, Integer> ultimosRegistos = new HashMap<>();
+
+        /** Array do histórico que contém os registos de todas as alterações acompanhadas. */
+        byte[] historico;
+
+        Pedido(Path destino, long versao, Fotografia base) {
+            this.destino = destino;
+            this.versao = versao;
+            refotografar(base);
+        }
+
+        /** Passa a partir de uma nova fotografia, sem alterações posteriores. */
+        void refotografar(Fotografia fotografia) {
+            base = fotografia;
+            historico = fotografia.historico();
+            acrescentadas.clear();
+            removidas.clear();
+            estados.clear();
+            ultimosRegistos.clear();
+        }
+    }
+
+    private final Object trinco = new Object();
+
+    /** Tira a fotografia do gestor (chamado na thread do gestor). */
+    private final Supplier<Fotografia> fotografar;
+
+    /** Histórico dos estados do gestor, consultado na thread do gestor. */
+    private final HistoricoDeEstados historico;
+
+    /** Pedidos por iniciar, pela ordem em que chegaram (no máximo um por ficheiro). */
+    private final Map<Path, Pedido> pendentes = new LinkedHashMap<>();
+
+    /** Última versão gravada com sucesso em cada ficheiro. */
+    private final Map<Path, Long> versoesGravadas = new HashMap<>();
+
+    /** Indica se há pedidos pendentes, para que as alterações do gestor não peguem no trinco sem necessidade. */
+    private volatile boolean acompanhar;
+
+    private Pedido emCurso;
+    private Thread escritor;
+
+    GravadorAssincrono(Supplier<Fotografia> fotografar, HistoricoDeEstados historico) {
+        this.fotografar = fotografar;
+        this.historico = historico;
+    }
+
+    /**
+     * Pede a gravação do gestor no ficheiro indicado.
+     *
+     * @param destino ficheiro de destino
+     * @param versao versão atual do gestor
+     * @return resultado da gravação que inclui esta versão
+     */
+    CompletableFuture<Void> guardar(Path destino, long versao) {
+        var chave = destino.toAbsolutePath().normalize();
+
+        synchronized (trinco) {
+            var pendente = pendentes.get(chave);
+            if (pendente != null) {
+                pendente.versao = versao;
+                return pendente.concluido.copy();
+            }
+
+            var aGravar = emCurso != null && emCurso.destino.equals(chave);
+            if (aGravar && emCurso.versao == versao) {
+                return emCurso.concluido.copy();
+            }
+            var gravada = versoesGravadas.get(chave);
+            if (!aGravar && gravada != null && gravada == versao) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            var pedido = new Pedido(chave, versao, fotografar.get());
+            pendentes.put(chave, pedido);
+            acompanhar = true;
+            if (escritor == null) {
+                escritor = new Thread(this::escreverPedidos, "gravador-de-tarefas");
+                escritor.setDaemon(true);
+                escritor.start();
+            }
+            return pedido.concluido.copy();
+        }
+    }
+
+    /**
+     * Devolve um resultado que fica concluído quando todas as gravações já
+     * pedidas terminarem. Termina com a primeira falha, se alguma falhar.
+     */
+    CompletableFuture<Void> sincronizar() {
+        var pedidos = new ArrayList<CompletableFuture<Void>>();
+
+        synchronized (trinco) {
+            if (emCurso != null) {
+                pedidos.add(emCurso.concluido);
+            }
+            for (var pedido : pendentes.values()) {
+                pedidos.add(pedido.concluido);
+            }
+        }
+        return CompletableFuture.allOf(pedidos.toArray(CompletableFuture[]::new));
+    }
+
+    @Override
+    public void tarefaAdicionada(Tarefa tarefa) {
+        if (acompanhar) {
+            synchronized (trinco) {
+                for (var pedido : pendentes.values()) {
+                    if (!refotografarSeCompactado(pedido)) {
+                        pedido.acrescentadas.add(tarefa);
+                        pedido.estados.put(tarefa, tarefa.getEstado());
+                        registarHistorico(pedido, tarefa);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void tarefaRemovida(Tarefa tarefa) {
+        if (acompanhar) {
+            synchronized (trinco) {
+                for (var pedido : pendentes.values()) {
+                    if (!refotografarSeCompactado(pedido)) {
+                        if (!pedido.acrescentadas.remove(tarefa)) {
+                            pedido.removidas.add(tarefa);
+                        }
+                        pedido.estados.remove(tarefa);
+                        pedido.ultimosRegistos.remove(tarefa);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void estadoAlterado(Tarefa tarefa, Estado anterior, Estado novo) {
+        if (acompanhar) {
+            synchronized (trinco) {
+                for (var pedido : pendentes.values()) {
+                    if (!refotografarSeCompactado(pedido)) {
+                        pedido.estados.put(tarefa, novo);
+                        registarHistorico(pedido, tarefa);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void tarefasSubstituidas() {
+        if (acompanhar) {
+            synchronized (trinco) {
+                for (var pedido : pendentes.values()) {
+                    pedido.refotografar(fotografar.get());
+                }
+            }
+        }
+    }
+
+    /**
+     * Tira uma nova fotografia para o pedido se as posições do histórico
+     * tiverem mudado desde a sua fotografia (a nova já inclui a alteração).
+     */
+    private boolean refotografarSeCompactado(Pedido pedido) {
+        if (pedido.base.geracao() == historico.getGeracao()) {
+            return false;
+        }
+        pedido.refotografar(fotografar.get());
+        return true;
+    }
+
+    /** Regista a posição do último registo da tarefa no histórico (já atualizado pelo gestor). */
+    private void registarHistorico(Pedido pedido, Tarefa tarefa) {
+        pedido.ultimosRegistos.put(tarefa, tarefa.getUltimoRegisto());
+        pedido.historico = historico.getRegistos();
+    }
+
+    /** Ciclo da thread de escrita; termina quando não houver pedidos por atender. */
+    private void escreverPedidos() {
+        while (true) {
+            Pedido pedido;
+            synchronized (trinco) {
+                emCurso = null;
+                Iterator<Pedido> seguinte = pendentes.values().iterator();
+                if (!seguinte.hasNext()) {
+                    escritor = null;
+                    return;
+                }
+                pedido = seguinte.next();
+                seguinte.remove();
+                acompanhar = !pendentes.isEmpty();
+                emCurso = pedido;
+            }
+
+            try {
+                escrever(pedido);
+                synchronized (trinco) {
+                    versoesGravadas.put(pedido.destino, pedido.versao);
+                }
+                pedido.concluido.complete(null);
+            } catch (IOException | RuntimeException e) {
+                synchronized (trinco) {
+                    versoesGravadas.remove(pedido.destino);
+                }
+                pedido.concluido.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Escreve a fotografia do pedido, com as alterações registadas, num
+     * ficheiro temporário e substitui o destino atomicamente.
+     */
+    private static void escrever(Pedido pedido) throws IOException {
+        var destino = pedido.destino;
+        var pasta = destino.getParent();
+        if (pasta != null) {
+            Files.createDirectories(pasta);
+        }
+
+        // Tarefas escritas, pela ordem do ficheiro, e as posições dos seus históricos
+        var tarefas = pedido.base.tarefas();
+        var escritas = new Tarefa[tarefas.length + pedido.acrescentadas.size()];
+        var ultimos = new int[escritas.length];
+        var n = 0;
+
+        var temporario = Files.createTempFile(pasta, destino.getFileName() + ".", ".tmp");
+        try {
+            try (var escritor = new EscritorXMLDeTarefas(
+                    new BufferedOutputStream(Files.newOutputStream(temporario), TAMANHO_BUFFER))) {
+                var estados = pedido.base.estados();
+                var ultimosRegistos = pedido.base.ultimosRegistos();
+                for (int i = 0; i < tarefas.length; i++) {
+                    if (!pedido.removidas.contains(tarefas[i])) {
+                        escritor.escrever(tarefas[i], pedido.estados.getOrDefault(tarefas[i], estados[i]));
+                        escritas[n] = tarefas[i];
+                        ultimos[n++] = pedido.ultimosRegistos.getOrDefault(tarefas[i], ultimosRegistos[i]);
+                    }
+                }
+                for (var tarefa : pedido.acrescentadas) {
+                    escritor.escrever(tarefa, pedido.estados.get(tarefa));
+                    escritas[n] = tarefa;
+                    ultimos[n++] = pedido.ultimosRegistos.get(tarefa);
+                }
+            } catch (XMLStreamException e) {
+                throw new IOException("Erro ao escrever o ficheiro XML '" + destino + "'.", e);
+            }
+
+            try (var canal = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+                canal.force(true);
+            }
+
+            try {
+                Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+
+        HistoricoDeEstados.guardar(HistoricoDeEstados.caminhoJunto(destino.toString()), pedido.historico,
+                escritas, ultimos, n);
+    }
+}
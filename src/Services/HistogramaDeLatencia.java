@@ -0,0 +1,125 @@
+package Services;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latências em nanossegundos, com escala log-linear.
+ *
+ * <p>Os valores são agrupados por potência de 2 e cada potência é dividida
+ * em {@value #SUBDIVISOES} intervalos iguais (como num HdrHistogram), pelo
+ * que o erro relativo de qualquer percentil é inferior a 1/{@value #SUBDIVISOES}
+ * em toda a gama de valores, com um número fixo de contadores. Registar um
+ * valor não aloca memória nem adquire trincos: calcula o índice com
+ * operações de bits e incrementa um contador atómico.</p>
+ */
+public final class HistogramaDeLatencia {
+
+    private static final int BITS_SUBDIVISAO = 5;
+
+    /** Número de intervalos em que cada potência de 2 é dividida. */
+    static final int SUBDIVISOES = 1 << BITS_SUBDIVISAO;
+
+    /** Número de contadores necessários para cobrir todos os valores {@code long} positivos. */
+    private static final int CONTADORES = indice(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(CONTADORES);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * Regista um valor (os valores negativos contam como 0).
+     *
+     * @param nanos latência em nanossegundos
+     */
+    public void registar(long nanos) {
+        var valor = Math.max(nanos, 0);
+        contagens.incrementAndGet(indice(valor));
+        total.increment();
+        soma.add(valor);
+
+        long atual;
+        while (valor > (atual = maximo.get()) && !maximo.compareAndSet(atual, valor)) {
+            // outra thread registou um valor entretanto; volta a comparar
+        }
+    }
+
+    /** Número de valores registados. */
+    public long getContagem() {
+        return total.sum();
+    }
+
+    /** Média dos valores registados, em nanossegundos. */
+    public double getMedia() {
+        var contagem = total.sum();
+        return contagem == 0 ? 0 : (double) soma.sum() / contagem;
+    }
+
+    /** Maior valor registado, em nanossegundos. */
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    /**
+     * Devolve o valor abaixo do qual se encontra a percentagem indicada dos
+     * valores registados (o limite superior do intervalo que o contém).
+     *
+     * @param percentil percentil pretendido, entre 0 e 100
+     * @return valor do percentil em nanossegundos, ou 0 sem valores registados
+     */
+    public long percentil(double percentil) {
+        if (percentil < 0 || percentil > 100) {
+            throw new IllegalArgumentException("Percentil inválido: " + percentil + ".");
+        }
+
+        var contagem = total.sum();
+        if (contagem == 0) {
+            return 0;
+        }
+
+        var alvo = Math.max(1, (long) Math.ceil(contagem * percentil / 100));
+        var acumulado = 0L;
+        for (var i = 0; i < CONTADORES; i++) {
+            acumulado += contagens.get(i);
+            if (acumulado >= alvo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    /** Apaga todos os valores registados. */
+    public void reiniciar() {
+        for (var i = 0; i < CONTADORES; i++) {
+            contagens.set(i, 0);
+        }
+        total.reset();
+        soma.reset();
+        maximo.set(0);
+    }
+
+    /**
+     * Índice do contador de um valor: os valores abaixo de
+     * {@code 2 * SUBDIVISOES} têm um contador cada; acima disso, o expoente
+     * escolhe a potência de 2 e os bits seguintes o intervalo dentro dela.
+     */
+    static int indice(long valor) {
+        if (valor < 2 * SUBDIVISOES) {
+            return (int) valor;
+        }
+        var deslocamento = 63 - Long.numberOfLeadingZeros(valor) - BITS_SUBDIVISAO;
+        return deslocamento * SUBDIVISOES + (int) (valor >>> deslocamento);
+    }
+
+    /** Maior valor que cabe no contador indicado. */
+    static long limiteSuperior(int indice) {
+        if (indice < 2 * SUBDIVISOES) {
+            return indice;
+        }
+        var deslocamento = indice / SUBDIVISOES - 1;
+        var subdivisao = (long) (indice % SUBDIVISOES + SUBDIVISOES);
+        return ((subdivisao + 1) << deslocamento) - 1;
+    }
+}
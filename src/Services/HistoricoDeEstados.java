@@ -0,0 +1,601 @@
+package Services;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import Entities.Estado;
+
+/**
+ * Histórico das mudanças de estado das tarefas de um {@link GestorDeTarefas}.
+ *
+ * <p>Cada tarefa tem um registo da entrada no gestor, com o estado inicial,
+ * e um por cada mudança de estado posterior. Os registos de todas as
+ * tarefas são acrescentados, pela ordem em que ocorrem, a um único
+ * {@code byte[]}, e os de cada tarefa ficam encadeados do mais recente para
+ * o mais antigo. Um registo são dois inteiros de comprimento variável (7
+ * bits por byte, como em Protocol Buffers):</p>
+ *
+ * <ul>
+ *   <li>o estado, nos {@value #BITS_ESTADO} bits inferiores (a partir de 1),
+ *       junto com os milissegundos decorridos desde o registo anterior da
+ *       mesma tarefa (no primeiro, desde a época);</li>
+ *   <li>a distância, em bytes, até ao registo anterior da mesma tarefa
+ *       (0 no primeiro).</li>
+ * </ul>
+ *
+ * <p>A tarefa guarda apenas a posição e o instante do seu último registo
+ * (ver {@link Tarefa#getUltimoRegisto()}), pelo que acrescentar um registo
+ * não lê os anteriores nem toca noutra memória além do fim do array. Uma
+ * mudança de estado ocupa tipicamente 4 a 8 bytes. Os registos das tarefas
+ * removidas são descartados quando passam a ocupar mais de metade do
+ * array, copiando os restantes, tarefa a tarefa, para um array novo.</p>
+ *
+ * <p>Os bytes já escritos nunca são alterados: o array só cresce por cópia
+ * e a compactação escreve num array novo. Uma gravação em segundo plano
+ * pode, por isso, ler os registos a partir de uma referência ao array e
+ * das posições das tarefas, obtidas na thread do gestor (ver
+ * {@link #getRegistos()} e {@link #getGeracao()}).</p>
+ *
+ * <p>O histórico acompanha as alterações do gestor como
+ * {@link ObservadorDeAlteracoes}. É gravado num ficheiro próprio, ao lado do
+ * armazém das tarefas, só com o primeiro inteiro de cada registo:</p>
+ *
+ * <pre>
+ * [int magia "GTH1"][int número de tarefas]
+ * por tarefa: [int n][n bytes do título em UTF-8][int m][m bytes de registos]
+ * </pre>
+ */
+final class HistoricoDeEstados implements ObservadorDeAlteracoes {
+
+    /** Extensão acrescentada ao caminho do armazém para obter o do histórico. */
+    static final String EXTENSAO = ".historico";
+
+    /** Identificador do formato ("GTH1"). */
+    private static final int MAGIA = 0x47544831;
+
+    /** Bits do estado (guardado como {@code ordinal() + 1}) em cada registo. */
+    private static final int BITS_ESTADO = 2;
+
+    /** Dimensão máxima de um registo codificado. */
+    private static final int TAMANHO_MAXIMO_REGISTO = 2 * 10;
+
+    private static final int CAPACIDADE_INICIAL = 1 << 12;
+
+    /** Maior dimensão de array que a máquina virtual aceita com segurança. */
+    private static final int CAPACIDADE_MAXIMA = Integer.MAX_VALUE - 8;
+
+    /** Dimensão a partir da qual os registos das tarefas removidas podem ser descartados. */
+    private static final int COMPACTAR_A_PARTIR_DE = 1 << 20;
+
+    private static final int TAMANHO_BUFFER = 1 << 16;
+    private static final System.Logger REGISTO = System.getLogger(HistoricoDeEstados.class.getName());
+    private static final Estado[] ESTADOS = Estado.values();
+
+    /** Indica que os registos usam o relógio do sistema (ver {@link #reporNoInstante}). */
+    private static final long SEM_INSTANTE = Long.MIN_VALUE;
+
+    static {
+        // O estado é guardado a partir de 1, para que um registo nunca seja 0
+        if (ESTADOS.length > (1 << BITS_ESTADO) - 1) {
+            throw new ExceptionInInitializerError("Os " + ESTADOS.length + " estados não cabem nos "
+                    + BITS_ESTADO + " bits reservados em cada registo do histórico.");
+        }
+    }
+
+    /** Tarefas atuais do gestor, percorridas ao compactar. */
+    private final Supplier<Collection<Tarefa>> tarefas;
+
+    private byte[] registos = new byte[CAPACIDADE_INICIAL];
+    private int tamanho;
+
+    /** Bytes ocupados por registos de tarefas removidas. */
+    private long descartados;
+
+    /** Muda sempre que as posições dos registos das tarefas mudam em bloco. */
+    private int geracao;
+
+    /** Instante dos registos acrescentados durante uma reaplicação do diário. */
+    private long instanteReposto = SEM_INSTANTE;
+
+    /**
+     * @param tarefas fornece as tarefas atuais do gestor
+     */
+    HistoricoDeEstados(Supplier<Collection<Tarefa>> tarefas) {
+        this.tarefas = tarefas;
+    }
+
+    /** Caminho do histórico que acompanha o armazém indicado. */
+    static Path caminhoJunto(String caminhoDoArmazem) {
+        return Path.of(caminhoDoArmazem + EXTENSAO);
+    }
+
+    /**
+     * Descodifica o histórico de uma tarefa.
+     *
+     * @param tarefa tarefa do gestor
+     * @return histórico da tarefa (vazio se esta foi carregada sem histórico)
+     */
+    HistoricoDeTarefa historico(Tarefa tarefa) {
+        var posicoes = cadeia(registos, tarefa.getUltimoRegisto());
+        var estados = new Estado[posicoes.length];
+        var instantes = new long[posicoes.length];
+
+        var leitor = new Leitor(registos);
+        var instante = 0L;
+        for (int i = 0; i < posicoes.length; i++) {
+            leitor.posicao = posicoes[i];
+            var valor = leitor.ler();
+            instante += valor >>> BITS_ESTADO;
+            estados[i] = ESTADOS[(int) (valor & ((1 << BITS_ESTADO) - 1)) - 1];
+            instantes[i] = instante;
+        }
+        return new HistoricoDeTarefa(estados, instantes, System.currentTimeMillis());
+    }
+
+    /**
+     * Calcula as estatísticas dos históricos de todas as tarefas.
+     *
+     * @param tarefas todas as tarefas do gestor
+     * @return tempos em cada estado e de entrega
+     */
+    EstatisticasDeTransicoes estatisticas(Collection<Tarefa> tarefas) {
+        var estatisticas = new EstatisticasDeTransicoes();
+        for (var tarefa : tarefas) {
+            if (tarefa.getUltimoRegisto() != 0) {
+                estatisticas.registar(historico(tarefa));
+            }
+        }
+        return estatisticas;
+    }
+
+    /**
+     * Array atual dos registos. Os bytes antes das posições das tarefas não
+     * voltam a ser alterados, pelo que podem ser lidos noutra thread.
+     */
+    byte[] getRegistos() {
+        return registos;
+    }
+
+    /**
+     * Geração das posições dos registos: muda quando as tarefas são
+     * substituídas ou os registos são compactados, o que invalida as
+     * posições obtidas antes.
+     */
+    int getGeracao() {
+        return geracao;
+    }
+
+    /**
+     * Executa uma alteração reaplicada a partir do diário, registando-a no
+     * instante em que foi feita originalmente.
+     *
+     * @param instante milissegundos desde a época
+     * @param alteracao alteração a reaplicar
+     */
+    void reporNoInstante(long instante, Runnable alteracao) {
+        instanteReposto = instante;
+        try {
+            alteracao.run();
+        } finally {
+            instanteReposto = SEM_INSTANTE;
+        }
+    }
+
+    @Override
+    public void tarefaAdicionada(Tarefa tarefa) {
+        tarefa.setUltimoRegisto(0, 0);
+        acrescentar(tarefa, tarefa.getEstado(), agora());
+    }
+
+    @Override
+    public void tarefaRemovida(Tarefa tarefa) {
+        var leitor = new Leitor(registos);
+        for (var posicao : cadeia(registos, tarefa.getUltimoRegisto())) {
+            leitor.posicao = posicao;
+            leitor.ler();
+            leitor.ler();
+            descartados += leitor.posicao - posicao;
+        }
+        tarefa.setUltimoRegisto(0, 0);
+
+        if (tamanho >= COMPACTAR_A_PARTIR_DE && 2 * descartados > tamanho) {
+            compactar();
+        }
+    }
+
+    @Override
+    public void estadoAlterado(Tarefa tarefa, Estado anterior, Estado novo) {
+        acrescentar(tarefa, novo, agora());
+    }
+
+    /**
+     * Descarta todos os registos, depois de as tarefas do gestor terem sido
+     * substituídas, e carrega os históricos gravados para as novas tarefas
+     * (ver {@link #carregar(Path, Map)}). O gestor chama este método antes
+     * de notificar os restantes observadores da substituição.
+     *
+     * @param gravados ficheiros de histórico dos armazéns carregados
+     * @param tarefas novas tarefas do gestor, indexadas pelo título normalizado
+     */
+    void substituir(List<Path> gravados, Map<String, Tarefa> tarefas) {
+        registos = new byte[CAPACIDADE_INICIAL];
+        tamanho = 0;
+        descartados = 0;
+        geracao++;
+        for (var tarefa : tarefas.values()) {
+            tarefa.setUltimoRegisto(0, 0);
+        }
+
+        for (var caminho : gravados) {
+            carregar(caminho, tarefas);
+        }
+    }
+
+    private long agora() {
+        return instanteReposto != SEM_INSTANTE ? instanteReposto : System.currentTimeMillis();
+    }
+
+    /**
+     * Grava o histórico das tarefas indicadas. O ficheiro é escrito ao lado,
+     * forçado para o disco e só então substitui o anterior, através de uma
+     * mudança de nome atómica.
+     *
+     * @param caminho ficheiro do histórico
+     * @param tarefas tarefas do gestor, pela ordem em que são gravadas
+     * @throws IOException se ocorrer um erro de escrita
+     */
+    void guardar(Path caminho, Collection<Tarefa> tarefas) throws IOException {
+        var ordenadas = tarefas.toArray(Tarefa[]::new);
+        var ultimos = new int[ordenadas.length];
+        for (int i = 0; i < ordenadas.length; i++) {
+            ultimos[i] = ordenadas[i].getUltimoRegisto();
+        }
+        guardar(caminho, registos, ordenadas, ultimos, ordenadas.length);
+    }
+
+    /**
+     * Grava o histórico a partir de um array de registos e das posições dos
+     * últimos registos das tarefas, fixados antes na thread do gestor (ver
+     * {@link GravadorAssincrono}).
+     *
+     * @param caminho ficheiro do histórico
+     * @param registos array dos registos (ver {@link #getRegistos()})
+     * @param tarefas tarefas, pela ordem em que são gravadas
+     * @param ultimos posição do último registo de cada tarefa (0 se não tiver histórico)
+     * @param quantidade número de tarefas a gravar
+     * @throws IOException se ocorrer um erro de escrita
+     */
+    static void guardar(Path caminho, byte[] registos, Tarefa[] tarefas, int[] ultimos, int quantidade)
+            throws IOException {
+        var comHistorico = 0;
+        for (int i = 0; i < quantidade; i++) {
+            if (ultimos[i] != 0) {
+                comHistorico++;
+            }
+        }
+
+        var pasta = caminho.toAbsolutePath().getParent();
+        var temporario = Files.createTempFile(pasta, caminho.getFileName() + ".", ".tmp");
+        try {
+            escrever(temporario, registos, tarefas, ultimos, quantidade, comHistorico);
+
+            try (var canal = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+                canal.force(true);
+            }
+
+            try {
+                Files.move(temporario, caminho, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporario, caminho, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+
+    /** Escreve os históricos das tarefas indicadas no ficheiro. */
+    private static void escrever(Path caminho, byte[] registos, Tarefa[] tarefas, int[] ultimos, int quantidade,
+            int comHistorico) throws IOException {
+        try (var saida = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(caminho), TAMANHO_BUFFER))) {
+            saida.writeInt(MAGIA);
+            saida.writeInt(comHistorico);
+
+            var leitor = new Leitor(registos);
+            var valor = new byte[TAMANHO_MAXIMO_REGISTO];
+            for (int i = 0; i < quantidade; i++) {
+                if (ultimos[i] == 0) {
+                    continue;
+                }
+
+                var tarefa = tarefas[i];
+                var posicoes = cadeia(registos, ultimos[i]);
+                var comprimento = 0;
+                for (var posicao : posicoes) {
+                    leitor.posicao = posicao;
+                    leitor.ler();
+                    comprimento += leitor.posicao - posicao;
+                }
+
+                var titulo = String.valueOf(tarefa.getTitulo()).getBytes(StandardCharsets.UTF_8);
+                saida.writeInt(titulo.length);
+                saida.write(titulo);
+                saida.writeInt(comprimento);
+                for (var posicao : posicoes) {
+                    leitor.posicao = posicao;
+                    saida.write(valor, 0, escrever(valor, 0, leitor.ler()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Carrega o histórico gravado para as tarefas do gestor com o mesmo
+     * título. Os históricos de tarefas que não existam são ignorados.
+     *
+     * <p>O histórico é secundário: se o ficheiro não puder ser lido ou não
+     * for válido, é tratado como inexistente (com um aviso no registo da
+     * plataforma) e as suas tarefas ficam sem histórico, em vez de o
+     * carregamento das tarefas falhar. O ficheiro pode também estar
+     * desatualizado (por exemplo, se a aplicação terminar entre a escrita do
+     * armazém e a do histórico): o histórico de uma tarefa cujo último
+     * estado gravado não seja o estado carregado é ignorado.</p>
+     *
+     * @param caminho ficheiro do histórico (se não existir, nada é carregado)
+     * @param tarefas tarefas do gestor, indexadas pelo título normalizado
+     */
+    private void carregar(Path caminho, Map<String, Tarefa> tarefas) {
+        if (!Files.exists(caminho)) {
+            return;
+        }
+
+        List<Tarefa> encontradas = new ArrayList<>();
+        List<byte[]> valores = new ArrayList<>();
+        try {
+            ler(caminho, tarefas, encontradas, valores);
+        } catch (IOException e) {
+            REGISTO.log(System.Logger.Level.WARNING,
+                    "O histórico de estados '" + caminho + "' foi ignorado: " + e.getMessage(), e);
+            return;
+        }
+
+        // Só um ficheiro válido por inteiro é aplicado
+        for (int i = 0; i < encontradas.size(); i++) {
+            var tarefa = encontradas.get(i);
+            var leitor = new Leitor(valores.get(i));
+            var instante = 0L;
+            while (leitor.posicao < valores.get(i).length) {
+                var valor = leitor.ler();
+                instante += valor >>> BITS_ESTADO;
+                acrescentar(tarefa, ESTADOS[(int) (valor & ((1 << BITS_ESTADO) - 1)) - 1], instante);
+            }
+        }
+    }
+
+    /**
+     * Lê e valida o ficheiro do histórico, recolhendo as tarefas do gestor
+     * com o mesmo título e os respetivos registos.
+     */
+    private static void ler(Path caminho, Map<String, Tarefa> tarefas, List<Tarefa> encontradas,
+            List<byte[]> valoresEncontrados) throws IOException {
+        try (var entrada = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(caminho), TAMANHO_BUFFER))) {
+            if (entrada.readInt() != MAGIA) {
+                throw new IOException("O ficheiro '" + caminho + "' não é um histórico de estados.");
+            }
+
+            var contagem = entrada.readInt();
+            var desatualizados = 0;
+            for (int i = 0; i < contagem; i++) {
+                var titulo = new String(lerBytes(entrada, caminho), StandardCharsets.UTF_8);
+                var valores = lerBytes(entrada, caminho);
+                var tarefa = tarefas.get(GestorDeTarefas.normalizarTitulo(titulo));
+                if (valores.length == 0) {
+                    throw new IOException("O histórico '" + caminho + "' está corrompido.");
+                }
+
+                var ultimo = ultimoEstado(valores, caminho);
+                if (tarefa == null) {
+                    continue;
+                }
+                if (ultimo != tarefa.getEstado()) {
+                    desatualizados++;
+                    continue;
+                }
+
+                encontradas.add(tarefa);
+                valoresEncontrados.add(valores);
+            }
+
+            if (desatualizados > 0) {
+                REGISTO.log(System.Logger.Level.WARNING, "O histórico de estados '" + caminho + "' está desatualizado: "
+                        + "foi ignorado para " + desatualizados + " tarefa(s) com outro estado.");
+            }
+        } catch (EOFException e) {
+            throw new IOException("O histórico '" + caminho + "' está incompleto.", e);
+        }
+    }
+
+    /**
+     * Valida os registos gravados de uma tarefa e devolve o estado do último.
+     *
+     * @throws IOException se os registos estiverem corrompidos
+     */
+    private static Estado ultimoEstado(byte[] valores, Path caminho) throws IOException {
+        var leitor = new Leitor(valores);
+        var ordinal = -1;
+        while (leitor.posicao < valores.length) {
+            long valor;
+            try {
+                valor = leitor.ler();
+            } catch (ArrayIndexOutOfBoundsException e) {
+                throw new IOException("O histórico '" + caminho + "' está corrompido.", e);
+            }
+
+            ordinal = (int) (valor & ((1 << BITS_ESTADO) - 1)) - 1;
+            if (ordinal < 0 || ordinal >= ESTADOS.length || valor < 0) {
+                throw new IOException("O histórico '" + caminho + "' está corrompido.");
+            }
+        }
+        return ESTADOS[ordinal];
+    }
+
+    private static byte[] lerBytes(DataInputStream entrada, Path caminho) throws IOException {
+        var comprimento = entrada.readInt();
+        if (comprimento < 0) {
+            throw new IOException("O histórico '" + caminho + "' está corrompido.");
+        }
+
+        var bytes = entrada.readNBytes(comprimento);
+        if (bytes.length < comprimento) {
+            throw new EOFException();
+        }
+        return bytes;
+    }
+
+    /** Acrescenta um registo da entrada da tarefa no estado indicado, no instante indicado. */
+    private void acrescentar(Tarefa tarefa, Estado estado, long instante) {
+        garantirEspaco();
+        var ultimo = tarefa.getUltimoRegisto();
+        var anterior = ultimo != 0 ? tarefa.getInstanteDoUltimoRegisto() : 0;
+
+        // Um relógio que recue não produz intervalos negativos
+        var intervalo = Math.max(0, instante - anterior);
+        var posicao = tamanho;
+        tamanho = escrever(registos, tamanho, intervalo << BITS_ESTADO | (estado.ordinal() + 1));
+        tamanho = escrever(registos, tamanho, ultimo != 0 ? posicao - (ultimo - 1) : 0);
+        tarefa.setUltimoRegisto(posicao + 1, anterior + intervalo);
+    }
+
+    /**
+     * Garante espaço para mais um registo, duplicando o array ou, se este já
+     * tiver a dimensão máxima, descartando os registos das tarefas removidas.
+     *
+     * @throws IllegalStateException se os registos das tarefas atuais ocuparem o array máximo
+     */
+    private void garantirEspaco() {
+        if (tamanho <= registos.length - TAMANHO_MAXIMO_REGISTO) {
+            return;
+        }
+        if (registos.length < CAPACIDADE_MAXIMA) {
+            registos = Arrays.copyOf(registos, capacidadePara(2L * registos.length));
+            return;
+        }
+
+        compactar();
+        if (tamanho > registos.length - TAMANHO_MAXIMO_REGISTO) {
+            throw new IllegalStateException(
+                    "O histórico de estados atingiu a dimensão máxima de " + CAPACIDADE_MAXIMA + " bytes.");
+        }
+    }
+
+    /** Dimensão do array para o número de bytes pretendido, limitada à dimensão máxima. */
+    static int capacidadePara(long bytes) {
+        return (int) Math.min(CAPACIDADE_MAXIMA, Math.max(CAPACIDADE_INICIAL, bytes));
+    }
+
+    /** Copia os registos das tarefas atuais para um array novo, descartando os das removidas. */
+    private void compactar() {
+        var antigos = registos;
+        registos = new byte[capacidadePara(2 * (tamanho - descartados))];
+        tamanho = 0;
+        descartados = 0;
+        geracao++;
+
+        var leitor = new Leitor(antigos);
+        for (var tarefa : tarefas.get()) {
+            var ultimo = 0;
+            for (var posicao : cadeia(antigos, tarefa.getUltimoRegisto())) {
+                leitor.posicao = posicao;
+                var valor = leitor.ler();
+
+                var nova = tamanho;
+                tamanho = escrever(registos, tamanho, valor);
+                tamanho = escrever(registos, tamanho, ultimo != 0 ? nova - (ultimo - 1) : 0);
+                ultimo = nova + 1;
+            }
+            tarefa.setUltimoRegisto(ultimo, tarefa.getInstanteDoUltimoRegisto());
+        }
+    }
+
+    /**
+     * Posições dos registos de uma tarefa, do mais antigo para o mais recente.
+     *
+     * @param ultimo posição do último registo da tarefa mais 1 (0 se não tiver histórico)
+     */
+    private static int[] cadeia(byte[] registos, int ultimo) {
+        var posicoes = new int[8];
+        var n = 0;
+        var leitor = new Leitor(registos);
+
+        var posicao = ultimo - 1;
+        while (posicao >= 0) {
+            if (n == posicoes.length) {
+                posicoes = Arrays.copyOf(posicoes, 2 * n);
+            }
+            posicoes[n++] = posicao;
+
+            leitor.posicao = posicao;
+            leitor.ler();
+            var recuo = (int) leitor.ler();
+            posicao = recuo != 0 ? posicao - recuo : -1;
+        }
+
+        // Os registos foram encontrados do mais recente para o mais antigo
+        for (int i = 0, j = n - 1; i < j; i++, j--) {
+            var p = posicoes[i];
+            posicoes[i] = posicoes[j];
+            posicoes[j] = p;
+        }
+        return Arrays.copyOf(posicoes, n);
+    }
+
+    /** Escreve um inteiro de comprimento variável e devolve a posição seguinte. */
+    private static int escrever(byte[] destino, int posicao, long valor) {
+        while ((valor & ~0x7FL) != 0) {
+            destino[posicao++] = (byte) (valor | 0x80);
+            valor >>>= 7;
+        }
+        destino[posicao++] = (byte) valor;
+        return posicao;
+    }
+
+    /** Leitura de inteiros de comprimento variável a partir de uma posição. */
+    private static final class Leitor {
+        private final byte[] dados;
+        int posicao;
+
+        Leitor(byte[] dados) {
+            this.dados = dados;
+        }
+
+        long ler() {
+            var valor = 0L;
+            var deslocamento = 0;
+            byte b;
+            do {
+                b = dados[posicao++];
+                valor |= (long) (b & 0x7F) << deslocamento;
+                deslocamento += 7;
+            } while (b < 0);
+            return valor;
+        }
+    }
+}
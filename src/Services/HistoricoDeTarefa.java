@@ -0,0 +1,100 @@
+package Services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import Entities.Estado;
+
+/**
+ * Histórico dos estados de uma tarefa, tal como registado pelo gestor (ver
+ * {@link GestorDeTarefas#historicoDe(String)}).
+ *
+ * <p>O primeiro registo corresponde à entrada da tarefa no gestor, com o
+ * estado inicial; os seguintes, a cada mudança de estado. O tempo no estado
+ * atual é contado até ao instante em que o histórico foi obtido. Uma tarefa
+ * carregada de um armazém sem histórico só tem as mudanças posteriores ao
+ * carregamento.</p>
+ */
+public final class HistoricoDeTarefa {
+
+    /**
+     * Entrada da tarefa num estado.
+     *
+     * @param estado estado em que a tarefa entrou
+     * @param instante instante da entrada (com precisão de milissegundos)
+     */
+    public record Transicao(Estado estado, Instant instante) {
+    }
+
+    private final Estado[] estados;
+    private final long[] instantes;
+    private final long obtidoEm;
+
+    HistoricoDeTarefa(Estado[] estados, long[] instantes, long obtidoEm) {
+        this.estados = estados;
+        this.instantes = instantes;
+        this.obtidoEm = obtidoEm;
+    }
+
+    /** Registos da tarefa, do mais antigo para o mais recente. */
+    public List<Transicao> getTransicoes() {
+        List<Transicao> transicoes = new ArrayList<>(estados.length);
+        for (int i = 0; i < estados.length; i++) {
+            transicoes.add(new Transicao(estados[i], Instant.ofEpochMilli(instantes[i])));
+        }
+        return transicoes;
+    }
+
+    /**
+     * Tempo total que a tarefa passou no estado indicado, somando todas as
+     * passagens por ele.
+     *
+     * @param estado estado pretendido
+     * @return tempo no estado (zero se a tarefa nunca lá esteve)
+     */
+    public Duration tempoNoEstado(Estado estado) {
+        if (estado == null) {
+            throw new IllegalArgumentException("O estado não pode ser nulo.");
+        }
+        return Duration.ofMillis(milissegundosNoEstado(estado));
+    }
+
+    /**
+     * Tempo de entrega (lead time): do primeiro registo até à última entrada
+     * em {@link Estado#CONCLUIDA}.
+     *
+     * @return tempo de entrega, ou vazio se a tarefa não estiver concluída
+     */
+    public Optional<Duration> getTempoDeEntrega() {
+        var milissegundos = milissegundosDeEntrega();
+        return milissegundos >= 0 ? Optional.of(Duration.ofMillis(milissegundos)) : Optional.empty();
+    }
+
+    long milissegundosNoEstado(Estado estado) {
+        var total = 0L;
+        for (int i = 0; i < estados.length; i++) {
+            if (estados[i] == estado) {
+                var fim = i + 1 < estados.length ? instantes[i + 1] : Math.max(obtidoEm, instantes[i]);
+                total += fim - instantes[i];
+            }
+        }
+        return total;
+    }
+
+    /** Tempo de entrega em milissegundos, ou -1 se a tarefa não estiver concluída. */
+    long milissegundosDeEntrega() {
+        var ultimo = estados.length - 1;
+        if (ultimo < 0 || estados[ultimo] != Estado.CONCLUIDA) {
+            return -1;
+        }
+        return instantes[ultimo] - instantes[0];
+    }
+
+    @Override
+    public String toString() {
+        return getTransicoes().toString();
+    }
+}
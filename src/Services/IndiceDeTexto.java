@@ -0,0 +1,412 @@
+package Services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Índice invertido sobre o título e a descrição das tarefas de um
+ * {@link GestorDeTarefas}.
+ *
+ * <p>Cada tarefa recebe um identificador sequencial e cada termo guarda a
+ * lista ordenada das tarefas onde ocorre, com um peso que soma as
+ * ocorrências no título ({@value #PESO_TITULO}) e na descrição
+ * ({@value #PESO_DESCRICAO}). Os termos são normalizados em minúsculas e sem
+ * acentos (decomposição NFD). Além do mapa de termos, o vocabulário é
+ * mantido ordenado para as pesquisas por prefixo.</p>
+ *
+ * <p>O índice acompanha as alterações do gestor como
+ * {@link ObservadorDeAlteracoes}. As remoções apenas libertam o
+ * identificador; quando estes passam a ser a maioria, o índice é compactado.
+ * Os filtros por estado e prioridade são aplicados sobre as tarefas no
+ * momento da pesquisa, pelo que as mudanças de estado não alteram o
+ * índice.</p>
+ *
+ * <p>A relevância de uma tarefa é a soma, para cada termo, do peso das
+ * ocorrências multiplicado pela raridade do termo (idf); em caso de empate,
+ * prevalece a tarefa indexada primeiro.</p>
+ */
+final class IndiceDeTexto implements ObservadorDeAlteracoes {
+
+    static final int PESO_TITULO = 3;
+    static final int PESO_DESCRICAO = 1;
+
+    private static final char SEPARADOR = '\0';
+    private static final char MARCA = '\uFFFF';
+
+    /**
+     * Forma normalizada de cada carácter até U+024F (latim, incluindo as
+     * letras acentuadas do português), calculada uma única vez com a
+     * decomposição NFD, ou {@link #SEPARADOR} se não for letra nem algarismo.
+     */
+    private static final char[] DOBRAGEM = new char[0x250];
+
+    static {
+        for (char c = 0; c < DOBRAGEM.length; c++) {
+            if (Character.isLetterOrDigit(c)) {
+                var base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+                DOBRAGEM[c] = Character.toLowerCase(Character.isLetterOrDigit(base) ? base : c);
+            } else {
+                DOBRAGEM[c] = SEPARADOR;
+            }
+        }
+    }
+
+    /** Número mínimo de identificadores libertados antes de compactar o índice. */
+    private static final int REMOVIDOS_PARA_COMPACTAR = 1024;
+
+    /** Tarefas onde um termo ocorre, por ordem crescente de identificador. */
+    private static final class Ocorrencias {
+        int[] documentos = new int[2];
+        short[] pesos = new short[2];
+        int tamanho;
+
+        void acrescentar(int documento, int peso) {
+            if (tamanho > 0 && documentos[tamanho - 1] == documento) {
+                pesos[tamanho - 1] = (short) Math.min(Short.MAX_VALUE, pesos[tamanho - 1] + peso);
+                return;
+            }
+            if (tamanho == documentos.length) {
+                documentos = Arrays.copyOf(documentos, tamanho * 2);
+                pesos = Arrays.copyOf(pesos, tamanho * 2);
+            }
+            documentos[tamanho] = documento;
+            pesos[tamanho] = (short) peso;
+            tamanho++;
+        }
+    }
+
+    /** Tarefas candidatas com a respetiva pontuação, por ordem crescente de identificador. */
+    private static final class Candidatos {
+        static final Candidatos VAZIO = new Candidatos(new int[0], new float[0], 0);
+
+        final int[] documentos;
+        final float[] pontuacoes;
+        final int tamanho;
+
+        Candidatos(int[] documentos, float[] pontuacoes, int tamanho) {
+            this.documentos = documentos;
+            this.pontuacoes = pontuacoes;
+            this.tamanho = tamanho;
+        }
+    }
+
+    private final Map<String, Ocorrencias> termos = new HashMap<>();
+    private final NavigableSet<String> vocabulario = new TreeSet<>();
+
+    /** Tarefas por identificador ({@code null} nas posições libertadas). */
+    private Tarefa[] documentos;
+    private int proximo;
+    private final Map<Tarefa, Integer> identificadores = new HashMap<>();
+
+    /** Indica que o índice tem de ser reconstruído a partir do gestor. */
+    private boolean invalido = true;
+
+    IndiceDeTexto() {
+        limpar();
+    }
+
+    /**
+     * Executa uma pesquisa.
+     *
+     * @param pesquisa consulta a executar
+     * @param tarefas todas as tarefas do gestor, usadas se o índice tiver de ser reconstruído
+     * @return página de resultados
+     */
+    ResultadoPesquisa pesquisar(Pesquisa pesquisa, Collection<Tarefa> tarefas) {
+        if (invalido) {
+            limpar();
+            for (var tarefa : tarefas) {
+                indexar(tarefa);
+            }
+            invalido = false;
+        }
+
+        List<Candidatos> listas = new ArrayList<>();
+        for (var palavra : pesquisa.getTexto().trim().split("\\s+")) {
+            var prefixo = palavra.endsWith("*");
+            List<String> partes = new ArrayList<>();
+            tokenizar(palavra, partes::add);
+
+            for (int i = 0; i < partes.size(); i++) {
+                var termo = partes.get(i);
+                listas.add(prefixo && i == partes.size() - 1 ? porPrefixo(termo) : exato(termo));
+            }
+        }
+
+        if (listas.isEmpty()) {
+            return new ResultadoPesquisa(List.of(), 0, pesquisa.getPagina());
+        }
+
+        Candidatos resultado;
+        if (pesquisa.isTodosOsTermos()) {
+            // Começa pela lista mais curta, para que as interseções sejam baratas
+            listas.sort(Comparator.comparingInt(c -> c.tamanho));
+            resultado = listas.get(0);
+            for (int i = 1; i < listas.size() && resultado.tamanho > 0; i++) {
+                resultado = intersetar(resultado, listas.get(i));
+            }
+        } else {
+            resultado = unir(listas);
+        }
+
+        return paginar(resultado, pesquisa);
+    }
+
+    @Override
+    public void tarefaAdicionada(Tarefa tarefa) {
+        if (!invalido) {
+            indexar(tarefa);
+        }
+    }
+
+    @Override
+    public void tarefaRemovida(Tarefa tarefa) {
+        if (!invalido) {
+            remover(tarefa);
+        }
+    }
+
+    @Override
+    public void tarefasSubstituidas() {
+        invalido = true;
+        limpar();
+    }
+
+    /**
+     * Divide um texto em termos normalizados (minúsculas, sem acentos),
+     * separados por qualquer carácter que não seja letra nem algarismo.
+     */
+    static void tokenizar(String texto, Consumer<String> destino) {
+        if (texto == null) {
+            return;
+        }
+
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) >= DOBRAGEM.length) {
+                // Fora da tabela (incluindo marcas de acento já separadas)
+                texto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+                break;
+            }
+        }
+
+        var termo = new char[Math.min(texto.length(), 64)];
+        var tamanho = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            var c = texto.charAt(i);
+            var dobrado = c < DOBRAGEM.length ? DOBRAGEM[c]
+                : Character.isLetterOrDigit(c) ? Character.toLowerCase(c)
+                : Character.getType(c) == Character.NON_SPACING_MARK ? MARCA : SEPARADOR;
+
+            if (dobrado == MARCA) {
+                continue;
+            }
+            if (dobrado != SEPARADOR) {
+                if (tamanho == termo.length) {
+                    termo = Arrays.copyOf(termo, tamanho * 2);
+                }
+                termo[tamanho++] = dobrado;
+            } else if (tamanho > 0) {
+                destino.accept(new String(termo, 0, tamanho));
+                tamanho = 0;
+            }
+        }
+        if (tamanho > 0) {
+            destino.accept(new String(termo, 0, tamanho));
+        }
+    }
+
+    private void indexar(Tarefa tarefa) {
+        if (proximo == documentos.length) {
+            documentos = Arrays.copyOf(documentos, proximo * 2);
+        }
+
+        var id = proximo++;
+        documentos[id] = tarefa;
+        identificadores.put(tarefa, id);
+
+        tokenizar(tarefa.getTitulo(), termo -> ocorrencias(termo).acrescentar(id, PESO_TITULO));
+        tokenizar(tarefa.getDescricao(), termo -> ocorrencias(termo).acrescentar(id, PESO_DESCRICAO));
+    }
+
+    private void remover(Tarefa tarefa) {
+        var id = identificadores.remove(tarefa);
+        if (id == null) {
+            return;
+        }
+        documentos[id] = null;
+
+        var removidos = proximo - identificadores.size();
+        if (removidos >= REMOVIDOS_PARA_COMPACTAR && removidos > identificadores.size()) {
+            compactar();
+        }
+    }
+
+    /** Reconstrói o índice apenas com as tarefas presentes, mantendo a ordem. */
+    private void compactar() {
+        var presentes = new ArrayList<Tarefa>(identificadores.size());
+        for (int i = 0; i < proximo; i++) {
+            if (documentos[i] != null) {
+                presentes.add(documentos[i]);
+            }
+        }
+
+        limpar();
+        for (var tarefa : presentes) {
+            indexar(tarefa);
+        }
+    }
+
+    private void limpar() {
+        termos.clear();
+        vocabulario.clear();
+        identificadores.clear();
+        documentos = new Tarefa[16];
+        proximo = 0;
+    }
+
+    private Ocorrencias ocorrencias(String termo) {
+        var ocorrencias = termos.get(termo);
+        if (ocorrencias == null) {
+            ocorrencias = new Ocorrencias();
+            termos.put(termo, ocorrencias);
+            vocabulario.add(termo);
+        }
+        return ocorrencias;
+    }
+
+    private Candidatos exato(String termo) {
+        var ocorrencias = termos.get(termo);
+        if (ocorrencias == null) {
+            return Candidatos.VAZIO;
+        }
+
+        var idf = (float) Math.log(1.0 + (double) Math.max(1, identificadores.size()) / ocorrencias.tamanho);
+        var pontuacoes = new float[ocorrencias.tamanho];
+        for (int i = 0; i < ocorrencias.tamanho; i++) {
+            pontuacoes[i] = ocorrencias.pesos[i] * idf;
+        }
+        return new Candidatos(Arrays.copyOf(ocorrencias.documentos, ocorrencias.tamanho), pontuacoes, ocorrencias.tamanho);
+    }
+
+    private Candidatos porPrefixo(String prefixo) {
+        List<Candidatos> listas = new ArrayList<>();
+        for (var termo : vocabulario.subSet(prefixo, true, prefixo + Character.MAX_VALUE, false)) {
+            listas.add(exato(termo));
+        }
+        return unir(listas);
+    }
+
+    /** Interseção de duas listas, somando as pontuações (a primeira deve ser a mais curta). */
+    private static Candidatos intersetar(Candidatos curta, Candidatos longa) {
+        var documentos = new int[curta.tamanho];
+        var pontuacoes = new float[curta.tamanho];
+        var tamanho = 0;
+        var inicio = 0;
+
+        for (int i = 0; i < curta.tamanho && inicio < longa.tamanho; i++) {
+            var posicao = Arrays.binarySearch(longa.documentos, inicio, longa.tamanho, curta.documentos[i]);
+            if (posicao >= 0) {
+                documentos[tamanho] = curta.documentos[i];
+                pontuacoes[tamanho] = curta.pontuacoes[i] + longa.pontuacoes[posicao];
+                tamanho++;
+                inicio = posicao + 1;
+            } else {
+                inicio = -posicao - 1;
+            }
+        }
+        return new Candidatos(documentos, pontuacoes, tamanho);
+    }
+
+    /** União de várias listas, somando as pontuações das tarefas repetidas. */
+    private static Candidatos unir(List<Candidatos> listas) {
+        if (listas.isEmpty()) {
+            return Candidatos.VAZIO;
+        }
+        if (listas.size() == 1) {
+            return listas.get(0);
+        }
+
+        var total = 0;
+        for (var lista : listas) {
+            total += lista.tamanho;
+        }
+
+        // Identificador nos 32 bits superiores, pontuação nos inferiores
+        var pares = new long[total];
+        var n = 0;
+        for (var lista : listas) {
+            for (int i = 0; i < lista.tamanho; i++) {
+                pares[n++] = ((long) lista.documentos[i] << 32)
+                        | (Float.floatToRawIntBits(lista.pontuacoes[i]) & 0xFFFFFFFFL);
+            }
+        }
+        Arrays.sort(pares);
+
+        var documentos = new int[total];
+        var pontuacoes = new float[total];
+        var tamanho = 0;
+        for (var par : pares) {
+            var documento = (int) (par >>> 32);
+            var pontuacao = Float.intBitsToFloat((int) par);
+            if (tamanho > 0 && documentos[tamanho - 1] == documento) {
+                pontuacoes[tamanho - 1] += pontuacao;
+            } else {
+                documentos[tamanho] = documento;
+                pontuacoes[tamanho] = pontuacao;
+                tamanho++;
+            }
+        }
+        return new Candidatos(documentos, pontuacoes, tamanho);
+    }
+
+    /** Aplica os filtros e seleciona a página pedida, pela ordem de relevância. */
+    private ResultadoPesquisa paginar(Candidatos candidatos, Pesquisa pesquisa) {
+        var inicio = (long) pesquisa.getPagina() * pesquisa.getTamanhoPagina();
+        var limite = (int) Math.min(Integer.MAX_VALUE, inicio + pesquisa.getTamanhoPagina());
+
+        // Mantém apenas os melhores 'limite' candidatos; o pior fica no topo
+        Comparator<Integer> relevancia = (a, b) -> {
+            var comparacao = Float.compare(candidatos.pontuacoes[a], candidatos.pontuacoes[b]);
+            return comparacao != 0 ? comparacao : Integer.compare(b, a);
+        };
+        var melhores = new PriorityQueue<Integer>(relevancia);
+        var total = 0;
+
+        for (int i = 0; i < candidatos.tamanho; i++) {
+            var tarefa = documentos[candidatos.documentos[i]];
+            if (tarefa == null
+                    || (pesquisa.getEstado() != null && tarefa.getEstado() != pesquisa.getEstado())
+                    || (pesquisa.getPrioridade() != null && tarefa.getPrioridade() != pesquisa.getPrioridade())) {
+                continue;
+            }
+
+            total++;
+            if (melhores.size() < limite) {
+                melhores.add(i);
+            } else if (relevancia.compare(i, melhores.peek()) > 0) {
+                melhores.poll();
+                melhores.add(i);
+            }
+        }
+
+        var ordenados = new Tarefa[melhores.size()];
+        for (int i = ordenados.length - 1; i >= 0; i--) {
+            ordenados[i] = documentos[candidatos.documentos[melhores.poll()]];
+        }
+
+        var pagina = inicio >= ordenados.length
+            ? List.<Tarefa>of()
+            : Arrays.asList(ordenados).subList((int) inicio, ordenados.length);
+        return new ResultadoPesquisa(pagina, total, pesquisa.getPagina());
+    }
+}
@@ -0,0 +1,280 @@
+package Services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import Entities.Estado;
+
+/**
+ * Índice das tarefas de um {@link GestorDeTarefas} pela data de criação,
+ * particionado por estado.
+ *
+ * <p>Cada estado tem um {@link TreeMap} da data de criação para a tarefa
+ * criada nesse instante (ou, no caso raro de várias, para o conjunto destas,
+ * pela ordem de inserção). Uma consulta num intervalo localiza o início em
+ * O(log N) e percorre apenas o resultado, devolvido como um {@link Stream}
+ * preguiçoso sobre o próprio índice. As consultas sobre todos os estados
+ * intercalam as três partições pela data.</p>
+ *
+ * <p>O índice acompanha as alterações do gestor como
+ * {@link ObservadorDeAlteracoes}. As tarefas sem data de criação não são
+ * indexadas.</p>
+ */
+final class IndiceTemporal implements ObservadorDeAlteracoes {
+
+    private final Map<Estado, TreeMap<LocalDateTime, Object>> porEstado = new EnumMap<>(Estado.class);
+
+    /** Indica que o índice tem de ser reconstruído a partir do gestor. */
+    private boolean invalido = true;
+
+    IndiceTemporal() {
+        for (var estado : Estado.values()) {
+            porEstado.put(estado, new TreeMap<>());
+        }
+    }
+
+    /**
+     * Devolve as tarefas criadas no intervalo indicado, da mais antiga para
+     * a mais recente.
+     *
+     * @param tarefas todas as tarefas do gestor, usadas se o índice tiver de ser reconstruído
+     * @param estado estado das tarefas, ou {@code null} para todos
+     * @param desde início do intervalo (inclusive), ou {@code null} para não limitar
+     * @param ate fim do intervalo (exclusive), ou {@code null} para não limitar
+     * @return tarefas do intervalo, lidas diretamente do índice
+     */
+    Stream<Tarefa> intervalo(Collection<Tarefa> tarefas, Estado estado, LocalDateTime desde, LocalDateTime ate) {
+        if (desde != null && ate != null && desde.isAfter(ate)) {
+            throw new IllegalArgumentException("O início do intervalo não pode ser posterior ao fim.");
+        }
+
+        reconstruirSeNecessario(tarefas);
+
+        if (estado != null) {
+            return recorte(porEstado.get(estado), desde, ate).values().stream()
+                    .flatMap(IndiceTemporal::tarefas);
+        }
+        return intercalar(desde, ate).map(Map.Entry::getValue).flatMap(IndiceTemporal::tarefas);
+    }
+
+    /**
+     * Devolve as tarefas de todos os estados posteriores à chave indicada,
+     * pela ordem da data de criação e, em caso de empate, do título
+     * normalizado (a ordem da paginação por cursor).
+     *
+     * @param tarefas todas as tarefas do gestor, usadas se o índice tiver de ser reconstruído
+     * @param depoisDe última chave já devolvida, ou {@code null} para começar do início
+     * @return tarefas posteriores à chave, lidas diretamente do índice
+     */
+    Stream<Tarefa> posteriores(Collection<Tarefa> tarefas, ChaveTemporal depoisDe) {
+        reconstruirSeNecessario(tarefas);
+
+        // Agrupa as entradas com a mesma data (de estados diferentes) e ordena cada grupo pelo título
+        List<Tarefa> grupo = new ArrayList<>();
+        var entradas = intercalar(depoisDe != null ? depoisDe.data() : null, null).iterator();
+        Iterator<Tarefa> ordenadas = new Iterator<>() {
+            private Map.Entry<LocalDateTime, Object> seguinte = entradas.hasNext() ? entradas.next() : null;
+            private Iterator<Tarefa> atual = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!atual.hasNext() && seguinte != null) {
+                    var data = seguinte.getKey();
+                    grupo.clear();
+                    while (seguinte != null && seguinte.getKey().equals(data)) {
+                        tarefas(seguinte.getValue()).forEach(grupo::add);
+                        seguinte = entradas.hasNext() ? entradas.next() : null;
+                    }
+                    if (grupo.size() > 1) {
+                        grupo.sort(Comparator.comparing(ChaveTemporal::de));
+                    }
+                    if (depoisDe != null && data.equals(depoisDe.data())) {
+                        grupo.removeIf(t -> ChaveTemporal.de(t).compareTo(depoisDe) <= 0);
+                    }
+                    atual = List.copyOf(grupo).iterator();
+                }
+                return atual.hasNext();
+            }
+
+            @Override
+            public Tarefa next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return atual.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                ordenadas, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public void tarefaAdicionada(Tarefa tarefa) {
+        if (!invalido) {
+            acrescentar(tarefa, tarefa.getEstado());
+        }
+    }
+
+    @Override
+    public void tarefaRemovida(Tarefa tarefa) {
+        if (!invalido) {
+            retirar(tarefa, tarefa.getEstado());
+        }
+    }
+
+    @Override
+    public void estadoAlterado(Tarefa tarefa, Estado anterior, Estado novo) {
+        if (!invalido) {
+            retirar(tarefa, anterior);
+            acrescentar(tarefa, novo);
+        }
+    }
+
+    @Override
+    public void tarefasSubstituidas() {
+        invalido = true;
+        for (var datas : porEstado.values()) {
+            datas.clear();
+        }
+    }
+
+    private void reconstruirSeNecessario(Collection<Tarefa> tarefas) {
+        if (invalido) {
+            for (var tarefa : tarefas) {
+                acrescentar(tarefa, tarefa.getEstado());
+            }
+            invalido = false;
+        }
+    }
+
+    /** Entradas de todos os estados no intervalo indicado, intercaladas pela data. */
+    private Stream<Map.Entry<LocalDateTime, Object>> intercalar(LocalDateTime desde, LocalDateTime ate) {
+        var recortes = Stream.of(Estado.values())
+                .map(e -> recorte(porEstado.get(e), desde, ate))
+                .toList();
+        var intercaladas = Spliterators.spliteratorUnknownSize(
+                new Intercalacao(recortes), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(intercaladas, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void acrescentar(Tarefa tarefa, Estado estado) {
+        var data = tarefa.getDataCriacao();
+        if (data == null) {
+            return;
+        }
+
+        var datas = porEstado.get(estado);
+        var existente = datas.putIfAbsent(data, tarefa);
+        if (existente == null) {
+            return;
+        }
+
+        // Várias tarefas criadas no mesmo instante partilham um conjunto
+        if (existente instanceof Tarefa outra) {
+            Set<Tarefa> conjunto = new LinkedHashSet<>(4);
+            conjunto.add(outra);
+            conjunto.add(tarefa);
+            datas.put(data, conjunto);
+        } else {
+            ((Set<Tarefa>) existente).add(tarefa);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void retirar(Tarefa tarefa, Estado estado) {
+        var data = tarefa.getDataCriacao();
+        if (data == null) {
+            return;
+        }
+
+        var datas = porEstado.get(estado);
+        var existente = datas.get(data);
+        if (existente == tarefa) {
+            datas.remove(data);
+        } else if (existente instanceof Set<?> conjunto) {
+            conjunto.remove(tarefa);
+            if (conjunto.size() == 1) {
+                datas.put(data, ((Set<Tarefa>) conjunto).iterator().next());
+            }
+        }
+    }
+
+    private static NavigableMap<LocalDateTime, Object> recorte(
+            NavigableMap<LocalDateTime, Object> datas, LocalDateTime desde, LocalDateTime ate) {
+
+        if (desde == null && ate == null) {
+            return datas;
+        }
+        if (desde == null) {
+            return datas.headMap(ate, false);
+        }
+        if (ate == null) {
+            return datas.tailMap(desde, true);
+        }
+        return datas.subMap(desde, true, ate, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Stream<Tarefa> tarefas(Object valor) {
+        return valor instanceof Tarefa tarefa ? Stream.of(tarefa) : ((Set<Tarefa>) valor).stream();
+    }
+
+    /** Percorre várias partições em simultâneo, pela ordem das datas (e das partições, em caso de empate). */
+    private static final class Intercalacao implements Iterator<Map.Entry<LocalDateTime, Object>> {
+
+        private record Cursor(int particao, Iterator<Map.Entry<LocalDateTime, Object>> entradas,
+                Map.Entry<LocalDateTime, Object> atual) {
+        }
+
+        private final PriorityQueue<Cursor> cursores = new PriorityQueue<>((a, b) -> {
+            var comparacao = a.atual().getKey().compareTo(b.atual().getKey());
+            return comparacao != 0 ? comparacao : Integer.compare(a.particao(), b.particao());
+        });
+
+        Intercalacao(Iterable<? extends Map<LocalDateTime, Object>> particoes) {
+            var i = 0;
+            for (var particao : particoes) {
+                avancar(i++, particao.entrySet().iterator());
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !cursores.isEmpty();
+        }
+
+        @Override
+        public Map.Entry<LocalDateTime, Object> next() {
+            var cursor = cursores.poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+            avancar(cursor.particao(), cursor.entradas());
+            return cursor.atual();
+        }
+
+        private void avancar(int particao, Iterator<Map.Entry<LocalDateTime, Object>> entradas) {
+            if (entradas.hasNext()) {
+                cursores.add(new Cursor(particao, entradas, entradas.next()));
+            }
+        }
+    }
+}
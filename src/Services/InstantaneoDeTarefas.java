@@ -0,0 +1,302 @@
+package Services;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.xml.stream.XMLStreamException;
+
+import Entities.Estado;
+import Entities.Prioridade;
+import Interfaces.IGestorDeTarefas;
+
+/**
+ * Vista imutável das tarefas de um gestor num dado instante (ver
+ * {@link GestorDeTarefas#obterInstantaneo()} e
+ * {@link GestorDeTarefasConcorrente#obterInstantaneo()}).
+ *
+ * <p>Depois de obtido, o instantâneo pode ser percorrido em qualquer
+ * thread, sem sincronização e sem bloquear o gestor: as alterações
+ * posteriores não o afetam, nem mesmo as mudanças de estado. As tarefas são
+ * apresentadas pela ordem de inserção num {@link GestorDeTarefas} e pela de
+ * {@link IGestorDeTarefas#listarTarefas()} nos restantes gestores.</p>
+ *
+ * <p>Não é preciso fechar o instantâneo; a memória que só ele usa é
+ * libertada quando deixar de ser referenciado (ver {@link VersoesDeTarefas}).</p>
+ */
+public final class InstantaneoDeTarefas {
+
+    private static final int TAMANHO_BUFFER = 1 << 16;
+
+    private final VersoesDeTarefas.No raiz;
+    private final int deslocamento;
+    private final int[] contagens;
+    private final int total;
+    private final long versao;
+
+    InstantaneoDeTarefas(VersoesDeTarefas.No raiz, int deslocamento, int[] contagens, long versao) {
+        this.raiz = raiz;
+        this.deslocamento = deslocamento;
+        this.contagens = contagens;
+        this.versao = versao;
+
+        var total = 0;
+        for (var contagem : contagens) {
+            total += contagem;
+        }
+        this.total = total;
+    }
+
+    /**
+     * Obtém o instantâneo de um gestor qualquer: o do próprio gestor, se
+     * este os disponibilizar (mesmo decorado por um
+     * {@link GestorDeTarefasInstrumentado}), ou, nos restantes, uma cópia
+     * das tarefas e dos estados atuais, que não é segura face a alterações
+     * concorrentes.
+     *
+     * @param gestor gestor cujas tarefas são copiadas
+     * @return instantâneo das tarefas atuais
+     */
+    static InstantaneoDeTarefas de(IGestorDeTarefas gestor) {
+        while (gestor instanceof GestorDeTarefasInstrumentado instrumentado) {
+            gestor = instrumentado.getGestor();
+        }
+
+        if (gestor instanceof GestorDeTarefasConcorrente concorrente) {
+            return concorrente.obterInstantaneo();
+        }
+        if (gestor instanceof GestorDeTarefas simples) {
+            return simples.obterInstantaneo();
+        }
+
+        List<VersoesDeTarefas.Entrada> entradas = new ArrayList<>(gestor.contarTarefas());
+        gestor.percorrerTarefas().forEachOrdered(t -> entradas.add(new VersoesDeTarefas.Entrada(t, t.getEstado())));
+        return VersoesDeTarefas.construir(entradas, 0);
+    }
+
+    /**
+     * Número de alterações que o gestor tinha sofrido quando o instantâneo
+     * foi obtido; dois instantâneos com a mesma versão têm as mesmas tarefas.
+     */
+    public long getVersao() {
+        return versao;
+    }
+
+    public int contarTarefas() {
+        return total;
+    }
+
+    public int contarTarefas(Estado estado) {
+        return estado != null ? contagens[estado.ordinal()] : 0;
+    }
+
+    /**
+     * Percorre as tarefas do instantâneo, pela ordem de inserção.
+     *
+     * <p>Cada tarefa é uma cópia, desligada do gestor, com o estado que a
+     * tarefa original tinha no instante em que o instantâneo foi obtido.</p>
+     *
+     * @return fluxo sequencial das cópias das tarefas
+     */
+    public Stream<Tarefa> percorrerTarefas() {
+        var entradas = Spliterators.spliterator(new Percurso(), total,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        return StreamSupport.stream(entradas, false)
+                .map(e -> new Tarefa(e.tarefa().getTitulo(), e.tarefa().getDescricao(),
+                        e.tarefa().getDataCriacao(), e.tarefa().getPrioridade(), e.estado()));
+    }
+
+    /** Devolve as tarefas originais (e não cópias), pela ordem do instantâneo. */
+    List<Tarefa> listarOriginais() {
+        List<Tarefa> originais = new ArrayList<>(total);
+        for (var percurso = new Percurso(); percurso.hasNext();) {
+            originais.add(percurso.next().tarefa());
+        }
+        return originais;
+    }
+
+    /**
+     * Guarda as tarefas do instantâneo num ficheiro XML, no mesmo formato de
+     * {@link GestorDeTarefas#guardarEmXML(String)}.
+     *
+     * <p>As tarefas são escritas num ficheiro temporário, gravado em disco
+     * antes de substituir o destino através de uma mudança de nome atómica;
+     * se a escrita falhar, o ficheiro anterior fica intacto.</p>
+     *
+     * @param caminho caminho do ficheiro (por exemplo, "dados/tarefas.xml")
+     * @throws IOException se ocorrer um erro de escrita
+     */
+    public void guardarEmXML(String caminho) throws IOException {
+        var destino = Path.of(caminho).toAbsolutePath();
+        var pasta = destino.getParent();
+        if (pasta != null) {
+            Files.createDirectories(pasta);
+        }
+
+        var temporario = Files.createTempFile(pasta, destino.getFileName() + ".", ".tmp");
+        try {
+            escreverXML(Files.newOutputStream(temporario));
+
+            try (var canal = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+                canal.force(true);
+            }
+
+            try {
+                Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+
+    /**
+     * Escreve as tarefas do instantâneo em XML, no formato de
+     * {@link #guardarEmXML(String)}. A saída é fechada no fim.
+     *
+     * @param saida fluxo onde as tarefas são escritas
+     * @throws IOException se ocorrer um erro de escrita
+     */
+    void escreverXML(OutputStream saida) throws IOException {
+        try (var escritor = new EscritorXMLDeTarefas(new BufferedOutputStream(saida, TAMANHO_BUFFER))) {
+            for (var entradas = new Percurso(); entradas.hasNext(); ) {
+                var entrada = entradas.next();
+                escritor.escrever(entrada.tarefa(), entrada.estado());
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Erro ao escrever o XML das tarefas.", e);
+        }
+    }
+
+    /**
+     * Gera o relatório HTML das tarefas do instantâneo, no formato de
+     * {@link GestorDeTarefas#gerarRelatorioHTML(String)}.
+     *
+     * <p>Dentro de cada estado, as tarefas são apresentadas por prioridade e,
+     * com a mesma prioridade, pela ordem de inserção no gestor.</p>
+     *
+     * @param caminho caminho do ficheiro HTML a criar
+     * @throws IOException se ocorrer um erro de escrita
+     */
+    public void gerarRelatorioHTML(String caminho) throws IOException {
+        var ficheiro = new File(caminho);
+        if (ficheiro.getParentFile() != null) {
+            ficheiro.getParentFile().mkdirs();
+        }
+
+        try (var relatorio = new RelatorioHTML(Files.newOutputStream(ficheiro.toPath()))) {
+            escreverRelatorio(relatorio);
+        }
+    }
+
+    /**
+     * Escreve o relatório HTML das tarefas do instantâneo, no formato de
+     * {@link #gerarRelatorioHTML(String)}. A saída não é fechada.
+     *
+     * @param saida fluxo onde o relatório é escrito
+     * @throws IOException se ocorrer um erro de escrita
+     */
+    void gerarRelatorioHTML(OutputStream saida) throws IOException {
+        var relatorio = new RelatorioHTML(saida);
+        escreverRelatorio(relatorio);
+        relatorio.despejar();
+    }
+
+    private void escreverRelatorio(RelatorioHTML relatorio) throws IOException {
+        var prioridades = Prioridade.values().length;
+        List<List<Tarefa>> grupos = new ArrayList<>();
+        for (int i = 0; i < contagens.length * prioridades; i++) {
+            grupos.add(new ArrayList<>());
+        }
+        for (var entradas = new Percurso(); entradas.hasNext(); ) {
+            var entrada = entradas.next();
+            grupos.get(entrada.estado().ordinal() * prioridades + entrada.tarefa().getPrioridade().ordinal())
+                    .add(entrada.tarefa());
+        }
+
+        relatorio.cabecalho(LocalDateTime.now());
+        for (var estado : Estado.values()) {
+            relatorio.inicioSeccao(estado, contagens[estado.ordinal()] == 0);
+            for (var grupo : grupos.subList(estado.ordinal() * prioridades, (estado.ordinal() + 1) * prioridades)) {
+                for (var tarefa : grupo) {
+                    relatorio.linha(tarefa);
+                }
+            }
+        }
+        relatorio.rodape();
+    }
+
+    @Override
+    public String toString() {
+        return "Instantâneo da versão " + versao + " (" + total + " tarefas)";
+    }
+
+    /** Percurso em profundidade da árvore, pela ordem dos ramos. */
+    private final class Percurso implements Iterator<VersoesDeTarefas.Entrada> {
+
+        private final VersoesDeTarefas.No[] nos = new VersoesDeTarefas.No[deslocamento / VersoesDeTarefas.BITS + 1];
+        private final int[] posicoes = new int[nos.length];
+        private int nivel;
+        private VersoesDeTarefas.Entrada proxima;
+
+        Percurso() {
+            nos[0] = raiz;
+            nivel = raiz != null ? 0 : -1;
+            avancar();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return proxima != null;
+        }
+
+        @Override
+        public VersoesDeTarefas.Entrada next() {
+            if (proxima == null) {
+                throw new NoSuchElementException();
+            }
+            var entrada = proxima;
+            avancar();
+            return entrada;
+        }
+
+        private void avancar() {
+            while (nivel >= 0) {
+                var i = posicoes[nivel]++;
+                if (i == VersoesDeTarefas.LARGURA) {
+                    nivel--;
+                    continue;
+                }
+
+                var ramo = nos[nivel].ramos[i];
+                if (ramo == null) {
+                    continue;
+                }
+                if (nivel == nos.length - 1) {
+                    proxima = (VersoesDeTarefas.Entrada) ramo;
+                    return;
+                }
+                nos[++nivel] = (VersoesDeTarefas.No) ramo;
+                posicoes[nivel] = 0;
+            }
+            proxima = null;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package Services;
+
+import java.time.LocalDateTime;
+
+/**
+ * Representação JSON das tarefas, usada pelo {@link ServidorHTTP}.
+ *
+ * <p>Cada tarefa é um objeto com os campos {@code titulo}, {@code descricao},
+ * {@code dataCriacao} (no formato de {@link Tarefa#FORMATO_DATA}),
+ * {@code prioridade} e {@code estado}. O texto é acrescentado diretamente a
+ * um {@link StringBuilder} reutilizado, sem bibliotecas externas.</p>
+ */
+final class JSONDeTarefas {
+
+    private static final char[] HEXADECIMAL = "0123456789abcdef".toCharArray();
+
+    private JSONDeTarefas() {
+    }
+
+    /** Acrescenta o objeto JSON de uma tarefa. */
+    static StringBuilder tarefa(StringBuilder json, Tarefa tarefa) {
+        json.append("{\"titulo\":");
+        texto(json, tarefa.getTitulo());
+        json.append(",\"descricao\":");
+        texto(json, tarefa.getDescricao());
+        json.append(",\"dataCriacao\":");
+        data(json, tarefa.getDataCriacao());
+        json.append(",\"prioridade\":");
+        texto(json, tarefa.getPrioridade() != null ? tarefa.getPrioridade().name() : null);
+        json.append(",\"estado\":");
+        texto(json, tarefa.getEstado() != null ? tarefa.getEstado().name() : null);
+        return json.append('}');
+    }
+
+    /** Acrescenta uma cadeia de caracteres JSON (ou {@code null}), com os caracteres especiais escapados. */
+    static StringBuilder texto(StringBuilder json, String valor) {
+        if (valor == null) {
+            return json.append("null");
+        }
+
+        json.append('"');
+        var inicio = 0;
+        for (var i = 0; i < valor.length(); i++) {
+            var c = valor.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+
+            json.append(valor, inicio, i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> json.append("\\u00").append(HEXADECIMAL[c >> 4]).append(HEXADECIMAL[c & 0xF]);
+            }
+            inicio = i + 1;
+        }
+        return json.append(valor, inicio, valor.length()).append('"');
+    }
+
+    private static void data(StringBuilder json, LocalDateTime valor) {
+        if (valor == null) {
+            json.append("null");
+        } else {
+            json.append('"');
+            Tarefa.FORMATO_DATA.formatTo(valor, json);
+            json.append('"');
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package Services;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Consumer;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Leitor do formato binário de snapshots de tarefas (ver
+ * {@link EscritorBinarioDeTarefas} para a descrição do formato).
+ * 
+ * <p>O ficheiro é lido sequencialmente através de um {@link FileChannel}
+ * com um buffer direto, numa única passagem.</p>
+ */
+final class LeitorBinarioDeTarefas {
+
+    private static final int TAMANHO_BUFFER = 1 << 20;
+
+    private static final Prioridade[] PRIORIDADES = Prioridade.values();
+    private static final Estado[] ESTADOS = Estado.values();
+
+    private final FileChannel canal;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER);
+    private byte[] texto = new byte[256];
+
+    private LeitorBinarioDeTarefas(FileChannel canal) {
+        this.canal = canal;
+        buffer.flip();
+    }
+
+    /**
+     * Lê todas as tarefas do ficheiro indicado.
+     *
+     * @param caminho caminho do ficheiro binário
+     * @param consumidor recebe cada tarefa lida, pela ordem do ficheiro
+     * @return número de tarefas indicado no cabeçalho
+     * @throws IOException se o ficheiro não for um snapshot válido ou não puder ser lido
+     */
+    static int ler(Path caminho, Consumer<Tarefa> consumidor) throws IOException {
+        try (var canal = FileChannel.open(caminho, StandardOpenOption.READ)) {
+            var leitor = new LeitorBinarioDeTarefas(canal);
+
+            leitor.exigir(EscritorBinarioDeTarefas.TAMANHO_CABECALHO);
+            if (leitor.buffer.getInt() != EscritorBinarioDeTarefas.MAGIA) {
+                throw new IOException("O ficheiro '" + caminho + "' não é um snapshot binário de tarefas.");
+            }
+
+            var versao = leitor.buffer.getShort();
+            if (versao != EscritorBinarioDeTarefas.VERSAO) {
+                throw new IOException("Versão do snapshot binário não suportada: " + versao);
+            }
+
+            var contagem = leitor.buffer.getInt();
+            for (int i = 0; i < contagem; i++) {
+                consumidor.accept(leitor.lerTarefa());
+            }
+            return contagem;
+        }
+    }
+
+    private Tarefa lerTarefa() throws IOException {
+        var titulo = lerTexto();
+        var descricao = lerTexto();
+
+        exigir(8 + 4 + 1 + 1);
+        var segundos = buffer.getLong();
+        var nanos = buffer.getInt();
+        var prioridade = PRIORIDADES[buffer.get()];
+        var estado = ESTADOS[buffer.get()];
+
+        var data = nanos != EscritorBinarioDeTarefas.SEM_DATA
+                ? LocalDateTime.ofEpochSecond(segundos, nanos, ZoneOffset.UTC)
+                : null;
+        return new Tarefa(titulo, descricao, data, prioridade, estado);
+    }
+
+    private String lerTexto() throws IOException {
+        exigir(4);
+        var comprimento = buffer.getInt();
+        if (comprimento < 0) {
+            return null;
+        }
+
+        if (texto.length < comprimento) {
+            texto = new byte[Math.max(comprimento, texto.length * 2)];
+        }
+
+        // Textos maiores do que o buffer são lidos em várias partes
+        var posicao = 0;
+        while (posicao < comprimento) {
+            if (!buffer.hasRemaining()) {
+                encher();
+            }
+            var parte = Math.min(buffer.remaining(), comprimento - posicao);
+            buffer.get(texto, posicao, parte);
+            posicao += parte;
+        }
+
+        return new String(texto, 0, comprimento, StandardCharsets.UTF_8);
+    }
+
+    /** Garante que existem pelo menos {@code bytes} bytes disponíveis no buffer. */
+    private void exigir(int bytes) throws IOException {
+        while (buffer.remaining() < bytes) {
+            encher();
+        }
+    }
+
+    private void encher() throws IOException {
+        buffer.compact();
+        var lidos = canal.read(buffer);
+        buffer.flip();
+
+        if (lidos < 0) {
+            throw new EOFException("O snapshot binário de tarefas está truncado.");
+        }
+    }
+}
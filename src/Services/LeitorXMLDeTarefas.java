@@ -0,0 +1,112 @@
+package Services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.function.Consumer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Leitor sequencial (StAX) de tarefas no formato XML da aplicação.
+ * 
+ * <p>O ficheiro é percorrido uma única vez e cada tarefa é entregue ao
+ * consumidor assim que o respetivo elemento {@code <tarefa>} termina, sem
+ * construir uma árvore DOM. A memória utilizada é, por isso, constante.</p>
+ * 
+ * <p>A data de criação é aceite tanto no formato escrito pela aplicação
+ * ({@code yyyy-MM-dd HH:mm:ss}) como no formato ISO-8601 usado por
+ * versões anteriores ({@code yyyy-MM-ddTHH:mm:ss.nnnnnnnnn}).</p>
+ */
+final class LeitorXMLDeTarefas {
+
+    /** Formato de leitura que aceita o separador 'T' (ISO) ou um espaço. */
+    static final DateTimeFormatter FORMATO_LEITURA = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE)
+            .optionalStart().appendLiteral('T').optionalEnd()
+            .optionalStart().appendLiteral(' ').optionalEnd()
+            .append(DateTimeFormatter.ISO_LOCAL_TIME)
+            .toFormatter();
+
+    private static final XMLInputFactory FABRICA = criarFabrica();
+
+    private LeitorXMLDeTarefas() {
+    }
+
+    /**
+     * Lê todas as tarefas do fluxo indicado.
+     *
+     * @param entrada fluxo com o documento XML
+     * @param consumidor recebe cada tarefa lida, pela ordem do ficheiro
+     * @throws XMLStreamException se o documento estiver mal formado
+     * @throws IOException se ocorrer um erro de leitura
+     */
+    static void ler(InputStream entrada, Consumer<Tarefa> consumidor)
+            throws XMLStreamException, IOException {
+
+        var xml = FABRICA.createXMLStreamReader(entrada);
+
+        try {
+            String titulo = null;
+            String descricao = null;
+            String data = null;
+            String prioridade = null;
+            String estado = null;
+            var dentroDeTarefa = false;
+
+            while (xml.hasNext()) {
+                var evento = xml.next();
+
+                if (evento == XMLStreamConstants.START_ELEMENT) {
+                    var nome = xml.getLocalName();
+
+                    if (nome.equals("tarefa")) {
+                        dentroDeTarefa = true;
+                        titulo = descricao = data = prioridade = estado = "";
+                    } else if (dentroDeTarefa) {
+                        switch (nome) {
+                            case "titulo" -> titulo = xml.getElementText();
+                            case "descricao" -> descricao = xml.getElementText();
+                            case "dataCriacao" -> data = xml.getElementText();
+                            case "prioridade" -> prioridade = xml.getElementText();
+                            case "estado" -> estado = xml.getElementText();
+                            default -> { }
+                        }
+                    }
+                } else if (evento == XMLStreamConstants.END_ELEMENT
+                        && dentroDeTarefa && xml.getLocalName().equals("tarefa")) {
+
+                    dentroDeTarefa = false;
+                    consumidor.accept(new Tarefa(titulo, descricao,
+                            lerData(data), Prioridade.valueOf(prioridade), Estado.valueOf(estado)));
+                }
+            }
+        } finally {
+            xml.close();
+        }
+    }
+
+    /** Converte o texto de uma data de criação, em qualquer dos formatos aceites (vazio para nenhuma). */
+    static LocalDateTime lerData(String texto) {
+        if (texto.isBlank()) {
+            return null;
+        }
+        return LocalDateTime.parse(texto.trim(), FORMATO_LEITURA);
+    }
+
+    /** Cria uma fábrica StAX sem suporte para DTD nem entidades externas. */
+    private static XMLInputFactory criarFabrica() {
+        var fabrica = XMLInputFactory.newFactory();
+        fabrica.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        fabrica.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        fabrica.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return fabrica;
+    }
+}
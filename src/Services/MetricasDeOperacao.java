@@ -0,0 +1,83 @@
+package Services;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de uma operação do gestor: número de execuções, número de
+ * execuções que terminaram com uma exceção e histograma das latências
+ * (de todas as execuções, com ou sem sucesso).
+ */
+public final class MetricasDeOperacao implements MetricasDeOperacaoMBean {
+
+    private final OperacaoDoGestor operacao;
+    private final HistogramaDeLatencia latencias = new HistogramaDeLatencia();
+    private final LongAdder falhas = new LongAdder();
+
+    MetricasDeOperacao(OperacaoDoGestor operacao) {
+        this.operacao = operacao;
+    }
+
+    void registar(long nanos) {
+        latencias.registar(nanos);
+    }
+
+    void registarFalha(long nanos) {
+        latencias.registar(nanos);
+        falhas.increment();
+    }
+
+    public HistogramaDeLatencia getLatencias() {
+        return latencias;
+    }
+
+    @Override
+    public String getOperacao() {
+        return operacao.getNome();
+    }
+
+    @Override
+    public long getContagem() {
+        return latencias.getContagem();
+    }
+
+    @Override
+    public long getFalhas() {
+        return falhas.sum();
+    }
+
+    @Override
+    public double getMediaMicros() {
+        return latencias.getMedia() / 1_000;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latencias.percentil(50) / 1_000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return latencias.percentil(90) / 1_000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latencias.percentil(99) / 1_000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latencias.percentil(99.9) / 1_000.0;
+    }
+
+    @Override
+    public double getMaximoMicros() {
+        return latencias.getMaximo() / 1_000.0;
+    }
+
+    @Override
+    public void reiniciar() {
+        latencias.reiniciar();
+        falhas.reset();
+    }
+}
@@ -0,0 +1,29 @@
+package Services;
+
+/**
+ * Interface JMX das métricas de uma operação do gestor (ver
+ * {@link MetricasDeOperacao}). As latências são apresentadas em
+ * microssegundos.
+ */
+public interface MetricasDeOperacaoMBean {
+
+    String getOperacao();
+
+    long getContagem();
+
+    long getFalhas();
+
+    double getMediaMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaximoMicros();
+
+    void reiniciar();
+}
@@ -0,0 +1,160 @@
+package Services;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import Entities.TarefaNaoEncontradaException;
+
+/**
+ * Métricas das operações de um gestor de tarefas: contadores e histogramas
+ * de latência por operação (ver {@link HistogramaDeLatencia}) e o número de
+ * {@link TarefaNaoEncontradaException} lançadas.
+ *
+ * <p>As métricas são alimentadas pelo {@link GestorDeTarefasInstrumentado}
+ * e pelas operações de persistência e de relatório de um
+ * {@link GestorDeTarefas} instrumentado (ver
+ * {@link GestorDeTarefas#instrumentar(MetricasDoGestor)}). O registo é
+ * seguro entre threads e não aloca memória.</p>
+ *
+ * <p>Podem ser consultadas diretamente, como texto ({@link #resumo()}) ou
+ * por JMX, depois de {@link #registarNoJMX(String)}: um MBean com as
+ * métricas globais e um por operação, no domínio {@value #DOMINIO_JMX}.</p>
+ */
+public final class MetricasDoGestor implements MetricasDoGestorMBean {
+
+    /** Domínio dos nomes JMX dos MBeans. */
+    public static final String DOMINIO_JMX = "pt.gestordetarefas";
+
+    private final MetricasDeOperacao[] porOperacao;
+    private final LongAdder tarefasNaoEncontradas = new LongAdder();
+    private final List<ObjectName> registados = new ArrayList<>();
+
+    public MetricasDoGestor() {
+        var operacoes = OperacaoDoGestor.values();
+        porOperacao = new MetricasDeOperacao[operacoes.length];
+        for (var operacao : operacoes) {
+            porOperacao[operacao.ordinal()] = new MetricasDeOperacao(operacao);
+        }
+    }
+
+    /**
+     * Regista uma execução bem-sucedida da operação.
+     *
+     * @param operacao operação executada
+     * @param inicio valor de {@link System#nanoTime()} no início da execução
+     */
+    public void registar(OperacaoDoGestor operacao, long inicio) {
+        porOperacao[operacao.ordinal()].registar(System.nanoTime() - inicio);
+    }
+
+    /**
+     * Regista uma execução da operação que terminou com uma exceção.
+     *
+     * @param operacao operação executada
+     * @param inicio valor de {@link System#nanoTime()} no início da execução
+     * @param falha exceção lançada pela operação
+     */
+    public void registarFalha(OperacaoDoGestor operacao, long inicio, Throwable falha) {
+        porOperacao[operacao.ordinal()].registarFalha(System.nanoTime() - inicio);
+        if (falha instanceof TarefaNaoEncontradaException) {
+            tarefasNaoEncontradas.increment();
+        }
+    }
+
+    /** Métricas de uma operação. */
+    public MetricasDeOperacao get(OperacaoDoGestor operacao) {
+        return porOperacao[operacao.ordinal()];
+    }
+
+    @Override
+    public long getTarefasNaoEncontradas() {
+        return tarefasNaoEncontradas.sum();
+    }
+
+    /**
+     * Devolve um resumo em texto das operações já executadas, com o número
+     * de execuções, de falhas e os percentis de latência em microssegundos.
+     */
+    @Override
+    public String resumo() {
+        var texto = new StringBuilder(256);
+        texto.append(String.format(Locale.ROOT, "%-26s %10s %8s %10s %10s %10s %10s %10s %10s%n",
+                "operação", "contagem", "falhas", "média µs", "p50", "p90", "p99", "p99.9", "máximo"));
+
+        for (var metricas : porOperacao) {
+            if (metricas.getContagem() == 0) {
+                continue;
+            }
+            texto.append(String.format(Locale.ROOT, "%-26s %10d %8d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    metricas.getOperacao(), metricas.getContagem(), metricas.getFalhas(),
+                    metricas.getMediaMicros(), metricas.getP50Micros(), metricas.getP90Micros(),
+                    metricas.getP99Micros(), metricas.getP999Micros(), metricas.getMaximoMicros()));
+        }
+
+        texto.append("tarefas não encontradas: ").append(getTarefasNaoEncontradas()).append(System.lineSeparator());
+        return texto.toString();
+    }
+
+    @Override
+    public void reiniciar() {
+        for (var metricas : porOperacao) {
+            metricas.reiniciar();
+        }
+        tarefasNaoEncontradas.reset();
+    }
+
+    /**
+     * Regista os MBeans no servidor JMX da plataforma, com os nomes
+     * {@code pt.gestordetarefas:type=GestorDeTarefas,name=<nome>} e
+     * {@code pt.gestordetarefas:type=GestorDeTarefas,name=<nome>,operacao=<operação>}.
+     *
+     * @param nome nome que distingue este gestor dos restantes
+     * @throws IllegalStateException se os MBeans não puderem ser registados
+     */
+    public synchronized void registarNoJMX(String nome) {
+        if (!registados.isEmpty()) {
+            throw new IllegalStateException("As métricas já estão registadas no JMX.");
+        }
+
+        var servidor = ManagementFactory.getPlatformMBeanServer();
+        var base = DOMINIO_JMX + ":type=GestorDeTarefas,name=" + ObjectName.quote(nome);
+        try {
+            var global = new ObjectName(base);
+            servidor.registerMBean(this, global);
+            registados.add(global);
+
+            for (var metricas : porOperacao) {
+                var nomeOperacao = new ObjectName(base + ",operacao=" + metricas.getOperacao());
+                servidor.registerMBean(metricas, nomeOperacao);
+                registados.add(nomeOperacao);
+            }
+        } catch (JMException e) {
+            removerDoJMX();
+            throw new IllegalStateException("Não foi possível registar as métricas no JMX.", e);
+        }
+    }
+
+    /** Remove do servidor JMX os MBeans registados por {@link #registarNoJMX(String)}. */
+    public synchronized void removerDoJMX() {
+        var servidor = ManagementFactory.getPlatformMBeanServer();
+        for (var nome : registados) {
+            try {
+                servidor.unregisterMBean(nome);
+            } catch (JMException e) {
+                // já não estava registado
+            }
+        }
+        registados.clear();
+    }
+
+    @Override
+    public String toString() {
+        return resumo();
+    }
+}
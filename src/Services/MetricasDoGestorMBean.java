@@ -0,0 +1,14 @@
+package Services;
+
+/**
+ * Interface JMX das métricas globais de um gestor (ver {@link MetricasDoGestor}).
+ */
+public interface MetricasDoGestorMBean {
+
+    long getTarefasNaoEncontradas();
+
+    /** Resumo em texto de todas as operações, no momento da chamada. */
+    String resumo();
+
+    void reiniciar();
+}
@@ -0,0 +1,42 @@
+package Services;
+
+import Entities.Estado;
+
+/**
+ * Interface interna implementada pelos componentes que acompanham as
+ * alterações feitas a um {@link GestorDeTarefas} (diário, índices
+ * auxiliares, etc.).
+ * 
+ * <p>As notificações são entregues de forma síncrona, na thread que efetuou
+ * a alteração, depois de os índices do gestor estarem atualizados.</p>
+ */
+interface ObservadorDeAlteracoes {
+
+    /** Uma tarefa foi adicionada ao gestor. */
+    default void tarefaAdicionada(Tarefa tarefa) {
+    }
+
+    /** Uma tarefa foi removida do gestor. */
+    default void tarefaRemovida(Tarefa tarefa) {
+    }
+
+    /** O estado de uma tarefa do gestor foi alterado. */
+    default void estadoAlterado(Tarefa tarefa, Estado anterior, Estado novo) {
+    }
+
+    /** Todas as tarefas foram substituídas (por exemplo, após um carregamento). */
+    default void tarefasSubstituidas() {
+    }
+
+    /**
+     * Começa um lote de alterações (ver {@link IGestorDeTarefas#adicionarTarefas}
+     * e seguintes). As alterações notificadas até {@link #loteConcluido()}
+     * formam uma unidade: incluem, se o lote falhar, as que o desfazem.
+     */
+    default void loteIniciado() {
+    }
+
+    /** Termina o lote começado em {@link #loteIniciado()}. */
+    default void loteConcluido() {
+    }
+}
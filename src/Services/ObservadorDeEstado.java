@@ -0,0 +1,17 @@
+package Services;
+
+import Entities.Estado;
+
+/**
+ * Interface interna que permite a um gestor ser notificado sempre que o
+ * estado de uma das suas tarefas é alterado.
+ * 
+ * <p>É utilizada para manter os índices secundários sincronizados, mesmo
+ * quando a alteração é feita diretamente através de
+ * {@link Tarefa#setEstado(Estado)}.</p>
+ */
+@FunctionalInterface
+interface ObservadorDeEstado {
+
+    void estadoAlterado(Tarefa tarefa, Estado anterior, Estado novo);
+}
@@ -0,0 +1,42 @@
+package Services;
+
+/**
+ * Operações de um gestor de tarefas com métricas próprias (ver
+ * {@link MetricasDoGestor}).
+ */
+public enum OperacaoDoGestor {
+
+    ADICIONAR_TAREFA("adicionarTarefa"),
+    REMOVER_TAREFA("removerTarefa"),
+    ALTERAR_ESTADO("alterarEstado"),
+    BUSCAR_POR_TITULO("buscarPorTitulo"),
+    LISTAR_TAREFAS("listarTarefas"),
+    LISTAR_POR_ESTADO("listarPorEstado"),
+    CONTAR_TAREFAS("contarTarefas"),
+    ADICIONAR_TAREFAS("adicionarTarefas"),
+    REMOVER_TAREFAS("removerTarefas"),
+    ALTERAR_ESTADOS("alterarEstados"),
+    PERCORRER_TAREFAS("percorrerTarefas"),
+    LISTAR_PAGINA("listarPagina"),
+    GUARDAR_XML("guardarEmXML"),
+    CARREGAR_XML("carregarDeXML"),
+    GUARDAR_BINARIO("guardarEmBinario"),
+    CARREGAR_BINARIO("carregarDeBinario"),
+    GUARDAR_ARMAZEM_MAPEADO("guardarEmArmazemMapeado"),
+    CARREGAR_ARMAZEM_MAPEADO("carregarDeArmazemMapeado"),
+    GUARDAR_FRAGMENTOS("guardarEmFragmentos"),
+    CARREGAR_FRAGMENTOS("carregarDeFragmentos"),
+    CRIAR_SNAPSHOT("criarSnapshot"),
+    GERAR_RELATORIO_HTML("gerarRelatorioHTML");
+
+    private final String nome;
+
+    OperacaoDoGestor(String nome) {
+        this.nome = nome;
+    }
+
+    /** Nome do método correspondente, usado no resumo e nos nomes JMX. */
+    public String getNome() {
+        return nome;
+    }
+}
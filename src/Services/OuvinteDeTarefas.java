@@ -0,0 +1,21 @@
+package Services;
+
+import java.util.List;
+
+/**
+ * Subscritor dos eventos de alteração de um {@link GestorDeTarefas}.
+ *
+ * <p>Os eventos são entregues em lotes, por ordem, numa thread própria do
+ * subscritor, pelo que o ouvinte nunca é chamado em simultâneo consigo
+ * próprio nem na thread que alterou o gestor.</p>
+ */
+@FunctionalInterface
+public interface OuvinteDeTarefas {
+
+    /**
+     * Recebe um lote de eventos.
+     *
+     * @param eventos eventos por ordem de sequência (nunca vazio)
+     */
+    void eventosRecebidos(List<EventoDeTarefa> eventos);
+}
@@ -0,0 +1,52 @@
+package Services;
+
+import java.util.List;
+
+/**
+ * Página de uma listagem por cursor (ver
+ * {@link Interfaces.IGestorDeTarefas#listarPagina(String, int)}).
+ *
+ * <p>As tarefas são ordenadas pela data de criação e, em caso de empate,
+ * pelo título. O cursor identifica a última tarefa da página, pelo que a
+ * página seguinte começa logo a seguir a essa posição, mesmo que entretanto
+ * tenham sido adicionadas ou removidas tarefas.</p>
+ */
+public class PaginaDeTarefas {
+
+    private final List<Tarefa> tarefas;
+    private final String proximoCursor;
+
+    PaginaDeTarefas(List<Tarefa> tarefas, String proximoCursor) {
+        this.tarefas = List.copyOf(tarefas);
+        this.proximoCursor = proximoCursor;
+    }
+
+    /** Tarefas da página. */
+    public List<Tarefa> getTarefas() {
+        return tarefas;
+    }
+
+    /** Cursor a usar para obter a página seguinte, ou {@code null} se esta for a última. */
+    public String getProximoCursor() {
+        return proximoCursor;
+    }
+
+    /** Indica se existem mais páginas. */
+    public boolean temMais() {
+        return proximoCursor != null;
+    }
+
+    /**
+     * Constrói uma página a partir das tarefas seguintes ao cursor, pela
+     * ordem da paginação, com no máximo {@code quantidade + 1} elementos
+     * (o elemento a mais indica apenas que existe uma página seguinte).
+     */
+    static PaginaDeTarefas de(List<Tarefa> seguintes, int quantidade) {
+        if (seguintes.size() <= quantidade) {
+            return new PaginaDeTarefas(seguintes, null);
+        }
+
+        var pagina = seguintes.subList(0, quantidade);
+        return new PaginaDeTarefas(pagina, ChaveTemporal.de(pagina.get(quantidade - 1)).cursor());
+    }
+}
@@ -0,0 +1,101 @@
+package Services;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Consulta de texto sobre o título e a descrição das tarefas.
+ *
+ * <p>O texto é dividido em termos, comparados sem distinção entre
+ * maiúsculas e minúsculas nem acentos ("Relatório" corresponde a
+ * "relatorio"). Um termo terminado em {@code *} corresponde a qualquer
+ * palavra com esse prefixo. Por omissão, uma tarefa tem de conter todos os
+ * termos; com {@link #qualquerTermo()} basta conter um deles.</p>
+ *
+ * <pre>
+ * var resultado = gestor.pesquisar(new Pesquisa("relat* semanal")
+ *         .comEstado(Estado.PENDENTE)
+ *         .pagina(0, 20));
+ * </pre>
+ */
+public class Pesquisa {
+
+    /** Número de resultados por página, por omissão. */
+    public static final int TAMANHO_PAGINA = 20;
+
+    private final String texto;
+    private boolean todosOsTermos = true;
+    private Estado estado;
+    private Prioridade prioridade;
+    private int pagina;
+    private int tamanhoPagina = TAMANHO_PAGINA;
+
+    /**
+     * Cria uma nova consulta.
+     *
+     * @param texto termos a pesquisar
+     */
+    public Pesquisa(String texto) {
+        if (texto == null) {
+            throw new IllegalArgumentException("O texto da pesquisa não pode ser nulo.");
+        }
+        this.texto = texto;
+    }
+
+    /** As tarefas passam a corresponder se contiverem pelo menos um dos termos. */
+    public Pesquisa qualquerTermo() {
+        this.todosOsTermos = false;
+        return this;
+    }
+
+    /** Restringe os resultados às tarefas no estado indicado. */
+    public Pesquisa comEstado(Estado estado) {
+        this.estado = estado;
+        return this;
+    }
+
+    /** Restringe os resultados às tarefas com a prioridade indicada. */
+    public Pesquisa comPrioridade(Prioridade prioridade) {
+        this.prioridade = prioridade;
+        return this;
+    }
+
+    /**
+     * Seleciona a página de resultados a devolver.
+     *
+     * @param pagina número da página (a partir de 0)
+     * @param tamanhoPagina número máximo de resultados por página
+     */
+    public Pesquisa pagina(int pagina, int tamanhoPagina) {
+        if (pagina < 0 || tamanhoPagina <= 0) {
+            throw new IllegalArgumentException("Página inválida: " + pagina + " (" + tamanhoPagina + " por página).");
+        }
+        this.pagina = pagina;
+        this.tamanhoPagina = tamanhoPagina;
+        return this;
+    }
+
+    public String getTexto() {
+        return texto;
+    }
+
+    public boolean isTodosOsTermos() {
+        return todosOsTermos;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public Prioridade getPrioridade() {
+        return prioridade;
+    }
+
+    public int getPagina() {
+        return pagina;
+    }
+
+    public int getTamanhoPagina() {
+        return tamanhoPagina;
+    }
+}
@@ -0,0 +1,14 @@
+package Services;
+
+/**
+ * Comportamento do canal de eventos quando um subscritor não acompanha o
+ * ritmo das alterações e o buffer circular fica cheio.
+ */
+public enum PoliticaDeSobrecarga {
+
+    /** Quem altera o gestor espera até o subscritor libertar espaço; nenhum evento se perde. */
+    BLOQUEAR,
+
+    /** Os eventos mais antigos ainda não entregues ao subscritor são descartados e contabilizados. */
+    DESCARTAR
+}
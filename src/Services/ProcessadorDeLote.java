@@ -0,0 +1,335 @@
+package Services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import Entities.Estado;
+import Entities.Prioridade;
+import Entities.TarefaNaoEncontradaException;
+
+/**
+ * Execução não interativa de uma sequência de comandos sobre um
+ * {@link GestorDeTarefas}, lidos de um ficheiro ou da entrada padrão.
+ *
+ * <p>Cada linha contém um comando e os seus argumentos, separados por
+ * tabulações (nos textos, {@code \t}, {@code \n} e {@code \\} representam
+ * uma tabulação, uma mudança de linha e uma barra). As linhas vazias e as
+ * começadas por {@code #} são ignoradas.</p>
+ *
+ * <pre>
+ * adicionar  titulo  [descricao]  [prioridade]
+ * remover    titulo
+ * estado     titulo  estado
+ * guardar    caminho
+ * carregar   caminho
+ * relatorio  caminho
+ * </pre>
+ *
+ * <p>O formato dos ficheiros de {@code guardar} e {@code carregar} é
+ * escolhido pela extensão: {@code .bin} para o snapshot binário,
+ * {@code .map} para o armazém mapeado e XML para as restantes.</p>
+ *
+ * <p>A leitura e a análise decorrem numa thread própria, que entrega os
+ * comandos em blocos ao executor através de uma fila limitada, pelo que a
+ * leitura do ficheiro se sobrepõe à execução. As gravações e os relatórios
+ * pedidos seguidos, sem alterações às tarefas pelo meio, são agrupados, e
+ * cada ficheiro é escrito uma única vez. Os pedidos pendentes são escritos
+ * antes do comando seguinte que altere as tarefas (incluindo
+ * {@code carregar}) ou no fim da sequência, pelo que cada ficheiro tem as
+ * tarefas da linha em que foi pedido.</p>
+ *
+ * <p>O resultado de cada comando é escrito numa linha, também separada por
+ * tabulações: o número da linha do comando, {@code OK} ou {@code ERRO} e,
+ * nos erros, a mensagem. Os resultados das gravações e dos relatórios
+ * surgem quando estes são escritos. A última linha, começada por
+ * {@code #}, resume o número de comandos, de erros e a duração.</p>
+ */
+public final class ProcessadorDeLote {
+
+    /** Resultado da execução de uma sequência de comandos. */
+    public record Resumo(long comandos, long erros, long nanos) {
+    }
+
+    /** Número de comandos entregues de cada vez ao executor. */
+    private static final int COMANDOS_POR_BLOCO = 1024;
+
+    /** Número máximo de blocos lidos à espera de execução. */
+    private static final int BLOCOS_EM_ESPERA = 64;
+
+    /** Bloco que assinala o fim da entrada. */
+    private static final List<Comando> FIM = List.of();
+
+    private enum Tipo {
+        ADICIONAR("adicionar", 1, 3),
+        REMOVER("remover", 1, 1),
+        ESTADO("estado", 2, 2),
+        GUARDAR("guardar", 1, 1),
+        CARREGAR("carregar", 1, 1),
+        RELATORIO("relatorio", 1, 1);
+
+        final String nome;
+        final int minimo;
+        final int maximo;
+
+        Tipo(String nome, int minimo, int maximo) {
+            this.nome = nome;
+            this.minimo = minimo;
+            this.maximo = maximo;
+        }
+    }
+
+    /** Comando analisado; se a análise falhar, só tem o motivo. */
+    private record Comando(long linha, Tipo tipo, String[] argumentos, String erro) {
+    }
+
+    private final GestorDeTarefas gestor;
+
+    /**
+     * Ficheiros a gravar e a gerar com as tarefas atuais, com a linha do
+     * (último) comando que os pediu.
+     */
+    private final Map<String, Long> gravacoes = new LinkedHashMap<>();
+    private final Map<String, Long> relatorios = new LinkedHashMap<>();
+
+    private final StringBuilder resultado = new StringBuilder(256);
+    private long comandos;
+    private long erros;
+
+    public ProcessadorDeLote(GestorDeTarefas gestor) {
+        if (gestor == null) {
+            throw new IllegalArgumentException("O gestor não pode ser nulo.");
+        }
+        this.gestor = gestor;
+    }
+
+    /**
+     * Executa todos os comandos da entrada, escrevendo os resultados na saída.
+     *
+     * @param entrada comandos, um por linha
+     * @param saida destino dos resultados (não é fechado)
+     * @return número de comandos, de erros e duração
+     * @throws IOException se ocorrer um erro de leitura da entrada ou de escrita da saída
+     */
+    public Resumo executar(BufferedReader entrada, Writer saida) throws IOException {
+        var inicio = System.nanoTime();
+        BlockingQueue<List<Comando>> blocos = new ArrayBlockingQueue<>(BLOCOS_EM_ESPERA);
+        IOException[] falhaLeitura = new IOException[1];
+
+        var leitor = new Thread(() -> ler(entrada, blocos, falhaLeitura), "leitor-de-comandos");
+        leitor.setDaemon(true);
+        leitor.start();
+
+        try {
+            for (var bloco = blocos.take(); bloco != FIM; bloco = blocos.take()) {
+                for (var comando : bloco) {
+                    executar(comando, saida);
+                }
+            }
+            leitor.join();
+        } catch (InterruptedException e) {
+            leitor.interrupt();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido durante a execução dos comandos.");
+        }
+
+        if (falhaLeitura[0] != null) {
+            throw falhaLeitura[0];
+        }
+
+        escreverPendentes(saida);
+
+        var duracao = System.nanoTime() - inicio;
+        saida.write("#\tcomandos=" + comandos + "\terros=" + erros + "\tms=" + duracao / 1_000_000
+                + System.lineSeparator());
+        saida.flush();
+        return new Resumo(comandos, erros, duracao);
+    }
+
+    /** Lê e analisa as linhas da entrada, entregando-as em blocos (na thread de leitura). */
+    private static void ler(BufferedReader entrada, BlockingQueue<List<Comando>> blocos, IOException[] falha) {
+        try {
+            try {
+                var bloco = new ArrayList<Comando>(COMANDOS_POR_BLOCO);
+                var numero = 0L;
+                for (var linha = entrada.readLine(); linha != null; linha = entrada.readLine()) {
+                    numero++;
+                    if (linha.isBlank() || linha.startsWith("#")) {
+                        continue;
+                    }
+                    bloco.add(analisar(numero, linha));
+                    if (bloco.size() == COMANDOS_POR_BLOCO) {
+                        blocos.put(bloco);
+                        bloco = new ArrayList<>(COMANDOS_POR_BLOCO);
+                    }
+                }
+                if (!bloco.isEmpty()) {
+                    blocos.put(bloco);
+                }
+            } catch (IOException e) {
+                falha[0] = e;
+            } finally {
+                blocos.put(FIM);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Comando analisar(long numero, String linha) {
+        var campos = linha.split("\t", -1);
+        Tipo tipo = null;
+        for (var candidato : Tipo.values()) {
+            if (candidato.nome.equals(campos[0].strip())) {
+                tipo = candidato;
+            }
+        }
+        if (tipo == null) {
+            return new Comando(numero, null, null, "Comando desconhecido: '" + campos[0] + "'.");
+        }
+
+        var argumentos = campos.length - 1;
+        if (argumentos < tipo.minimo || argumentos > tipo.maximo) {
+            return new Comando(numero, tipo, null, "Número de argumentos inválido para '" + tipo.nome + "': "
+                    + argumentos + ".");
+        }
+
+        var valores = new String[argumentos];
+        for (var i = 0; i < argumentos; i++) {
+            valores[i] = desfazerEscapes(campos[i + 1]);
+        }
+        return new Comando(numero, tipo, valores, null);
+    }
+
+    private void executar(Comando comando, Writer saida) throws IOException {
+        comandos++;
+        if (comando.erro() != null) {
+            escreverErro(saida, comando.linha(), comando.erro());
+            return;
+        }
+
+        if (comando.tipo() != Tipo.GUARDAR && comando.tipo() != Tipo.RELATORIO) {
+            // O comando altera as tarefas: os pedidos anteriores usam as atuais
+            escreverPendentes(saida);
+        }
+
+        var argumentos = comando.argumentos();
+        try {
+            switch (comando.tipo()) {
+                case ADICIONAR -> gestor.adicionarTarefa(new Tarefa(argumentos[0],
+                        argumentos.length > 1 ? argumentos[1] : null,
+                        argumentos.length > 2 && !argumentos[2].isEmpty() ? Prioridade.valueOf(argumentos[2]) : null));
+                case REMOVER -> gestor.removerTarefa(argumentos[0]);
+                case ESTADO -> gestor.alterarEstado(argumentos[0], Estado.valueOf(argumentos[1]));
+                case GUARDAR -> {
+                    gravacoes.remove(argumentos[0]);
+                    gravacoes.put(argumentos[0], comando.linha());
+                    return;
+                }
+                case RELATORIO -> {
+                    relatorios.remove(argumentos[0]);
+                    relatorios.put(argumentos[0], comando.linha());
+                    return;
+                }
+                case CARREGAR -> carregar(argumentos[0]);
+            }
+            escreverOk(saida, comando.linha());
+        } catch (TarefaNaoEncontradaException | IllegalArgumentException e) {
+            escreverErro(saida, comando.linha(), e.getMessage());
+        } catch (Exception e) {
+            escreverErro(saida, comando.linha(), e.toString());
+        }
+    }
+
+    /** Escreve as gravações e os relatórios pendentes, com o estado atual. */
+    private void escreverPendentes(Writer saida) throws IOException {
+        for (var pedido : gravacoes.entrySet()) {
+            try {
+                guardar(pedido.getKey());
+                escreverOk(saida, pedido.getValue());
+            } catch (Exception e) {
+                escreverErro(saida, pedido.getValue(), e.toString());
+            }
+        }
+        for (var pedido : relatorios.entrySet()) {
+            try {
+                gestor.gerarRelatorioHTML(pedido.getKey());
+                escreverOk(saida, pedido.getValue());
+            } catch (IOException e) {
+                escreverErro(saida, pedido.getValue(), e.toString());
+            }
+        }
+        gravacoes.clear();
+        relatorios.clear();
+    }
+
+    private void guardar(String caminho) throws Exception {
+        if (caminho.endsWith(".bin")) {
+            gestor.guardarEmBinario(caminho);
+        } else if (caminho.endsWith(".map")) {
+            gestor.guardarEmArmazemMapeado(caminho);
+        } else {
+            gestor.guardarEmXML(caminho);
+        }
+    }
+
+    private void carregar(String caminho) throws Exception {
+        if (caminho.endsWith(".bin")) {
+            gestor.carregarDeBinario(caminho);
+        } else if (caminho.endsWith(".map")) {
+            gestor.carregarDeArmazemMapeado(caminho);
+        } else {
+            gestor.carregarDeXML(caminho);
+        }
+    }
+
+    private void escreverOk(Writer saida, long linha) throws IOException {
+        resultado.setLength(0);
+        resultado.append(linha).append("\tOK").append(System.lineSeparator());
+        saida.append(resultado);
+    }
+
+    private void escreverErro(Writer saida, long linha, String mensagem) throws IOException {
+        erros++;
+        resultado.setLength(0);
+        resultado.append(linha).append("\tERRO\t");
+        if (mensagem != null) {
+            for (var i = 0; i < mensagem.length(); i++) {
+                var c = mensagem.charAt(i);
+                resultado.append(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+            }
+        }
+        saida.append(resultado.append(System.lineSeparator()));
+    }
+
+    /** Converte as sequências {@code \t}, {@code \n} e {@code \\} nos caracteres correspondentes. */
+    private static String desfazerEscapes(String texto) {
+        if (texto.indexOf('\\') < 0) {
+            return texto;
+        }
+
+        var resultado = new StringBuilder(texto.length());
+        for (var i = 0; i < texto.length(); i++) {
+            var c = texto.charAt(i);
+            if (c == '\\' && i + 1 < texto.length()) {
+                var seguinte = texto.charAt(++i);
+                switch (seguinte) {
+                    case 't' -> resultado.append('\t');
+                    case 'n' -> resultado.append('\n');
+                    case '\\' -> resultado.append('\\');
+                    default -> resultado.append(c).append(seguinte);
+                }
+            } else {
+                resultado.append(c);
+            }
+        }
+        return resultado.toString();
+    }
+}
@@ -0,0 +1,205 @@
+package Services;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import Entities.Estado;
+import Entities.Prioridade;
+import Interfaces.IGestorDeTarefas;
+
+/**
+ * Motor de geração do relatório HTML de tarefas.
+ *
+ * <p>O relatório é escrito em fluxo contínuo, linha a linha, para um
+ * {@link BufferedWriter} UTF-8 de {@value #TAMANHO_BUFFER} bytes. Os
+ * fragmentos fixos de cada linha são pré-calculados por prioridade e as datas
+ * são formatadas diretamente num buffer de caracteres reutilizado, pelo que a
+ * escrita de uma linha não cria objetos intermédios além dos do próprio
+ * {@code Writer}.</p>
+ *
+ * <p>O título e a descrição de cada tarefa são escapados ({@code & < > " '}),
+ * já que podem vir de qualquer cliente do servidor HTTP.</p>
+ *
+ * <p>As secções são emitidas pela ordem dos estados e, dentro de cada uma,
+ * por prioridade. O relatório de um {@link GestorDeTarefas} é composto por
+ * {@link RelatorioIncremental}, que usa as linhas desta classe.</p>
+ */
+final class RelatorioHTML implements Closeable {
+
+    static final int TAMANHO_BUFFER = 1 << 16;
+
+    private static final String NOVA_LINHA = System.lineSeparator();
+
+    /** Início de cada linha ({@code <p><font ...>• [ALTA]</font> <b>}), por prioridade. */
+    private static final String[] INICIO_LINHA = new String[Prioridade.values().length];
+
+    private static final String ANTES_DESCRICAO = "</b> — ";
+    private static final String ANTES_DATA = "<br><small>Criada em: ";
+    private static final String FIM_LINHA = "</small></p>" + NOVA_LINHA;
+
+    static {
+        for (var prioridade : Prioridade.values()) {
+            var cor = switch (prioridade) {
+                case ALTA -> "red";
+                case MEDIA -> "orange";
+                case BAIXA -> "green";
+            };
+            INICIO_LINHA[prioridade.ordinal()] =
+                "<p><font color='" + cor + "'>• [" + prioridade + "]</font> <b>";
+        }
+    }
+
+    private final Writer saida;
+
+    /** Buffer reutilizado para formatar datas no padrão "yyyy-MM-dd HH:mm:ss". */
+    private final char[] data = new char[19];
+
+    RelatorioHTML(OutputStream saida) {
+        this.saida = new BufferedWriter(
+            new OutputStreamWriter(saida, StandardCharsets.UTF_8), TAMANHO_BUFFER);
+    }
+
+    /**
+     * Gera o relatório completo de um gestor qualquer, a partir de um
+     * instantâneo das suas tarefas (ver {@link InstantaneoDeTarefas#de(IGestorDeTarefas)}).
+     * A saída não é fechada.
+     *
+     * <p>Num gestor concorrente, o relatório reflete um único instante:
+     * cada tarefa aparece uma só vez, na secção do estado que tinha nesse
+     * instante, mesmo que mude de estado durante a geração.</p>
+     *
+     * @param saida fluxo onde o relatório é escrito
+     * @param gestor gestor cujas tarefas são apresentadas
+     * @throws IOException se ocorrer um erro de escrita
+     */
+    static void gerar(OutputStream saida, IGestorDeTarefas gestor) throws IOException {
+        InstantaneoDeTarefas.de(gestor).gerarRelatorioHTML(saida);
+    }
+
+    void cabecalho(LocalDateTime geradoEm) throws IOException {
+        linha("<!DOCTYPE html>");
+        linha("<html lang='pt-PT'>");
+        linha("<head>");
+        linha("  <meta charset='UTF-8'>");
+        linha("  <title>Relatório de Tarefas</title>");
+        linha("</head>");
+        linha("<body>");
+        linha("<h1>Relatório de Tarefas</h1>");
+        saida.write("<p>Gerado em: ");
+        data(geradoEm);
+        linha("</p>");
+        linha("<hr>");
+    }
+
+    /** Escreve o título da secção de um estado e, se estiver vazia, a respetiva indicação. */
+    void inicioSeccao(Estado estado, boolean vazia) throws IOException {
+        var nome = switch (estado) {
+            case PENDENTE -> "pendentes";
+            case EM_PROGRESSO -> "em progresso";
+            case CONCLUIDA -> "concluídas";
+        };
+        var titulo = switch (estado) {
+            case PENDENTE -> "Pendentes";
+            case EM_PROGRESSO -> "em Progresso";
+            case CONCLUIDA -> "Concluídas";
+        };
+
+        linha("<h2>Tarefas " + titulo + "</h2>");
+        if (vazia) {
+            linha("<p><i>Não existem tarefas " + nome + ".</i></p>");
+        }
+    }
+
+    /** Escreve a linha do relatório correspondente a uma tarefa. */
+    void linha(Tarefa tarefa) throws IOException {
+        saida.write(INICIO_LINHA[tarefa.getPrioridade().ordinal()]);
+        texto(tarefa.getTitulo());
+        saida.write(ANTES_DESCRICAO);
+        texto(tarefa.getDescricao());
+        saida.write(ANTES_DATA);
+        data(tarefa.getDataCriacao());
+        saida.write(FIM_LINHA);
+    }
+
+    void rodape() throws IOException {
+        linha("<hr>");
+        linha("</body>");
+        linha("</html>");
+    }
+
+    /** Esvazia o buffer, sem fechar a saída. */
+    void despejar() throws IOException {
+        saida.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        saida.close();
+    }
+
+    private void linha(String texto) throws IOException {
+        saida.write(texto);
+        saida.write(NOVA_LINHA);
+    }
+
+    /** Escreve um texto da tarefa, com os caracteres especiais do HTML escapados. */
+    private void texto(String valor) throws IOException {
+        if (valor == null) {
+            saida.write("null");
+            return;
+        }
+
+        var inicio = 0;
+        for (int i = 0; i < valor.length(); i++) {
+            var entidade = switch (valor.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (entidade != null) {
+                saida.write(valor, inicio, i - inicio);
+                saida.write(entidade);
+                inicio = i + 1;
+            }
+        }
+        saida.write(valor, inicio, valor.length() - inicio);
+    }
+
+    /** Formata uma data no padrão de {@link Tarefa#FORMATO_DATA} sem criar objetos. */
+    private void data(LocalDateTime valor) throws IOException {
+        if (valor == null || valor.getYear() < 0 || valor.getYear() > 9999) {
+            // Fora do intervalo de quatro dígitos, delega no formatador
+            saida.write(valor == null ? "null" : Tarefa.FORMATO_DATA.format(valor));
+            return;
+        }
+
+        digitos(0, valor.getYear(), 4);
+        data[4] = '-';
+        digitos(5, valor.getMonthValue(), 2);
+        data[7] = '-';
+        digitos(8, valor.getDayOfMonth(), 2);
+        data[10] = ' ';
+        digitos(11, valor.getHour(), 2);
+        data[13] = ':';
+        digitos(14, valor.getMinute(), 2);
+        data[16] = ':';
+        digitos(17, valor.getSecond(), 2);
+        saida.write(data, 0, data.length);
+    }
+
+    private void digitos(int posicao, int valor, int largura) {
+        for (int i = posicao + largura - 1; i >= posicao; i--) {
+            data[i] = (char) ('0' + valor % 10);
+            valor /= 10;
+        }
+    }
+}
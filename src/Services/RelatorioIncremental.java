@@ -0,0 +1,226 @@
+package Services;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Relatório HTML regenerado de forma incremental.
+ *
+ * <p>As linhas de cada grupo (estado, prioridade) são divididas em
+ * fragmentos de até {@value #TAREFAS_POR_FRAGMENTO} tarefas, cujo HTML fica
+ * guardado em memória já codificado em UTF-8. O relatório acompanha as
+ * alterações do gestor como {@link ObservadorDeAlteracoes} e apenas marca
+ * como desatualizados os fragmentos onde uma tarefa entrou ou de onde saiu;
+ * na geração seguinte só esses fragmentos são novamente produzidos e o
+ * ficheiro é composto a partir dos restantes, tal como estão.</p>
+ *
+ * <p>A ordem dos fragmentos acompanha a dos grupos do gestor (as tarefas
+ * entram sempre no fim do grupo), pelo que o resultado é idêntico ao de
+ * percorrer cada estado com {@link GestorDeTarefas#percorrerPorEstado(Estado)}.
+ * Uma substituição de todas as tarefas invalida todos os fragmentos.</p>
+ *
+ * <p>Quando as alterações acompanhadas desde a última geração excedem o
+ * número de tarefas, a geração seguinte seria quase toda feita de novo e
+ * manter os fragmentos só custa memória e tempo em cada alteração: o
+ * relatório descarta-os e fica {@linkplain #isAbandonado() abandonado}, para
+ * que o gestor deixe de o notificar.</p>
+ */
+final class RelatorioIncremental implements ObservadorDeAlteracoes {
+
+    static final int TAREFAS_POR_FRAGMENTO = 1024;
+
+    /** Conjunto contíguo de linhas de um grupo e o respetivo HTML. */
+    private static final class Fragmento {
+        final List<Tarefa> tarefas = new ArrayList<>();
+        /** HTML das linhas, ou {@code null} se estiver desatualizado. */
+        byte[] conteudo;
+    }
+
+    /** Fragmentos de cada grupo, pela ordem das tarefas no grupo. */
+    private final Map<Estado, Map<Prioridade, List<Fragmento>>> fragmentos = new EnumMap<>(Estado.class);
+
+    /** Fragmento onde se encontra cada tarefa. */
+    private final Map<Tarefa, Fragmento> fragmentoDe = new HashMap<>();
+
+    /** Indica que os fragmentos têm de ser reconstruídos a partir do gestor. */
+    private boolean invalido = true;
+
+    /** Alterações acompanhadas desde a última geração. */
+    private int alteracoes;
+
+    /** Indica que os fragmentos foram descartados por terem deixado de compensar. */
+    private boolean abandonado;
+
+    private final ByteArrayOutputStream memoria = new ByteArrayOutputStream();
+    private final RelatorioHTML renderizador = new RelatorioHTML(memoria);
+
+    RelatorioIncremental() {
+        for (var estado : Estado.values()) {
+            Map<Prioridade, List<Fragmento>> porPrioridade = new EnumMap<>(Prioridade.class);
+            for (var prioridade : Prioridade.values()) {
+                porPrioridade.put(prioridade, new ArrayList<>());
+            }
+            fragmentos.put(estado, porPrioridade);
+        }
+    }
+
+    /**
+     * Escreve o relatório, produzindo apenas os fragmentos desatualizados.
+     *
+     * @param caminho ficheiro HTML a criar
+     * @param porEstado índice por estado e prioridade do gestor
+     * @throws IOException se ocorrer um erro de escrita
+     */
+    void gerar(Path caminho, Map<Estado, Map<Prioridade, Set<Tarefa>>> porEstado) throws IOException {
+        if (invalido) {
+            reconstruir(porEstado);
+        }
+        alteracoes = 0;
+        abandonado = false;
+
+        try (var saida = new BufferedOutputStream(Files.newOutputStream(caminho), RelatorioHTML.TAMANHO_BUFFER)) {
+            renderizador.cabecalho(LocalDateTime.now());
+            saida.write(conteudo());
+
+            for (var estado : Estado.values()) {
+                var grupos = fragmentos.get(estado);
+                var vazia = porEstado.get(estado).values().stream().allMatch(Set::isEmpty);
+
+                renderizador.inicioSeccao(estado, vazia);
+                saida.write(conteudo());
+
+                for (var grupo : grupos.values()) {
+                    for (var fragmento : grupo) {
+                        if (fragmento.conteudo == null) {
+                            for (var tarefa : fragmento.tarefas) {
+                                renderizador.linha(tarefa);
+                            }
+                            fragmento.conteudo = conteudo();
+                        }
+                        saida.write(fragmento.conteudo);
+                    }
+                }
+            }
+
+            renderizador.rodape();
+            saida.write(conteudo());
+        }
+    }
+
+    /**
+     * Indica que os fragmentos foram descartados porque as alterações desde a
+     * última geração excederam o número de tarefas.
+     */
+    boolean isAbandonado() {
+        return abandonado;
+    }
+
+    @Override
+    public void tarefaAdicionada(Tarefa tarefa) {
+        if (!invalido) {
+            acrescentar(tarefa, tarefa.getEstado());
+            contarAlteracao();
+        }
+    }
+
+    @Override
+    public void tarefaRemovida(Tarefa tarefa) {
+        if (!invalido) {
+            retirar(tarefa, tarefa.getEstado());
+            contarAlteracao();
+        }
+    }
+
+    @Override
+    public void estadoAlterado(Tarefa tarefa, Estado anterior, Estado novo) {
+        if (!invalido) {
+            retirar(tarefa, anterior);
+            acrescentar(tarefa, novo);
+            contarAlteracao();
+        }
+    }
+
+    @Override
+    public void tarefasSubstituidas() {
+        invalido = true;
+        fragmentoDe.clear();
+        for (var grupos : fragmentos.values()) {
+            for (var grupo : grupos.values()) {
+                grupo.clear();
+            }
+        }
+    }
+
+    /** Descarta os fragmentos quando as alterações desde a última geração excedem o número de tarefas. */
+    private void contarAlteracao() {
+        if (++alteracoes > fragmentoDe.size()) {
+            tarefasSubstituidas();
+            abandonado = true;
+        }
+    }
+
+    /** Reparte todas as tarefas do gestor por fragmentos ainda por produzir. */
+    private void reconstruir(Map<Estado, Map<Prioridade, Set<Tarefa>>> porEstado) {
+        tarefasSubstituidas();
+
+        for (var estado : Estado.values()) {
+            for (var grupo : porEstado.get(estado).values()) {
+                for (var tarefa : grupo) {
+                    acrescentar(tarefa, estado);
+                }
+            }
+        }
+        invalido = false;
+    }
+
+    /** Acrescenta a tarefa ao último fragmento do grupo, que fica desatualizado. */
+    private void acrescentar(Tarefa tarefa, Estado estado) {
+        var grupo = fragmentos.get(estado).get(tarefa.getPrioridade());
+        var ultimo = grupo.isEmpty() ? null : grupo.get(grupo.size() - 1);
+
+        if (ultimo == null || ultimo.tarefas.size() >= TAREFAS_POR_FRAGMENTO) {
+            ultimo = new Fragmento();
+            grupo.add(ultimo);
+        }
+
+        ultimo.tarefas.add(tarefa);
+        ultimo.conteudo = null;
+        fragmentoDe.put(tarefa, ultimo);
+    }
+
+    /** Retira a tarefa do seu fragmento, que fica desatualizado (ou é descartado, se ficar vazio). */
+    private void retirar(Tarefa tarefa, Estado estado) {
+        var fragmento = fragmentoDe.remove(tarefa);
+        if (fragmento == null) {
+            return;
+        }
+
+        fragmento.tarefas.remove(tarefa);
+        fragmento.conteudo = null;
+
+        if (fragmento.tarefas.isEmpty()) {
+            fragmentos.get(estado).get(tarefa.getPrioridade()).remove(fragmento);
+        }
+    }
+
+    /** Devolve o HTML produzido desde a última chamada. */
+    private byte[] conteudo() throws IOException {
+        renderizador.despejar();
+        var bytes = memoria.toByteArray();
+        memoria.reset();
+        return bytes;
+    }
+}
@@ -0,0 +1,86 @@
+package Services;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Conjunto de textos sem repetições, identificados por um número inteiro.
+ *
+ * <p>Um texto guardado várias vezes ocupa uma única entrada, com um
+ * contador de referências; quando o contador chega a zero, a entrada é
+ * libertada e o seu número reutilizado. O texto {@code null} é representado
+ * pelo número -1 e não ocupa nenhuma entrada.</p>
+ */
+final class ReservatorioDeTextos {
+
+    /** Número que representa o texto {@code null}. */
+    static final int NULO = -1;
+
+    private final Map<String, Integer> numeros = new HashMap<>();
+
+    private String[] textos = new String[16];
+    private int[] referencias = new int[16];
+
+    /** Números libertados, por reutilizar. */
+    private int[] livres = new int[16];
+    private int quantidadeLivres;
+
+    private int proximo;
+
+    /**
+     * Acrescenta uma referência ao texto indicado, guardando-o se ainda não existir.
+     *
+     * @return número do texto
+     */
+    int guardar(String texto) {
+        if (texto == null) {
+            return NULO;
+        }
+
+        var existente = numeros.get(texto);
+        if (existente != null) {
+            referencias[existente]++;
+            return existente;
+        }
+
+        int numero;
+        if (quantidadeLivres > 0) {
+            numero = livres[--quantidadeLivres];
+        } else {
+            numero = proximo++;
+            if (numero == textos.length) {
+                textos = Arrays.copyOf(textos, numero * 2);
+                referencias = Arrays.copyOf(referencias, numero * 2);
+            }
+        }
+        textos[numero] = texto;
+        referencias[numero] = 1;
+        numeros.put(texto, numero);
+        return numero;
+    }
+
+    /** Texto com o número indicado. */
+    String texto(int numero) {
+        return numero != NULO ? textos[numero] : null;
+    }
+
+    /** Retira uma referência ao texto, libertando-o se for a última. */
+    void libertar(int numero) {
+        if (numero == NULO || --referencias[numero] > 0) {
+            return;
+        }
+
+        numeros.remove(textos[numero]);
+        textos[numero] = null;
+        if (quantidadeLivres == livres.length) {
+            livres = Arrays.copyOf(livres, quantidadeLivres * 2);
+        }
+        livres[quantidadeLivres++] = numero;
+    }
+
+    /** Número de textos distintos guardados. */
+    int tamanho() {
+        return numeros.size();
+    }
+}
@@ -0,0 +1,87 @@
+package Services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Resultado de uma {@link Agregacao}: um grupo por combinação de estado,
+ * prioridade e período com pelo menos uma tarefa, ordenados pelo período e,
+ * dentro deste, pelo estado e pela prioridade.
+ */
+public class ResultadoAgregacao {
+
+    /**
+     * Estatísticas de um grupo de tarefas.
+     *
+     * @param estado estado das tarefas, ou {@code null} se não se agrupou por estado
+     * @param prioridade prioridade das tarefas, ou {@code null} se não se agrupou por prioridade
+     * @param periodo primeiro dia do período, ou {@code null} se não se agrupou por
+     *        período ou se as tarefas não têm data de criação
+     * @param contagem número de tarefas do grupo
+     * @param proporcao fração do total de tarefas da consulta (entre 0 e 1)
+     * @param maisAntiga data de criação mais antiga, ou {@code null} sem idades ou sem datas
+     * @param maisRecente data de criação mais recente, ou {@code null} sem idades ou sem datas
+     * @param idades idade correspondente a cada percentil pedido (vazio sem idades ou
+     *        sem datas); cada valor tem um erro relativo inferior a 1/32
+     */
+    public record Grupo(Estado estado, Prioridade prioridade, LocalDate periodo, long contagem,
+            double proporcao, LocalDateTime maisAntiga, LocalDateTime maisRecente, Map<Double, Duration> idades) {
+
+        public Grupo {
+            idades = Map.copyOf(idades);
+        }
+
+        /**
+         * Idade correspondente a um dos percentis pedidos.
+         *
+         * @throws IllegalArgumentException se o percentil não tiver sido pedido
+         *         ou se nenhuma tarefa do grupo tiver data de criação
+         */
+        public Duration idade(double percentil) {
+            var idade = idades.get(percentil);
+            if (idade == null) {
+                throw new IllegalArgumentException("Não existe idade para o percentil " + percentil + ".");
+            }
+            return idade;
+        }
+    }
+
+    private final List<Grupo> grupos;
+    private final long total;
+    private final boolean incremental;
+
+    ResultadoAgregacao(List<Grupo> grupos, long total, boolean incremental) {
+        this.grupos = List.copyOf(grupos);
+        this.total = total;
+        this.incremental = incremental;
+    }
+
+    /** Grupos com pelo menos uma tarefa. */
+    public List<Grupo> getGrupos() {
+        return grupos;
+    }
+
+    /** Número de tarefas abrangidas pela consulta, em todos os grupos. */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Indica se o resultado foi obtido das contagens mantidas pelo gestor,
+     * sem percorrer as tarefas.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    @Override
+    public String toString() {
+        return grupos.size() + " grupos, " + total + " tarefas";
+    }
+}
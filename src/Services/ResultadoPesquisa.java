@@ -0,0 +1,39 @@
+package Services;
+
+import java.util.List;
+
+/**
+ * Página de resultados de uma {@link Pesquisa}, ordenados por relevância.
+ */
+public class ResultadoPesquisa {
+
+    private final List<Tarefa> tarefas;
+    private final int total;
+    private final int pagina;
+
+    ResultadoPesquisa(List<Tarefa> tarefas, int total, int pagina) {
+        this.tarefas = List.copyOf(tarefas);
+        this.total = total;
+        this.pagina = pagina;
+    }
+
+    /** Tarefas da página, da mais para a menos relevante. */
+    public List<Tarefa> getTarefas() {
+        return tarefas;
+    }
+
+    /** Número total de tarefas que correspondem à pesquisa, em todas as páginas. */
+    public int getTotal() {
+        return total;
+    }
+
+    /** Número da página devolvida (a partir de 0). */
+    public int getPagina() {
+        return pagina;
+    }
+
+    @Override
+    public String toString() {
+        return "Página " + pagina + ": " + tarefas.size() + " de " + total + " tarefas";
+    }
+}
@@ -0,0 +1,406 @@
+package Services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import Entities.Estado;
+import Entities.Prioridade;
+import Entities.TarefaNaoEncontradaException;
+import Interfaces.IGestorDeTarefas;
+
+/**
+ * Servidor HTTP que expõe as operações de um {@link IGestorDeTarefas}.
+ *
+ * <p>Usa o servidor HTTP incluído no JDK ({@code com.sun.net.httpserver}),
+ * com uma thread virtual por pedido e ligações persistentes (keep-alive),
+ * com {@code TCP_NODELAY} ativo.
+ * Como os pedidos são atendidos em simultâneo, o gestor tem de ser seguro
+ * para utilização concorrente (por exemplo, um {@link GestorDeTarefasConcorrente}).
+ * As listagens completas, o relatório e a exportação XML são escritos em
+ * fluxo contínuo (chunked), sem construir a resposta em memória.</p>
+ *
+ * <table>
+ *   <caption>Recursos</caption>
+ *   <tr><td>{@code GET /tarefas}</td><td>todas as tarefas (JSON, em fluxo); com
+ *       {@code ?estado=} só as desse estado; com {@code ?inicio=&quantidade=} uma
+ *       página por posição; com {@code ?cursor=&quantidade=} uma página por cursor</td></tr>
+ *   <tr><td>{@code POST /tarefas}</td><td>adiciona uma tarefa (formulário com
+ *       {@code titulo}, {@code descricao} e {@code prioridade})</td></tr>
+ *   <tr><td>{@code GET /tarefas/{titulo}}</td><td>uma tarefa</td></tr>
+ *   <tr><td>{@code DELETE /tarefas/{titulo}}</td><td>remove uma tarefa</td></tr>
+ *   <tr><td>{@code PUT /tarefas/{titulo}/estado}</td><td>altera o estado
+ *       (formulário com {@code estado})</td></tr>
+ *   <tr><td>{@code GET /contagem}</td><td>número de tarefas, opcionalmente com
+ *       {@code ?estado=&prioridade=}</td></tr>
+ *   <tr><td>{@code GET /relatorio}</td><td>relatório HTML (ver {@link RelatorioHTML})</td></tr>
+ *   <tr><td>{@code GET /exportacao}</td><td>todas as tarefas no formato XML da aplicação</td></tr>
+ * </table>
+ *
+ * <p>O servidor não autentica os pedidos: qualquer cliente que alcance o
+ * endereço de escuta pode alterar as tarefas.</p>
+ *
+ * <p>Os erros de validação respondem 400, as tarefas inexistentes 404 e os
+ * métodos não suportados 405, sempre com a mensagem em texto simples.</p>
+ */
+public final class ServidorHTTP implements AutoCloseable {
+
+    /** Porta usada por omissão. */
+    public static final int PORTA = 8080;
+
+    /** Número de ligações pendentes aceites pelo socket do servidor. */
+    private static final int LIGACOES_PENDENTES = 1024;
+
+    /** Dimensão do buffer das respostas em fluxo. */
+    private static final int TAMANHO_BUFFER = 1 << 16;
+
+    /** Dimensão máxima aceite para o corpo de um pedido. */
+    private static final int TAMANHO_MAXIMO_PEDIDO = 1 << 20;
+
+    /** Quantidade por página quando o pedido não a indica. */
+    private static final int QUANTIDADE_POR_OMISSAO = 100;
+
+    /**
+     * Propriedade do servidor do JDK que ativa {@code TCP_NODELAY}. Sem ela,
+     * como os cabeçalhos e o corpo de cada resposta seguem em escritas
+     * separadas, o algoritmo de Nagle e o ACK atrasado do cliente somam
+     * dezenas de milissegundos a cada pedido numa ligação persistente.
+     */
+    private static final String SEM_ATRASO = "sun.net.httpserver.nodelay";
+
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String TEXTO = "text/plain; charset=utf-8";
+
+    private final IGestorDeTarefas gestor;
+    private final HttpServer servidor;
+    private final ExecutorService executor;
+
+    private ServidorHTTP(IGestorDeTarefas gestor, HttpServer servidor, ExecutorService executor) {
+        this.gestor = gestor;
+        this.servidor = servidor;
+        this.executor = executor;
+    }
+
+    /**
+     * Inicia o servidor no endereço de loopback, na porta indicada. Como o
+     * servidor não tem autenticação, só é acessível a partir da própria
+     * máquina; para escutar noutras interfaces, o endereço tem de ser
+     * indicado explicitamente.
+     *
+     * @see #iniciar(IGestorDeTarefas, InetSocketAddress)
+     */
+    public static ServidorHTTP iniciar(IGestorDeTarefas gestor, int porta) throws IOException {
+        return iniciar(gestor, new InetSocketAddress(InetAddress.getLoopbackAddress(), porta));
+    }
+
+    /**
+     * Inicia o servidor no endereço indicado.
+     *
+     * @param gestor gestor a expor, seguro para utilização concorrente
+     * @param endereco endereço de escuta (porta 0 para uma porta livre)
+     * @return servidor iniciado, a fechar para libertar a porta
+     * @throws IOException se não for possível escutar no endereço
+     */
+    public static ServidorHTTP iniciar(IGestorDeTarefas gestor, InetSocketAddress endereco) throws IOException {
+        if (gestor == null) {
+            throw new IllegalArgumentException("O gestor não pode ser nulo.");
+        }
+
+        if (System.getProperty(SEM_ATRASO) == null) {
+            System.setProperty(SEM_ATRASO, "true");
+        }
+
+        var servidor = HttpServer.create(endereco, LIGACOES_PENDENTES);
+        var executor = Executors.newVirtualThreadPerTaskExecutor();
+        var http = new ServidorHTTP(gestor, servidor, executor);
+
+        servidor.createContext("/tarefas", troca -> http.atender(troca, http::tarefas));
+        servidor.createContext("/contagem", troca -> http.atender(troca, http::contagem));
+        servidor.createContext("/relatorio", troca -> http.atender(troca, http::relatorio));
+        servidor.createContext("/exportacao", troca -> http.atender(troca, http::exportacao));
+        servidor.setExecutor(executor);
+        servidor.start();
+        return http;
+    }
+
+    /** Endereço em que o servidor está a escutar. */
+    public InetSocketAddress getEndereco() {
+        return servidor.getAddress();
+    }
+
+    /** Deixa de aceitar ligações e espera que os pedidos em curso terminem. */
+    @Override
+    public void close() {
+        servidor.stop(0);
+        executor.close();
+    }
+
+    /** Tratamento de um recurso. */
+    @FunctionalInterface
+    private interface Recurso {
+        void tratar(HttpExchange troca) throws IOException, TarefaNaoEncontradaException;
+    }
+
+    /** Atende um pedido, convertendo as exceções nas respostas de erro correspondentes. */
+    private void atender(HttpExchange troca, Recurso recurso) {
+        try {
+            recurso.tratar(troca);
+        } catch (TarefaNaoEncontradaException e) {
+            erro(troca, 404, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            erro(troca, 400, e.getMessage());
+        } catch (IOException e) {
+            // o cliente fechou a ligação a meio da resposta
+        } catch (RuntimeException e) {
+            erro(troca, 500, "Erro interno: " + e);
+        } finally {
+            troca.close();
+        }
+    }
+
+    /** {@code /tarefas}, {@code /tarefas/{titulo}} e {@code /tarefas/{titulo}/estado}. */
+    private void tarefas(HttpExchange troca) throws IOException, TarefaNaoEncontradaException {
+        var caminho = troca.getRequestURI().getRawPath().substring("/tarefas".length());
+        var metodo = troca.getRequestMethod();
+
+        if (caminho.isEmpty() || caminho.equals("/")) {
+            switch (metodo) {
+                case "GET" -> listar(troca, parametros(troca.getRequestURI().getRawQuery()));
+                case "POST" -> adicionar(troca, parametros(corpo(troca)));
+                default -> metodoNaoPermitido(troca, "GET, POST");
+            }
+            return;
+        }
+
+        if (caminho.charAt(0) != '/') {
+            erro(troca, 404, "Recurso inexistente.");
+            return;
+        }
+
+        var segmentos = caminho.substring(1).split("/", -1);
+        var titulo = decodificarSegmento(segmentos[0]);
+
+        if (segmentos.length == 1) {
+            switch (metodo) {
+                case "GET" -> responder(troca, 200, JSON,
+                        JSONDeTarefas.tarefa(new StringBuilder(256), gestor.buscarPorTitulo(titulo)).toString());
+                case "DELETE" -> {
+                    gestor.removerTarefa(titulo);
+                    troca.sendResponseHeaders(204, -1);
+                }
+                default -> metodoNaoPermitido(troca, "GET, DELETE");
+            }
+        } else if (segmentos.length == 2 && segmentos[1].equals("estado")) {
+            if (!metodo.equals("PUT")) {
+                metodoNaoPermitido(troca, "PUT");
+                return;
+            }
+            gestor.alterarEstado(titulo, Estado.valueOf(obrigatorio(parametros(corpo(troca)), "estado")));
+            troca.sendResponseHeaders(204, -1);
+        } else {
+            erro(troca, 404, "Recurso inexistente.");
+        }
+    }
+
+    private void listar(HttpExchange troca, Map<String, String> parametros) throws IOException {
+        var estado = parametros.get("estado");
+        var inicio = parametros.get("inicio");
+        var quantidade = parametros.get("quantidade");
+        var cursor = parametros.get("cursor");
+
+        if (inicio != null) {
+            var pagina = gestor.listarTarefas(Integer.parseInt(inicio), inteiro(quantidade));
+            responder(troca, 200, JSON, lista(new StringBuilder(256 * pagina.size()), pagina).toString());
+        } else if (cursor != null || quantidade != null) {
+            var pagina = gestor.listarPagina(cursor, inteiro(quantidade));
+            var json = new StringBuilder(256 * pagina.getTarefas().size()).append("{\"tarefas\":");
+            lista(json, pagina.getTarefas()).append(",\"proximoCursor\":");
+            JSONDeTarefas.texto(json, pagina.getProximoCursor()).append('}');
+            responder(troca, 200, JSON, json.toString());
+        } else if (estado != null) {
+            listarEmFluxo(troca, gestor.percorrerPorEstado(Estado.valueOf(estado)).iterator());
+        } else {
+            listarEmFluxo(troca, gestor.percorrerTarefas().iterator());
+        }
+    }
+
+    /** Escreve uma listagem completa como um array JSON, tarefa a tarefa. */
+    private static void listarEmFluxo(HttpExchange troca, Iterator<Tarefa> tarefas) throws IOException {
+        troca.getResponseHeaders().set("Content-Type", JSON);
+        troca.sendResponseHeaders(200, 0);
+
+        try (var saida = new BufferedWriter(
+                new OutputStreamWriter(troca.getResponseBody(), StandardCharsets.UTF_8), TAMANHO_BUFFER)) {
+
+            var json = new StringBuilder(256);
+            saida.write('[');
+            for (var primeira = true; tarefas.hasNext(); primeira = false) {
+                json.setLength(0);
+                if (!primeira) {
+                    json.append(',');
+                }
+                JSONDeTarefas.tarefa(json, tarefas.next());
+                saida.append(json);
+            }
+            saida.write(']');
+        }
+    }
+
+    private void adicionar(HttpExchange troca, Map<String, String> parametros) throws IOException {
+        var prioridade = parametros.get("prioridade");
+        var tarefa = new Tarefa(obrigatorio(parametros, "titulo"), parametros.get("descricao"),
+                prioridade != null ? Prioridade.valueOf(prioridade) : null);
+        gestor.adicionarTarefa(tarefa);
+
+        troca.getResponseHeaders().set("Location",
+                "/tarefas/" + URLEncoder.encode(tarefa.getTitulo(), StandardCharsets.UTF_8).replace("+", "%20"));
+        responder(troca, 201, JSON, JSONDeTarefas.tarefa(new StringBuilder(256), tarefa).toString());
+    }
+
+    /** {@code GET /contagem}. */
+    private void contagem(HttpExchange troca) throws IOException {
+        if (!troca.getRequestMethod().equals("GET")) {
+            metodoNaoPermitido(troca, "GET");
+            return;
+        }
+
+        var parametros = parametros(troca.getRequestURI().getRawQuery());
+        var estado = parametros.get("estado");
+        var prioridade = parametros.get("prioridade");
+
+        int total;
+        if (prioridade != null) {
+            total = gestor.contarTarefas(Estado.valueOf(obrigatorio(parametros, "estado")), Prioridade.valueOf(prioridade));
+        } else if (estado != null) {
+            total = gestor.contarTarefas(Estado.valueOf(estado));
+        } else {
+            total = gestor.contarTarefas();
+        }
+        responder(troca, 200, JSON, "{\"total\":" + total + "}");
+    }
+
+    /** {@code GET /relatorio}. */
+    private void relatorio(HttpExchange troca) throws IOException {
+        if (!troca.getRequestMethod().equals("GET")) {
+            metodoNaoPermitido(troca, "GET");
+            return;
+        }
+
+        troca.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        troca.sendResponseHeaders(200, 0);
+        try (var saida = troca.getResponseBody()) {
+            RelatorioHTML.gerar(saida, gestor);
+        }
+    }
+
+    /** {@code GET /exportacao}: as tarefas de um instantâneo do gestor, com o estado que tinham nesse instante. */
+    private void exportacao(HttpExchange troca) throws IOException {
+        if (!troca.getRequestMethod().equals("GET")) {
+            metodoNaoPermitido(troca, "GET");
+            return;
+        }
+
+        var instantaneo = InstantaneoDeTarefas.de(gestor);
+        troca.getResponseHeaders().set("Content-Type", "application/xml; charset=utf-8");
+        troca.sendResponseHeaders(200, 0);
+        instantaneo.escreverXML(troca.getResponseBody());
+    }
+
+    private static StringBuilder lista(StringBuilder json, List<Tarefa> tarefas) {
+        json.append('[');
+        for (var i = 0; i < tarefas.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            JSONDeTarefas.tarefa(json, tarefas.get(i));
+        }
+        return json.append(']');
+    }
+
+    private static void responder(HttpExchange troca, int codigo, String tipo, String corpo) throws IOException {
+        var bytes = corpo.getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type", tipo);
+        troca.sendResponseHeaders(codigo, bytes.length);
+        try (var saida = troca.getResponseBody()) {
+            saida.write(bytes);
+        }
+    }
+
+    /** Responde com um erro, se a resposta ainda não tiver começado. */
+    private static void erro(HttpExchange troca, int codigo, String mensagem) {
+        if (troca.getResponseCode() != -1) {
+            return;
+        }
+        try {
+            responder(troca, codigo, TEXTO, mensagem != null ? mensagem : "");
+        } catch (IOException e) {
+            // o cliente já não está à espera da resposta
+        }
+    }
+
+    private static void metodoNaoPermitido(HttpExchange troca, String permitidos) throws IOException {
+        troca.getResponseHeaders().set("Allow", permitidos);
+        responder(troca, 405, TEXTO, "Método não suportado: " + troca.getRequestMethod() + ".");
+    }
+
+    /** Lê o corpo do pedido como texto (um formulário codificado). */
+    private static String corpo(HttpExchange troca) throws IOException {
+        try (var entrada = troca.getRequestBody()) {
+            var bytes = entrada.readNBytes(TAMANHO_MAXIMO_PEDIDO + 1);
+            if (bytes.length > TAMANHO_MAXIMO_PEDIDO) {
+                throw new IllegalArgumentException("O corpo do pedido excede " + TAMANHO_MAXIMO_PEDIDO + " bytes.");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Descodifica os parâmetros de uma query string ou de um formulário. */
+    private static Map<String, String> parametros(String codificados) {
+        Map<String, String> parametros = new HashMap<>();
+        if (codificados == null || codificados.isEmpty()) {
+            return parametros;
+        }
+
+        for (var par : codificados.split("&")) {
+            if (par.isEmpty()) {
+                continue;
+            }
+            var igual = par.indexOf('=');
+            var nome = igual < 0 ? par : par.substring(0, igual);
+            var valor = igual < 0 ? "" : par.substring(igual + 1);
+            parametros.put(URLDecoder.decode(nome, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    /** Descodifica um segmento do caminho, onde {@code +} não representa um espaço. */
+    private static String decodificarSegmento(String segmento) {
+        return URLDecoder.decode(segmento.replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+
+    private static String obrigatorio(Map<String, String> parametros, String nome) {
+        var valor = parametros.get(nome);
+        if (valor == null) {
+            throw new IllegalArgumentException("Falta o parâmetro '" + nome + "'.");
+        }
+        return valor;
+    }
+
+    private static int inteiro(String valor) {
+        return valor != null ? Integer.parseInt(valor) : QUANTIDADE_POR_OMISSAO;
+    }
+}
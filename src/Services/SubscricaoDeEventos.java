@@ -0,0 +1,146 @@
+package Services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Subscrição dos eventos de alteração de um {@link GestorDeTarefas}.
+ *
+ * <p>Cada subscrição tem uma thread própria, que lê os eventos do canal e
+ * os entrega ao ouvinte em lotes de até {@value #TAMANHO_LOTE} eventos.
+ * As exceções lançadas pelo ouvinte não interrompem a entrega: são
+ * contadas e a última fica disponível em {@link #getUltimaFalha()}.</p>
+ *
+ * <p>A subscrição termina com {@link #close()}, depois de entregue o lote
+ * em curso; os eventos ainda não entregues são ignorados.</p>
+ */
+public final class SubscricaoDeEventos implements AutoCloseable {
+
+    /** Número máximo de eventos entregues ao ouvinte de cada vez. */
+    public static final int TAMANHO_LOTE = 256;
+
+    /** Tempo máximo de espera sem eventos, como salvaguarda contra acordares perdidos. */
+    private static final long ESPERA_MAXIMA_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final AtomicInteger NUMERO = new AtomicInteger();
+
+    private final CanalDeEventos canal;
+    private final OuvinteDeTarefas ouvinte;
+    final PoliticaDeSobrecarga politica;
+    private final Thread entregador;
+
+    /** Sequência do próximo evento a ler do canal. */
+    volatile long proxima;
+
+    /** Eventos reescritos no canal antes de serem lidos. */
+    final LongAdder descartados = new LongAdder();
+
+    private volatile boolean aEsperar;
+    private volatile boolean ativa = true;
+    private volatile long entregues;
+    private volatile long falhas;
+    private volatile RuntimeException ultimaFalha;
+
+    SubscricaoDeEventos(CanalDeEventos canal, OuvinteDeTarefas ouvinte, PoliticaDeSobrecarga politica,
+            long inicio) {
+        this.canal = canal;
+        this.ouvinte = ouvinte;
+        this.politica = politica;
+        this.proxima = inicio;
+        this.entregador = new Thread(this::entregarLotes, "subscritor-de-eventos-" + NUMERO.incrementAndGet());
+        this.entregador.setDaemon(true);
+    }
+
+    void iniciar() {
+        entregador.start();
+    }
+
+    /** Acorda a thread da subscrição, se estiver à espera de eventos. */
+    void acordar() {
+        if (aEsperar) {
+            LockSupport.unpark(entregador);
+        }
+    }
+
+    public PoliticaDeSobrecarga getPolitica() {
+        return politica;
+    }
+
+    /** Número de eventos já entregues ao ouvinte. */
+    public long getEntregues() {
+        return entregues;
+    }
+
+    /** Número de eventos perdidos por o ouvinte não acompanhar o ritmo das alterações. */
+    public long getDescartados() {
+        return descartados.sum();
+    }
+
+    /** Número de lotes em que o ouvinte lançou uma exceção. */
+    public long getFalhas() {
+        return falhas;
+    }
+
+    /** Última exceção lançada pelo ouvinte, ou {@code null} se nunca falhou. */
+    public RuntimeException getUltimaFalha() {
+        return ultimaFalha;
+    }
+
+    public boolean isAtiva() {
+        return ativa;
+    }
+
+    /**
+     * Termina a subscrição e espera que a entrega em curso termine (exceto
+     * quando chamado pelo próprio ouvinte).
+     */
+    @Override
+    public void close() {
+        if (!ativa) {
+            return;
+        }
+        ativa = false;
+        canal.cancelar(this);
+        LockSupport.unpark(entregador);
+
+        if (Thread.currentThread() != entregador) {
+            try {
+                entregador.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void entregarLotes() {
+        List<EventoDeTarefa> lote = new ArrayList<>(TAMANHO_LOTE);
+        while (ativa) {
+            canal.recolher(this, lote, TAMANHO_LOTE);
+            if (lote.isEmpty()) {
+                esperar();
+                continue;
+            }
+
+            try {
+                ouvinte.eventosRecebidos(List.copyOf(lote));
+            } catch (RuntimeException e) {
+                ultimaFalha = e;
+                falhas++;
+            }
+            entregues += lote.size();
+            lote.clear();
+        }
+    }
+
+    private void esperar() {
+        aEsperar = true;
+        if (ativa && !canal.publicado(proxima)) {
+            LockSupport.parkNanos(this, ESPERA_MAXIMA_NANOS);
+        }
+        aEsperar = false;
+    }
+}
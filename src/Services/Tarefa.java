@@ -20,11 +20,24 @@ import Entities.Prioridade;
  */
 public class Tarefa {
 
+    /** Formato da data de criação usado nos ficheiros XML e nos relatórios. */
+    static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     private String titulo;
     private String descricao;
     private LocalDateTime dataCriacao;
     private Prioridade prioridade;
-    private Estado estado;
+    private volatile Estado estado;
+
+    /** Gestor a que a tarefa pertence, notificado nas mudanças de estado. */
+    private ObservadorDeEstado observador;
+
+    /**
+     * Posição (mais um, 0 se não houver) do último registo da tarefa no
+     * histórico do gestor, e o respetivo instante (ver {@link HistoricoDeEstados}).
+     */
+    private int ultimoRegisto;
+    private long instanteDoUltimoRegisto;
 
     /**
      * Construtor base para a criação de uma nova tarefa.
@@ -47,16 +60,23 @@ public class Tarefa {
      * @param titulo título da tarefa
      * @param descricao descrição detalhada da tarefa
      * @param dataCriacao data e hora de criação
-     * @param prioridade prioridade da tarefa
-     * @param estado estado atual da tarefa
+     * @param prioridade prioridade da tarefa (MÉDIA, se for nula)
+     * @param estado estado atual da tarefa (PENDENTE, se for nulo)
      */
     public Tarefa(String titulo, String descricao, LocalDateTime dataCriacao,
                   Prioridade prioridade, Estado estado) {
         this.titulo = titulo;
         this.descricao = descricao;
         this.dataCriacao = dataCriacao;
-        this.prioridade = prioridade;
-        this.estado = estado;
+        this.prioridade = prioridade != null ? prioridade : Prioridade.MEDIA;
+        this.estado = estado != null ? estado : Estado.PENDENTE;
+    }
+
+    /**
+     * Construtor das vistas que leem os campos de outro local (por exemplo,
+     * {@link TarefaMapeada}), sem valores próprios.
+     */
+    Tarefa() {
     }
 
    
@@ -80,12 +100,75 @@ public class Tarefa {
         return this.estado;
     }
 
-    public void setEstado(Estado novoEstado) {
+    /**
+     * Altera o estado da tarefa, notificando o gestor a que pertence.
+     * 
+     * <p>A alteração e a respetiva notificação são feitas com o monitor da
+     * tarefa adquirido, pelo que mudanças concorrentes sobre a mesma tarefa
+     * são serializadas e o novo estado fica visível a todas as threads.</p>
+     *
+     * @param novoEstado novo estado da tarefa
+     * @throws IllegalArgumentException se o estado for nulo (uma tarefa tem
+     *         sempre um estado, para poder ser indexada pelos gestores)
+     */
+    public synchronized void setEstado(Estado novoEstado) {
+        if (novoEstado == null) {
+            throw new IllegalArgumentException("O estado não pode ser nulo.");
+        }
+
+        var anterior = getEstado();
+        guardarEstado(novoEstado);
+
+        if (observador != null && anterior != novoEstado) {
+            observador.estadoAlterado(this, anterior, novoEstado);
+        }
+    }
+
+    /**
+     * Guarda o novo estado. As representações alternativas de tarefas (por
+     * exemplo, vistas sobre um ficheiro mapeado) podem redefinir este método
+     * para guardar o estado noutro local.
+     */
+    void guardarEstado(Estado novoEstado) {
         this.estado = novoEstado;
     }
 
+    /**
+     * Indica se a tarefa já pertence a um gestor. Uma tarefa só pode
+     * pertencer a um gestor de cada vez: os índices e o histórico do gestor
+     * são mantidos a partir das notificações da própria tarefa.
+     */
+    synchronized boolean isAssociada() {
+        return observador != null;
+    }
+
+    /** Associa a tarefa ao gestor que passa a ser notificado das alterações. */
+    synchronized void associar(ObservadorDeEstado observador) {
+        this.observador = observador;
+    }
+
+    /** Desassocia a tarefa do gestor indicado, após a sua remoção desse gestor. */
+    synchronized void desassociar(ObservadorDeEstado observador) {
+        if (this.observador == observador) {
+            this.observador = null;
+        }
+    }
+
+    int getUltimoRegisto() {
+        return ultimoRegisto;
+    }
+
+    long getInstanteDoUltimoRegisto() {
+        return instanteDoUltimoRegisto;
+    }
+
+    void setUltimoRegisto(int posicao, long instante) {
+        this.ultimoRegisto = posicao;
+        this.instanteDoUltimoRegisto = instante;
+    }
+
     @Override
     public String toString() {
-        return String.format("%s (%s, %s)", titulo, prioridade, estado);
+        return String.format("%s (%s, %s)", getTitulo(), getPrioridade(), getEstado());
     }
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package Services;
+
+import java.time.LocalDateTime;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Vista de uma tarefa guardada num {@link GestorDeTarefasColunar}.
+ *
+ * <p>A vista guarda apenas o identificador da tarefa; todos os campos são
+ * lidos das colunas do gestor quando pedidos, e uma mudança de estado é
+ * escrita diretamente na coluna dos estados. As vistas são criadas a
+ * pedido, pelo que duas vistas da mesma tarefa podem ser objetos
+ * diferentes; depois de a tarefa ser removida, a vista deixa de poder ser
+ * usada.</p>
+ */
+final class TarefaColunar extends Tarefa {
+
+    private final GestorDeTarefasColunar gestor;
+    private final int id;
+
+    /** Posição da tarefa nas colunas, válida enquanto o gestor não for compactado. */
+    private int posicao;
+    private int compactacoes;
+
+    TarefaColunar(GestorDeTarefasColunar gestor, int id, int posicao) {
+        this.gestor = gestor;
+        this.id = id;
+        this.posicao = posicao;
+        this.compactacoes = gestor.getCompactacoes();
+    }
+
+    @Override
+    public String getTitulo() {
+        return gestor.titulo(posicao());
+    }
+
+    @Override
+    public String getDescricao() {
+        return gestor.descricao(posicao());
+    }
+
+    @Override
+    public LocalDateTime getDataCriacao() {
+        return gestor.dataCriacao(posicao());
+    }
+
+    @Override
+    public Prioridade getPrioridade() {
+        return gestor.prioridade(posicao());
+    }
+
+    @Override
+    public Estado getEstado() {
+        return gestor.estado(posicao());
+    }
+
+    @Override
+    void guardarEstado(Estado novoEstado) {
+        gestor.guardarEstado(posicao(), novoEstado);
+    }
+
+    /** Indica se a vista pertence ao gestor indicado. */
+    boolean pertenceA(GestorDeTarefasColunar outro) {
+        return gestor == outro;
+    }
+
+    /** Posição atual da tarefa nas colunas, procurada de novo após uma compactação. */
+    private int posicao() {
+        var atuais = gestor.getCompactacoes();
+        if (compactacoes != atuais) {
+            posicao = gestor.posicaoDe(id);
+            compactacoes = atuais;
+        }
+        if (posicao < 0 || !gestor.existe(posicao, id)) {
+            throw new IllegalStateException("A tarefa já foi removida do gestor.");
+        }
+        return posicao;
+    }
+}
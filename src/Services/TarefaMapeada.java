@@ -0,0 +1,65 @@
+package Services;
+
+import java.time.LocalDateTime;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Vista de uma tarefa guardada num {@link ArmazemMapeado}.
+ * 
+ * <p>A prioridade, a data de criação e o estado são lidos diretamente do
+ * ficheiro mapeado; a descrição é descodificada apenas quando pedida e não
+ * fica guardada em memória. O título é mantido após a primeira leitura, uma
+ * vez que é sempre necessário para o índice do gestor.</p>
+ * 
+ * <p>Uma mudança de estado fica guardada na própria vista e prevalece sobre
+ * o valor do ficheiro.</p>
+ */
+final class TarefaMapeada extends Tarefa {
+
+    private final ArmazemMapeado armazem;
+    private final int indice;
+    private String titulo;
+
+    /**
+     * Usa o construtor sem valores de {@link Tarefa}: o estado próprio fica
+     * nulo até à primeira mudança, o que {@link #getEstado()} usa para
+     * distinguir o estado alterado do gravado no ficheiro.
+     */
+    TarefaMapeada(ArmazemMapeado armazem, int indice) {
+        this.armazem = armazem;
+        this.indice = indice;
+    }
+
+    @Override
+    public String getTitulo() {
+        var t = titulo;
+        if (t == null) {
+            t = armazem.titulo(indice);
+            titulo = t;
+        }
+        return t;
+    }
+
+    @Override
+    public String getDescricao() {
+        return armazem.descricao(indice);
+    }
+
+    @Override
+    public LocalDateTime getDataCriacao() {
+        return armazem.dataCriacao(indice);
+    }
+
+    @Override
+    public Prioridade getPrioridade() {
+        return armazem.prioridade(indice);
+    }
+
+    @Override
+    public Estado getEstado() {
+        var alterado = super.getEstado();
+        return alterado != null ? alterado : armazem.estado(indice);
+    }
+}
@@ -0,0 +1,234 @@
+package Services;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import Entities.Estado;
+
+/**
+ * Árvore persistente das tarefas de um {@link GestorDeTarefas}, de onde são
+ * obtidos os {@link InstantaneoDeTarefas}.
+ *
+ * <p>Cada tarefa recebe, ao entrar, um número de sequência crescente, que a
+ * localiza numa árvore de prefixos com {@value #LARGURA} ramos por nó; as
+ * folhas guardam a tarefa e o estado que esta tinha. Percorrer a árvore pela
+ * ordem dos ramos devolve as tarefas pela ordem de inserção. Os nós que
+ * ficam vazios são retirados, pelo que a árvore só cresce com as tarefas
+ * presentes.</p>
+ *
+ * <p>Um instantâneo é apenas a raiz atual. Cada nó pertence à geração em
+ * que foi criado e só é alterado no próprio lugar enquanto essa geração
+ * estiver em curso; obter um instantâneo começa uma nova geração, e a
+ * alteração seguinte de uma tarefa copia apenas o caminho da raiz até à sua
+ * folha (no máximo um nó por nível), partilhando todos os outros com as
+ * versões anteriores. Entre dois instantâneos, as alterações são feitas no
+ * próprio lugar, sem cópias. As versões antigas não são libertadas
+ * explicitamente: os nós que só um instantâneo referencia são recolhidos
+ * pelo coletor de lixo quando este deixa de ser usado.</p>
+ *
+ * <p>A árvore acompanha as alterações do gestor como
+ * {@link ObservadorDeAlteracoes}, na thread que as efetua. O
+ * {@link GestorDeTarefasConcorrente} notifica-a com o monitor da própria
+ * árvore adquirido. Os gestores que não a mantêm constroem uma árvore nova
+ * para cada instantâneo (ver {@link #construir(List, long)}).</p>
+ */
+final class VersoesDeTarefas implements ObservadorDeAlteracoes {
+
+    static final int BITS = 5;
+    static final int LARGURA = 1 << BITS;
+    private static final int MASCARA = LARGURA - 1;
+
+    /** Tarefa e estado guardados numa folha. */
+    record Entrada(Tarefa tarefa, Estado estado) {
+    }
+
+    /** Nó da árvore: nós filhos ou, no último nível, entradas. */
+    static final class No {
+        final Object[] ramos;
+        final long geracao;
+        int ocupados;
+
+        No(long geracao) {
+            this.ramos = new Object[LARGURA];
+            this.geracao = geracao;
+        }
+
+        No(No original, long geracao) {
+            this.ramos = original.ramos.clone();
+            this.geracao = geracao;
+            this.ocupados = original.ocupados;
+        }
+    }
+
+    /** Número de sequência de cada tarefa presente. */
+    private final Map<Tarefa, Long> sequencias = new HashMap<>();
+
+    private No raiz;
+
+    /** Deslocamento dos bits da sequência que escolhem o ramo da raiz (0 se a raiz for uma folha). */
+    private int deslocamento;
+
+    private long proximaSequencia;
+    private final int[] contagens = new int[Estado.values().length];
+
+    /** Geração em curso: só os nós desta geração podem ser alterados no próprio lugar. */
+    private long geracao;
+
+    /** Último instantâneo, reutilizado enquanto não houver alterações. */
+    private InstantaneoDeTarefas ultimo;
+
+    /** Indica que a árvore tem de ser reconstruída a partir do gestor. */
+    private boolean invalido = true;
+
+    /**
+     * Devolve um instantâneo das tarefas atuais, em tempo constante (exceto
+     * na primeira vez ou após uma substituição das tarefas, em que a árvore
+     * é construída).
+     *
+     * @param tarefas todas as tarefas do gestor, pela ordem de inserção
+     * @param versao versão do gestor neste instante
+     * @return instantâneo imutável
+     */
+    InstantaneoDeTarefas instantaneo(Collection<Tarefa> tarefas, long versao) {
+        if (invalido) {
+            invalido = false;
+            for (var tarefa : tarefas) {
+                tarefaAdicionada(tarefa);
+            }
+        }
+
+        if (ultimo == null) {
+            ultimo = new InstantaneoDeTarefas(raiz, deslocamento, contagens.clone(), versao);
+            geracao++;
+        }
+        return ultimo;
+    }
+
+    /**
+     * Constrói um instantâneo com as entradas indicadas, pela mesma ordem,
+     * para os gestores que não mantêm uma árvore (o custo é proporcional ao
+     * número de entradas).
+     *
+     * @param entradas tarefas e os estados a apresentar
+     * @param versao versão do gestor neste instante
+     * @return instantâneo imutável
+     */
+    static InstantaneoDeTarefas construir(List<Entrada> entradas, long versao) {
+        var versoes = vazia();
+        for (var entrada : entradas) {
+            versoes.atribuir(versoes.proximaSequencia++, entrada);
+            versoes.contagens[entrada.estado().ordinal()]++;
+        }
+        return versoes.instantaneo(List.<Tarefa>of(), versao);
+    }
+
+    /**
+     * Cria uma árvore vazia, para um gestor que lhe notifica todas as
+     * alterações desde que foi criado (e que, por isso, nunca tem de a
+     * reconstruir).
+     */
+    static VersoesDeTarefas vazia() {
+        var versoes = new VersoesDeTarefas();
+        versoes.invalido = false;
+        return versoes;
+    }
+
+    @Override
+    public void tarefaAdicionada(Tarefa tarefa) {
+        if (invalido) {
+            return;
+        }
+
+        var sequencia = proximaSequencia++;
+        sequencias.put(tarefa, sequencia);
+        atribuir(sequencia, new Entrada(tarefa, tarefa.getEstado()));
+        contagens[tarefa.getEstado().ordinal()]++;
+    }
+
+    @Override
+    public void tarefaRemovida(Tarefa tarefa) {
+        if (invalido) {
+            return;
+        }
+
+        var sequencia = sequencias.remove(tarefa);
+        if (sequencia != null) {
+            atribuir(sequencia, null);
+            contagens[tarefa.getEstado().ordinal()]--;
+        }
+    }
+
+    @Override
+    public void estadoAlterado(Tarefa tarefa, Estado anterior, Estado novo) {
+        if (invalido) {
+            return;
+        }
+
+        var sequencia = sequencias.get(tarefa);
+        if (sequencia != null) {
+            atribuir(sequencia, new Entrada(tarefa, novo));
+            contagens[anterior.ordinal()]--;
+            contagens[novo.ordinal()]++;
+        }
+    }
+
+    @Override
+    public void tarefasSubstituidas() {
+        invalido = true;
+        sequencias.clear();
+        raiz = null;
+        deslocamento = 0;
+        proximaSequencia = 0;
+        Arrays.fill(contagens, 0);
+        ultimo = null;
+    }
+
+    /** Coloca (ou retira, com {@code null}) a entrada com a sequência indicada. */
+    private void atribuir(long sequencia, Entrada entrada) {
+        ultimo = null;
+
+        // Acrescenta níveis acima da raiz até a sequência caber na árvore
+        while (deslocamento < Long.SIZE - BITS && (sequencia >>> deslocamento) > MASCARA) {
+            if (raiz != null) {
+                var novaRaiz = new No(geracao);
+                novaRaiz.ramos[0] = raiz;
+                novaRaiz.ocupados = 1;
+                raiz = novaRaiz;
+            }
+            deslocamento += BITS;
+        }
+        raiz = atribuir(raiz, deslocamento, sequencia, entrada);
+    }
+
+    /**
+     * Atribui a entrada na subárvore indicada, copiando os nós de gerações
+     * anteriores no caminho.
+     *
+     * @return a subárvore resultante, ou {@code null} se tiver ficado vazia
+     */
+    private No atribuir(No no, int deslocamento, long sequencia, Entrada entrada) {
+        if (no == null) {
+            if (entrada == null) {
+                return null;
+            }
+            no = new No(geracao);
+        } else if (no.geracao != geracao) {
+            no = new No(no, geracao);
+        }
+
+        var i = (int) (sequencia >>> deslocamento) & MASCARA;
+        var anterior = no.ramos[i];
+        var novo = deslocamento == 0 ? entrada : atribuir((No) anterior, deslocamento - BITS, sequencia, entrada);
+
+        no.ramos[i] = novo;
+        if (anterior == null && novo != null) {
+            no.ocupados++;
+        } else if (anterior != null && novo == null) {
+            no.ocupados--;
+        }
+        return no.ocupados > 0 ? no : null;
+    }
+}
@@ -0,0 +1,98 @@
+package Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Verifica que um fragmento em falta ou corrompido (ver
+ * {@link ArmazemFragmentado}) não impede o carregamento dos restantes e
+ * que o ficheiro original é preservado quando o fragmento é reescrito.
+ */
+class ArmazemFragmentadoTest {
+
+    private static final int FRAGMENTOS = 8;
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final Random aleatorio = new Random(22L);
+    private Path pasta;
+
+    @BeforeEach
+    void criarPasta() throws IOException {
+        pasta = Files.createTempDirectory("armazem-fragmentado");
+    }
+
+    @AfterEach
+    void apagarPasta() throws IOException {
+        try (var ficheiros = Files.walk(pasta)) {
+            for (var ficheiro : ficheiros.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(ficheiro);
+            }
+        }
+    }
+
+    @Test
+    void fragmentosFalhadosSaoIndicadosEOsRestantesCarregados() throws Exception {
+        var gestor = new GestorDeTarefas();
+        for (int i = 0; i < 1_000; i++) {
+            gestor.adicionarTarefa(new Tarefa("T" + i, "descrição " + i, INICIO.plusMinutes(i),
+                    Prioridade.values()[aleatorio.nextInt(3)], Estado.values()[aleatorio.nextInt(3)]));
+        }
+        gestor.guardarEmFragmentos(pasta.toString(), FRAGMENTOS);
+
+        var corrompido = fragmento(2);
+        var emFalta = fragmento(5);
+        Files.writeString(corrompido, "<tarefas><tarefa>", StandardCharsets.UTF_8);
+        Files.delete(emFalta);
+
+        var carregado = new GestorDeTarefas();
+        var falhados = carregado.carregarDeFragmentos(pasta.toString());
+
+        assertEquals(List.of(corrompido.toString(), emFalta.toString()), falhados);
+        var esperadas = gestor.listarTarefas().stream()
+                .filter(t -> ArmazemFragmentado.fragmento(t.getTitulo(), FRAGMENTOS) != 2
+                        && ArmazemFragmentado.fragmento(t.getTitulo(), FRAGMENTOS) != 5)
+                .map(Tarefa::getTitulo).sorted().toList();
+        assertEquals(esperadas, carregado.listarTarefas().stream().map(Tarefa::getTitulo).sorted().toList());
+
+        // Só o fragmento reescrito deixa de estar em falha; o original fica guardado ao lado
+        var titulo = titulo(2);
+        carregado.adicionarTarefa(new Tarefa(titulo, null, INICIO, Prioridade.ALTA, Estado.PENDENTE));
+        carregado.guardarEmFragmentos(pasta.toString(), FRAGMENTOS);
+        assertEquals("<tarefas><tarefa>",
+                Files.readString(corrompido.resolveSibling(corrompido.getFileName() + ".corrompido")));
+
+        var recarregado = new GestorDeTarefas();
+        assertEquals(List.of(emFalta.toString()), recarregado.carregarDeFragmentos(pasta.toString()));
+        assertEquals(carregado.contarTarefas(), recarregado.contarTarefas());
+        assertTrue(recarregado.listarTarefas().stream().anyMatch(t -> t.getTitulo().equals(titulo)));
+    }
+
+    private Path fragmento(int i) {
+        return pasta.resolve(String.format("tarefas-%03d-de-%03d.xml", i, FRAGMENTOS)).toAbsolutePath().normalize();
+    }
+
+    /** Um título novo que pertence ao fragmento indicado. */
+    private static String titulo(int fragmento) {
+        for (int i = 0;; i++) {
+            if (ArmazemFragmentado.fragmento("Nova" + i, FRAGMENTOS) == fragmento) {
+                return "Nova" + i;
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Verifica o buffer circular do {@link CanalDeEventos}: a ordem dos eventos
+ * entregues, a contagem dos descartados e a garantia de que um subscritor
+ * bloqueante lento, mesmo subscrito a meio da publicação, não perde eventos.
+ */
+class CanalDeEventosTest {
+
+    private static final Tarefa TAREFA = new Tarefa("T", null, LocalDateTime.of(2024, 1, 1, 0, 0),
+            Prioridade.MEDIA, Estado.PENDENTE);
+
+    @Test
+    void subscritorQueDescartaRecebePorOrdemEContaOsPerdidos() throws Exception {
+        var canal = new CanalDeEventos();
+        var libertar = new CountDownLatch(1);
+        List<Long> recebidos = new ArrayList<>();
+        var subscricao = canal.subscrever(eventos -> {
+            aguardar(libertar);
+            eventos.forEach(e -> recebidos.add(e.sequencia()));
+        }, PoliticaDeSobrecarga.DESCARTAR);
+
+        // O ouvinte está parado no primeiro lote: o buffer dá várias voltas
+        var total = 3L * CanalDeEventos.CAPACIDADE + 123;
+        for (long i = 0; i < total; i++) {
+            canal.estadoAlterado(TAREFA, Estado.PENDENTE, Estado.CONCLUIDA);
+        }
+        libertar.countDown();
+        esperarAte(() -> subscricao.getEntregues() + subscricao.getDescartados() == total);
+        subscricao.close();
+
+        assertTrue(subscricao.getDescartados() > 0);
+        assertTrue(subscricao.getEntregues() >= CanalDeEventos.CAPACIDADE);
+        assertEquals(subscricao.getEntregues(), recebidos.size());
+        for (int i = 1; i < recebidos.size(); i++) {
+            assertTrue(recebidos.get(i - 1) < recebidos.get(i));
+        }
+        assertEquals(total - 1, (long) recebidos.get(recebidos.size() - 1));
+    }
+
+    @Test
+    void subscritorBloqueanteLentoNaoPerdeEventos() throws Exception {
+        var canal = new CanalDeEventos();
+        var produtores = 4;
+        var publicados = new AtomicLong();
+        var parar = new AtomicBoolean();
+
+        // Um subscritor que descarta garante que cada publicação reserva uma sequência
+        var descarta = canal.subscrever(eventos -> { }, PoliticaDeSobrecarga.DESCARTAR);
+        ExecutorService executor = Executors.newFixedThreadPool(produtores);
+        List<Long> recebidos = new ArrayList<>();
+        SubscricaoDeEventos lento;
+        try {
+            List<Future<?>> trabalhos = new ArrayList<>();
+            for (int p = 0; p < produtores; p++) {
+                trabalhos.add(executor.submit(() -> {
+                    while (!parar.get()) {
+                        canal.tarefaAdicionada(TAREFA);
+                        publicados.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            // Subscreve a meio da publicação, com um ouvinte muito mais lento do que os produtores
+            esperarAte(() -> publicados.get() > CanalDeEventos.CAPACIDADE / 2);
+            lento = canal.subscrever(eventos -> {
+                synchronized (recebidos) {
+                    eventos.forEach(e -> recebidos.add(e.sequencia()));
+                }
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, PoliticaDeSobrecarga.BLOQUEAR);
+
+            // O buffer enche várias vezes antes de os produtores pararem
+            esperarAte(() -> lento.getEntregues() >= 3L * CanalDeEventos.CAPACIDADE);
+            parar.set(true);
+            for (var trabalho : trabalhos) {
+                trabalho.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            parar.set(true);
+            executor.shutdownNow();
+        }
+
+        var total = publicados.get();
+        esperarAte(() -> lento.getEntregues() > 0 && ultimo(recebidos) == total - 1);
+        lento.close();
+        descarta.close();
+
+        assertEquals(0, lento.getDescartados());
+        assertEquals(lento.getEntregues(), recebidos.size());
+        long esperado = recebidos.get(0);
+        for (var sequencia : recebidos) {
+            assertEquals(esperado++, (long) sequencia);
+        }
+    }
+
+    private static long ultimo(List<Long> recebidos) {
+        synchronized (recebidos) {
+            return recebidos.isEmpty() ? -1 : recebidos.get(recebidos.size() - 1);
+        }
+    }
+
+    private static void esperarAte(BooleanSupplier condicao) throws InterruptedException {
+        var limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (!condicao.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "Tempo de espera esgotado.");
+            Thread.sleep(1);
+        }
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Verifica o modo com diário (ver {@link DiarioDeTarefas}): a reaplicação
+ * dos registos sobre o snapshot, o descarte de um registo final incompleto
+ * ou corrompido, a reaplicação dos lotes por inteiro e a truncagem do
+ * diário depois de cada snapshot.
+ */
+class DiarioDeTarefasTest {
+
+    private static final Estado[] ESTADOS = Estado.values();
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    /** Dimensão do cabeçalho de um diário sem registos. */
+    private static final long DIARIO_VAZIO = 4;
+
+    private final Random aleatorio = new Random(4L);
+    private Path pasta;
+    private String snapshot;
+    private String diario;
+    private int proxima;
+
+    @BeforeEach
+    void criarPasta() throws IOException {
+        pasta = Files.createTempDirectory("diario-de-tarefas");
+        snapshot = pasta.resolve("tarefas.xml").toString();
+        diario = pasta.resolve("tarefas.diario").toString();
+    }
+
+    @AfterEach
+    void apagarPasta() throws IOException {
+        try (var ficheiros = Files.list(pasta)) {
+            for (var ficheiro : ficheiros.toList()) {
+                Files.delete(ficheiro);
+            }
+        }
+        Files.delete(pasta);
+    }
+
+    @Test
+    void recuperacaoReaplicaODiarioSobreOSnapshot() throws Exception {
+        var gestor = new GestorDeTarefas();
+        gestor.ativarDiario(snapshot, diario, 700);
+        for (int i = 0; i < 2_000; i++) {
+            alterarAoAcaso(gestor);
+        }
+        gestor.sincronizarDiario();
+        var esperado = descrever(gestor);
+
+        // O snapshot automático correu pelo menos uma vez: o estado vem das duas fontes
+        assertTrue(Files.exists(Path.of(snapshot)));
+        assertTrue(Files.size(Path.of(diario)) > DIARIO_VAZIO);
+        gestor.desativarDiario();
+        assertEquals(esperado, recuperado());
+    }
+
+    @Test
+    void registoFinalIncompletoOuCorrompidoEDescartado() throws Exception {
+        var gestor = new GestorDeTarefas();
+        gestor.ativarDiario(snapshot, diario);
+        for (int i = 0; i < 300; i++) {
+            alterarAoAcaso(gestor);
+        }
+        gestor.sincronizarDiario();
+        var antes = descrever(gestor);
+        var tamanhoAntes = Files.size(Path.of(diario));
+
+        gestor.adicionarTarefa(tarefa("Última"));
+        gestor.desativarDiario();
+        var tamanhoDepois = Files.size(Path.of(diario));
+
+        // Registo cortado a meio, como numa falha de energia durante a escrita
+        try (var ficheiro = new RandomAccessFile(diario, "rw")) {
+            ficheiro.setLength(tamanhoDepois - 3);
+        }
+        assertEquals(antes, recuperado());
+        assertEquals(tamanhoAntes, Files.size(Path.of(diario)));
+
+        // Registo completo mas com um byte alterado
+        gestor = new GestorDeTarefas();
+        gestor.ativarDiario(snapshot, diario);
+        gestor.adicionarTarefa(tarefa("Última"));
+        gestor.desativarDiario();
+        try (var ficheiro = new RandomAccessFile(diario, "rw")) {
+            ficheiro.seek(tamanhoAntes + 12);
+            var valor = ficheiro.read();
+            ficheiro.seek(tamanhoAntes + 12);
+            ficheiro.write(valor ^ 0xFF);
+        }
+        var recuperado = new GestorDeTarefas();
+        recuperado.ativarDiario(snapshot, diario);
+        assertEquals(antes, descrever(recuperado));
+
+        // O diário continua a seguir ao último registo válido
+        recuperado.adicionarTarefa(tarefa("Depois"));
+        var esperado = descrever(recuperado);
+        recuperado.desativarDiario();
+        assertEquals(esperado, recuperado());
+    }
+
+    @Test
+    void snapshotTruncaODiarioSemPerderAlteracoes() throws Exception {
+        var gestor = new GestorDeTarefas();
+        gestor.ativarDiario(snapshot, diario, 50);
+        for (int i = 0; i < 49; i++) {
+            gestor.adicionarTarefa(tarefa("T" + proxima++));
+        }
+        gestor.sincronizarDiario();
+        assertTrue(Files.size(Path.of(diario)) > DIARIO_VAZIO);
+
+        // O quinquagésimo registo desencadeia o snapshot automático
+        gestor.adicionarTarefa(tarefa("T" + proxima++));
+        assertEquals(DIARIO_VAZIO, Files.size(Path.of(diario)));
+        gestor.desativarDiario();
+        assertEquals(descrever(gestor), recuperado());
+
+        gestor = new GestorDeTarefas();
+        gestor.ativarDiario(snapshot, diario, 50);
+        gestor.alterarEstado("T7", Estado.CONCLUIDA);
+        gestor.removerTarefa("T8");
+        gestor.criarSnapshot();
+        assertEquals(DIARIO_VAZIO, Files.size(Path.of(diario)));
+        var esperado = descrever(gestor);
+        gestor.desativarDiario();
+        assertEquals(esperado, recuperado());
+    }
+
+    @Test
+    void loteSoEReaplicadoSeEstiverCompleto() throws Exception {
+        var gestor = new GestorDeTarefas();
+        gestor.ativarDiario(snapshot, diario);
+        for (int i = 0; i < 200; i++) {
+            alterarAoAcaso(gestor);
+        }
+        gestor.sincronizarDiario();
+        var antes = descrever(gestor);
+
+        List<Tarefa> lote = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            lote.add(tarefa("L" + i));
+        }
+        assertTrue(gestor.adicionarTarefas(lote).isAplicado());
+        var titulos = gestor.listarTarefas().stream().map(Tarefa::getTitulo).limit(50).toList();
+        assertTrue(gestor.alterarEstados(titulos, Estado.CONCLUIDA).isAplicado());
+        var depois = descrever(gestor);
+        gestor.desativarDiario();
+        var tamanho = Files.size(Path.of(diario));
+        assertEquals(depois, recuperado());
+
+        // Sem o registo de fim, o segundo lote é descartado por inteiro
+        try (var ficheiro = new RandomAccessFile(diario, "rw")) {
+            ficheiro.setLength(tamanho - 1);
+        }
+        var semSegundoLote = recuperado();
+        assertEquals(antes.size() + lote.size(), semSegundoLote.size());
+        for (var i = 0; i < antes.size(); i++) {
+            assertEquals(antes.get(i), semSegundoLote.get(i));
+        }
+
+        // Um lote cortado a meio não deixa nenhuma das suas tarefas
+        try (var ficheiro = new RandomAccessFile(diario, "rw")) {
+            ficheiro.setLength(Files.size(Path.of(diario)) - 1);
+        }
+        assertEquals(antes, recuperado());
+    }
+
+    /** Recupera o estado persistido num gestor novo, como depois de reiniciar a aplicação. */
+    private List<String> recuperado() throws Exception {
+        var gestor = new GestorDeTarefas();
+        gestor.ativarDiario(snapshot, diario);
+        gestor.desativarDiario();
+        return descrever(gestor);
+    }
+
+    private void alterarAoAcaso(GestorDeTarefas gestor) throws Exception {
+        var tarefas = gestor.listarTarefas();
+        var operacao = aleatorio.nextInt(10);
+        if (operacao < 5 || tarefas.isEmpty()) {
+            gestor.adicionarTarefa(tarefa("T" + proxima++));
+        } else if (operacao < 8) {
+            var titulo = tarefas.get(aleatorio.nextInt(tarefas.size())).getTitulo();
+            gestor.alterarEstado(titulo, ESTADOS[aleatorio.nextInt(ESTADOS.length)]);
+        } else {
+            gestor.removerTarefa(tarefas.get(aleatorio.nextInt(tarefas.size())).getTitulo());
+        }
+    }
+
+    /** Tarefa com uma data sem frações de segundo e uma descrição, tal como o XML as preserva. */
+    private Tarefa tarefa(String titulo) {
+        return new Tarefa(titulo, "descrição " + aleatorio.nextInt(100), INICIO.plusSeconds(aleatorio.nextInt(1_000_000)),
+                Prioridade.values()[aleatorio.nextInt(3)], ESTADOS[aleatorio.nextInt(ESTADOS.length)]);
+    }
+
+    private static List<String> descrever(GestorDeTarefas gestor) {
+        List<String> descricoes = new ArrayList<>();
+        for (var tarefa : gestor.listarTarefas()) {
+            descricoes.add(tarefa.getTitulo() + "|" + tarefa.getDescricao() + "|" + tarefa.getDataCriacao() + "|"
+                    + tarefa.getPrioridade() + "|" + tarefa.getEstado());
+        }
+        return descricoes;
+    }
+}
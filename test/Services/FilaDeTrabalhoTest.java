@@ -0,0 +1,179 @@
+package Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Verifica a ordem da fila de trabalho de um {@link GestorDeTarefas} e a
+ * reclamação, conclusão e libertação concorrentes de tarefas (ver
+ * {@link FilaDeTrabalho}).
+ */
+class FilaDeTrabalhoTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    void reclamaPorPrioridadeEDentroDestaPelaMaisAntiga() throws Exception {
+        var gestor = new GestorDeTarefas();
+        gestor.adicionarTarefa(tarefa("baixa antiga", 0, Prioridade.BAIXA));
+        gestor.adicionarTarefa(tarefa("alta recente", 30, Prioridade.ALTA));
+        gestor.adicionarTarefa(tarefa("media", 10, Prioridade.MEDIA));
+        gestor.adicionarTarefa(tarefa("alta antiga", 20, Prioridade.ALTA));
+        gestor.adicionarTarefa(tarefa("primeira", 1, Prioridade.ALTA));
+        gestor.adicionarTarefa(tarefa("concluída", 2, Prioridade.ALTA));
+
+        // Cria a fila; as alterações seguintes chegam-lhe como notificações
+        assertEquals("primeira", gestor.reclamarTarefa().orElseThrow().getTitulo());
+        gestor.adicionarTarefa(tarefa("removida de novo", 3, Prioridade.ALTA));
+        gestor.removerTarefa("removida de novo");
+        gestor.alterarEstado("concluída", Estado.CONCLUIDA);
+        gestor.adicionarTarefa(tarefa("nova", 5, Prioridade.MEDIA));
+
+        List<String> reclamadas = new ArrayList<>();
+        for (var tarefa = gestor.reclamarTarefa(); tarefa.isPresent(); tarefa = gestor.reclamarTarefa()) {
+            assertEquals(Estado.EM_PROGRESSO, tarefa.get().getEstado());
+            reclamadas.add(tarefa.get().getTitulo());
+        }
+
+        assertEquals(List.of("alta antiga", "alta recente", "nova", "media", "baixa antiga"), reclamadas);
+        assertEquals(0, gestor.contarTarefas(Estado.PENDENTE));
+        assertNull(gestor.reclamarTarefa(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void produtoresEConsumidoresNaoReclamamATarefaDuasVezes() throws Exception {
+        var gestor = new GestorDeTarefas();
+        var produtores = 4;
+        var consumidores = 8;
+        var porProdutor = 2_000;
+        var total = produtores * porProdutor;
+
+        gestor.reclamarTarefa();
+        Map<Tarefa, AtomicInteger> reclamacoes = new ConcurrentHashMap<>();
+        Set<Tarefa> libertadas = ConcurrentHashMap.newKeySet();
+        var produzidas = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(produtores + consumidores);
+        try {
+            List<Future<?>> trabalhos = new ArrayList<>();
+            for (int p = 0; p < produtores; p++) {
+                var produtor = p;
+                trabalhos.add(executor.submit(() -> {
+                    for (int i = 0; i < porProdutor; i++) {
+                        var prioridade = Prioridade.values()[i % Prioridade.values().length];
+                        synchronized (gestor) {
+                            gestor.adicionarTarefa(tarefa("P" + produtor + "-" + i, i, prioridade));
+                        }
+                        produzidas.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (int c = 0; c < consumidores; c++) {
+                trabalhos.add(executor.submit(() -> {
+                    while (produzidas.get() < total || pendentes(gestor) > 0) {
+                        var tarefa = gestor.reclamarTarefa(5, TimeUnit.MILLISECONDS);
+                        if (tarefa == null) {
+                            continue;
+                        }
+
+                        // Os consumidores concluem as tarefas; uma em cada sete volta uma vez à fila
+                        reclamacoes.computeIfAbsent(tarefa, t -> new AtomicInteger()).incrementAndGet();
+                        if (tarefa.getTitulo().hashCode() % 7 == 0 && libertadas.add(tarefa)) {
+                            gestor.libertarTarefa(tarefa);
+                        } else {
+                            gestor.concluirTarefa(tarefa);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (var trabalho : trabalhos) {
+                trabalho.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(total, reclamacoes.size());
+        assertFalse(libertadas.isEmpty());
+        for (var reclamacao : reclamacoes.entrySet()) {
+            var esperadas = libertadas.contains(reclamacao.getKey()) ? 2 : 1;
+            assertEquals(esperadas, reclamacao.getValue().get(), reclamacao.getKey().getTitulo());
+        }
+        assertEquals(0, gestor.contarTarefas(Estado.PENDENTE));
+        assertEquals(0, gestor.contarTarefas(Estado.EM_PROGRESSO));
+        assertEquals(total, gestor.contarTarefas(Estado.CONCLUIDA));
+    }
+
+    @Test
+    void soSeConcluiOuLibertaUmaTarefaEmProgressoDoGestor() throws Exception {
+        var gestor = new GestorDeTarefas();
+        gestor.adicionarTarefa(tarefa("reclamada", 0, Prioridade.ALTA));
+        var tarefa = gestor.reclamarTarefa().orElseThrow();
+
+        gestor.libertarTarefa(tarefa);
+        assertEquals(Estado.PENDENTE, tarefa.getEstado());
+        assertThrows(IllegalStateException.class, () -> gestor.concluirTarefa(tarefa));
+
+        assertEquals(tarefa, gestor.reclamarTarefa().orElseThrow());
+        gestor.concluirTarefa(tarefa);
+        assertEquals(Estado.CONCLUIDA, tarefa.getEstado());
+        assertThrows(IllegalStateException.class, () -> gestor.libertarTarefa(tarefa));
+
+        var alheia = tarefa("alheia", 0, Prioridade.ALTA);
+        alheia.setEstado(Estado.EM_PROGRESSO);
+        assertThrows(IllegalArgumentException.class, () -> gestor.concluirTarefa(alheia));
+        assertTrue(gestor.reclamarTarefa().isEmpty());
+    }
+
+    @Test
+    void aguardarTarefaRegressaQuandoEntraUmaTarefaPendente() throws Exception {
+        var gestor = new GestorDeTarefas();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            var espera = executor.submit(gestor::aguardarTarefa);
+            Thread.sleep(50);
+            assertFalse(espera.isDone());
+
+            synchronized (gestor) {
+                gestor.adicionarTarefa(tarefa("urgente", 0, Prioridade.ALTA));
+            }
+            var tarefa = espera.get(10, TimeUnit.SECONDS);
+            assertEquals("urgente", tarefa.getTitulo());
+            assertEquals(Estado.EM_PROGRESSO, tarefa.getEstado());
+            assertTrue(gestor.reclamarTarefa().isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int pendentes(GestorDeTarefas gestor) {
+        synchronized (gestor) {
+            return gestor.contarTarefas(Estado.PENDENTE);
+        }
+    }
+
+    private static Tarefa tarefa(String titulo, int minutos, Prioridade prioridade) {
+        return new Tarefa(titulo, null, INICIO.plusMinutes(minutos), prioridade, Estado.PENDENTE);
+    }
+}
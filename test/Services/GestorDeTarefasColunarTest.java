@@ -0,0 +1,278 @@
+package Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import Entities.Estado;
+import Entities.Prioridade;
+import Entities.TarefaNaoEncontradaException;
+import Interfaces.IGestorDeTarefas;
+
+/**
+ * Compara o {@link GestorDeTarefasColunar} com o {@link GestorDeTarefas}
+ * (a referência) sob sequências aleatórias de operações, e verifica o
+ * índice de endereçamento aberto pelo título nas remoções e compactações.
+ */
+class GestorDeTarefasColunarTest {
+
+    private static final Estado[] ESTADOS = Estado.values();
+    private static final Prioridade[] PRIORIDADES = Prioridade.values();
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    /** Número de títulos distintos usados, para que se repitam entre adições e remoções. */
+    private static final int TITULOS = 4000;
+
+    private final Random aleatorio = new Random(20240101L);
+
+    @Test
+    void operacoesAleatoriasDaoOMesmoResultadoQueOGestorDeReferencia() throws Exception {
+        var referencia = new GestorDeTarefas();
+        var colunar = new GestorDeTarefasColunar();
+
+        for (int i = 1; i <= 20_000; i++) {
+            operacaoAleatoria(referencia, colunar);
+            compararContagens(referencia, colunar);
+            if (i % 2_000 == 0) {
+                compararTudo(referencia, colunar);
+            }
+        }
+
+        // Remove a maioria das tarefas, para forçar a compactação das colunas
+        var titulos = titulosDe(referencia);
+        Collections.shuffle(titulos, aleatorio);
+        var aRemover = titulos.subList(0, titulos.size() * 9 / 10);
+        for (int i = 0; i < aRemover.size(); i += 100) {
+            var lote = aRemover.subList(i, Math.min(i + 100, aRemover.size()));
+            assertEquals(referencia.removerTarefas(lote).isAplicado(), colunar.removerTarefas(lote).isAplicado());
+            compararContagens(referencia, colunar);
+        }
+
+        assertTrue(colunar.getCompactacoes() > 0, "As colunas deviam ter sido compactadas.");
+        compararTudo(referencia, colunar);
+    }
+
+    @Test
+    void removerMantemEncontraveisAsTarefasDaMesmaCadeia() throws Exception {
+        var colunar = new GestorDeTarefasColunar();
+        Set<String> presentes = new LinkedHashSet<>();
+        for (int i = 0; i < 3_000; i++) {
+            var titulo = "Tarefa " + i;
+            colunar.adicionarTarefa(new Tarefa(titulo, null, Prioridade.MEDIA));
+            presentes.add(titulo);
+        }
+
+        // Cada remoção desloca para trás as entradas seguintes da mesma
+        // cadeia; uma falha nesse deslocamento deixa tarefas inalcançáveis
+        List<String> ordem = new ArrayList<>(presentes);
+        Collections.shuffle(ordem, aleatorio);
+        for (int i = 0; i < ordem.size(); i++) {
+            var titulo = ordem.get(i);
+            colunar.removerTarefa(titulo);
+            presentes.remove(titulo);
+            assertThrows(TarefaNaoEncontradaException.class, () -> colunar.buscarPorTitulo(titulo));
+
+            if (i % 97 == 0 || presentes.size() < 50) {
+                for (var restante : presentes) {
+                    assertEquals(restante, colunar.buscarPorTitulo(restante).getTitulo());
+                }
+            }
+
+            // Reutiliza alguns títulos, que voltam a entrar no fim das cadeias
+            if (i % 5 == 0) {
+                colunar.adicionarTarefa(new Tarefa(titulo.toUpperCase(), null, Prioridade.ALTA));
+                presentes.add(titulo.toUpperCase());
+            }
+        }
+
+        assertEquals(presentes.size(), colunar.contarTarefas());
+        for (var restante : presentes) {
+            assertEquals(restante, colunar.buscarPorTitulo(restante.toLowerCase()).getTitulo());
+        }
+    }
+
+    @Test
+    void compactacaoMantemAOrdemEAsVistasJaObtidas() throws Exception {
+        var colunar = new GestorDeTarefasColunar();
+        for (int i = 0; i < 3_000; i++) {
+            colunar.adicionarTarefa(new Tarefa("T" + i, "descrição " + i % 7, INICIO.plusSeconds(i),
+                    PRIORIDADES[i % PRIORIDADES.length], Estado.PENDENTE));
+        }
+        var vista = colunar.buscarPorTitulo("T2997");
+        var compactacoes = colunar.getCompactacoes();
+
+        List<String> esperados = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            if (i % 3 == 0) {
+                esperados.add("T" + i);
+            } else {
+                colunar.removerTarefa("T" + i);
+            }
+        }
+
+        assertTrue(colunar.getCompactacoes() > compactacoes, "As colunas deviam ter sido compactadas.");
+        assertEquals(esperados, colunar.listarTarefas().stream().map(Tarefa::getTitulo).toList());
+        assertEquals("T2997", vista.getTitulo());
+        assertEquals("descrição " + 2997 % 7, vista.getDescricao());
+
+        vista.setEstado(Estado.CONCLUIDA);
+        assertEquals(Estado.CONCLUIDA, colunar.buscarPorTitulo("T2997").getEstado());
+        assertEquals(1, colunar.contarTarefas(Estado.CONCLUIDA));
+        for (var titulo : esperados) {
+            assertEquals(titulo, colunar.buscarPorTitulo(titulo).getTitulo());
+        }
+    }
+
+    private void operacaoAleatoria(GestorDeTarefas referencia, GestorDeTarefasColunar colunar) {
+        var operacao = aleatorio.nextInt(100);
+        if (operacao < 45) {
+            var tarefa = tarefaAleatoria();
+            var copia = new Tarefa(tarefa.getTitulo(), tarefa.getDescricao(), tarefa.getDataCriacao(),
+                    tarefa.getPrioridade(), tarefa.getEstado());
+            assertEquals(falha(() -> referencia.adicionarTarefa(tarefa)), falha(() -> colunar.adicionarTarefa(copia)));
+        } else if (operacao < 70) {
+            var titulo = tituloAleatorio();
+            assertEquals(falha(() -> referencia.removerTarefa(titulo)), falha(() -> colunar.removerTarefa(titulo)));
+        } else if (operacao < 85) {
+            var titulo = tituloAleatorio();
+            var estado = ESTADOS[aleatorio.nextInt(ESTADOS.length)];
+            assertEquals(falha(() -> referencia.alterarEstado(titulo, estado)),
+                    falha(() -> colunar.alterarEstado(titulo, estado)));
+        } else if (operacao < 90) {
+            var lote = titulosAleatorios();
+            assertEquals(referencia.removerTarefas(lote).getFalhas().size(),
+                    colunar.removerTarefas(lote).getFalhas().size());
+        } else if (operacao < 95) {
+            var estado = ESTADOS[aleatorio.nextInt(ESTADOS.length)];
+            var lote = titulosAleatorios();
+            assertEquals(referencia.alterarEstados(lote, estado).getFalhas().size(),
+                    colunar.alterarEstados(lote, estado).getFalhas().size());
+        } else {
+            List<Tarefa> lote = new ArrayList<>();
+            List<Tarefa> copias = new ArrayList<>();
+            for (int i = aleatorio.nextInt(20); i >= 0; i--) {
+                var tarefa = tarefaAleatoria();
+                lote.add(tarefa);
+                copias.add(new Tarefa(tarefa.getTitulo(), tarefa.getDescricao(), tarefa.getDataCriacao(),
+                        tarefa.getPrioridade(), tarefa.getEstado()));
+            }
+            assertEquals(referencia.adicionarTarefas(lote).getFalhas().size(),
+                    colunar.adicionarTarefas(copias).getFalhas().size());
+        }
+    }
+
+    private static void compararContagens(IGestorDeTarefas referencia, IGestorDeTarefas colunar) {
+        assertEquals(referencia.contarTarefas(), colunar.contarTarefas());
+        for (var estado : ESTADOS) {
+            for (var prioridade : PRIORIDADES) {
+                assertEquals(referencia.contarTarefas(estado, prioridade), colunar.contarTarefas(estado, prioridade));
+            }
+        }
+    }
+
+    private static void compararTudo(IGestorDeTarefas referencia, IGestorDeTarefas colunar) throws Exception {
+        assertEquals(descrever(referencia.listarTarefas()), descrever(colunar.listarTarefas()));
+
+        // Dentro de cada prioridade, a ordem de listarPorEstado é própria de cada gestor
+        for (var estado : ESTADOS) {
+            var esperadas = descrever(referencia.listarPorEstado(estado));
+            var obtidas = descrever(colunar.listarPorEstado(estado));
+            Collections.sort(esperadas);
+            Collections.sort(obtidas);
+            assertEquals(esperadas, obtidas);
+        }
+
+        var total = referencia.contarTarefas();
+        for (var inicio : new int[] {0, 1, total / 3, total - 1, total, total + 5}) {
+            if (inicio >= 0) {
+                assertEquals(descrever(referencia.listarTarefas(inicio, 37)), descrever(colunar.listarTarefas(inicio, 37)));
+            }
+        }
+
+        String cursorReferencia = null;
+        String cursorColunar = null;
+        do {
+            var paginaReferencia = referencia.listarPagina(cursorReferencia, 250);
+            var paginaColunar = colunar.listarPagina(cursorColunar, 250);
+            assertEquals(descrever(paginaReferencia.getTarefas()), descrever(paginaColunar.getTarefas()));
+            assertEquals(paginaReferencia.temMais(), paginaColunar.temMais());
+            cursorReferencia = paginaReferencia.getProximoCursor();
+            cursorColunar = paginaColunar.getProximoCursor();
+        } while (cursorReferencia != null);
+
+        for (int i = 0; i < TITULOS; i++) {
+            var titulo = "T" + i;
+            assertEquals(procurar(referencia, titulo), procurar(colunar, titulo));
+        }
+    }
+
+    private Tarefa tarefaAleatoria() {
+        var data = aleatorio.nextInt(20) == 0 ? null
+                : INICIO.plusSeconds(aleatorio.nextInt(100_000)).withNano(aleatorio.nextInt(3) * 1000);
+        return new Tarefa(tituloAleatorio(), "descrição " + aleatorio.nextInt(50), data,
+                PRIORIDADES[aleatorio.nextInt(PRIORIDADES.length)], ESTADOS[aleatorio.nextInt(ESTADOS.length)]);
+    }
+
+    private String tituloAleatorio() {
+        var titulo = "T" + aleatorio.nextInt(TITULOS);
+        return aleatorio.nextInt(10) == 0 ? titulo.toLowerCase() : titulo;
+    }
+
+    private List<String> titulosAleatorios() {
+        List<String> titulos = new ArrayList<>();
+        for (int i = aleatorio.nextInt(30); i >= 0; i--) {
+            titulos.add(tituloAleatorio());
+        }
+        return titulos;
+    }
+
+    private static List<String> titulosDe(IGestorDeTarefas gestor) {
+        return new ArrayList<>(gestor.listarTarefas().stream().map(Tarefa::getTitulo).toList());
+    }
+
+    private static List<String> descrever(List<Tarefa> tarefas) {
+        List<String> descricoes = new ArrayList<>(tarefas.size());
+        for (var tarefa : tarefas) {
+            descricoes.add(descrever(tarefa));
+        }
+        return descricoes;
+    }
+
+    private static String descrever(Tarefa tarefa) {
+        return tarefa.getTitulo() + "|" + tarefa.getDescricao() + "|" + tarefa.getDataCriacao() + "|"
+                + tarefa.getPrioridade() + "|" + tarefa.getEstado();
+    }
+
+    private static String procurar(IGestorDeTarefas gestor, String titulo) {
+        try {
+            return descrever(gestor.buscarPorTitulo(titulo));
+        } catch (TarefaNaoEncontradaException e) {
+            return null;
+        }
+    }
+
+    /** Executa a operação e devolve a classe da exceção lançada, ou {@code null}. */
+    private static Class<?> falha(Operacao operacao) {
+        try {
+            operacao.executar();
+            return null;
+        } catch (Exception e) {
+            return e.getClass();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operacao {
+        void executar() throws Exception;
+    }
+}
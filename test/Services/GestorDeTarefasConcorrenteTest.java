@@ -0,0 +1,102 @@
+package Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Verifica que as listagens e os instantâneos do
+ * {@link GestorDeTarefasConcorrente}, obtidos da árvore persistente durante
+ * escrita contínua, mostram sempre as tarefas de um único instante.
+ */
+class GestorDeTarefasConcorrenteTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int ESCRITORES = 4;
+    private static final int TAREFAS_POR_ESCRITOR = 20_000;
+
+    /** Número de tarefas de cada escritor mantidas no gestor (as mais recentes). */
+    private static final int JANELA = 10;
+
+    @Test
+    void leiturasDuranteEscritaContinuaVeemUmInstanteCoerente() throws Exception {
+        var gestor = new GestorDeTarefasConcorrente();
+        ExecutorService executor = Executors.newFixedThreadPool(ESCRITORES);
+        List<Future<?>> escritores = new ArrayList<>();
+
+        try {
+            for (int e = 0; e < ESCRITORES; e++) {
+                var escritor = e;
+                escritores.add(executor.submit(() -> {
+                    for (int i = 0; i < TAREFAS_POR_ESCRITOR; i++) {
+                        gestor.adicionarTarefa(new Tarefa(escritor + "-" + i, null, INICIO.plusSeconds(i),
+                                Prioridade.MEDIA, Estado.PENDENTE));
+                        gestor.alterarEstado(escritor + "-" + i, Estado.EM_PROGRESSO);
+                        if (i >= JANELA) {
+                            gestor.removerTarefa(escritor + "-" + (i - JANELA));
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            var leituras = 0;
+            while (!escritores.stream().allMatch(Future::isDone)) {
+                var instantaneo = gestor.obterInstantaneo();
+                var tarefas = instantaneo.percorrerTarefas().toList();
+                verificarJanelas(tarefas.stream().map(Tarefa::getTitulo).toList());
+                assertEquals(tarefas.size(), instantaneo.contarTarefas());
+                assertEquals(tarefas.stream().filter(t -> t.getEstado() == Estado.PENDENTE).count(),
+                        instantaneo.contarTarefas(Estado.PENDENTE));
+
+                verificarJanelas(gestor.listarTarefas().stream().map(Tarefa::getTitulo).toList());
+                leituras++;
+            }
+            for (var escritor : escritores) {
+                escritor.get();
+            }
+            assertTrue(leituras > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        var titulos = gestor.listarTarefas().stream().map(Tarefa::getTitulo).toList();
+        assertEquals(ESCRITORES * JANELA, titulos.size());
+        verificarJanelas(titulos);
+        assertEquals(ESCRITORES * JANELA, gestor.obterInstantaneo().contarTarefas(Estado.EM_PROGRESSO));
+    }
+
+    /**
+     * Cada escritor acrescenta as suas tarefas por ordem e remove as mais
+     * antigas, pelo que, num instante, as suas tarefas são uma sequência
+     * contígua de, no máximo, {@code JANELA + 1} índices, pela ordem de inserção.
+     */
+    private static void verificarJanelas(List<String> titulos) {
+        var ultimo = new int[ESCRITORES];
+        var quantas = new int[ESCRITORES];
+        for (var titulo : titulos) {
+            var partes = titulo.split("-");
+            var escritor = Integer.parseInt(partes[0]);
+            var indice = Integer.parseInt(partes[1]);
+            if (quantas[escritor] > 0) {
+                assertEquals(ultimo[escritor] + 1, indice, "Tarefas de " + titulo);
+            }
+            ultimo[escritor] = indice;
+            quantas[escritor]++;
+        }
+        for (var quantidade : quantas) {
+            assertTrue(quantidade <= JANELA + 1, "Tarefas de um escritor: " + quantidade);
+        }
+    }
+}
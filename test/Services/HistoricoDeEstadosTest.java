@@ -0,0 +1,227 @@
+package Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Verifica o {@link HistoricoDeEstados}: a codificação dos registos e a
+ * compactação, comparadas com um modelo simples, e a preservação dos
+ * históricos em todos os armazéns e na reaplicação do diário.
+ */
+class HistoricoDeEstadosTest {
+
+    private static final Estado[] ESTADOS = Estado.values();
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final Random aleatorio = new Random(25L);
+    private Path pasta;
+    private int proxima;
+
+    @BeforeEach
+    void criarPasta() throws IOException {
+        pasta = Files.createTempDirectory("historico-de-estados");
+    }
+
+    @AfterEach
+    void apagarPasta() throws IOException {
+        try (var ficheiros = Files.walk(pasta)) {
+            for (var ficheiro : ficheiros.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(ficheiro);
+            }
+        }
+    }
+
+    @Test
+    void registosCoincidemComOModeloDepoisDeCompactar() {
+        Map<Tarefa, List<HistoricoDeTarefa.Transicao>> modelo = new LinkedHashMap<>();
+        var historico = new HistoricoDeEstados(modelo::keySet);
+        List<Tarefa> atuais = new ArrayList<>();
+        var instante = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+        // Tarefas removidas em quantidade suficiente para o histórico ser compactado várias vezes
+        for (int i = 0; i < 600_000; i++) {
+            // Intervalos de todas as grandezas, incluindo um relógio que recua
+            instante += switch (aleatorio.nextInt(4)) {
+                case 0 -> aleatorio.nextInt(10);
+                case 1 -> aleatorio.nextInt(100_000);
+                case 2 -> aleatorio.nextLong(1L << 40);
+                default -> -aleatorio.nextInt(1_000);
+            };
+            var agora = instante;
+
+            var operacao = aleatorio.nextInt(10);
+            if (operacao < 4 || atuais.isEmpty()) {
+                var tarefa = tarefa();
+                atuais.add(tarefa);
+                modelo.put(tarefa, new ArrayList<>());
+                historico.reporNoInstante(agora, () -> historico.tarefaAdicionada(tarefa));
+                registar(modelo.get(tarefa), tarefa.getEstado(), agora);
+            } else if (operacao < 7) {
+                var tarefa = atuais.get(aleatorio.nextInt(atuais.size()));
+                var novo = ESTADOS[aleatorio.nextInt(ESTADOS.length)];
+                historico.reporNoInstante(agora, () -> historico.estadoAlterado(tarefa, tarefa.getEstado(), novo));
+                registar(modelo.get(tarefa), novo, agora);
+            } else {
+                var tarefa = atuais.remove(aleatorio.nextInt(atuais.size()));
+                modelo.remove(tarefa);
+                historico.tarefaRemovida(tarefa);
+            }
+
+            if (i % 1_000 == 0) {
+                var tarefa = atuais.get(aleatorio.nextInt(atuais.size()));
+                assertEquals(modelo.get(tarefa), historico.historico(tarefa).getTransicoes());
+            }
+        }
+
+        assertTrue(historico.getGeracao() > 0, "O histórico nunca foi compactado.");
+        for (var tarefa : atuais) {
+            assertEquals(modelo.get(tarefa), historico.historico(tarefa).getTransicoes());
+        }
+    }
+
+    @Test
+    void capacidadeNuncaUltrapassaOMaximo() {
+        assertEquals(1 << 12, HistoricoDeEstados.capacidadePara(10));
+        assertEquals(1 << 29, HistoricoDeEstados.capacidadePara(2L * (1 << 28)));
+        assertEquals(Integer.MAX_VALUE - 8, HistoricoDeEstados.capacidadePara(2L * (1 << 30)));
+        assertEquals(Integer.MAX_VALUE - 8, HistoricoDeEstados.capacidadePara(2L * (Integer.MAX_VALUE - 8)));
+    }
+
+    @Test
+    void historicoEPreservadoEmTodosOsArmazens() throws Exception {
+        var gestor = new GestorDeTarefas();
+        alterarAoAcaso(gestor, 3_000);
+        var esperado = historicos(gestor);
+        assertTrue(esperado.values().stream().anyMatch(h -> h.size() > 2));
+
+        gestor.guardarEmXML(caminho("tarefas.xml"));
+        var xml = new GestorDeTarefas();
+        xml.carregarDeXML(caminho("tarefas.xml"));
+        assertEquals(esperado, historicos(xml));
+
+        gestor.guardarEmBinario(caminho("tarefas.bin"));
+        var binario = new GestorDeTarefas();
+        binario.carregarDeBinario(caminho("tarefas.bin"));
+        assertEquals(esperado, historicos(binario));
+
+        gestor.guardarEmArmazemMapeado(caminho("tarefas.map"));
+        var mapeado = new GestorDeTarefas();
+        mapeado.carregarDeArmazemMapeado(caminho("tarefas.map"));
+        assertEquals(esperado, historicos(mapeado));
+
+        gestor.guardarEmFragmentos(caminho("fragmentos"), 8);
+        var fragmentado = new GestorDeTarefas();
+        assertTrue(fragmentado.carregarDeFragmentos(caminho("fragmentos")).isEmpty());
+        assertEquals(esperado, historicos(fragmentado));
+
+        // As gravações seguintes só reescrevem os fragmentos alterados, com os respetivos históricos
+        alterarAoAcaso(gestor, 200);
+        gestor.guardarEmFragmentos(caminho("fragmentos"), 8);
+        fragmentado = new GestorDeTarefas();
+        fragmentado.carregarDeFragmentos(caminho("fragmentos"));
+        assertEquals(historicos(gestor), historicos(fragmentado));
+    }
+
+    @Test
+    void gravacaoAssincronaGravaOHistoricoDaVersaoPedida() throws Exception {
+        var gestor = new GestorDeTarefas();
+        alterarAoAcaso(gestor, 2_000);
+
+        // Vários pedidos agrupados, com alterações pelo meio
+        for (int i = 0; i < 20; i++) {
+            gestor.guardarEmXMLAssincrono(caminho("tarefas.xml"));
+            alterarAoAcaso(gestor, 100);
+        }
+        var pedido = gestor.guardarEmXMLAssincrono(caminho("tarefas.xml"));
+        var esperado = historicos(gestor);
+        pedido.get();
+
+        var carregado = new GestorDeTarefas();
+        carregado.carregarDeXML(caminho("tarefas.xml"));
+        assertEquals(esperado, historicos(carregado));
+    }
+
+    @Test
+    void diarioRepoeOsInstantesOriginais() throws Exception {
+        var snapshot = caminho("tarefas.xml");
+        var diario = caminho("tarefas.diario");
+
+        var gestor = new GestorDeTarefas();
+        gestor.ativarDiario(snapshot, diario);
+        alterarAoAcaso(gestor, 1_000);
+        gestor.criarSnapshot();
+
+        // Alterações só no diário, alguns milissegundos depois do snapshot
+        Thread.sleep(20);
+        alterarAoAcaso(gestor, 1_000);
+        var esperado = historicos(gestor);
+        gestor.desativarDiario();
+        assertFalse(esperado.isEmpty());
+
+        Thread.sleep(20);
+        var recuperado = new GestorDeTarefas();
+        recuperado.ativarDiario(snapshot, diario);
+        recuperado.desativarDiario();
+        assertEquals(esperado, historicos(recuperado));
+    }
+
+    /** Acrescenta ao modelo a entrada num estado, tal como o histórico a regista. */
+    private static void registar(List<HistoricoDeTarefa.Transicao> transicoes, Estado estado, long instante) {
+        var anterior = transicoes.isEmpty() ? 0 : transicoes.get(transicoes.size() - 1).instante().toEpochMilli();
+        transicoes.add(new HistoricoDeTarefa.Transicao(estado, Instant.ofEpochMilli(Math.max(anterior, instante))));
+    }
+
+    private void alterarAoAcaso(GestorDeTarefas gestor, int alteracoes) throws Exception {
+        for (int i = 0; i < alteracoes; i++) {
+            var tarefas = gestor.listarTarefas();
+            var operacao = aleatorio.nextInt(10);
+            if (operacao < 3 || tarefas.isEmpty()) {
+                gestor.adicionarTarefa(tarefa());
+            } else if (operacao < 9) {
+                var titulo = tarefas.get(aleatorio.nextInt(tarefas.size())).getTitulo();
+                gestor.alterarEstado(titulo, ESTADOS[aleatorio.nextInt(ESTADOS.length)]);
+            } else {
+                gestor.removerTarefa(tarefas.get(aleatorio.nextInt(tarefas.size())).getTitulo());
+            }
+        }
+    }
+
+    private Tarefa tarefa() {
+        return new Tarefa("T" + proxima++, "descrição", INICIO.plusSeconds(aleatorio.nextInt(1_000_000)),
+                Prioridade.values()[aleatorio.nextInt(3)], ESTADOS[aleatorio.nextInt(ESTADOS.length)]);
+    }
+
+    private static Map<String, List<HistoricoDeTarefa.Transicao>> historicos(GestorDeTarefas gestor)
+            throws Exception {
+        Map<String, List<HistoricoDeTarefa.Transicao>> historicos = new HashMap<>();
+        for (var tarefa : gestor.listarTarefas()) {
+            historicos.put(tarefa.getTitulo(), gestor.historicoDe(tarefa.getTitulo()).getTransicoes());
+        }
+        return historicos;
+    }
+
+    private String caminho(String nome) {
+        return pasta.resolve(nome).toString();
+    }
+}
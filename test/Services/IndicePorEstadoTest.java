@@ -0,0 +1,144 @@
+package Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Verifica o índice por estado e prioridade do {@link GestorDeTarefas}: a
+ * ordem de {@link GestorDeTarefas#listarPorEstado(Estado)} (agrupada por
+ * prioridade, e não pela ordem de inserção), as contagens e a regra de que
+ * uma tarefa só pertence a um gestor de cada vez, em todos os gestores.
+ */
+class IndicePorEstadoTest {
+
+    private static final Estado[] ESTADOS = Estado.values();
+    private static final Prioridade[] PRIORIDADES = Prioridade.values();
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final Random aleatorio = new Random(2L);
+
+    @Test
+    void listarPorEstadoAgrupaPorPrioridadeEPelaEntradaNoEstado() throws Exception {
+        var gestor = new GestorDeTarefas();
+
+        // Modelo: tarefas de cada estado e prioridade, pela ordem em que entraram no estado
+        Map<Estado, Map<Prioridade, List<String>>> esperado = new EnumMap<>(Estado.class);
+        for (var estado : ESTADOS) {
+            esperado.put(estado, new EnumMap<>(Prioridade.class));
+            for (var prioridade : PRIORIDADES) {
+                esperado.get(estado).put(prioridade, new ArrayList<>());
+            }
+        }
+        List<Tarefa> presentes = new ArrayList<>();
+
+        for (int i = 0; i < 5_000; i++) {
+            var operacao = aleatorio.nextInt(10);
+            if (operacao < 5 || presentes.isEmpty()) {
+                var tarefa = new Tarefa("T" + i, null, INICIO.plusMinutes(i),
+                        PRIORIDADES[aleatorio.nextInt(PRIORIDADES.length)], ESTADOS[aleatorio.nextInt(ESTADOS.length)]);
+                gestor.adicionarTarefa(tarefa);
+                presentes.add(tarefa);
+                esperado.get(tarefa.getEstado()).get(tarefa.getPrioridade()).add(tarefa.getTitulo());
+            } else if (operacao < 8) {
+                var tarefa = presentes.get(aleatorio.nextInt(presentes.size()));
+                var novo = ESTADOS[aleatorio.nextInt(ESTADOS.length)];
+                if (novo != tarefa.getEstado()) {
+                    esperado.get(tarefa.getEstado()).get(tarefa.getPrioridade()).remove(tarefa.getTitulo());
+                    esperado.get(novo).get(tarefa.getPrioridade()).add(tarefa.getTitulo());
+                }
+                // Metade das mudanças é feita diretamente na tarefa
+                if (aleatorio.nextBoolean()) {
+                    gestor.alterarEstado(tarefa.getTitulo(), novo);
+                } else {
+                    tarefa.setEstado(novo);
+                }
+            } else {
+                var tarefa = presentes.remove(aleatorio.nextInt(presentes.size()));
+                gestor.removerTarefa(tarefa.getTitulo());
+                esperado.get(tarefa.getEstado()).get(tarefa.getPrioridade()).remove(tarefa.getTitulo());
+            }
+        }
+
+        for (var estado : ESTADOS) {
+            List<String> titulos = new ArrayList<>();
+            for (var prioridade : PRIORIDADES) {
+                var grupo = esperado.get(estado).get(prioridade);
+                titulos.addAll(grupo);
+                assertEquals(grupo.size(), gestor.contarTarefas(estado, prioridade));
+            }
+            assertEquals(titulos, gestor.listarPorEstado(estado).stream().map(Tarefa::getTitulo).toList());
+            assertEquals(titulos, gestor.percorrerPorEstado(estado).map(Tarefa::getTitulo).toList());
+            assertEquals(titulos.size(), gestor.contarTarefas(estado));
+        }
+        assertEquals(presentes.size(), gestor.contarTarefas());
+    }
+
+    @Test
+    void tarefaDeOutroGestorERejeitadaAteSerRemovida() throws Exception {
+        var primeiro = new GestorDeTarefas();
+        var segundo = new GestorDeTarefas();
+        var tarefa = new Tarefa("Partilhada", null, INICIO, Prioridade.ALTA, Estado.PENDENTE);
+        primeiro.adicionarTarefa(tarefa);
+
+        assertThrows(IllegalArgumentException.class, () -> segundo.adicionarTarefa(tarefa));
+        assertEquals(1, segundo.adicionarTarefas(List.of(tarefa)).getFalhas().size());
+        assertEquals(0, segundo.contarTarefas());
+
+        // Depois de removida, a tarefa pode entrar noutro gestor, e só esse acompanha o seu estado
+        primeiro.removerTarefa("Partilhada");
+        segundo.adicionarTarefa(tarefa);
+        tarefa.setEstado(Estado.CONCLUIDA);
+
+        assertEquals(0, primeiro.contarTarefas(Estado.CONCLUIDA));
+        assertEquals(1, segundo.contarTarefas(Estado.CONCLUIDA, Prioridade.ALTA));
+        assertEquals(0, segundo.contarTarefas(Estado.PENDENTE));
+    }
+
+    @Test
+    void gestorConcorrenteRejeitaTarefaDeOutroGestor() throws Exception {
+        var primeiro = new GestorDeTarefas();
+        var concorrente = new GestorDeTarefasConcorrente();
+        var tarefa = new Tarefa("Partilhada", null, INICIO, Prioridade.BAIXA, Estado.PENDENTE);
+        primeiro.adicionarTarefa(tarefa);
+
+        assertThrows(IllegalArgumentException.class, () -> concorrente.adicionarTarefa(tarefa));
+        assertEquals(1, concorrente.adicionarTarefas(List.of(tarefa)).getFalhas().size());
+        assertEquals(0, concorrente.contarTarefas());
+
+        primeiro.removerTarefa("Partilhada");
+        concorrente.adicionarTarefa(tarefa);
+        tarefa.setEstado(Estado.EM_PROGRESSO);
+        assertEquals(1, concorrente.contarTarefas(Estado.EM_PROGRESSO, Prioridade.BAIXA));
+        assertThrows(IllegalArgumentException.class, () -> primeiro.adicionarTarefa(tarefa));
+    }
+
+    @Test
+    void gestorColunarRejeitaTarefaDeOutroGestor() throws Exception {
+        var primeiro = new GestorDeTarefas();
+        var colunar = new GestorDeTarefasColunar();
+        var tarefa = new Tarefa("Partilhada", null, INICIO, Prioridade.MEDIA, Estado.PENDENTE);
+        primeiro.adicionarTarefa(tarefa);
+
+        assertThrows(IllegalArgumentException.class, () -> colunar.adicionarTarefa(tarefa));
+        assertEquals(1, colunar.adicionarTarefas(List.of(tarefa)).getFalhas().size());
+        assertEquals(0, colunar.contarTarefas());
+
+        // O gestor colunar copia os valores: a tarefa original continua livre depois de removida
+        primeiro.removerTarefa("Partilhada");
+        colunar.adicionarTarefa(tarefa);
+        primeiro.adicionarTarefa(tarefa);
+        assertEquals(1, colunar.contarTarefas(Estado.PENDENTE, Prioridade.MEDIA));
+    }
+}
@@ -0,0 +1,149 @@
+package Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Compara as consultas por data de criação do {@link GestorDeTarefas} (ver
+ * {@link IndiceTemporal}) com uma passagem completa pelas tarefas.
+ */
+class IndiceTemporalTest {
+
+    private static final Estado[] ESTADOS = Estado.values();
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    /** Intervalo, em minutos, das datas de criação; pequeno, para haver datas repetidas. */
+    private static final int MINUTOS = 5_000;
+
+    private final Random aleatorio = new Random(14L);
+
+    @Test
+    void consultasCoincidemComUmaPassagemCompleta() throws Exception {
+        var gestor = new GestorDeTarefas();
+        for (int i = 0; i < 3_000; i++) {
+            gestor.adicionarTarefa(tarefaAleatoria("T" + i));
+        }
+        compararConsultas(gestor);
+
+        // Alterações depois de o índice existir
+        for (int i = 0; i < 1_500; i++) {
+            var titulo = "T" + aleatorio.nextInt(3_000);
+            try {
+                switch (aleatorio.nextInt(3)) {
+                    case 0 -> gestor.alterarEstado(titulo, ESTADOS[aleatorio.nextInt(ESTADOS.length)]);
+                    case 1 -> gestor.removerTarefa(titulo);
+                    default -> gestor.adicionarTarefa(tarefaAleatoria("N" + i));
+                }
+            } catch (Exception e) {
+                // Título já removido: a operação não altera nada
+            }
+        }
+        compararConsultas(gestor);
+
+        // Um carregamento substitui todas as tarefas e reconstrói o índice
+        var ficheiro = Files.createTempFile("indice-temporal", ".bin");
+        try {
+            var outro = new GestorDeTarefas();
+            for (int i = 0; i < 500; i++) {
+                outro.adicionarTarefa(tarefaAleatoria("C" + i));
+            }
+            outro.guardarEmBinario(ficheiro.toString());
+            gestor.carregarDeBinario(ficheiro.toString());
+        } finally {
+            Files.deleteIfExists(ficheiro);
+        }
+        assertEquals(500, gestor.contarTarefas());
+        compararConsultas(gestor);
+    }
+
+    @Test
+    void tarefasComAMesmaDataSaemPelaOrdemDeEntrada() {
+        var gestor = new GestorDeTarefas();
+        var data = INICIO.plusDays(1);
+        gestor.adicionarTarefa(new Tarefa("depois", null, data.plusSeconds(1), Prioridade.ALTA, Estado.PENDENTE));
+        for (var titulo : List.of("a", "b", "c")) {
+            gestor.adicionarTarefa(new Tarefa(titulo, null, data, Prioridade.MEDIA, Estado.PENDENTE));
+        }
+        gestor.adicionarTarefa(new Tarefa("sem data", null, null, Prioridade.BAIXA, Estado.PENDENTE));
+
+        assertEquals(List.of("a", "b", "c", "depois"), titulos(gestor.criadasDesde(Estado.PENDENTE, data)));
+        assertEquals(List.of("a", "b"), titulos(gestor.maisAntigas(null, 2)));
+        assertEquals(List.of(), titulos(gestor.criadasAntesDe(null, data)));
+        assertThrows(IllegalArgumentException.class, () -> gestor.maisAntigas(null, -1));
+    }
+
+    /** Compara as quatro consultas, em intervalos aleatórios, com a passagem completa. */
+    private void compararConsultas(GestorDeTarefas gestor) {
+        List<Estado> estados = new ArrayList<>(List.of(ESTADOS));
+        estados.add(null);
+
+        for (var estado : estados) {
+            for (int i = 0; i < 20; i++) {
+                var a = instanteAleatorio();
+                var b = instanteAleatorio();
+                var desde = a.isBefore(b) ? a : b;
+                var ate = a.isBefore(b) ? b : a;
+
+                comparar(passagem(gestor, estado, desde, ate), gestor.criadasEntre(estado, desde, ate));
+                comparar(passagem(gestor, estado, null, ate), gestor.criadasAntesDe(estado, ate));
+                comparar(passagem(gestor, estado, desde, null), gestor.criadasDesde(estado, desde));
+
+                // Com datas repetidas no limite, as tarefas escolhidas podem variar, mas as datas não
+                var quantidade = aleatorio.nextInt(50);
+                var todas = passagem(gestor, estado, null, null);
+                assertEquals(todas.stream().limit(quantidade).map(Tarefa::getDataCriacao).toList(),
+                        gestor.maisAntigas(estado, quantidade).map(Tarefa::getDataCriacao).toList());
+            }
+        }
+    }
+
+    /**
+     * Compara as datas, pela ordem, e as tarefas, como conjunto: entre
+     * estados diferentes, a ordem das tarefas com a mesma data não é
+     * especificada.
+     */
+    private static void comparar(List<Tarefa> esperadas, Stream<Tarefa> obtidas) {
+        var lista = obtidas.toList();
+        assertEquals(esperadas.stream().map(Tarefa::getDataCriacao).toList(),
+                lista.stream().map(Tarefa::getDataCriacao).toList());
+        assertEquals(esperadas.stream().map(Tarefa::getTitulo).sorted().toList(),
+                lista.stream().map(Tarefa::getTitulo).sorted().toList());
+    }
+
+    private static List<Tarefa> passagem(GestorDeTarefas gestor, Estado estado, LocalDateTime desde, LocalDateTime ate) {
+        return gestor.listarTarefas().stream()
+                .filter(t -> t.getDataCriacao() != null)
+                .filter(t -> estado == null || t.getEstado() == estado)
+                .filter(t -> desde == null || !t.getDataCriacao().isBefore(desde))
+                .filter(t -> ate == null || t.getDataCriacao().isBefore(ate))
+                .sorted(Comparator.comparing(Tarefa::getDataCriacao))
+                .toList();
+    }
+
+    private Tarefa tarefaAleatoria(String titulo) {
+        var data = aleatorio.nextInt(25) == 0 ? null : instanteAleatorio();
+        return new Tarefa(titulo, null, data, Prioridade.values()[aleatorio.nextInt(3)],
+                ESTADOS[aleatorio.nextInt(ESTADOS.length)]);
+    }
+
+    private LocalDateTime instanteAleatorio() {
+        return INICIO.plusMinutes(aleatorio.nextInt(MINUTOS));
+    }
+
+    private static List<String> titulos(Stream<Tarefa> tarefas) {
+        return tarefas.map(Tarefa::getTitulo).toList();
+    }
+}
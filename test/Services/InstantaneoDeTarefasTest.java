@@ -0,0 +1,102 @@
+package Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import Entities.Estado;
+import Entities.Prioridade;
+import Interfaces.IGestorDeTarefas;
+
+/**
+ * Verifica que um {@link InstantaneoDeTarefas} continua a mostrar as
+ * tarefas e os estados do instante em que foi obtido, depois de o gestor
+ * ser alterado (ver {@link VersoesDeTarefas}).
+ */
+class InstantaneoDeTarefasTest {
+
+    private static final Estado[] ESTADOS = Estado.values();
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final Random aleatorio = new Random(24L);
+    private int proxima;
+
+    /** Instantâneo e o que este tinha de mostrar quando foi obtido. */
+    private record Obtido(InstantaneoDeTarefas instantaneo, List<String> tarefas, int[] contagens) {
+    }
+
+    @Test
+    void instantaneosDoGestorNaoMudamComAsAlteracoesSeguintes() throws Exception {
+        var gestor = new GestorDeTarefas();
+        var obtidos = alterarEObter(gestor, gestor::obterInstantaneo);
+
+        // Um carregamento substitui todas as tarefas sem afetar os instantâneos anteriores
+        gestor.carregarDeXML("inexistente-" + System.nanoTime() + ".xml");
+        assertEquals(0, gestor.obterInstantaneo().contarTarefas());
+        verificar(obtidos);
+
+        // Sem alterações pelo meio, o instantâneo é reutilizado
+        assertSame(gestor.obterInstantaneo(), gestor.obterInstantaneo());
+    }
+
+    @Test
+    void instantaneosDoGestorConcorrenteNaoMudamComAsAlteracoesSeguintes() throws Exception {
+        var gestor = new GestorDeTarefasConcorrente();
+        verificar(alterarEObter(gestor, gestor::obterInstantaneo));
+    }
+
+    /** Faz alterações ao acaso, obtendo instantâneos pelo meio, e devolve-os com o conteúdo esperado. */
+    private List<Obtido> alterarEObter(IGestorDeTarefas gestor, Supplier<InstantaneoDeTarefas> obter)
+            throws Exception {
+        List<Obtido> obtidos = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            var tarefas = gestor.listarTarefas();
+            var operacao = aleatorio.nextInt(10);
+            if (operacao < 5 || tarefas.isEmpty()) {
+                gestor.adicionarTarefa(new Tarefa("T" + proxima++, null, INICIO.plusMinutes(i),
+                        Prioridade.values()[aleatorio.nextInt(3)], ESTADOS[aleatorio.nextInt(ESTADOS.length)]));
+            } else if (operacao < 7) {
+                // Metade das mudanças é feita diretamente na tarefa
+                var tarefa = tarefas.get(aleatorio.nextInt(tarefas.size()));
+                tarefa.setEstado(ESTADOS[aleatorio.nextInt(ESTADOS.length)]);
+            } else if (operacao < 9) {
+                var titulo = tarefas.get(aleatorio.nextInt(tarefas.size())).getTitulo();
+                gestor.alterarEstado(titulo, ESTADOS[aleatorio.nextInt(ESTADOS.length)]);
+            } else {
+                gestor.removerTarefa(tarefas.get(aleatorio.nextInt(tarefas.size())).getTitulo());
+            }
+
+            if (aleatorio.nextInt(500) == 0) {
+                var contagens = new int[ESTADOS.length];
+                for (var estado : ESTADOS) {
+                    contagens[estado.ordinal()] = gestor.contarTarefas(estado);
+                }
+                obtidos.add(new Obtido(obter.get(), descrever(gestor.listarTarefas().stream()), contagens));
+            }
+        }
+        return obtidos;
+    }
+
+    private static void verificar(List<Obtido> obtidos) {
+        for (var obtido : obtidos) {
+            var instantaneo = obtido.instantaneo();
+            assertEquals(obtido.tarefas(), descrever(instantaneo.percorrerTarefas()));
+            assertEquals(obtido.tarefas().size(), instantaneo.contarTarefas());
+            for (var estado : ESTADOS) {
+                assertEquals(obtido.contagens()[estado.ordinal()], instantaneo.contarTarefas(estado));
+            }
+        }
+    }
+
+    private static List<String> descrever(Stream<Tarefa> tarefas) {
+        return tarefas.map(t -> t.getTitulo() + "|" + t.getPrioridade() + "|" + t.getEstado()).toList();
+    }
+}
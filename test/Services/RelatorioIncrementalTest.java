@@ -0,0 +1,203 @@
+package Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Verifica que o relatório HTML regenerado de forma incremental (ver
+ * {@link RelatorioIncremental}) é idêntico ao produzido de raiz a partir dos
+ * grupos do gestor, e que o HTML guardado é descartado quando deixa de
+ * compensar.
+ */
+class RelatorioIncrementalTest {
+
+    private static final Estado[] ESTADOS = Estado.values();
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final Random aleatorio = new Random(10L);
+    private Path pasta;
+
+    @BeforeEach
+    void criarPasta() throws IOException {
+        pasta = Files.createTempDirectory("relatorio-incremental");
+    }
+
+    @AfterEach
+    void apagarPasta() throws IOException {
+        try (var ficheiros = Files.list(pasta)) {
+            for (var ficheiro : ficheiros.toList()) {
+                Files.delete(ficheiro);
+            }
+        }
+        Files.delete(pasta);
+    }
+
+    @Test
+    void alteracoesAleatoriasDaoOMesmoRelatorioQueUmaGeracaoDeRaiz() throws Exception {
+        var gestor = new GestorDeTarefas();
+        // Mais tarefas por grupo do que cabem num fragmento
+        for (int i = 0; i < 5_000; i++) {
+            gestor.adicionarTarefa(tarefa("T" + i, i));
+        }
+        var proxima = 5_000;
+
+        for (int ronda = 0; ronda < 15; ronda++) {
+            assertEquals(deRaiz(gestor), incremental(gestor), "Ronda " + ronda);
+
+            for (int i = aleatorio.nextInt(60); i >= 0; i--) {
+                var titulo = "T" + aleatorio.nextInt(proxima);
+                try {
+                    switch (aleatorio.nextInt(3)) {
+                        case 0 -> gestor.alterarEstado(titulo, ESTADOS[aleatorio.nextInt(ESTADOS.length)]);
+                        case 1 -> gestor.removerTarefa(titulo);
+                        default -> gestor.adicionarTarefa(tarefa("T" + proxima, proxima++));
+                    }
+                } catch (Exception e) {
+                    // Título já removido: a operação não altera nada
+                }
+            }
+        }
+
+        // Um carregamento substitui todas as tarefas e invalida todos os fragmentos
+        var binario = pasta.resolve("tarefas.bin").toString();
+        gestor.guardarEmBinario(binario);
+        gestor.removerTarefa(gestor.listarTarefas().get(0).getTitulo());
+        gestor.carregarDeBinario(binario);
+        assertEquals(deRaiz(gestor), incremental(gestor));
+    }
+
+    @Test
+    void tarefaQueVoltaAoMesmoEstadoPassaParaOFimDoGrupo() throws Exception {
+        var gestor = new GestorDeTarefas();
+        for (int i = 0; i < 3; i++) {
+            gestor.adicionarTarefa(new Tarefa("T" + i, "<b>" + i + "</b>", INICIO, Prioridade.ALTA, Estado.PENDENTE));
+        }
+        incremental(gestor);
+
+        gestor.alterarEstado("T0", Estado.CONCLUIDA);
+        gestor.alterarEstado("T0", Estado.PENDENTE);
+        var relatorio = incremental(gestor);
+
+        assertEquals(deRaiz(gestor), relatorio);
+        assertEquals(true, relatorio.indexOf("T1") < relatorio.indexOf("T0"));
+    }
+
+    @Test
+    void fragmentosSaoDescartadosQuandoAsAlteracoesExcedemAsTarefas() throws Exception {
+        Map<Estado, Map<Prioridade, Set<Tarefa>>> porEstado = new EnumMap<>(Estado.class);
+        for (var estado : ESTADOS) {
+            Map<Prioridade, Set<Tarefa>> porPrioridade = new EnumMap<>(Prioridade.class);
+            for (var prioridade : Prioridade.values()) {
+                porPrioridade.put(prioridade, new LinkedHashSet<>());
+            }
+            porEstado.put(estado, porPrioridade);
+        }
+        var tarefas = new Tarefa[10];
+        for (int i = 0; i < tarefas.length; i++) {
+            tarefas[i] = new Tarefa("T" + i, null, INICIO, Prioridade.MEDIA, Estado.PENDENTE);
+            porEstado.get(Estado.PENDENTE).get(Prioridade.MEDIA).add(tarefas[i]);
+        }
+
+        var relatorio = new RelatorioIncremental();
+        var ficheiro = pasta.resolve("relatorio.html");
+        relatorio.gerar(ficheiro, porEstado);
+
+        // Tantas alterações como tarefas ainda compensam; a seguinte já não
+        for (int i = 0; i <= tarefas.length; i++) {
+            assertFalse(relatorio.isAbandonado(), "Alteração " + i);
+            var tarefa = tarefas[i % tarefas.length];
+            var anterior = tarefa.getEstado();
+            var novo = anterior == Estado.PENDENTE ? Estado.CONCLUIDA : Estado.PENDENTE;
+            porEstado.get(anterior).get(Prioridade.MEDIA).remove(tarefa);
+            tarefa.setEstado(novo);
+            porEstado.get(novo).get(Prioridade.MEDIA).add(tarefa);
+            relatorio.estadoAlterado(tarefa, anterior, novo);
+        }
+        assertTrue(relatorio.isAbandonado());
+
+        // Uma nova geração reconstrói os fragmentos de raiz
+        relatorio.gerar(ficheiro, porEstado);
+        assertFalse(relatorio.isAbandonado());
+        var gestor = new GestorDeTarefas();
+        for (var estado : ESTADOS) {
+            for (var tarefa : porEstado.get(estado).get(Prioridade.MEDIA)) {
+                gestor.adicionarTarefa(new Tarefa(tarefa.getTitulo(), null, INICIO, Prioridade.MEDIA, estado));
+            }
+        }
+        assertEquals(deRaiz(gestor), semDataDeGeracao(Files.readString(ficheiro)));
+    }
+
+    @Test
+    void relatorioDescartadoVoltaASerGeradoDeRaiz() throws Exception {
+        var gestor = new GestorDeTarefas();
+        for (int i = 0; i < 500; i++) {
+            gestor.adicionarTarefa(tarefa("T" + i, i));
+        }
+        incremental(gestor);
+
+        // Mais alterações do que tarefas: o relatório descarta-se sozinho
+        for (int i = 0; i < 2_000; i++) {
+            gestor.alterarEstado("T" + aleatorio.nextInt(500), ESTADOS[aleatorio.nextInt(ESTADOS.length)]);
+        }
+        assertEquals(deRaiz(gestor), incremental(gestor));
+
+        gestor.alterarEstado("T7", Estado.CONCLUIDA);
+        gestor.descartarRelatorioIncremental();
+        gestor.alterarEstado("T8", Estado.EM_PROGRESSO);
+        assertEquals(deRaiz(gestor), incremental(gestor));
+        assertEquals(deRaiz(gestor), incremental(gestor));
+    }
+
+    /** Gera o relatório através do gestor (de forma incremental a partir da segunda vez). */
+    private String incremental(GestorDeTarefas gestor) throws IOException {
+        var ficheiro = pasta.resolve("relatorio.html");
+        gestor.gerarRelatorioHTML(ficheiro.toString());
+        return semDataDeGeracao(Files.readString(ficheiro));
+    }
+
+    /** Gera o relatório de raiz, percorrendo os grupos de cada estado. */
+    private static String deRaiz(GestorDeTarefas gestor) throws IOException {
+        var saida = new ByteArrayOutputStream();
+        try (var relatorio = new RelatorioHTML(saida)) {
+            relatorio.cabecalho(INICIO);
+            for (var estado : ESTADOS) {
+                var tarefas = gestor.percorrerPorEstado(estado).toList();
+                relatorio.inicioSeccao(estado, tarefas.isEmpty());
+                for (var tarefa : tarefas) {
+                    relatorio.linha(tarefa);
+                }
+            }
+            relatorio.rodape();
+        }
+        return semDataDeGeracao(saida.toString(StandardCharsets.UTF_8));
+    }
+
+    private static String semDataDeGeracao(String relatorio) {
+        return relatorio.replaceFirst("<p>Gerado em: [^<]*</p>", "");
+    }
+
+    private Tarefa tarefa(String titulo, int i) {
+        return new Tarefa(titulo, "descrição " + i % 13, INICIO.plusMinutes(i),
+                Prioridade.values()[aleatorio.nextInt(3)], ESTADOS[aleatorio.nextInt(ESTADOS.length)]);
+    }
+}
@@ -0,0 +1,140 @@
+package Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import Entities.Estado;
+import Entities.Prioridade;
+
+/**
+ * Verifica o snapshot binário (ver {@link EscritorBinarioDeTarefas}): a ida
+ * e volta das tarefas, a conversão de e para XML e a substituição atómica
+ * do ficheiro quando a gravação falha.
+ */
+class SnapshotBinarioTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final Random aleatorio = new Random(7L);
+    private Path pasta;
+
+    @BeforeEach
+    void criarPasta() throws IOException {
+        pasta = Files.createTempDirectory("snapshot-binario");
+    }
+
+    @AfterEach
+    void apagarPasta() throws IOException {
+        try (var ficheiros = Files.list(pasta)) {
+            for (var ficheiro : ficheiros.toList()) {
+                Files.delete(ficheiro);
+            }
+        }
+        Files.delete(pasta);
+    }
+
+    @Test
+    void idaEVoltaPreservaTodosOsCampos() throws Exception {
+        var gestor = new GestorDeTarefas();
+        for (int i = 0; i < 2_000; i++) {
+            gestor.adicionarTarefa(tarefaAleatoria("T" + i, true));
+        }
+        // Uma descrição maior do que o buffer do escritor e do leitor
+        gestor.adicionarTarefa(new Tarefa("Longa", "ção".repeat(600_000), null, Prioridade.BAIXA, Estado.CONCLUIDA));
+
+        var ficheiro = pasta.resolve("tarefas.bin").toString();
+        gestor.guardarEmBinario(ficheiro);
+        var carregado = new GestorDeTarefas();
+        carregado.carregarDeBinario(ficheiro);
+
+        assertEquals(descrever(gestor), descrever(carregado));
+    }
+
+    @Test
+    void conversoesCoincidemComOsCarregamentosDiretos() throws Exception {
+        var gestor = new GestorDeTarefas();
+        for (int i = 0; i < 2_000; i++) {
+            gestor.adicionarTarefa(tarefaAleatoria("T" + i, false));
+        }
+        var xml = pasta.resolve("tarefas.xml").toString();
+        var binario = pasta.resolve("convertido.bin").toString();
+        var deVolta = pasta.resolve("convertido.xml").toString();
+        gestor.guardarEmXML(xml);
+
+        GestorDeTarefas.converterXMLParaBinario(xml, binario);
+        var doXML = new GestorDeTarefas();
+        doXML.carregarDeXML(xml);
+        var doBinario = new GestorDeTarefas();
+        doBinario.carregarDeBinario(binario);
+        assertEquals(descrever(doXML), descrever(doBinario));
+
+        GestorDeTarefas.converterBinarioParaXML(binario, deVolta);
+        var convertido = new GestorDeTarefas();
+        convertido.carregarDeXML(deVolta);
+        assertEquals(descrever(doXML), descrever(convertido));
+    }
+
+    @Test
+    void gravacaoInterrompidaMantemOSnapshotAnterior() throws Exception {
+        var gestor = new GestorDeTarefas();
+        for (int i = 0; i < 100; i++) {
+            gestor.adicionarTarefa(tarefaAleatoria("T" + i, true));
+        }
+        var ficheiro = pasta.resolve("tarefas.bin").toString();
+        gestor.guardarEmBinario(ficheiro);
+        var anterior = descrever(gestor);
+
+        // A gravação seguinte falha a meio, ao ler a descrição de uma das tarefas
+        gestor.adicionarTarefa(new Tarefa("Avariada", null, INICIO, Prioridade.ALTA, Estado.PENDENTE) {
+            @Override
+            public String getDescricao() {
+                throw new IllegalStateException("Falha simulada.");
+            }
+        });
+        assertThrows(IllegalStateException.class, () -> gestor.guardarEmBinario(ficheiro));
+
+        var carregado = new GestorDeTarefas();
+        carregado.carregarDeBinario(ficheiro);
+        assertEquals(anterior, descrever(carregado));
+        try (var ficheiros = Files.list(pasta)) {
+            assertEquals(List.of("tarefas.bin", "tarefas.bin.historico"),
+                    ficheiros.map(f -> f.getFileName().toString()).sorted().toList());
+        }
+    }
+
+    private Tarefa tarefaAleatoria(String titulo, boolean comNanos) {
+        var data = aleatorio.nextInt(10) == 0 ? null : INICIO.plusSeconds(aleatorio.nextInt(10_000_000));
+        if (data != null && comNanos) {
+            data = data.withNano(aleatorio.nextInt(1_000_000_000));
+        }
+        var descricao = switch (aleatorio.nextInt(4)) {
+            case 0 -> null;
+            case 1 -> "";
+            case 2 -> "Relatório <mensal> & \"anual\" " + aleatorio.nextInt(100);
+            default -> "descrição " + aleatorio.nextInt(1_000);
+        };
+        return new Tarefa(titulo, descricao, data, Prioridade.values()[aleatorio.nextInt(3)],
+                Estado.values()[aleatorio.nextInt(3)]);
+    }
+
+    private static List<String> descrever(GestorDeTarefas gestor) {
+        List<String> descricoes = new ArrayList<>();
+        for (var tarefa : gestor.listarTarefas()) {
+            descricoes.add(tarefa.getTitulo() + "|" + tarefa.getDescricao() + "|" + tarefa.getDataCriacao() + "|"
+                    + tarefa.getPrioridade() + "|" + tarefa.getEstado());
+        }
+        return descricoes;
+    }
+}